@@ -0,0 +1,25 @@
+package com.inqwise.difference;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Compares a {@link java.util.List} property of a {@link Diffable} type element by element, matching the
+ * elements by the value of a key property instead of replacing the whole list. Removed elements produce
+ * "remove" operations, new elements "add" operations and matched elements are compared in place.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.RECORD_COMPONENT})
+public @interface ArrayKey {
+
+    /**
+     * The name of the key property of the list elements: a record component, a getter name or a property name.
+     *
+     * @return the key property name.
+     */
+    String value();
+}
@@ -0,0 +1,518 @@
+package com.inqwise.difference;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.IndexedListSerializer;
+import com.fasterxml.jackson.databind.ser.std.CollectionSerializer;
+import com.fasterxml.jackson.databind.ser.std.MapSerializer;
+import com.fasterxml.jackson.databind.ser.std.ObjectArraySerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.base.Preconditions;
+
+/**
+ * Computes the differences between two Java objects by walking their properties directly, instead of
+ * converting both objects into {@link JsonNode} trees first.
+ *
+ * <p>Property names, order and values follow the {@link ObjectMapper} used by {@link Differences}: the walk is
+ * driven by the properties of the Jackson {@link BeanSerializer} of each class, read through
+ * {@link MethodHandle}s cached per class (records are supported like any other bean). Values are compared
+ * in place; a {@link JsonNode} is created only for values that end up in a difference, or where the
+ * serialized form cannot be predicted from the Java value (custom serializers, formats, polymorphic types,
+ * unknown classes), in which case that subtree is converted and diffed by {@link JsonDiff}.
+ *
+ * <p>The result is the same patch {@link JsonDiff} produces for the converted trees, including silent
+ * fields, composite fields and the configured {@link DiffFlags}.
+ */
+final class BeanDiffer {
+
+    private static final Set<Class<?>> VALUE_TYPES = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class, UUID.class);
+
+    /** Property annotations resolved by contextual serializers, which the walk cannot follow. */
+    private static final List<Class<? extends Annotation>> CONTEXTUAL_ANNOTATIONS = List.of(JsonFormat.class, JsonInclude.class,
+            JsonIgnoreProperties.class, JsonIncludeProperties.class, JsonSerialize.class, JsonTypeInfo.class, JsonRawValue.class);
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, Kind> kinds = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Property[]> properties = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a differ that follows the serialization of the given mapper.
+     *
+     * @param mapper the mapper whose serialization defines the compared trees.
+     */
+    BeanDiffer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns whether the two objects can be compared by walking their properties.
+     *
+     * @param obj1 the first object.
+     * @param obj2 the second object.
+     * @return {@code true} if both objects are beans of the same class.
+     */
+    boolean supports(Object obj1, Object obj2) {
+        return obj1 != null && obj2 != null && obj1.getClass() == obj2.getClass() && kind(obj1.getClass()) == Kind.BEAN;
+    }
+
+    /**
+     * Computes the differences between two objects of the same bean class.
+     *
+     * @param obj1         the first object.
+     * @param obj2         the second object.
+     * @param silent       the silent fields at the objects.
+     * @param jsonDiff     the differ holding the flags and composite objects, used for the values compared as trees.
+     * @param comparators  the generated comparators used to skip equal beans, or {@code null}.
+     * @return the differences.
+     * @throws IllegalArgumentException if the flags allow COPY operations, which require the complete trees.
+     */
+    Diffs compare(Object obj1, Object obj2, SilentFields silent, JsonDiff jsonDiff, GeneratedComparators comparators) {
+        Preconditions.checkArgument(jsonDiff.hasFlag(DiffFlags.OMIT_COPY_OPERATION), "COPY operations are not supported");
+        Walk walk = new Walk(jsonDiff, comparators);
+        walk.diff(JsonPointer.ROOT, obj1, obj2, silent);
+        return jsonDiff.toDiffs(null, null, walk.diffs);
+    }
+
+    /**
+     * The way a class is serialized.
+     */
+    enum Kind {
+        /** A scalar whose equality implies an equal serialized form. */
+        VALUE,
+        /** A plain bean serialized property by property. */
+        BEAN,
+        /** A map with string keys serialized as an object. */
+        MAP,
+        /** A collection or object array serialized as an array. */
+        ARRAY,
+        /** Anything else; compared through its serialized tree. */
+        OTHER
+    }
+
+    /**
+     * Returns the way instances of the given class are serialized.
+     *
+     * @param type the class.
+     * @return the kind of the class.
+     */
+    Kind kind(Class<?> type) {
+        return kinds.computeIfAbsent(type, this::resolveKind);
+    }
+
+    /**
+     * Returns the properties of a bean class, in serialization order.
+     *
+     * @param type a class of kind {@link Kind#BEAN}.
+     * @return the properties.
+     */
+    Property[] properties(Class<?> type) {
+        return properties.get(type);
+    }
+
+    private Kind resolveKind(Class<?> type) {
+        if (VALUE_TYPES.contains(type) || type.isEnum()) {
+            return Kind.VALUE;
+        }
+        try {
+            SerializationConfig config = mapper.getSerializationConfig();
+            JavaType javaType = mapper.constructType(type);
+            if (mapper.getSerializerFactory().createTypeSerializer(config, javaType) != null) {
+                return Kind.OTHER;
+            }
+            JsonSerializer<Object> serializer = mapper.getSerializerProviderInstance().findValueSerializer(type);
+            if (serializer.getClass() == MapSerializer.class && !config.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)) {
+                return Kind.MAP;
+            }
+            if (serializer.getClass() == CollectionSerializer.class || serializer.getClass() == IndexedListSerializer.class
+                    || serializer.getClass() == ObjectArraySerializer.class) {
+                return Kind.ARRAY;
+            }
+            if (serializer.getClass() == BeanSerializer.class && !serializer.usesObjectId()) {
+                Property[] resolved = resolveProperties(type, (BeanSerializer) serializer);
+                if (resolved != null) {
+                    properties.put(type, resolved);
+                    return Kind.BEAN;
+                }
+            }
+        } catch (JsonMappingException | RuntimeException e) {
+            // Not introspectable; compared through its serialized tree
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * Builds the property accessors of a bean class, or returns {@code null} if the class is not serialized
+     * as a plain sequence of its properties.
+     */
+    private Property[] resolveProperties(Class<?> type, BeanSerializer serializer) {
+        SerializationConfig config = mapper.getSerializationConfig();
+        BeanDescription description = config.introspect(mapper.constructType(type));
+        AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+        if (description.findAnyGetter() != null || introspector.findFilterId(description.getClassInfo()) != null
+                || !isAlwaysIncluded(description.findPropertyInclusion(config.getDefaultPropertyInclusion()))) {
+            return null;
+        }
+
+        List<Property> resolved = new ArrayList<>();
+        Iterator<PropertyWriter> writers = serializer.properties();
+        while (writers.hasNext()) {
+            PropertyWriter writer = writers.next();
+            if (writer.getClass() != BeanPropertyWriter.class) {
+                return null;
+            }
+            BeanPropertyWriter property = (BeanPropertyWriter) writer;
+            if (property.willSuppressNulls() || property.getViews() != null) {
+                return null;
+            }
+            boolean opaque = property.hasSerializer() || property.getTypeSerializer() != null
+                    || property.getSerializationType() != null || hasContextualAnnotation(property.getMember());
+            MethodHandle getter = getter(property.getMember().getMember());
+            if (getter == null) {
+                return null;
+            }
+            resolved.add(new Property(property.getName(), getter, opaque ? property : null));
+        }
+        return resolved.toArray(new Property[0]);
+    }
+
+    /**
+     * Returns whether the member carries annotations that change how its value is serialized.
+     */
+    private static boolean hasContextualAnnotation(AnnotatedMember member) {
+        for (Class<? extends Annotation> annotation : CONTEXTUAL_ANNOTATIONS) {
+            if (member.hasAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAlwaysIncluded(JsonInclude.Value inclusion) {
+        return inclusion == null || (isAlways(inclusion.getValueInclusion()) && isAlways(inclusion.getContentInclusion()));
+    }
+
+    private static boolean isAlways(JsonInclude.Include include) {
+        return include == JsonInclude.Include.ALWAYS || include == JsonInclude.Include.USE_DEFAULTS;
+    }
+
+    private static MethodHandle getter(Member member) {
+        try {
+            if (member instanceof AccessibleObject accessible && !accessible.trySetAccessible()) {
+                return null;
+            }
+            MethodHandle handle;
+            if (member instanceof Method method) {
+                handle = MethodHandles.lookup().unreflect(method);
+            } else if (member instanceof Field field) {
+                handle = MethodHandles.lookup().unreflectGetter(field);
+            } else {
+                return null;
+            }
+            return handle;
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A bean property and its cached accessor.
+     */
+    static final class Property {
+        final String name;
+        /** The accessor, with the declared parameter and return types of the member. */
+        final MethodHandle accessor;
+        /** The accessor, adapted to {@code (Object)Object}. */
+        final MethodHandle getter;
+        /** The property writer, set if the property has its own serialization settings. */
+        final BeanPropertyWriter writer;
+
+        Property(String name, MethodHandle accessor, BeanPropertyWriter writer) {
+            this.name = name;
+            this.accessor = accessor;
+            this.getter = accessor.asType(MethodType.methodType(Object.class, Object.class));
+            this.writer = writer;
+        }
+
+        Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Failed to read property '" + name + "'", e);
+            }
+        }
+    }
+
+    /**
+     * A single comparison, collecting the differences found.
+     */
+    private final class Walk {
+        private final JsonDiff jsonDiff;
+        private final GeneratedComparators comparators;
+        private final List<Diff> diffs = new ArrayList<>();
+
+        Walk(JsonDiff jsonDiff, GeneratedComparators comparators) {
+            this.jsonDiff = jsonDiff;
+            this.comparators = comparators;
+        }
+
+        /**
+         * Appends the differences between two values at the given path.
+         */
+        void diff(JsonPointer path, Object a, Object b, SilentFields silent) {
+            if (a == b) {
+                return;
+            }
+            if (a == null || b == null || jsonDiff.isComposite(path, false)) {
+                if (!equal(a, b, silent, comparators)) {
+                    diffs.addAll(jsonDiff.generateDiffs(path, tree(a), tree(b), silent));
+                }
+                return;
+            }
+            Kind kind = a.getClass() == b.getClass() ? kind(a.getClass()) : Kind.OTHER;
+            switch (kind) {
+                case VALUE:
+                    if (!a.equals(b)) {
+                        diffs.addAll(jsonDiff.generateDiffs(path, tree(a), tree(b), silent));
+                    }
+                    break;
+                case BEAN:
+                    if (comparators != null && comparators.equal(a, b, silent)) {
+                        break;
+                    }
+                    for (Property property : properties.get(a.getClass())) {
+                        if (silent.isSilent(property.name)) {
+                            continue;
+                        }
+                        JsonPointer childPath = path.append(property.name);
+                        SilentFields childSilent = silent.child(property.name);
+                        if (property.writer != null) {
+                            diffs.addAll(jsonDiff.generateDiffs(childPath, tree(a, property), tree(b, property), childSilent));
+                        } else {
+                            diff(childPath, property.get(a), property.get(b), childSilent);
+                        }
+                    }
+                    break;
+                case MAP:
+                    if (hasStringKeys((Map<?, ?>) a) && hasStringKeys((Map<?, ?>) b)) {
+                        diffMaps(path, (Map<?, ?>) a, (Map<?, ?>) b, silent);
+                    } else {
+                        diffs.addAll(jsonDiff.generateDiffs(path, tree(a), tree(b), silent));
+                    }
+                    break;
+                case ARRAY:
+                    if (jsonDiff.hasFlag(DiffFlags.OMIT_COMPOSITE_ARRAY)) {
+                        if (!equal(a, b, silent, comparators)) {
+                            diffs.addAll(jsonDiff.generateDiffs(path, tree(a), tree(b), silent));
+                        }
+                        break;
+                    }
+                    // fall through: element-wise array diffs are computed on the trees
+                default:
+                    diffs.addAll(jsonDiff.generateDiffs(path, tree(a), tree(b), silent));
+                    break;
+            }
+        }
+
+        /**
+         * Appends the differences between two maps, in the order {@link JsonDiff} compares objects.
+         */
+        private void diffMaps(JsonPointer path, Map<?, ?> a, Map<?, ?> b, SilentFields silent) {
+            for (Map.Entry<?, ?> entry : a.entrySet()) {
+                String name = (String) entry.getKey();
+                if (silent.isSilent(name)) {
+                    continue;
+                }
+                JsonPointer childPath = path.append(name);
+                SilentFields childSilent = silent.child(name);
+                if (!b.containsKey(name)) {
+                    if (jsonDiff.hasFlag(DiffFlags.EMIT_TEST_OPERATIONS)) {
+                        diffs.add(new Diff(Operation.TEST, childPath, childSilent.filter(tree(entry.getValue()))));
+                    }
+                    diffs.add(Diff.generateDiff(Operation.REMOVE, childPath, childSilent.filter(tree(entry.getValue()))));
+                } else {
+                    diff(childPath, entry.getValue(), b.get(name), childSilent);
+                }
+            }
+            for (Map.Entry<?, ?> entry : b.entrySet()) {
+                String name = (String) entry.getKey();
+                if (!a.containsKey(name) && !silent.isSilent(name)) {
+                    diffs.add(Diff.generateDiff(Operation.ADD, path.append(name), silent.child(name).filter(tree(entry.getValue()))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether two values serialize to equal trees, once silent fields are removed. A {@code false}
+     * result is not conclusive for values of different classes, which are only compared by their trees.
+     *
+     * @param a           the first value.
+     * @param b           the second value.
+     * @param silent      the silent field patterns positioned at the values.
+     * @param comparators the generated comparators used for beans, or {@code null}.
+     * @return {@code true} if the values are equal.
+     */
+    boolean equal(Object a, Object b, SilentFields silent, GeneratedComparators comparators) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        Kind kind = a.getClass() == b.getClass() ? kind(a.getClass()) : Kind.OTHER;
+        switch (kind) {
+            case VALUE:
+                return a.equals(b) || silent.equivalent(tree(a), tree(b));
+            case BEAN:
+                if (comparators != null) {
+                    return comparators.equal(a, b, silent);
+                }
+                for (Property property : properties.get(a.getClass())) {
+                    if (silent.isSilent(property.name)) {
+                        continue;
+                    }
+                    SilentFields childSilent = silent.child(property.name);
+                    boolean equal = property.writer != null
+                            ? propertyEqual(a, b, property, childSilent)
+                            : equal(property.get(a), property.get(b), childSilent, comparators);
+                    if (!equal) {
+                        return false;
+                    }
+                }
+                return true;
+            case MAP:
+                Map<?, ?> m1 = (Map<?, ?>) a;
+                Map<?, ?> m2 = (Map<?, ?>) b;
+                if (!hasStringKeys(m1) || !hasStringKeys(m2)) {
+                    return silent.equivalent(tree(a), tree(b));
+                }
+                for (Map.Entry<?, ?> entry : m1.entrySet()) {
+                    String name = (String) entry.getKey();
+                    if (!silent.isSilent(name)
+                            && (!m2.containsKey(name) || !equal(entry.getValue(), m2.get(name), silent.child(name), comparators))) {
+                        return false;
+                    }
+                }
+                for (Object name : m2.keySet()) {
+                    if (!m1.containsKey(name) && !silent.isSilent((String) name)) {
+                        return false;
+                    }
+                }
+                return true;
+            case ARRAY:
+                List<?> l1 = asList(a);
+                List<?> l2 = asList(b);
+                if (l1.size() != l2.size()) {
+                    return false;
+                }
+                SilentFields elementSilent = silent.element();
+                Iterator<?> i1 = l1.iterator();
+                Iterator<?> i2 = l2.iterator();
+                while (i1.hasNext()) {
+                    if (!equal(i1.next(), i2.next(), elementSilent, comparators)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return silent.equivalent(tree(a), tree(b));
+        }
+    }
+
+    /**
+     * Returns whether a property with its own serialization settings serializes to equal trees on both beans.
+     *
+     * @param a        the first bean.
+     * @param b        the second bean.
+     * @param property the property.
+     * @param silent   the silent field patterns positioned at the property value.
+     * @return {@code true} if the property values are equal.
+     */
+    boolean propertyEqual(Object a, Object b, Property property, SilentFields silent) {
+        return silent.equivalent(tree(a, property), tree(b, property));
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<?> asList(Object value) {
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        return Arrays.asList((Object[]) value);
+    }
+
+    /**
+     * Converts a value into a tree.
+     */
+    private JsonNode tree(Object value) {
+        if (value == null) {
+            return NullNode.getInstance();
+        }
+        return mapper.valueToTree(value);
+    }
+
+    /**
+     * Converts a property value into a tree using the property's own serialization settings.
+     */
+    private JsonNode tree(Object bean, Property property) {
+        try (TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            SerializerProvider provider = mapper.getSerializerProviderInstance();
+            property.writer.serializeAsElement(bean, buffer, provider);
+            return mapper.readTree(buffer.asParser());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Error converting property '" + property.name + "' to JsonNode", e);
+        }
+    }
+}
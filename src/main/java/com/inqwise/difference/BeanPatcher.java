@@ -0,0 +1,399 @@
+package com.inqwise.difference;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonMerge;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedConstructor;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Applies a JSON Patch to a Java bean directly, instead of converting the bean into a {@link JsonNode} tree,
+ * patching the tree and reading the bean back from it.
+ *
+ * <p>The bean is patched copy-on-write: the root and every bean or map on the path of an operation are
+ * copied once, through property accessors cached per class, and only the patched properties are read from
+ * the patch values, with the property's own deserializer. Everything else is shared with the original
+ * object, which is left untouched.
+ *
+ * <p>Only {@code add} and {@code replace} of bean properties and {@code add}, {@code replace} and
+ * {@code remove} of string-keyed map entries are applied this way, on beans whose serialized properties can
+ * all be set back. For any other operation or class, {@link #apply(JsonNode, Object)} returns {@code null}
+ * and the caller falls back to patching the tree.
+ */
+final class BeanPatcher {
+
+    /** Deserialization annotations that make a property value depend on more than its declared type. */
+    private static final List<Class<? extends Annotation>> CONTEXTUAL_ANNOTATIONS = List.of(JsonDeserialize.class,
+            JsonFormat.class, JsonTypeInfo.class, JsonMerge.class, JsonSetter.class);
+
+    private final ObjectMapper mapper;
+    private final BeanDiffer beanDiffer;
+    private final Map<Class<?>, Optional<Bean>> beans = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a patcher that follows the serialization and deserialization of the given mapper.
+     *
+     * @param mapper     the mapper whose trees define the patched paths.
+     * @param beanDiffer the differ holding the serialized properties of each class.
+     */
+    BeanPatcher(ObjectMapper mapper, BeanDiffer beanDiffer) {
+        this.mapper = mapper;
+        this.beanDiffer = beanDiffer;
+    }
+
+    /**
+     * Applies a patch to a copy of a bean.
+     *
+     * @param <T>   the type of the bean.
+     * @param patch the JSON Patch.
+     * @param obj   the bean, which is not modified.
+     * @return the patched copy, or {@code null} if the patch cannot be applied to the bean directly.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T apply(JsonNode patch, T obj) {
+        if (bean(obj.getClass()) == null) {
+            return null;
+        }
+        Application application = new Application();
+        Object root = application.copy(obj, mapper.constructType(obj.getClass()));
+        try {
+            for (JsonNode operation : patch) {
+                if (!application.apply(root, operation)) {
+                    return null;
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Left to the tree route, which reports the failure against the patch
+            return null;
+        }
+        return (T) root;
+    }
+
+    /**
+     * Returns the accessors of a patchable bean class.
+     *
+     * @param type the class.
+     * @return the bean, or {@code null} if instances cannot be copied and patched property by property.
+     */
+    private Bean bean(Class<?> type) {
+        return beans.computeIfAbsent(type, t -> Optional.ofNullable(resolveBean(t))).orElse(null);
+    }
+
+    private Bean resolveBean(Class<?> type) {
+        if (beanDiffer.kind(type) != BeanDiffer.Kind.BEAN || type.isRecord() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            DeserializationConfig config = mapper.getDeserializationConfig();
+            JavaType javaType = mapper.constructType(type);
+            BeanDescription description = config.introspect(javaType);
+            AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+            if (Boolean.TRUE.equals(config.getDefaultMergeable()) || introspector.findDeserializer(description.getClassInfo()) != null
+                    || introspector.findPOJOBuilder(description.getClassInfo()) != null || hasCreator(config, description)) {
+                return null;
+            }
+            MethodHandle constructor = constructor(description.findDefaultConstructor());
+            if (constructor == null) {
+                return null;
+            }
+
+            Map<String, BeanPropertyDefinition> definitions = new HashMap<>();
+            for (BeanPropertyDefinition definition : description.findProperties()) {
+                definitions.put(definition.getName(), definition);
+            }
+            Map<String, Property> properties = new LinkedHashMap<>();
+            for (BeanDiffer.Property serialized : beanDiffer.properties(type)) {
+                BeanPropertyDefinition definition = definitions.get(serialized.name);
+                if (definition == null || definition.getMetadata().getMergeInfo() != null) {
+                    return null;
+                }
+                AnnotatedMember mutator = definition.getMutator();
+                MethodHandle setter = mutator == null ? null : setter(mutator.getMember());
+                if (setter == null || setter.type().parameterType(1) != serialized.accessor.type().returnType()) {
+                    return null;
+                }
+                JavaType propertyType = mutator instanceof AnnotatedMethod method ? method.getParameterType(0) : mutator.getType();
+                boolean contextual = serialized.writer != null || hasContextualAnnotation(definition);
+                properties.put(serialized.name, new Property(serialized, setter, propertyType, !contextual));
+            }
+            return new Bean(constructor, properties, mapper.readerFor(javaType));
+        } catch (RuntimeException e) {
+            // Not introspectable; patched through its tree
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the class declares a creator, which Jackson uses instead of the default constructor.
+     */
+    private static boolean hasCreator(DeserializationConfig config, BeanDescription description) {
+        AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+        for (AnnotatedConstructor constructor : description.getConstructors()) {
+            if (introspector.findCreatorAnnotation(config, constructor) != null) {
+                return true;
+            }
+        }
+        for (AnnotatedMethod factory : description.getFactoryMethods()) {
+            if (introspector.findCreatorAnnotation(config, factory) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether any member of the property carries annotations that change how its value is read.
+     */
+    private static boolean hasContextualAnnotation(BeanPropertyDefinition definition) {
+        for (AnnotatedMember member : new AnnotatedMember[] { definition.getField(), definition.getGetter(), definition.getSetter() }) {
+            if (member == null) {
+                continue;
+            }
+            for (Class<? extends Annotation> annotation : CONTEXTUAL_ANNOTATIONS) {
+                if (member.hasAnnotation(annotation)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static MethodHandle constructor(AnnotatedConstructor constructor) {
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            if (!constructor.getAnnotated().trySetAccessible()) {
+                return null;
+            }
+            return MethodHandles.lookup().unreflectConstructor(constructor.getAnnotated())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle setter(Member member) {
+        try {
+            if (member instanceof AccessibleObject accessible && !accessible.trySetAccessible()) {
+                return null;
+            }
+            MethodHandle handle;
+            if (member instanceof Method method && method.getParameterCount() == 1) {
+                handle = MethodHandles.lookup().unreflect(method);
+            } else if (member instanceof Field field && !Modifier.isFinal(field.getModifiers())) {
+                handle = MethodHandles.lookup().unreflectSetter(field);
+            } else {
+                return null;
+            }
+            return handle.type().returnType() == void.class ? handle : handle.asType(handle.type().changeReturnType(void.class));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A patchable bean class and its cached accessors.
+     */
+    private static final class Bean {
+        /** The default constructor, adapted to {@code ()Object}. */
+        final MethodHandle constructor;
+        /** The properties, in serialization order. */
+        final Map<String, Property> properties;
+        /** Reads property values into an existing instance. */
+        final ObjectReader reader;
+
+        Bean(MethodHandle constructor, Map<String, Property> properties, ObjectReader reader) {
+            this.constructor = constructor;
+            this.properties = properties;
+            this.reader = reader;
+        }
+
+        Object newInstance() {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Failed to create an instance", e);
+            }
+        }
+    }
+
+    /**
+     * A bean property with both accessors.
+     */
+    private static final class Property {
+        final BeanDiffer.Property serialized;
+        /** The mutator, adapted to {@code (Object, Object)void}. */
+        final MethodHandle setter;
+        /** The declared type the property is deserialized as. */
+        final JavaType type;
+        /** Whether operations may target values nested in the property, which are then read by their declared type. */
+        final boolean nested;
+
+        Property(BeanDiffer.Property serialized, MethodHandle setter, JavaType type, boolean nested) {
+            this.serialized = serialized;
+            this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.type = type;
+            this.nested = nested;
+        }
+
+        Object get(Object bean) {
+            return serialized.get(bean);
+        }
+
+        void set(Object bean, Object value) {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Failed to write property '" + serialized.name + "'", e);
+            }
+        }
+    }
+
+    /**
+     * A single patch application, tracking the containers already copied.
+     */
+    private final class Application {
+        private final Set<Object> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+        /** The type untyped objects are read as. */
+        private final JavaType untypedMap = mapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class);
+
+        /**
+         * Applies one operation to the copied root.
+         *
+         * @return {@code false} if the operation cannot be applied directly.
+         */
+        boolean apply(Object root, JsonNode operation) throws IOException {
+            Operation op = Operation.fromRfcName(operation.path(Constants.OP).textValue());
+            JsonNode value = operation.get(Constants.VALUE);
+            if ((op != Operation.ADD && op != Operation.REPLACE && op != Operation.REMOVE) || (op != Operation.REMOVE && value == null)) {
+                return false;
+            }
+            JsonPointer path = JsonPointer.parse(operation.path(Constants.PATH).textValue());
+            if (path.isRoot()) {
+                return false;
+            }
+
+            Object current = root;
+            JavaType type = mapper.constructType(root.getClass());
+            for (int i = 0; i < path.size() - 1; i++) {
+                String name = path.get(i).getField();
+                Bean bean = bean(current.getClass());
+                Object child;
+                JavaType childType;
+                if (bean != null) {
+                    Property property = bean.properties.get(name);
+                    if (property == null || !property.nested || (child = property.get(current)) == null) {
+                        return false;
+                    }
+                    childType = property.type;
+                    if (!copies.contains(child)) {
+                        if ((child = copy(child, childType)) == null) {
+                            return false;
+                        }
+                        property.set(current, child);
+                    }
+                } else if (current instanceof Map<?, ?>) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> map = (Map<String, Object>) current;
+                    if ((child = map.get(name)) == null) {
+                        return false;
+                    }
+                    childType = type.getContentType();
+                    if (!copies.contains(child)) {
+                        if ((child = copy(child, childType)) == null) {
+                            return false;
+                        }
+                        map.put(name, child);
+                    }
+                } else {
+                    return false;
+                }
+                current = child;
+                type = childType.hasRawClass(Object.class) ? untypedMap : childType;
+            }
+
+            String name = path.last().getField();
+            Bean bean = bean(current.getClass());
+            if (bean != null) {
+                if (op == Operation.REMOVE || !bean.properties.containsKey(name)) {
+                    return false;
+                }
+                ObjectNode update = mapper.createObjectNode();
+                update.set(name, value);
+                bean.reader.withValueToUpdate(current).readValue(update);
+                return true;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) current;
+            if (op != Operation.ADD && !map.containsKey(name)) {
+                return false;
+            }
+            if (op == Operation.REMOVE) {
+                map.remove(name);
+            } else {
+                map.put(name, mapper.readerFor(type.getContentType()).readValue(value));
+            }
+            return true;
+        }
+
+        /**
+         * Copies a bean or a map, so that it can be modified.
+         *
+         * @return the copy, or {@code null} if the value is not read back as its own class from its tree.
+         */
+        Object copy(Object value, JavaType type) {
+            Object copy;
+            Bean bean = bean(value.getClass());
+            if (bean != null && value.getClass() == type.getRawClass()) {
+                copy = bean.newInstance();
+                for (Property property : bean.properties.values()) {
+                    property.set(copy, property.get(value));
+                }
+            } else if ((value.getClass() == LinkedHashMap.class || value.getClass() == HashMap.class) && (type.hasRawClass(Object.class)
+                    || type.isMapLikeType() && type.getKeyType().hasRawClass(String.class) && type.getRawClass().isInstance(value))) {
+                copy = value.getClass() == HashMap.class ? new HashMap<>((Map<?, ?>) value) : new LinkedHashMap<>((Map<?, ?>) value);
+            } else {
+                return null;
+            }
+            copies.add(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.inqwise.difference;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable byte array with the operation codes, value tags and variable-length integers shared by the binary
+ * forms of patches: {@link BinaryPatch} and {@link DifferencesMessageCodec}.
+ *
+ * <p>Operation codes and value tags are fixed, so that encoded patches do not depend on the order of
+ * {@link Operation}. Unsigned integers are written seven bits per byte, least significant group first, with
+ * the high bit set on every byte but the last; signed integers are zig-zag encoded first.
+ */
+final class BinaryEncoder extends ByteArrayOutputStream {
+
+    static final byte NULL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte LONG = 3;
+    static final byte BIG_INTEGER = 4;
+    static final byte DOUBLE = 5;
+    static final byte DECIMAL = 6;
+    static final byte STRING = 7;
+    static final byte BINARY = 8;
+    static final byte ARRAY = 9;
+    static final byte OBJECT = 10;
+    /** An integer that is read back as an {@code Integer} rather than a {@code Long}. */
+    static final byte INT = 11;
+
+    private static final byte ADD = 0;
+    private static final byte REMOVE = 1;
+    private static final byte REPLACE = 2;
+    private static final byte MOVE = 3;
+    private static final byte COPY = 4;
+    private static final byte TEST = 5;
+    private static final byte TEXT = 6;
+
+    BinaryEncoder() {
+        super();
+    }
+
+    BinaryEncoder(int size) {
+        super(size);
+    }
+
+    /**
+     * Returns the code of an operation.
+     *
+     * @param operation the operation.
+     * @return its code.
+     */
+    static byte code(Operation operation) {
+        return switch (operation) {
+            case ADD -> ADD;
+            case REMOVE -> REMOVE;
+            case REPLACE -> REPLACE;
+            case MOVE -> MOVE;
+            case COPY -> COPY;
+            case TEST -> TEST;
+            case TEXT -> TEXT;
+        };
+    }
+
+    /**
+     * Returns the operation of a code.
+     *
+     * @param code the code.
+     * @return the operation, or {@code null} if the code is unknown.
+     */
+    static Operation operation(int code) {
+        return switch (code) {
+            case ADD -> Operation.ADD;
+            case REMOVE -> Operation.REMOVE;
+            case REPLACE -> Operation.REPLACE;
+            case MOVE -> Operation.MOVE;
+            case COPY -> Operation.COPY;
+            case TEST -> Operation.TEST;
+            case TEXT -> Operation.TEXT;
+            default -> null;
+        };
+    }
+
+    /**
+     * Writes an unsigned 32-bit integer.
+     */
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes an unsigned 64-bit integer.
+     */
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    /**
+     * Writes a signed integer, zig-zag encoded so that small negative values stay short.
+     */
+    void writeZigZag(long value) {
+        writeVarLong(zigZag(value));
+    }
+
+    /**
+     * Writes a double as its eight big-endian bytes.
+     */
+    void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            write((int) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Writes bytes preceded by their length.
+     */
+    void writeLengthPrefixed(byte[] bytes) {
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Writes a string as length-prefixed UTF-8.
+     */
+    void writeString(String text) {
+        writeLengthPrefixed(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the internal array, whose first {@link #size()} bytes are the bytes written.
+     */
+    byte[] array() {
+        return buf;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,627 @@
+package com.inqwise.difference;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A compact binary form of JSON Patches, applied straight from a {@link ByteBuffer}.
+ *
+ * <p>A binary patch starts with a version byte and a table of the distinct pointer tokens and object keys of
+ * the patch, each written once as length-prefixed UTF-8. Each operation follows as its operation byte, a byte
+ * flagging the values present, its pointers as token counts and token table indexes, and its tagged binary
+ * values. Lengths, counts, indexes and integers are variable-length encoded.
+ *
+ * <p>Patches with {@link DiffFlags#FRONT_CODED_POINTERS} are written in the front-coded version of the format,
+ * where each pointer is written as the number of leading tokens it shares with the path of the previous
+ * operation followed by its remaining tokens; those shared tokens are reused, not read again.
+ *
+ * <p>{@link #apply(ByteBuffer, JsonNode)} and {@link #applyInPlace(ByteBuffer, JsonNode)} read the operations
+ * directly from the buffer, which may be a memory-mapped file segment, and build nothing but the pointers and
+ * the values applied: original values carried for inversion are skipped, and no {@link Diff} or
+ * {@link Differences.Difference} is created. The position of the given buffer is left unchanged.
+ */
+public final class BinaryPatch {
+
+    /** The version of the binary format. */
+    static final byte VERSION = 1;
+    /** The version of the binary format with front-coded pointers. */
+    static final byte FRONT_CODED_VERSION = 2;
+
+    private static final int HAS_VALUE = 1;
+    private static final int HAS_FROM_VALUE = 1 << 1;
+
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    private BinaryPatch() {
+    }
+
+    /**
+     * Encodes computed differences, with the values their flags render in the JSON form.
+     *
+     * @param diffs the differences.
+     * @return the binary patch.
+     */
+    public static byte[] encode(Diffs diffs) {
+        EnumSet<DiffFlags> flags = diffs.getFlags();
+        Writer writer = new Writer(flags.contains(DiffFlags.FRONT_CODED_POINTERS));
+        writer.writeVarInt(diffs.getDiffs().size());
+        for (Diff diff : diffs) {
+            switch (diff.getOperation()) {
+                case MOVE:
+                case COPY:
+                    writer.writeOperation(diff.getOperation(), diff.getToPath(), diff.getPath(), null, null);
+                    break;
+                case REMOVE:
+                    writer.writeOperation(diff.getOperation(), diff.getPath(), null,
+                            flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE) ? null : diff.getValue(), null);
+                    break;
+                case REPLACE:
+                case TEXT:
+                    writer.writeOperation(diff.getOperation(), diff.getPath(), null, nullToNode(diff.getValue()),
+                            flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE) ? diff.getSrcValue() : null);
+                    break;
+                default:
+                    writer.writeOperation(diff.getOperation(), diff.getPath(), null, nullToNode(diff.getValue()), null);
+                    break;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes a JSON Patch, in the front-coded version of the format if its pointers are front-coded.
+     *
+     * @param patch the JSON Patch.
+     * @return the binary patch.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static byte[] encode(JsonNode patch) throws InvalidJsonPatchException {
+        JsonPatch.validate(patch);
+        Writer writer = new Writer(PointerCoding.isFrontCoded(patch));
+        PointerCoding.Decoder pointers = new PointerCoding.Decoder();
+        writer.writeVarInt(patch.size());
+        for (JsonNode operation : patch) {
+            Operation op = Operation.fromRfcName(operation.get(Constants.OP).textValue());
+            JsonPointer path = pointers.decode(operation.get(Constants.PATH));
+            JsonPointer from = op == Operation.MOVE || op == Operation.COPY ? pointers.decode(operation.get(Constants.FROM)) : null;
+            writer.writeOperation(op, path, from, operation.get(Constants.VALUE), operation.get(Constants.FROM_VALUE));
+            pointers.advance(path);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes differences.
+     *
+     * @param differences the differences.
+     * @return the binary patch.
+     */
+    public static byte[] encode(Differences differences) {
+        return encode(differences.toJsonNode());
+    }
+
+    /**
+     * Decodes a binary patch into a JSON Patch, with front-coded pointers if the binary patch has them.
+     *
+     * @param patch the binary patch; its position is not changed.
+     * @return the JSON Patch.
+     * @throws InvalidJsonPatchException if the binary patch is malformed.
+     */
+    public static JsonNode decode(ByteBuffer patch) throws InvalidJsonPatchException {
+        Reader reader = new Reader(patch);
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(reader.frontCoded);
+        ArrayNode operations = factory.arrayNode();
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            Operation operation = reader.readOperation();
+            int fields = reader.readByte();
+            ObjectNode node = operations.addObject();
+            node.put(Constants.OP, operation.rfcName());
+            JsonPointer path = reader.readPath();
+            if (operation == Operation.MOVE || operation == Operation.COPY) {
+                node.set(Constants.FROM, pointers.encode(reader.readPointer()));
+            }
+            JsonNode value = (fields & HAS_VALUE) != 0 ? reader.readValue() : null;
+            if ((fields & HAS_FROM_VALUE) != 0) {
+                node.set(Constants.FROM_VALUE, reader.readValue());
+            }
+            node.set(Constants.PATH, pointers.encode(path));
+            pointers.advance(path);
+            if (value != null) {
+                node.set(Constants.VALUE, value);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Applies a binary patch to a copy of the source node.
+     *
+     * @param patch  the binary patch; its position is not changed.
+     * @param source the node to patch, which is not modified.
+     * @return the patched node.
+     * @throws JsonPatchApplicationException if the patch cannot be applied or is malformed.
+     */
+    public static JsonNode apply(ByteBuffer patch, JsonNode source) throws JsonPatchApplicationException {
+        return apply(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a binary patch to a copy of the source node.
+     *
+     * @param patch  the binary patch; its position is not changed.
+     * @param source the node to patch, which is not modified.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @return the patched node.
+     * @throws JsonPatchApplicationException if the patch cannot be applied or is malformed.
+     */
+    public static JsonNode apply(ByteBuffer patch, JsonNode source, EnumSet<CompatibilityFlags> flags)
+            throws JsonPatchApplicationException {
+        CopyingApplyProcessor processor = new CopyingApplyProcessor(source, flags);
+        process(patch, processor, flags);
+        return processor.result();
+    }
+
+    /**
+     * Applies a binary patch to the source node in place.
+     *
+     * @param patch  the binary patch; its position is not changed.
+     * @param source the node to patch.
+     * @throws JsonPatchApplicationException if the patch cannot be applied or is malformed.
+     */
+    public static void applyInPlace(ByteBuffer patch, JsonNode source) throws JsonPatchApplicationException {
+        applyInPlace(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a binary patch to the source node in place.
+     *
+     * @param patch  the binary patch; its position is not changed.
+     * @param source the node to patch.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @throws JsonPatchApplicationException if the patch cannot be applied or is malformed.
+     */
+    public static void applyInPlace(ByteBuffer patch, JsonNode source, EnumSet<CompatibilityFlags> flags)
+            throws JsonPatchApplicationException {
+        process(patch, new InPlaceApplyProcessor(source, flags), flags);
+    }
+
+    private static void process(ByteBuffer patch, JsonPatchProcessor processor, EnumSet<CompatibilityFlags> flags) {
+        Reader reader = new Reader(patch);
+        for (int i = reader.readVarInt(); i > 0; i--) {
+            Operation operation = reader.readOperation();
+            int fields = reader.readByte();
+            JsonPointer path = reader.readPath();
+            try {
+                switch (operation) {
+                    case MOVE:
+                        processor.move(reader.readPointer(), path);
+                        reader.skipValues(fields);
+                        break;
+                    case COPY:
+                        processor.copy(reader.readPointer(), path);
+                        reader.skipValues(fields);
+                        break;
+                    case REMOVE:
+                        reader.skipValues(fields);
+                        processor.remove(path);
+                        break;
+                    default:
+                        JsonNode value;
+                        if ((fields & HAS_VALUE) != 0) {
+                            value = reader.readValue();
+                        } else if (flags.contains(CompatibilityFlags.MISSING_VALUES_AS_NULLS)) {
+                            value = NullNode.getInstance();
+                        } else {
+                            throw new InvalidJsonPatchException("Invalid JSON Patch payload (missing 'value' field)");
+                        }
+                        reader.skipValues(fields & ~HAS_VALUE);
+                        if (operation == Operation.ADD) {
+                            processor.add(path, value);
+                        } else if (operation == Operation.REPLACE) {
+                            processor.replace(path, value);
+                        } else if (operation == Operation.TEXT) {
+                            TextDiff.validate(value);
+                            processor.text(path, value);
+                        } else {
+                            processor.test(path, value);
+                        }
+                        break;
+                }
+            } catch (JsonPointerEvaluationException e) {
+                throw new JsonPatchApplicationException(e.getMessage(), operation, e.getPath());
+            }
+        }
+    }
+
+    private static JsonNode nullToNode(JsonNode value) {
+        return value == null ? NullNode.getInstance() : value;
+    }
+
+    /**
+     * Writes operations into a body, collecting the token table written before it.
+     */
+    private static final class Writer {
+        private final boolean frontCoded;
+        private final Map<String, Integer> tokens = new HashMap<>();
+        private final BinaryEncoder table = new BinaryEncoder();
+        private final BinaryEncoder body = new BinaryEncoder();
+        /** The path of the previous operation, which front-coded pointers share their leading tokens with. */
+        private JsonPointer previous = JsonPointer.ROOT;
+
+        Writer(boolean frontCoded) {
+            this.frontCoded = frontCoded;
+        }
+
+        void writeOperation(Operation operation, JsonPointer path, JsonPointer from, JsonNode value, JsonNode fromValue) {
+            body.write(BinaryEncoder.code(operation));
+            body.write((value != null ? HAS_VALUE : 0) | (fromValue != null ? HAS_FROM_VALUE : 0));
+            writePointer(path);
+            if (from != null) {
+                writePointer(from);
+            }
+            previous = path;
+            if (value != null) {
+                writeValue(value);
+            }
+            if (fromValue != null) {
+                writeValue(fromValue);
+            }
+        }
+
+        private void writePointer(JsonPointer pointer) {
+            int shared = 0;
+            if (frontCoded) {
+                int max = Math.min(previous.size(), pointer.size());
+                while (shared < max && previous.get(shared).equals(pointer.get(shared))) {
+                    shared++;
+                }
+                writeVarInt(shared);
+            }
+            writeVarInt(pointer.size() - shared);
+            for (int i = shared; i < pointer.size(); i++) {
+                writeVarInt(token(pointer.get(i).getField()));
+            }
+        }
+
+        private int token(String token) {
+            Integer index = tokens.get(token);
+            if (index == null) {
+                index = tokens.size();
+                tokens.put(token, index);
+                table.writeString(token);
+            }
+            return index;
+        }
+
+        private void writeValue(JsonNode value) {
+            switch (value.getNodeType()) {
+                case NULL:
+                case MISSING:
+                    body.write(BinaryEncoder.NULL);
+                    break;
+                case BOOLEAN:
+                    body.write(value.booleanValue() ? BinaryEncoder.TRUE : BinaryEncoder.FALSE);
+                    break;
+                case NUMBER:
+                    if (value.isIntegralNumber()) {
+                        if (value.canConvertToLong()) {
+                            body.write(BinaryEncoder.LONG);
+                            body.writeZigZag(value.longValue());
+                        } else {
+                            body.write(BinaryEncoder.BIG_INTEGER);
+                            body.writeLengthPrefixed(value.bigIntegerValue().toByteArray());
+                        }
+                    } else if (value.isBigDecimal()) {
+                        BigDecimal decimal = value.decimalValue();
+                        body.write(BinaryEncoder.DECIMAL);
+                        body.writeZigZag(decimal.scale());
+                        body.writeLengthPrefixed(decimal.unscaledValue().toByteArray());
+                    } else {
+                        body.write(BinaryEncoder.DOUBLE);
+                        body.writeDouble(value.doubleValue());
+                    }
+                    break;
+                case STRING:
+                    body.write(BinaryEncoder.STRING);
+                    body.writeString(value.textValue());
+                    break;
+                case BINARY:
+                    body.write(BinaryEncoder.BINARY);
+                    try {
+                        body.writeLengthPrefixed(value.binaryValue());
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Failed to read binary value", e);
+                    }
+                    break;
+                case ARRAY:
+                    body.write(BinaryEncoder.ARRAY);
+                    writeVarInt(value.size());
+                    for (JsonNode element : value) {
+                        writeValue(element);
+                    }
+                    break;
+                case OBJECT:
+                    body.write(BinaryEncoder.OBJECT);
+                    writeVarInt(value.size());
+                    for (Iterator<Map.Entry<String, JsonNode>> fields = value.fields(); fields.hasNext();) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        writeVarInt(token(field.getKey()));
+                        writeValue(field.getValue());
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported patch value: " + value.getNodeType());
+            }
+        }
+
+        void writeVarInt(int value) {
+            body.writeVarInt(value);
+        }
+
+        byte[] toByteArray() {
+            BinaryEncoder out = new BinaryEncoder(table.size() + body.size() + 8);
+            out.write(frontCoded ? FRONT_CODED_VERSION : VERSION);
+            out.writeVarInt(tokens.size());
+            out.write(table.array(), 0, table.size());
+            out.write(body.array(), 0, body.size());
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Reads a binary patch from a view of the buffer, after its token table.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final boolean frontCoded;
+        private final String[] tokens;
+        private final JsonPointer.RefToken[] refTokens;
+        /** The paths of the previous and the current operation. */
+        private JsonPointer previous = JsonPointer.ROOT;
+        private JsonPointer current = JsonPointer.ROOT;
+
+        Reader(ByteBuffer patch) {
+            this.buffer = patch.duplicate().order(ByteOrder.BIG_ENDIAN);
+            try {
+                byte version = buffer.get();
+                if (version != VERSION && version != FRONT_CODED_VERSION) {
+                    throw new InvalidJsonPatchException("Unsupported binary patch version");
+                }
+                this.frontCoded = version == FRONT_CODED_VERSION;
+                this.tokens = new String[readVarInt()];
+                this.refTokens = new JsonPointer.RefToken[tokens.length];
+                for (int i = 0; i < tokens.length; i++) {
+                    tokens[i] = readString();
+                }
+            } catch (BufferUnderflowException e) {
+                throw malformed();
+            }
+        }
+
+        Operation readOperation() {
+            previous = current;
+            Operation operation = BinaryEncoder.operation(readByte());
+            if (operation == null) {
+                throw malformed();
+            }
+            return operation;
+        }
+
+        int readByte() {
+            try {
+                return buffer.get() & 0xFF;
+            } catch (BufferUnderflowException e) {
+                throw malformed();
+            }
+        }
+
+        /**
+         * Reads the path of the current operation.
+         */
+        JsonPointer readPath() {
+            current = readPointer();
+            return current;
+        }
+
+        JsonPointer readPointer() {
+            int shared = frontCoded ? readVarInt() : 0;
+            if (shared > previous.size()) {
+                throw malformed();
+            }
+            JsonPointer.RefToken[] pointer = new JsonPointer.RefToken[shared + checkLength(readVarInt())];
+            for (int i = 0; i < shared; i++) {
+                pointer[i] = previous.get(i);
+            }
+            for (int i = shared; i < pointer.length; i++) {
+                int index = readToken();
+                JsonPointer.RefToken token = refTokens[index];
+                if (token == null) {
+                    token = new JsonPointer.RefToken(tokens[index]);
+                    refTokens[index] = token;
+                }
+                pointer[i] = token;
+            }
+            return new JsonPointer(Arrays.asList(pointer));
+        }
+
+        JsonNode readValue() {
+            try {
+                switch (buffer.get()) {
+                    case BinaryEncoder.NULL:
+                        return NullNode.getInstance();
+                    case BinaryEncoder.FALSE:
+                        return factory.booleanNode(false);
+                    case BinaryEncoder.TRUE:
+                        return factory.booleanNode(true);
+                    case BinaryEncoder.LONG:
+                        long value = readVarLong();
+                        return value == (int) value ? factory.numberNode((int) value) : factory.numberNode(value);
+                    case BinaryEncoder.BIG_INTEGER:
+                        return factory.numberNode(new BigInteger(readBytes()));
+                    case BinaryEncoder.DECIMAL:
+                        int scale = (int) readVarLong();
+                        return factory.numberNode(new BigDecimal(new BigInteger(readBytes()), scale));
+                    case BinaryEncoder.DOUBLE:
+                        return factory.numberNode(buffer.getDouble());
+                    case BinaryEncoder.STRING:
+                        return factory.textNode(readString());
+                    case BinaryEncoder.BINARY:
+                        return factory.binaryNode(readBytes());
+                    case BinaryEncoder.ARRAY:
+                        ArrayNode array = factory.arrayNode();
+                        for (int i = readVarInt(); i > 0; i--) {
+                            array.add(readValue());
+                        }
+                        return array;
+                    case BinaryEncoder.OBJECT:
+                        ObjectNode object = factory.objectNode();
+                        for (int i = readVarInt(); i > 0; i--) {
+                            String name = tokens[readToken()];
+                            object.set(name, readValue());
+                        }
+                        return object;
+                    default:
+                        throw malformed();
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw malformed();
+            }
+        }
+
+        /**
+         * Skips the values flagged in the given fields, without decoding them.
+         */
+        void skipValues(int fields) {
+            for (int flag : new int[] { HAS_VALUE, HAS_FROM_VALUE }) {
+                if ((fields & flag) != 0) {
+                    skipValue();
+                }
+            }
+        }
+
+        private void skipValue() {
+            try {
+                switch (buffer.get()) {
+                    case BinaryEncoder.NULL:
+                    case BinaryEncoder.FALSE:
+                    case BinaryEncoder.TRUE:
+                        break;
+                    case BinaryEncoder.LONG:
+                        readVarLong();
+                        break;
+                    case BinaryEncoder.DECIMAL:
+                        readVarLong();
+                        skip(readVarInt());
+                        break;
+                    case BinaryEncoder.DOUBLE:
+                        skip(Double.BYTES);
+                        break;
+                    case BinaryEncoder.BIG_INTEGER:
+                    case BinaryEncoder.STRING:
+                    case BinaryEncoder.BINARY:
+                        skip(readVarInt());
+                        break;
+                    case BinaryEncoder.ARRAY:
+                        for (int i = readVarInt(); i > 0; i--) {
+                            skipValue();
+                        }
+                        break;
+                    case BinaryEncoder.OBJECT:
+                        for (int i = readVarInt(); i > 0; i--) {
+                            readToken();
+                            skipValue();
+                        }
+                        break;
+                    default:
+                        throw malformed();
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw malformed();
+            }
+        }
+
+        private void skip(int length) {
+            buffer.position(buffer.position() + checkLength(length));
+        }
+
+        private int checkLength(int length) {
+            if (length > buffer.remaining()) {
+                throw malformed();
+            }
+            return length;
+        }
+
+        private int readToken() {
+            int index = readVarInt();
+            if (index >= tokens.length) {
+                throw malformed();
+            }
+            return index;
+        }
+
+        private byte[] readBytes() {
+            byte[] bytes = new byte[checkLength(readVarInt())];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private String readString() {
+            int length = checkLength(readVarInt());
+            if (buffer.hasArray()) {
+                String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                skip(length);
+                return value;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw malformed();
+                    }
+                    return value;
+                }
+            }
+            throw malformed();
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return BinaryEncoder.unZigZag(zigzag);
+                }
+            }
+            throw malformed();
+        }
+
+        private static InvalidJsonPatchException malformed() {
+            return new InvalidJsonPatchException("Invalid binary patch payload");
+        }
+    }
+}
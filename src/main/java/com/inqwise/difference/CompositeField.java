@@ -0,0 +1,17 @@
+package com.inqwise.difference;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Treats a property of a {@link Diffable} type as a composite field: any change to its value is reported as
+ * a single replace of the whole value, like a composite field of {@link Differentiator}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.RECORD_COMPONENT})
+public @interface CompositeField {
+}
@@ -45,6 +45,23 @@ class Diff {
         this.srcValue = null;
     }
 
+    /**
+     * Constructs a {@code Diff} for copy operations that also retains the copied value,
+     * so that the operation can later be inverted without access to the document.
+     *
+     * @param operation the type of operation (copy).
+     * @param fromPath  the source path.
+     * @param toPath    the destination path.
+     * @param value     the value being copied.
+     */
+    Diff(Operation operation, JsonPointer fromPath, JsonPointer toPath, JsonNode value) {
+        this.operation = operation;
+        this.path = fromPath;
+        this.toPath = toPath;
+        this.value = value;
+        this.srcValue = null;
+    }
+
     /**
      * Constructs a {@code Diff} for replace operations, which require both a source and target value.
      *
@@ -129,4 +146,39 @@ class Diff {
     public JsonNode getSrcValue() {
         return srcValue;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the operation that undoes this difference.
+     * Remove and replace operations are inverted from the values captured during the diff,
+     * so no access to the original document is required.
+     *
+     * @return a new {@code Diff} reverting this difference.
+     * @throws IllegalStateException if the value required for the inversion was not captured.
+     */
+    Diff invert() {
+        switch (operation) {
+            case ADD:
+                return new Diff(Operation.REMOVE, path, value);
+            case REMOVE:
+                if (value == null)
+                    throw new IllegalStateException("Cannot invert remove without a value at " + path);
+                return new Diff(Operation.ADD, path, value);
+            case REPLACE:
+                if (srcValue == null)
+                    throw new IllegalStateException("Cannot invert replace without an original value at " + path);
+                return new Diff(Operation.REPLACE, path, value, srcValue);
+            case TEXT:
+                if (srcValue == null)
+                    throw new IllegalStateException("Cannot invert text without an inverse delta at " + path);
+                return new Diff(Operation.TEXT, path, value, srcValue);
+            case MOVE:
+                return new Diff(Operation.MOVE, toPath, path);
+            case COPY:
+                return new Diff(Operation.REMOVE, toPath, value);
+            case TEST:
+                return this;
+            default:
+                throw new IllegalArgumentException("Unknown operation specified: " + operation);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.inqwise.difference;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Collects the differences reported by {@link TypeDiffer} implementations. Generated differs compare
+ * primitives and nested {@link Diffable} types directly and hand the remaining values to this class,
+ * which converts them to JSON only when they differ.
+ *
+ * <p>Paths are passed as the JSON Pointer of the parent and the escaped token of the property, and are
+ * joined only when a difference is found. The differences are computed with the same flags as
+ * {@link Differences#between(Object, Object, List, List)}.
+ */
+public final class DiffCollector {
+
+    private static final EnumSet<DiffFlags> FLAGS = Differences.diffFlags();
+    private static final JsonDiff jsonDiff = JsonDiff.create(FLAGS, List.of());
+
+    private final List<Diff> diffs = new ArrayList<>();
+
+    /**
+     * Creates an empty collector.
+     */
+    public DiffCollector() {
+    }
+
+    /**
+     * Reports a changed value, typically a primitive that was compared by the caller.
+     *
+     * @param path  the JSON Pointer of the parent.
+     * @param token the escaped token of the property.
+     * @param from  the original value.
+     * @param to    the new value.
+     */
+    public void replace(String path, String token, Object from, Object to) {
+        diffs.add(Diff.generateDiff(Operation.REPLACE, pointer(path, token),
+                Differences.convertObjectToJsonNode(from), Differences.convertObjectToJsonNode(to)));
+    }
+
+    /**
+     * Compares two values of any type: equal values are skipped, other values are converted and compared as JSON.
+     *
+     * @param path  the JSON Pointer of the parent.
+     * @param token the escaped token of the property.
+     * @param a     the first value.
+     * @param b     the second value.
+     */
+    public void values(String path, String token, Object a, Object b) {
+        if (!Objects.equals(a, b)) {
+            values(pointer(path, token), a, b);
+        }
+    }
+
+    /**
+     * Compares two instances of a {@link Diffable} type with its generated differ.
+     *
+     * @param <T>    the compared type.
+     * @param path   the JSON Pointer of the parent.
+     * @param token  the escaped token of the property.
+     * @param a      the first instance.
+     * @param b      the second instance.
+     * @param differ the differ of the type.
+     */
+    public <T> void diff(String path, String token, T a, T b, TypeDiffer<T> differ) {
+        if (a == b) {
+            return;
+        }
+        if (a == null || b == null) {
+            values(pointer(path, token), a, b);
+        } else {
+            differ.diff(path + "/" + token, a, b, this);
+        }
+    }
+
+    /**
+     * Compares two instances through their JSON representation, for types whose Jackson mapping generated code
+     * does not model.
+     *
+     * @param path the JSON Pointer of the instances.
+     * @param a    the first instance.
+     * @param b    the second instance.
+     */
+    public void tree(String path, Object a, Object b) {
+        if (!Objects.equals(a, b)) {
+            values(JsonPointer.parse(path), a, b);
+        }
+    }
+
+    /**
+     * Compares two values as a whole: any difference is reported as a single replace.
+     *
+     * @param path  the JSON Pointer of the parent.
+     * @param token the escaped token of the property.
+     * @param a     the first value.
+     * @param b     the second value.
+     */
+    public void composite(String path, String token, Object a, Object b) {
+        if (Objects.equals(a, b)) {
+            return;
+        }
+        JsonNode source = Differences.convertObjectToJsonNode(a);
+        JsonNode target = Differences.convertObjectToJsonNode(b);
+        if (!source.equals(JsonNodeComparator.getInstance(), target)) {
+            diffs.add(Diff.generateDiff(Operation.REPLACE, pointer(path, token), source, target));
+        }
+    }
+
+    /**
+     * Compares two lists element by element, matching the elements by key. Lists with duplicate keys, or whose
+     * common elements changed order, are compared as a whole.
+     *
+     * @param <E>    the element type.
+     * @param path   the JSON Pointer of the parent.
+     * @param token  the escaped token of the property.
+     * @param a      the first list.
+     * @param b      the second list.
+     * @param key    the function extracting the key of an element.
+     * @param differ the differ of the element type, or {@code null} to compare the elements as values.
+     */
+    public <E> void keyed(String path, String token, List<E> a, List<E> b, Function<? super E, ?> key, TypeDiffer<E> differ) {
+        if (a == b) {
+            return;
+        }
+        JsonPointer pointer = pointer(path, token);
+        Map<Object, E> source = a == null ? null : index(a, key);
+        Map<Object, E> target = b == null ? null : index(b, key);
+        if (source == null || target == null || !isSameOrder(a, target, b, source, key)) {
+            values(pointer, a, b);
+            return;
+        }
+
+        for (int i = a.size() - 1; i >= 0; i--) {
+            E element = a.get(i);
+            if (!target.containsKey(key.apply(element))) {
+                diffs.add(Diff.generateDiff(Operation.REMOVE, pointer.append(i), Differences.convertObjectToJsonNode(element)));
+            }
+        }
+        for (int i = 0; i < b.size(); i++) {
+            E element = b.get(i);
+            E original = source.get(key.apply(element));
+            if (original == null) {
+                diffs.add(Diff.generateDiff(Operation.ADD, pointer.append(i), Differences.convertObjectToJsonNode(element)));
+            } else if (differ != null) {
+                diff(pointer.toString(), Integer.toString(i), original, element, differ);
+            } else if (!Objects.equals(original, element)) {
+                values(pointer.append(i), original, element);
+            }
+        }
+    }
+
+    /**
+     * Returns the collected differences.
+     *
+     * @return the {@code Differences}.
+     */
+    public Differences toDifferences() {
+        return new Differences(Diffs.builder().withDiffs(diffs).withFlags(FLAGS).build());
+    }
+
+    private void values(JsonPointer pointer, Object a, Object b) {
+        diffs.addAll(jsonDiff.generateDiffs(pointer, Differences.convertObjectToJsonNode(a), Differences.convertObjectToJsonNode(b)));
+    }
+
+    private static JsonPointer pointer(String path, String token) {
+        return JsonPointer.parse(path + "/" + token);
+    }
+
+    /**
+     * Indexes the elements of a list by key, or returns {@code null} if the list has null elements or duplicate keys.
+     */
+    private static <E> Map<Object, E> index(List<E> list, Function<? super E, ?> key) {
+        Map<Object, E> index = new HashMap<>();
+        for (E element : list) {
+            if (element == null || index.putIfAbsent(key.apply(element), element) != null) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether the elements present in both lists appear in the same order.
+     */
+    private static <E> boolean isSameOrder(List<E> a, Map<Object, E> target, List<E> b, Map<Object, E> source,
+            Function<? super E, ?> key) {
+        int j = 0;
+        for (E element : a) {
+            Object k = key.apply(element);
+            if (!target.containsKey(k)) {
+                continue;
+            }
+            while (!source.containsKey(key.apply(b.get(j)))) {
+                j++;
+            }
+            if (!Objects.equals(k, key.apply(b.get(j)))) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+}
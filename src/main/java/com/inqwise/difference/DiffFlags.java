@@ -44,7 +44,24 @@ public enum DiffFlags {
      * Flag to emit "test" operations. When set, test operations will be included in the 
      * difference output to verify conditions before applying changes.
      */
-    EMIT_TEST_OPERATIONS;
+    EMIT_TEST_OPERATIONS,
+
+    /**
+     * Flag to front-code the pointers of the patch. When set, a {@code path} or {@code from} sharing
+     * leading tokens with the {@code path} of the previous operation is written as {@code [shared, suffix]},
+     * the number of shared tokens followed by the remaining pointer. {@link JsonPatch} and {@link BinaryPatch}
+     * read such patches, resolving the shared prefix once instead of for every operation.
+     */
+    FRONT_CODED_POINTERS,
+
+    /**
+     * Flag to emit "text" operations. When set, a string replaced by another string, either of them at least
+     * 1024 characters long, is changed by a "text" extension operation whose value is a character-level delta
+     * of the string, if that is smaller than the new string. With {@link #ADD_ORIGINAL_VALUE_ON_REPLACE}, its
+     * {@code fromValue} is the delta back to the original string. {@link JsonPatch} and {@link BinaryPatch}
+     * apply such operations; other JSON Patch implementations do not.
+     */
+    EMIT_TEXT_OPERATIONS;
 
     /**
      * Returns the default set of flags to be used during difference calculation.
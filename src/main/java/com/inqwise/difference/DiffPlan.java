@@ -0,0 +1,96 @@
+package com.inqwise.difference;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.commons.collections4.ListUtils;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A compiled comparison configuration: the diff flags, the composite fields parsed into JSON Pointers and
+ * the silent fields compiled into their automaton, together with the differs built from them.
+ *
+ * <p>Plans are immutable and thread-safe. {@link Differentiator} compiles its plan once when it is built,
+ * so that repeated comparisons only pay for the diff itself.
+ */
+final class DiffPlan {
+
+    private final List<String> compositeObjects;
+    private final SilentFields silentFields;
+    private final JsonDiff jsonDiff;
+    private final VertxJsonDiff vertxJsonDiff;
+
+    private DiffPlan(List<String> silentFields, List<String> compositeFields) {
+        EnumSet<DiffFlags> flags = Differences.diffFlags();
+        this.compositeObjects = ListUtils.emptyIfNull(compositeFields).stream().map(DiffPlan::normalizeField).toList();
+        this.silentFields = SilentFields.compile(silentFields);
+        this.jsonDiff = JsonDiff.create(flags, compositeObjects);
+        this.vertxJsonDiff = new VertxJsonDiff(flags, compositeObjects, this.silentFields);
+    }
+
+    /**
+     * Compiles the configuration of a comparison.
+     *
+     * @param silentFields    The fields to exclude from the comparison, or {@code null}.
+     * @param compositeFields The composite fields, as dot-separated paths or JSON Pointers, or {@code null}.
+     * @return The compiled plan.
+     */
+    static DiffPlan compile(List<String> silentFields, List<String> compositeFields) {
+        return new DiffPlan(silentFields, compositeFields);
+    }
+
+    /**
+     * Returns whether the plan has neither silent nor composite fields.
+     *
+     * @return {@code true} for a plan comparing whole values.
+     */
+    boolean isEmpty() {
+        return silentFields.isEmpty() && compositeObjects.isEmpty();
+    }
+
+    /**
+     * Returns the silent fields, positioned at the root of the compared values.
+     *
+     * @return The compiled silent fields.
+     */
+    SilentFields silentFields() {
+        return silentFields;
+    }
+
+    /**
+     * Returns the differ comparing {@code JsonNode} trees with the plan's flags and composite objects.
+     *
+     * @return The tree differ.
+     */
+    JsonDiff jsonDiff() {
+        return jsonDiff;
+    }
+
+    /**
+     * Returns the differ comparing Vert.x JSON values with the plan's flags, composite objects and silent fields.
+     *
+     * @return The Vert.x JSON differ.
+     */
+    VertxJsonDiff vertxJsonDiff() {
+        return vertxJsonDiff;
+    }
+
+    /**
+     * Normalizes a field string into a JSON Pointer format.
+     *
+     * @param field The field string.
+     * @return The normalized field string.
+     */
+    private static String normalizeField(String field) {
+        return field.startsWith("/") ? field : "/" + field.replace(".", "/");
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("compositeObjects", compositeObjects)
+                .add("silentFields", silentFields)
+                .toString();
+    }
+}
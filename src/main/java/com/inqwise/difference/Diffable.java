@@ -0,0 +1,29 @@
+package com.inqwise.difference;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record for which {@link DiffableProcessor} generates a {@link TypeDiffer} at compile time.
+ * The generated differ compares the properties of the type through their accessors and is registered for
+ * {@link java.util.ServiceLoader}, so that {@link Differentiator} uses it without reflection.
+ *
+ * <p>Properties follow the Jackson default visibility: record components, public getters and fields, and
+ * non-private members annotated with {@code @JsonProperty}. Their comparison can be customized with
+ * {@link SilentField}, {@link CompositeField} and {@link ArrayKey}. Types whose Jackson representation is changed
+ * by other annotations, such as {@code @JsonInclude}, {@code @JsonSerialize} or {@code @JsonValue}, are compared
+ * through their Jackson tree, and types with a mix-in or a custom serializer registered at runtime are compared
+ * by reflection.
+ *
+ * <p>Types whose properties can all be written back, through a record's canonical constructor or a class's
+ * setters and fields, also get a generated {@link TypePatcher}, which {@link Differences#applyTo(Object)} uses to
+ * patch a copy of the instance without reflection. Other types are patched through Jackson.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Diffable {
+}
@@ -0,0 +1,668 @@
+package com.inqwise.difference;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@link TypeDiffer} for every class or record annotated with {@link Diffable}, and registers
+ * the generated differs in {@code META-INF/services} for {@link java.util.ServiceLoader}.
+ *
+ * <p>The processor is not registered for discovery, so that depending on this library does not run it on every
+ * compilation. It is enabled by name, with {@code -processorpath} pointing to this library and
+ * {@code -processor com.inqwise.difference.DiffableProcessor}.
+ *
+ * <p>The generated differ reads each property through its accessor: primitives are compared in place,
+ * {@link Diffable} properties are compared by their own generated differ, {@link ArrayKey} lists are
+ * matched by key and other values are compared by {@link DiffCollector}. Properties follow the Jackson
+ * default visibility: public getters and fields, and members annotated with {@code @JsonProperty}, renamed
+ * by {@code @JsonProperty} and dropped by {@code @JsonIgnore}, so that the differences apply to the Jackson
+ * representation of the object. A private member annotated with {@code @JsonProperty} cannot be read without
+ * reflection and is reported as an error. Types using other Jackson annotations that change their
+ * representation, such as {@code @JsonInclude} or {@code @JsonSerialize}, get a differ comparing them through
+ * their Jackson tree.
+ *
+ * <p>A {@link TypePatcher} is generated as well, and registered the same way, for the types whose properties can
+ * all be written back: records whose components are exactly their properties, and classes with a non-private
+ * no-argument constructor and a non-private setter or non-final field for every property. The generated patcher
+ * copies the instance through these accessors and applies the operation to the one property its path reaches,
+ * through {@link PatchOperation}. Types with remapping annotations, or annotations changing how Jackson reads
+ * them, such as {@code @JsonCreator} or {@code @JsonDeserialize}, get no patcher and are patched through Jackson.
+ */
+@SupportedAnnotationTypes("com.inqwise.difference.Diffable")
+public class DiffableProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_FILE = "META-INF/services/" + TypeDiffer.class.getName();
+    private static final String PATCHER_SERVICE_FILE = "META-INF/services/" + TypePatcher.class.getName();
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    private static final String JACKSON_ANNOTATIONS_INSIDE = "com.fasterxml.jackson.annotation.JacksonAnnotationsInside";
+    /** The Jackson annotations that leave the serialized properties as the generated differ reads them. */
+    private static final Set<String> MODELED_ANNOTATIONS = Set.of(JSON_PROPERTY, JSON_IGNORE,
+            "com.fasterxml.jackson.annotation.JsonPropertyOrder", "com.fasterxml.jackson.annotation.JsonCreator",
+            "com.fasterxml.jackson.annotation.JsonSetter", "com.fasterxml.jackson.annotation.JsonAlias",
+            "com.fasterxml.jackson.annotation.JsonClassDescription", "com.fasterxml.jackson.annotation.JsonPropertyDescription",
+            "com.fasterxml.jackson.databind.annotation.JsonDeserialize", "com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder");
+    /** The Jackson annotations that make reading a property differ from setting it through its setter or field. */
+    private static final Set<String> DESERIALIZATION_ANNOTATIONS = Set.of("com.fasterxml.jackson.annotation.JsonCreator",
+            "com.fasterxml.jackson.annotation.JsonSetter", "com.fasterxml.jackson.databind.annotation.JsonDeserialize",
+            "com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder");
+    private static final String TYPE_REFERENCE = "com.fasterxml.jackson.core.type.TypeReference";
+
+    private final List<String> generated = new ArrayList<>();
+    private final List<String> generatedPatchers = new ArrayList<>();
+
+    /**
+     * Creates the processor; instantiated by the compiler.
+     */
+    public DiffableProcessor() {
+    }
+
+    /**
+     * Returns the latest source version, as the processor only relies on stable language model APIs.
+     *
+     * @return the latest supported source version.
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the differs and patchers of the {@link Diffable} types of a round, and the service registrations
+     * once processing is over.
+     *
+     * @param annotations the annotation types requested to be processed.
+     * @param roundEnv    the environment of the current round.
+     * @return {@code true}, the {@link Diffable} annotation is claimed by this processor.
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Diffable.class)) {
+            TypeElement type = (TypeElement) element;
+            if (validate(type)) {
+                try {
+                    generate(type);
+                } catch (IOException e) {
+                    error(type, "Failed to generate the differ of " + type + ": " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    error(type, e.getMessage());
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            if (!generated.isEmpty()) {
+                writeServiceFile(SERVICE_FILE, generated);
+            }
+            if (!generatedPatchers.isEmpty()) {
+                writeServiceFile(PATCHER_SERVICE_FILE, generatedPatchers);
+            }
+        }
+        return true;
+    }
+
+    private boolean validate(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.RECORD) {
+            error(type, "@Diffable applies to classes and records");
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@Diffable types cannot declare type parameters");
+            return false;
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement t; enclosing = t.getEnclosingElement()) {
+            if (t.getModifiers().contains(Modifier.PRIVATE)
+                    || (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC) && t.getKind() == ElementKind.CLASS)) {
+                error(type, "@Diffable types must be accessible from their package and cannot be inner classes");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A compared property of a {@link Diffable} type.
+     */
+    private record Property(String name, String read, TypeMirror type, List<Element> annotated) {
+
+        <A extends Annotation> A find(Class<A> annotation) {
+            return annotated.stream().map(element -> element.getAnnotation(annotation)).filter(Objects::nonNull).findFirst().orElse(null);
+        }
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String differName = generatedName(type, "Differ");
+        String typeName = type.getQualifiedName().toString();
+
+        List<Property> properties = properties(type);
+        if (properties == null) {
+            return;
+        }
+        boolean remapped = isRemapped(type);
+        if (!remapped && !hasDeserializationAnnotation(type)) {
+            generatePatcher(type, properties);
+        }
+        Map<String, String> nestedDiffers = new LinkedHashMap<>();
+        StringBuilder body = new StringBuilder();
+        if (remapped) {
+            // Jackson writes the type differently from its properties, so the differ compares what Jackson writes
+            properties = List.of();
+            body.append(String.format("        collector.tree(path, a, b);%n"));
+        }
+        for (Property property : properties) {
+            if (property.find(SilentField.class) != null) {
+                continue;
+            }
+            String token = escape(property.name());
+            String a = "a." + property.read();
+            String b = "b." + property.read();
+            TypeMirror propertyType = property.type();
+            ArrayKey arrayKey = property.find(ArrayKey.class);
+            if (property.find(CompositeField.class) != null) {
+                body.append(String.format("        collector.composite(path, \"%s\", %s, %s);%n", token, a, b));
+            } else if (propertyType.getKind().isPrimitive()) {
+                String changed = switch (propertyType.getKind()) {
+                    case DOUBLE -> String.format("Double.compare(%s, %s) != 0", a, b);
+                    case FLOAT -> String.format("Float.compare(%s, %s) != 0", a, b);
+                    default -> String.format("%s != %s", a, b);
+                };
+                body.append(String.format("        if (%s) {%n            collector.replace(path, \"%s\", %s, %s);%n        }%n", changed, token, a, b));
+            } else if (arrayKey != null) {
+                TypeElement elementType = listElementType(propertyType, type, property);
+                String keyAccessor = keyAccessor(elementType, arrayKey.value(), type);
+                String elementDiffer = isDiffable(elementType) ? nestedDiffer(elementType, nestedDiffers) : "null";
+                body.append(String.format("        collector.keyed(path, \"%s\", %s, %s, %s::%s, %s);%n",
+                        token, a, b, elementType.getQualifiedName(), keyAccessor, elementDiffer));
+            } else if (propertyType.getKind() == TypeKind.DECLARED && isDiffable((TypeElement) ((DeclaredType) propertyType).asElement())) {
+                String differ = nestedDiffer((TypeElement) ((DeclaredType) propertyType).asElement(), nestedDiffers);
+                body.append(String.format("        collector.diff(path, \"%s\", %s, %s, %s);%n", token, a, b, differ));
+            } else {
+                body.append(String.format("        collector.values(path, \"%s\", %s, %s);%n", token, a, b));
+            }
+        }
+
+        String qualifiedName = packageName.isEmpty() ? differName : packageName + "." + differName;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("/**%n * Compares instances of {@link %s}.%n */%n", typeName);
+            out.printf("@javax.annotation.processing.Generated(\"%s\")%n", DiffableProcessor.class.getName());
+            out.printf("public final class %s implements %s<%s> {%n", differName, TypeDiffer.class.getName(), typeName);
+            for (Map.Entry<String, String> nested : nestedDiffers.entrySet()) {
+                out.printf("%n    private static final %s %s = new %s();%n", nested.getKey(), nested.getValue(), nested.getKey());
+            }
+            out.printf("%n    @Override%n    public Class<%s> type() {%n        return %s.class;%n    }%n", typeName, typeName);
+            out.printf("%n    @Override%n    public void diff(String path, %s a, %s b, %s collector) {%n", typeName, typeName, DiffCollector.class.getName());
+            out.print(body);
+            out.printf("    }%n}%n");
+        }
+        generated.add(qualifiedName);
+    }
+
+    /**
+     * Generates the patcher of a type whose properties can all be written back; other types get none.
+     */
+    private void generatePatcher(TypeElement type, List<Property> properties) throws IOException {
+        String typeName = type.getQualifiedName().toString();
+        Map<String, String> typeReferences = new LinkedHashMap<>();
+        List<String> reads = new ArrayList<>();
+        List<String> applies = new ArrayList<>();
+        for (Property property : properties) {
+            if (!isDenotable(property.type())) {
+                return;
+            }
+            String read = "obj." + property.read();
+            reads.add(read);
+            applies.add(String.format("operation.apply(%s, %s)", read, typeLiteral(property.type(), typeReferences)));
+        }
+
+        StringBuilder body = new StringBuilder();
+        if (type.getKind() == ElementKind.RECORD) {
+            List<? extends RecordComponentElement> components = type.getRecordComponents();
+            if (components.size() != properties.size()) {
+                return;
+            }
+            body.append(String.format("        return switch (operation.property()) {%n"));
+            for (int i = 0; i < properties.size(); i++) {
+                if (!properties.get(i).annotated().contains(components.get(i))) {
+                    return;
+                }
+                List<String> arguments = new ArrayList<>(reads);
+                arguments.set(i, applies.get(i));
+                body.append(String.format("            case \"%s\" -> new %s(%s);%n", literal(properties.get(i).name()), typeName,
+                        String.join(", ", arguments)));
+            }
+            body.append(String.format("            default -> throw operation.unknownProperty(%s.class);%n        };%n", typeName));
+        } else {
+            boolean constructible = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                    .anyMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE));
+            if (type.getModifiers().contains(Modifier.ABSTRACT) || !constructible) {
+                return;
+            }
+            StringBuilder copy = new StringBuilder(String.format("        %s copy = new %s();%n", typeName, typeName));
+            StringBuilder cases = new StringBuilder();
+            for (int i = 0; i < properties.size(); i++) {
+                String write = writer(type, properties.get(i));
+                if (write == null) {
+                    return;
+                }
+                copy.append(String.format("        copy.%s;%n", String.format(write, reads.get(i))));
+                cases.append(String.format("            case \"%s\" -> copy.%s;%n", literal(properties.get(i).name()),
+                        String.format(write, applies.get(i))));
+            }
+            body.append(copy).append(String.format("        switch (operation.property()) {%n")).append(cases)
+                    .append(String.format("            default -> throw operation.unknownProperty(%s.class);%n        }%n", typeName))
+                    .append(String.format("        return copy;%n"));
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String patcherName = generatedName(type, "Patcher");
+        String qualifiedName = packageName.isEmpty() ? patcherName : packageName + "." + patcherName;
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("/**%n * Patches instances of {@link %s}.%n */%n", typeName);
+            out.printf("@javax.annotation.processing.Generated(\"%s\")%n", DiffableProcessor.class.getName());
+            out.printf("public final class %s implements %s<%s> {%n", patcherName, TypePatcher.class.getName(), typeName);
+            for (Map.Entry<String, String> reference : typeReferences.entrySet()) {
+                out.printf("%n    private static final %s<%s> %s = new %s<>() {%n    };%n", TYPE_REFERENCE, reference.getKey(), reference.getValue(),
+                        TYPE_REFERENCE);
+            }
+            out.printf("%n    @Override%n    public Class<%s> type() {%n        return %s.class;%n    }%n", typeName, typeName);
+            out.printf("%n    @Override%n    public %s apply(%s obj, %s operation) {%n", typeName, typeName, PatchOperation.class.getName());
+            out.print(body);
+            out.printf("    }%n}%n");
+        }
+        generatedPatchers.add(qualifiedName);
+    }
+
+    /**
+     * Returns the format of the statement writing a property of a class, with a {@code %s} for the value: its
+     * non-private setter, like Jackson prefers, or else its non-private, non-final field.
+     *
+     * @return the format, or {@code null} if the property cannot be written without reflection.
+     */
+    private String writer(TypeElement type, Property property) {
+        Element reader = property.annotated().get(0);
+        String name = reader.getSimpleName().toString();
+        if (reader.getKind() == ElementKind.METHOD) {
+            name = name.startsWith("get") ? name.substring(3) : name.startsWith("is") ? name.substring(2) : name;
+        }
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Types types = processingEnv.getTypeUtils();
+        List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(type);
+        for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+            if (method.getSimpleName().contentEquals(setter) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.STATIC) && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && types.isSameType(method.getParameters().get(0).asType(), property.type())) {
+                return setter + "(%s)";
+            }
+        }
+        for (Element element : property.annotated()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (element.getKind() == ElementKind.FIELD && !modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)
+                    && types.isSameType(element.asType(), property.type())) {
+                return element.getSimpleName() + " = %s";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a type can be written in generated code: it mentions no type variable.
+     */
+    private static boolean isDenotable(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> true;
+            case ARRAY -> isDenotable(((ArrayType) type).getComponentType());
+            case DECLARED -> ((DeclaredType) type).getTypeArguments().stream().allMatch(DiffableProcessor::isDenotable);
+            case WILDCARD -> {
+                WildcardType wildcard = (WildcardType) type;
+                yield (wildcard.getExtendsBound() == null || isDenotable(wildcard.getExtendsBound()))
+                        && (wildcard.getSuperBound() == null || isDenotable(wildcard.getSuperBound()));
+            }
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the expression of the type passed to {@link PatchOperation}: a class literal, or the constant holding
+     * the {@code TypeReference} of a parameterized type, declaring it if needed.
+     */
+    private String typeLiteral(TypeMirror type, Map<String, String> typeReferences) {
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return typeReferences.computeIfAbsent(type.toString(), name -> "TYPE_" + typeReferences.size());
+        }
+        return processingEnv.getTypeUtils().erasure(type) + ".class";
+    }
+
+    /**
+     * Returns whether a type or its members carry Jackson annotations that change how the type is read.
+     */
+    private boolean hasDeserializationAnnotation(TypeElement type) {
+        List<Element> elements = new ArrayList<>(processingEnv.getElementUtils().getAllMembers(type));
+        elements.add(type);
+        for (Element element : elements) {
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                if (DESERIALIZATION_ANNOTATIONS.contains(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the properties of a type, following the Jackson default visibility: the components of a record,
+     * the public getters and fields, and the members annotated with {@code @JsonProperty}.
+     *
+     * @return the properties, or {@code null} if a property cannot be read by generated code, which is reported.
+     */
+    private List<Property> properties(TypeElement type) {
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        if (type.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : type.getRecordComponents()) {
+                ExecutableElement accessor = component.getAccessor();
+                names.add(component.getSimpleName().toString());
+                addProperty(properties, component.getSimpleName().toString(), accessor.getSimpleName() + "()", accessor.getReturnType(),
+                        component, accessor);
+            }
+        }
+
+        List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(type);
+        List<VariableElement> fields = ElementFilter.fieldsIn(members).stream()
+                .filter(field -> !field.getModifiers().contains(Modifier.STATIC)).toList();
+        boolean readable = true;
+        for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+            String name = propertyName(method);
+            if (name == null || !names.add(name)) {
+                continue;
+            }
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                error(method, "@JsonProperty on a private method of a @Diffable type cannot be read without reflection");
+                readable = false;
+                continue;
+            }
+            List<Element> annotated = new ArrayList<>(List.of(method));
+            fields.stream().filter(field -> field.getSimpleName().contentEquals(name)).findFirst().ifPresent(annotated::add);
+            addProperty(properties, name, method.getSimpleName() + "()", method.getReturnType(), annotated.toArray(Element[]::new));
+        }
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            Set<Modifier> modifiers = field.getModifiers();
+            boolean visible = annotationValue(field, JSON_PROPERTY) != null
+                    || (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.TRANSIENT));
+            if (!visible || !names.add(name)) {
+                continue;
+            }
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                error(field, "@JsonProperty on a private field of a @Diffable type without a public getter cannot be read without reflection");
+                readable = false;
+                continue;
+            }
+            addProperty(properties, name, name, field.asType(), field);
+        }
+        return readable ? properties : null;
+    }
+
+    private void addProperty(List<Property> properties, String name, String read, TypeMirror type, Element... annotated) {
+        List<Element> elements = List.of(annotated);
+        for (Element element : elements) {
+            AnnotationValue ignored = annotationValue(element, JSON_IGNORE);
+            if (ignored != null && Boolean.TRUE.equals(ignored.getValue())) {
+                return;
+            }
+        }
+        for (Element element : elements) {
+            AnnotationValue renamed = annotationValue(element, JSON_PROPERTY);
+            if (renamed != null && !renamed.getValue().toString().isEmpty()) {
+                name = renamed.getValue().toString();
+            }
+        }
+        properties.add(new Property(name, read, type, elements));
+    }
+
+    /**
+     * Returns whether a type, its supertypes or its members carry Jackson annotations that change the representation
+     * of the type beyond the renames and omissions of its properties.
+     */
+    private boolean isRemapped(TypeElement type) {
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (hasRemappingAnnotation(member)) {
+                return true;
+            }
+        }
+        Types types = processingEnv.getTypeUtils();
+        List<TypeMirror> pending = new ArrayList<>(List.of(type.asType()));
+        while (!pending.isEmpty()) {
+            TypeMirror current = pending.remove(pending.size() - 1);
+            if (current.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            if (hasRemappingAnnotation(types.asElement(current))) {
+                return true;
+            }
+            pending.addAll(types.directSupertypes(current));
+        }
+        return false;
+    }
+
+    private static boolean hasRemappingAnnotation(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            String name = annotation.getQualifiedName().toString();
+            boolean jackson = name.startsWith("com.fasterxml.jackson.annotation.") || name.startsWith("com.fasterxml.jackson.databind.annotation.");
+            boolean bundle = annotation.getAnnotationMirrors().stream()
+                    .anyMatch(meta -> ((TypeElement) meta.getAnnotationType().asElement()).getQualifiedName().contentEquals(JACKSON_ANNOTATIONS_INSIDE));
+            if (bundle || (jackson && !MODELED_ANNOTATIONS.contains(name))) {
+                return true;
+            }
+            // Read-only and write-only properties are not written as they are read
+            if (name.equals(JSON_PROPERTY) && mirror.getElementValues().keySet().stream()
+                    .anyMatch(attribute -> attribute.getSimpleName().contentEquals("access"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the {@code value} of an annotation on an element, including its default, or {@code null} if the
+     * element is not annotated.
+     */
+    private AnnotationValue annotationValue(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return entry.getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the property read by a public getter or a method annotated with {@code @JsonProperty},
+     * following the Jackson default naming, or {@code null} if the method does not read a property.
+     */
+    private String propertyName(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || !method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID) {
+            return null;
+        }
+        boolean annotated = annotationValue(method, JSON_PROPERTY) != null;
+        if (!annotated && !modifiers.contains(Modifier.PUBLIC)) {
+            return null;
+        }
+        String name = method.getSimpleName().toString();
+        if (name.startsWith("get") && name.length() > 3 && !name.equals("getClass")) {
+            return decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return decapitalize(name.substring(2));
+        }
+        return annotated ? name : null;
+    }
+
+    /**
+     * Lower-cases the leading upper-case characters of a name, like Jackson does for getter names.
+     */
+    private static String decapitalize(String name) {
+        StringBuilder result = new StringBuilder(name);
+        for (int i = 0; i < result.length() && Character.isUpperCase(result.charAt(i)); i++) {
+            result.setCharAt(i, Character.toLowerCase(result.charAt(i)));
+        }
+        return result.toString();
+    }
+
+    private TypeElement listElementType(TypeMirror type, TypeElement owner, Property property) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror list = types.erasure(processingEnv.getElementUtils().getTypeElement(List.class.getName()).asType());
+        if (type.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(type), list)) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            if (arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED) {
+                return (TypeElement) ((DeclaredType) arguments.get(0)).asElement();
+            }
+        }
+        throw new IllegalArgumentException("@ArrayKey requires a List property with a declared element type: "
+                + owner.getSimpleName() + "." + property.name());
+    }
+
+    /**
+     * Returns the name of the accessor of the key property of a list element type.
+     */
+    private String keyAccessor(TypeElement elementType, String key, TypeElement owner) {
+        String capitalized = key.isEmpty() ? key : Character.toUpperCase(key.charAt(0)) + key.substring(1);
+        List<String> candidates = List.of(key, "get" + capitalized, "is" + capitalized);
+        for (String candidate : candidates) {
+            for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(elementType))) {
+                if (method.getSimpleName().contentEquals(candidate) && method.getParameters().isEmpty()
+                        && !method.getModifiers().contains(Modifier.STATIC) && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && method.getReturnType().getKind() != TypeKind.VOID) {
+                    return candidate;
+                }
+            }
+        }
+        throw new IllegalArgumentException("@ArrayKey(\"" + key + "\") of " + owner.getSimpleName()
+                + " does not match an accessor of " + elementType.getSimpleName());
+    }
+
+    private static boolean isDiffable(TypeElement type) {
+        return type.getAnnotation(Diffable.class) != null;
+    }
+
+    /**
+     * Returns the constant holding the differ of a nested {@link Diffable} type, declaring it if needed.
+     */
+    private String nestedDiffer(TypeElement type, Map<String, String> nestedDiffers) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String differ = packageName.isEmpty() ? generatedName(type, "Differ") : packageName + "." + generatedName(type, "Differ");
+        return nestedDiffers.computeIfAbsent(differ, name -> "DIFFER_" + nestedDiffers.size());
+    }
+
+    /**
+     * Returns the simple name of a class generated for a type: the names of the enclosing types and the type,
+     * joined with underscores, followed by the given suffix.
+     */
+    private static String generatedName(TypeElement type, String suffix) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement t; enclosing = t.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, t.getSimpleName());
+        }
+        return name.append(suffix).toString();
+    }
+
+    /**
+     * Escapes a property name as a JSON Pointer token inside a Java string literal.
+     */
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1").replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Escapes a property name inside a Java string literal.
+     */
+    private static String literal(String name) {
+        return name.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Writes a service registration, keeping the classes registered by earlier compilations so that an
+     * incremental compilation of some of the {@link Diffable} types does not drop the others.
+     */
+    private void writeServiceFile(String serviceFile, List<String> generated) {
+        Set<String> names = new LinkedHashSet<>();
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", serviceFile);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    int comment = line.indexOf('#');
+                    String name = (comment < 0 ? line : line.substring(0, comment)).trim();
+                    if (!name.isEmpty()) {
+                        names.add(name);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // No earlier registration
+        }
+        names.addAll(generated);
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", serviceFile);
+            try (Writer writer = file.openWriter()) {
+                for (String name : names) {
+                    writer.write(name);
+                    writer.write(System.lineSeparator());
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + serviceFile + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
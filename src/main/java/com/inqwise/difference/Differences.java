@@ -1,31 +1,52 @@
 package com.inqwise.difference;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.stream.Stream;
 
-import org.apache.commons.collections4.ListUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 /**
@@ -48,12 +69,36 @@ public class Differences implements Iterable<Differences.Difference> {
         }
     }
 
+    /** Compares beans by walking their properties, without converting them into trees first. */
+    private static final BeanDiffer beanDiffer = new BeanDiffer(mapper);
+
+    /** Applies patches to beans through their property accessors, without converting them into trees. */
+    private static final BeanPatcher beanPatcher = new BeanPatcher(mapper, beanDiffer);
+
+    /** Comparators generated per bean class, used by {@link Differentiator} when enabled. */
+    private static final GeneratedComparators generatedComparators = new GeneratedComparators(beanDiffer);
+
     /** An {@link ObjectReader} for reading a list of {@link Difference} objects from JSON. */
     private static final ObjectReader listOfDifferencesReader = mapper.readerFor(new TypeReference<List<Difference>>() {});
 
+    /** An {@link ObjectReader} for reading a single {@link Difference} from a patch operation. */
+    private static final ObjectReader differenceReader = mapper.readerFor(Difference.class);
+
+    /** The order in which {@link Difference} properties are serialized. */
+    private static final String[] FIELDS = { Constants.PATH, Constants.VALUE, Constants.FROM_VALUE, Constants.FROM, Constants.OP };
+
     /** The list of {@link Difference} objects representing the differences. */
     private List<Difference> list;
 
+    /** Writes trees and lists into generators without flushing after each value. */
+    private static final ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /** The JSON Patch the differences were read from, or {@code null} when they were built as a list. */
+    private volatile JsonNode patch;
+
+    /** The diffs the patch is rendered from when it is first needed, or {@code null}. */
+    private Diffs diffs;
+
     /**
      * Enum representing the JSON Patch operations.
      */
@@ -69,18 +114,24 @@ public class Differences implements Iterable<Differences.Difference> {
         /** The "copy" operation. */
         copy,
         /** The "test" operation. */
-        test
+        test,
+        /** The "text" extension operation, editing a string with a character-level delta. */
+        text
     }
 
     /**
-     * Represents a single difference between two JSON nodes.
+     * Represents a single difference between two JSON nodes. It is serialized with the fields it has, so that
+     * an absent value or original value stays absent.
      */
+    @JsonSerialize(using = DifferenceSerializer.class)
     public static class Difference {
         private Operation operation;
         private String path;
         private Object value;
         private Object fromValue;
         private String from;
+        private boolean hasValue;
+        private boolean hasFromValue;
 
         /**
          * Gets the JSON Patch operation of this difference.
@@ -136,6 +187,16 @@ public class Differences implements Iterable<Differences.Difference> {
          */
         public void setValue(Object value) {
             this.value = value;
+            this.hasValue = true;
+        }
+
+        /**
+         * Checks whether a value was set, even {@code null}, as opposed to being absent.
+         *
+         * @return {@code true} if a value was set.
+         */
+        boolean hasValue() {
+            return hasValue;
         }
 
         /**
@@ -154,6 +215,16 @@ public class Differences implements Iterable<Differences.Difference> {
          */
         public void setFromValue(Object fromValue) {
             this.fromValue = fromValue;
+            this.hasFromValue = true;
+        }
+
+        /**
+         * Checks whether an original value was set, even {@code null}, as opposed to being absent.
+         *
+         * @return {@code true} if an original value was set.
+         */
+        boolean hasFromValue() {
+            return hasFromValue;
         }
 
         /**
@@ -188,6 +259,33 @@ public class Differences implements Iterable<Differences.Difference> {
         }
     }
 
+    /**
+     * Serializes a {@link Difference} as a patch operation, writing only the fields that are present.
+     */
+    static final class DifferenceSerializer extends StdSerializer<Difference> {
+
+        DifferenceSerializer() {
+            super(Difference.class);
+        }
+
+        @Override
+        public void serialize(Difference difference, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(difference);
+            generator.writeStringField(Constants.PATH, difference.getPath());
+            if (difference.hasValue()) {
+                provider.defaultSerializeField(Constants.VALUE, difference.getValue(), generator);
+            }
+            if (difference.hasFromValue()) {
+                provider.defaultSerializeField(Constants.FROM_VALUE, difference.getFromValue(), generator);
+            }
+            if (difference.getFrom() != null) {
+                generator.writeStringField(Constants.FROM, difference.getFrom());
+            }
+            generator.writeStringField(Constants.OP, difference.getOperation() == null ? null : difference.getOperation().name());
+            generator.writeEndObject();
+        }
+    }
+
     /**
      * Default constructor for deserialization purposes.
      */
@@ -206,18 +304,29 @@ public class Differences implements Iterable<Differences.Difference> {
     }
 
     /**
-     * Constructs a {@code Differences} object from a JSON Patch node.
+     * Constructs a {@code Differences} object from a JSON Patch node. The patch is kept as is, and each
+     * {@link Difference} is only read from its operation when it is first accessed, so the patch must
+     * not be modified afterwards. Until a difference has been accessed, {@link #applyTo(Object)} applies
+     * the patch tree directly.
      *
      * @param patch The JSON Patch node.
-     * @throws IllegalArgumentException if the patch cannot be read.
+     * @throws IllegalArgumentException if the patch is invalid.
      */
     public Differences(JsonNode patch) {
         JsonPatch.validate(patch);
-        try {
-            list = listOfDifferencesReader.readValue(patch);
-        } catch (IOException e) {
-            throw new IllegalArgumentException(String.format("Failed to read patch: '%s'", patch), e);
-        }
+        this.patch = PointerCoding.expand(patch);
+        this.list = new LazyDifferenceList(patch.size());
+    }
+
+    /**
+     * Constructs a {@code Differences} object from computed diffs, which are rendered into a JSON Patch
+     * only when the patch tree is needed and are written directly by {@link #writeTo(JsonGenerator)}.
+     *
+     * @param diffs The diffs.
+     */
+    Differences(Diffs diffs) {
+        this.diffs = diffs;
+        this.list = new LazyDifferenceList(diffs.getDiffs().size());
     }
 
     /**
@@ -257,40 +366,95 @@ public class Differences implements Iterable<Differences.Difference> {
      * @return The {@code Differences} object representing the differences.
      */
     public static Differences between(Object obj1, Object obj2, List<String> silentFields, List<String> compositeFields) {
+        return between(obj1, obj2, silentFields, compositeFields, false);
+    }
+
+    /**
+     * Computes the differences between two objects, optionally skipping equal beans with comparators
+     * generated per class.
+     *
+     * @param obj1                 The first object.
+     * @param obj2                 The second object.
+     * @param silentFields         The fields to exclude from the comparison.
+     * @param compositeFields      The composite fields to handle specially.
+     * @param generatedComparators Whether to use comparators generated per bean class.
+     * @return The {@code Differences} object representing the differences.
+     */
+    static Differences between(Object obj1, Object obj2, List<String> silentFields, List<String> compositeFields,
+            boolean generatedComparators) {
         logger.trace("between({}, {}, {}, {})", obj1, obj2, silentFields, compositeFields);
+        return between(obj1, obj2, DiffPlan.compile(silentFields, compositeFields), generatedComparators);
+    }
 
-        JsonNode node1 = convertObjectToJsonNode(obj1);
-        JsonNode node2 = convertObjectToJsonNode(obj2);
+    /**
+     * Computes the differences between two objects with a compiled configuration.
+     *
+     * @param obj1                 The first object.
+     * @param obj2                 The second object.
+     * @param plan                 The compiled silent fields, composite fields and flags.
+     * @param generatedComparators Whether to use comparators generated per bean class.
+     * @return The {@code Differences} object representing the differences.
+     */
+    static Differences between(Object obj1, Object obj2, DiffPlan plan, boolean generatedComparators) {
+        if (isVertxJson(obj1) && isVertxJson(obj2)) {
+            return plan.vertxJsonDiff().differences(obj1, obj2);
+        }
 
-        if (silentFields != null) {
-            silentFields.forEach(field -> removeSilentFields(field, node1, node2));
+        if (!(obj1 instanceof JsonObject) && beanDiffer.supports(obj1, obj2)) {
+            return new Differences(beanDiffer.compare(obj1, obj2, plan.silentFields(), plan.jsonDiff(),
+                    generatedComparators ? Differences.generatedComparators : null));
         }
 
-        EnumSet<DiffFlags> flags = EnumSet.of(
+        JsonNode node1 = convertObjectToJsonNode(obj1, plan.silentFields());
+        JsonNode node2 = convertObjectToJsonNode(obj2, plan.silentFields());
+
+        return new Differences(plan.jsonDiff().compare(node1, node2, SilentFields.NONE));
+    }
+
+    /**
+     * Checks whether an object is a Vert.x JSON container, which is compared without conversion.
+     *
+     * @param obj The object to check.
+     * @return {@code true} for a {@link JsonObject} or a {@link JsonArray}.
+     */
+    private static boolean isVertxJson(Object obj) {
+        return obj instanceof JsonObject || obj instanceof JsonArray;
+    }
+
+    /**
+     * Returns the flags used to compute differences between objects.
+     *
+     * @return A new set of {@link DiffFlags}.
+     */
+    static EnumSet<DiffFlags> diffFlags() {
+        return EnumSet.of(
                 DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE,
                 DiffFlags.OMIT_MOVE_OPERATION,
                 DiffFlags.OMIT_COPY_OPERATION,
                 DiffFlags.OMIT_COMPOSITE_ARRAY
         );
-        JsonNode diff = JsonDiff.asJson(node1, node2, flags, transformCompositeFields(compositeFields));
-
-        return new Differences(diff);
     }
 
     /**
-     * Removes specified fields from the given JSON nodes.
+     * Checks whether objects of a class are written as plain beans: by the default bean serializer, without a mix-in
+     * and with every property included. Only then do the properties read by a generated {@link TypeDiffer} match the
+     * JSON representation of the objects.
      *
-     * @param field The field to remove.
-     * @param nodes The JSON nodes from which to remove the field.
+     * @param type The class.
+     * @return {@code true} if the class is written as a plain bean.
      */
-    private static void removeSilentFields(String field, JsonNode... nodes) {
-        logger.debug("removeSilentFields({}, {})", field, nodes);
-        String[] fieldTokens = field.split("\\.");
-
-        for (JsonNode node : nodes) {
-            if (node instanceof ObjectNode) {
-                removeField(fieldTokens, (ContainerNode<?>) node, false);
-            }
+    static boolean isPlainBean(Class<?> type) {
+        if (mapper.findMixInClassFor(type) != null) {
+            return false;
+        }
+        JsonInclude.Include inclusion = mapper.getSerializationConfig().getDefaultPropertyInclusion(type).getValueInclusion();
+        if (inclusion != JsonInclude.Include.ALWAYS && inclusion != JsonInclude.Include.USE_DEFAULTS) {
+            return false;
+        }
+        try {
+            return mapper.getSerializerProviderInstance().findValueSerializer(type).getClass() == BeanSerializer.class;
+        } catch (JsonMappingException e) {
+            return false;
         }
     }
 
@@ -301,46 +465,66 @@ public class Differences implements Iterable<Differences.Difference> {
      * @return The resulting {@link JsonNode}.
      * @throws IllegalArgumentException if conversion fails.
      */
-    private static JsonNode convertObjectToJsonNode(Object obj) {
-        try {
-            if (obj instanceof JsonObject) {
-                return mapper.readTree(obj.toString());
-            } else {
-                return mapper.valueToTree(obj);
-            }
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Error converting object to JsonNode", e);
+    static JsonNode convertObjectToJsonNode(Object obj) {
+        if (obj instanceof JsonObject || obj instanceof JsonArray) {
+            return VertxJson.toJsonNode(obj, mapper);
+        } else {
+            return mapper.valueToTree(obj);
         }
     }
 
     /**
-     * Normalizes a field string into a JSON Pointer format.
+     * Reads an object of the given type from a {@link JsonNode}.
      *
-     * @param field The field string.
-     * @return The normalized field string.
+     * @param node The JSON value.
+     * @param type The type of the object.
+     * @return The object.
+     * @throws IllegalArgumentException if the value cannot be read as the type.
      */
-    private static String normalizeField(String field) {
-        return field.startsWith("/") ? field : "/" + field.replace(".", "/");
+    static Object convertJsonNode(JsonNode node, Type type) {
+        try {
+            return mapper.readerFor(mapper.constructType(type)).readValue(node);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read " + type.getTypeName() + " from " + node, e);
+        }
     }
 
     /**
-     * Transforms a list of composite fields into JSON Pointer format.
+     * Converts an object to a {@link JsonNode} without its silent fields. Objects are serialized through a
+     * token filter, so silent subtrees are dropped as they are written and never materialized.
      *
-     * @param compositeFields The list of composite fields.
-     * @return A list of normalized fields.
+     * @param obj    The object to convert.
+     * @param silent The silent fields at the root.
+     * @return The resulting {@link JsonNode}.
+     * @throws IllegalArgumentException if conversion fails.
      */
-    private static List<String> transformCompositeFields(List<String> compositeFields) {
-        return ListUtils.emptyIfNull(compositeFields).stream().map(Differences::normalizeField).toList();
+    static JsonNode convertObjectToJsonNode(Object obj, SilentFields silent) {
+        if (obj == null || silent.isEmpty()) {
+            return convertObjectToJsonNode(obj);
+        }
+        if (obj instanceof JsonObject || obj instanceof JsonArray) {
+            return VertxJson.toJsonNode(obj, mapper, obj instanceof JsonObject ? silent : SilentFields.NONE);
+        }
+        try (TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            buffer.forceUseOfBigDecimal(mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS));
+            mapper.writeValue(new FilteringGeneratorDelegate(buffer, silent.documentFilter(),
+                    TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true), obj);
+            return mapper.readTree(buffer.asParser());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error converting object to JsonNode", e);
+        }
     }
 
     /**
      * Recursively removes a field from a container node, supporting wildcards.
+     * Comparisons skip silent fields with {@link SilentFields} instead, which yields the same result
+     * without modifying the nodes.
      *
      * @param tokens   The field tokens representing the path.
      * @param node     The container node.
      * @param wildcard Whether wildcard matching is enabled.
      */
-    private static void removeField(String[] tokens, ContainerNode<?> node, boolean wildcard) {
+    static void removeField(String[] tokens, ContainerNode<?> node, boolean wildcard) {
         logger.trace("removeField({}, {}, {})", Arrays.toString(tokens), node, wildcard);
         if (tokens.length == 0 || node == null) {
             return; // Base case: no tokens to process or node is null
@@ -407,7 +591,7 @@ public class Differences implements Iterable<Differences.Difference> {
      * @return {@code true} if there are no differences, {@code false} otherwise.
      */
     public boolean isEmpty() {
-        return list.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -429,7 +613,100 @@ public class Differences implements Iterable<Differences.Difference> {
     }
 
     /**
-     * Applies the differences to the given object and returns the resulting object.
+     * Returns the inverse of these differences, which reverts an object produced by {@link #applyTo(Object)}
+     * back to its original state without keeping a snapshot of the original or re-computing the diff.
+     * The inversion relies on the values captured by {@link #between(Object, Object, List, List)}:
+     * removed values and the original values of replaced fields.
+     *
+     * @return The inverse {@code Differences}.
+     * @throws IllegalStateException if a value required for the inversion is missing, or an operation
+     *                               targets the end of an array ({@code -}) whose index is unknown.
+     */
+    public Differences invert() {
+        List<Difference> inverted = new ArrayList<>(list.size());
+        for (int i = list.size() - 1; i >= 0; i--) {
+            inverted.add(invert(list.get(i)));
+        }
+        return new Differences(inverted);
+    }
+
+    /**
+     * Creates the difference that reverts the given one.
+     *
+     * @param difference The difference to invert.
+     * @return The inverse difference.
+     * @throws IllegalStateException if the difference cannot be inverted without the document.
+     */
+    private static Difference invert(Difference difference) {
+        Difference inverted = new Difference();
+        switch (difference.getOperation()) {
+            case add:
+                checkIndexed(difference);
+                inverted.setOperation(Operation.remove);
+                inverted.setPath(difference.getPath());
+                inverted.setValue(difference.getValue());
+                break;
+            case remove:
+                if (!difference.hasValue())
+                    throw new IllegalStateException("Cannot invert remove without a value at " + difference.getPath());
+                inverted.setOperation(Operation.add);
+                inverted.setPath(difference.getPath());
+                inverted.setValue(difference.getValue());
+                break;
+            case replace:
+                if (!difference.hasFromValue())
+                    throw new IllegalStateException("Cannot invert replace without an original value at " + difference.getPath());
+                inverted.setOperation(Operation.replace);
+                inverted.setPath(difference.getPath());
+                inverted.setValue(difference.getFromValue());
+                inverted.setFromValue(difference.getValue());
+                break;
+            case text:
+                if (!difference.hasFromValue())
+                    throw new IllegalStateException("Cannot invert text without an inverse delta at " + difference.getPath());
+                inverted.setOperation(Operation.text);
+                inverted.setPath(difference.getPath());
+                inverted.setValue(difference.getFromValue());
+                inverted.setFromValue(difference.getValue());
+                break;
+            case move:
+                checkIndexed(difference);
+                inverted.setOperation(Operation.move);
+                inverted.setFrom(difference.getPath());
+                inverted.setPath(difference.getFrom());
+                break;
+            case copy:
+                checkIndexed(difference);
+                inverted.setOperation(Operation.remove);
+                inverted.setPath(difference.getPath());
+                break;
+            case test:
+                inverted.setOperation(Operation.test);
+                inverted.setPath(difference.getPath());
+                inverted.setValue(difference.getValue());
+                break;
+        }
+        return inverted;
+    }
+
+    /**
+     * Checks that a difference inserting a value does not append it to an array, since the inverse needs
+     * the index the value was inserted at.
+     *
+     * @param difference The difference to check.
+     * @throws IllegalStateException if the path ends with the {@code -} token.
+     */
+    private static void checkIndexed(Difference difference) {
+        if (difference.getPath() != null && difference.getPath().endsWith("/-"))
+            throw new IllegalStateException("Cannot invert " + difference.getOperation() + " at the end of an array without its index at "
+                    + difference.getPath());
+    }
+
+    /**
+     * Applies the differences to the given object and returns the resulting object. The object itself is not
+     * modified. {@link Diffable} types with a generated {@link TypePatcher}, and beans whose changed properties can
+     * be set directly, are patched on a copy-on-write clone, which shares the unchanged values with the object;
+     * other objects are patched through their JSON trees.
      *
      * @param <T> The type of the object.
      * @param obj The object to which the differences are applied.
@@ -441,17 +718,191 @@ public class Differences implements Iterable<Differences.Difference> {
         logger.trace("applyTo({})", obj);
         Preconditions.checkNotNull(obj, "Target object cannot be null");
 
-        JsonNode source = convertObjectToJsonNode(obj);
-        JsonNode patch = mapper.valueToTree(list);
+        Object patched;
+        if (obj instanceof JsonObject object) {
+            patched = VertxJsonPatch.apply(toJsonArray(), object);
+        } else if (obj instanceof JsonArray array) {
+            patched = VertxJsonPatch.apply(toJsonArray(), array);
+        } else {
+            patched = applyToBean(obj);
+        }
+        return (T) patched;
+    }
+
+    /**
+     * Applies the differences to an object that is not a Vert.x JSON value.
+     *
+     * @param obj The object to which the differences are applied.
+     * @return A new object of the same class.
+     * @throws IllegalArgumentException if the application fails.
+     */
+    private Object applyToBean(Object obj) {
+        JsonNode patch = toJsonNode();
+        Object patched = TypePatchers.apply(patch, obj);
+        if (patched != null) {
+            return patched;
+        }
+        patched = beanPatcher.apply(patch, obj);
+        if (patched != null) {
+            return patched;
+        }
 
+        JsonNode source = convertObjectToJsonNode(obj);
         JsonNode target = JsonPatch.apply(patch, source);
         try {
-            return (T) mapper.treeToValue(target, obj.getClass());
+            return mapper.treeToValue(target, obj.getClass());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("Failed to apply patch", e);
         }
     }
 
+    /**
+     * Returns the differences as a JSON Patch of Vert.x {@link JsonObject} operations.
+     *
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public JsonArray toJsonArray() {
+        JsonArray patch = new JsonArray(new ArrayList<>(list.size()));
+        for (Difference difference : list) {
+            JsonObject operation = new JsonObject().put(Constants.OP, difference.getOperation().name());
+            switch (difference.getOperation()) {
+                case move:
+                case copy:
+                    operation.put(Constants.FROM, difference.getFrom());
+                    operation.put(Constants.PATH, difference.getPath());
+                    break;
+                case remove:
+                    operation.put(Constants.PATH, difference.getPath());
+                    if (difference.hasValue()) {
+                        operation.put(Constants.VALUE, difference.getValue());
+                    }
+                    break;
+                case replace:
+                case text:
+                    if (difference.hasFromValue()) {
+                        operation.put(Constants.FROM_VALUE, difference.getFromValue());
+                    }
+                default:
+                    operation.put(Constants.PATH, difference.getPath());
+                    operation.put(Constants.VALUE, difference.getValue());
+            }
+            patch.add(operation);
+        }
+        return patch;
+    }
+
+    /**
+     * Writes the differences as a JSON array to the given generator, in the same form as {@link #toString()}.
+     * Computed differences are written straight from their diffs and differences read from a JSON Patch
+     * from its operations, without building another tree.
+     *
+     * @param generator The generator to write to; it is neither flushed nor closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        if (!isUntouched()) {
+            writer.writeValue(generator, list);
+            return;
+        }
+        JsonNode operations = patch;
+        if (operations == null) {
+            generator.writeStartArray(this, diffs.getDiffs().size());
+            for (Diff diff : diffs) {
+                writeDifference(generator, diff, diffs.getFlags());
+            }
+        } else {
+            generator.writeStartArray(this, operations.size());
+            for (JsonNode operation : operations) {
+                generator.writeStartObject();
+                for (String field : FIELDS) {
+                    JsonNode value = operation.get(field);
+                    if (value != null) {
+                        generator.writeFieldName(field);
+                        writeValue(generator, value);
+                    }
+                }
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the differences as UTF-8 encoded JSON to the given stream, in the same form as {@link #toString()}.
+     *
+     * @param out The stream to write to; it is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeTo(generator);
+        }
+    }
+
+    /**
+     * Writes a diff in the form of a serialized {@link Difference}, with the fields of its JSON Patch operation.
+     *
+     * @param generator The generator to write to.
+     * @param diff      The diff.
+     * @param flags     The flags the diff was computed with.
+     * @throws IOException if writing fails.
+     */
+    private static void writeDifference(JsonGenerator generator, Diff diff, EnumSet<DiffFlags> flags) throws IOException {
+        JsonPointer path = diff.getPath();
+        JsonNode value = null;
+        JsonNode fromValue = null;
+        String from = null;
+        switch (diff.getOperation()) {
+            case MOVE:
+            case COPY:
+                from = path.toString();
+                path = diff.getToPath();
+                break;
+            case REMOVE:
+                if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE)) {
+                    value = diff.getValue();
+                }
+                break;
+            case REPLACE:
+            case TEXT:
+                if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
+                    fromValue = diff.getSrcValue();
+                }
+                value = valueOf(diff);
+                break;
+            default:
+                value = valueOf(diff);
+                break;
+        }
+        generator.writeStartObject();
+        generator.writeStringField(Constants.PATH, path.toString());
+        if (value != null) {
+            generator.writeFieldName(Constants.VALUE);
+            writeValue(generator, value);
+        }
+        if (fromValue != null) {
+            generator.writeFieldName(Constants.FROM_VALUE);
+            writeValue(generator, fromValue);
+        }
+        if (from != null) {
+            generator.writeStringField(Constants.FROM, from);
+        }
+        generator.writeStringField(Constants.OP, diff.getOperation().rfcName());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Returns the value of an operation that always carries one, {@code null} standing for a JSON null.
+     */
+    private static JsonNode valueOf(Diff diff) {
+        return diff.getValue() == null ? NullNode.getInstance() : diff.getValue();
+    }
+
+    private static void writeValue(JsonGenerator generator, JsonNode value) throws IOException {
+        writer.writeValue(generator, value);
+    }
+
     /**
      * Returns a JSON string representation of the differences.
      *
@@ -459,6 +910,127 @@ public class Differences implements Iterable<Differences.Difference> {
      */
     @Override
     public String toString() {
-        return Optional.ofNullable(mapper.valueToTree(list)).map(Object::toString).orElse(null);
+        if (list == null) {
+            return null;
+        }
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the differences as a JSON Patch tree, which is the original or rendered patch as long as none
+     * of its differences has been accessed.
+     *
+     * @return The JSON Patch node.
+     */
+    JsonNode toJsonNode() {
+        return isUntouched() ? patch() : mapper.valueToTree(list);
+    }
+
+    /**
+     * Returns whether the differences are still those of the patch or diffs they were created from, that is,
+     * no {@link Difference} has been handed out and possibly modified since.
+     *
+     * @return {@code true} if the patch or diffs are authoritative.
+     */
+    private boolean isUntouched() {
+        return list instanceof LazyDifferenceList lazy && !lazy.isAccessed();
+    }
+
+    /**
+     * Returns the JSON Patch the differences were created from, rendering the diffs on first use.
+     *
+     * @return The JSON Patch node.
+     */
+    private JsonNode patch() {
+        JsonNode rendered = patch;
+        if (rendered == null) {
+            rendered = PointerCoding.expand(diffs.getJsonNodes());
+            patch = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * A list that reads each {@link Difference} from its patch operation when it is first accessed. The first
+     * structural change copies every difference into a modifiable list, which backs the list from then on.
+     */
+    private final class LazyDifferenceList extends AbstractList<Difference> implements RandomAccess {
+        private final Difference[] differences;
+        private List<Difference> modified;
+        private volatile boolean accessed;
+
+        LazyDifferenceList(int size) {
+            this.differences = new Difference[size];
+        }
+
+        @Override
+        public Difference get(int index) {
+            if (modified != null) {
+                return modified.get(index);
+            }
+            Objects.checkIndex(index, differences.length);
+            accessed = true;
+            Difference difference = differences[index];
+            if (difference == null) {
+                JsonNode operation = patch().get(index);
+                try {
+                    difference = differenceReader.readValue(operation);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(String.format("Failed to read patch operation: '%s'", operation), e);
+                }
+                differences[index] = difference;
+            }
+            return difference;
+        }
+
+        @Override
+        public Difference set(int index, Difference element) {
+            return modifiable().set(index, element);
+        }
+
+        @Override
+        public void add(int index, Difference element) {
+            modifiable().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Difference remove(int index) {
+            Difference removed = modifiable().remove(index);
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public int size() {
+            return modified != null ? modified.size() : differences.length;
+        }
+
+        /**
+         * Returns whether a difference has been handed out or the list has been changed.
+         *
+         * @return {@code true} once {@link #get(int)} has been called or the list has been changed.
+         */
+        boolean isAccessed() {
+            return accessed;
+        }
+
+        private List<Difference> modifiable() {
+            if (modified == null) {
+                List<Difference> copy = new ArrayList<>(differences.length);
+                for (int i = 0; i < differences.length; i++) {
+                    copy.add(get(i));
+                }
+                modified = copy;
+                accessed = true;
+            }
+            return modified;
+        }
     }
 }
\ No newline at end of file
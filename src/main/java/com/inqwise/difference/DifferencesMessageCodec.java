@@ -0,0 +1,251 @@
+package com.inqwise.difference;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * A Vert.x event bus {@link MessageCodec} carrying {@link Differences} in a compact binary form, so that
+ * receivers rebuild them without parsing, validating and binding JSON text.
+ *
+ * <p>The message starts with the version of the format, followed by the number of differences. Each
+ * difference is written as its operation code, a byte flagging the fields present, the length-prefixed
+ * UTF-8 pointers and the tagged binary values. Operation codes and value tags are those of {@link BinaryPatch}
+ * ({@link BinaryEncoder}), fixed so that they do not depend on the order of the operations, and messages of an
+ * unknown version are rejected. Lengths, counts and integers are variable-length encoded. Values are written as the JSON values they stand for: Vert.x JSON values,
+ * instants, binary values and other types are first mapped as by the Vert.x JSON codec.
+ *
+ * <p>Local delivery passes the sent instance through without copying; senders must not modify
+ * {@code Differences} after sending them.
+ *
+ * <p>Register the codec as the default for the class:
+ * <pre>{@code
+ * vertx.eventBus().registerDefaultCodec(Differences.class, new DifferencesMessageCodec());
+ * }</pre>
+ */
+public final class DifferencesMessageCodec implements MessageCodec<Differences, Differences> {
+
+    /** The name of the codec. */
+    public static final String NAME = "differences";
+
+    /** The version of the wire format, written first. */
+    static final byte VERSION = 1;
+
+    private static final int HAS_PATH = 1;
+    private static final int HAS_FROM = 1 << 1;
+    private static final int HAS_VALUE = 1 << 2;
+    private static final int HAS_FROM_VALUE = 1 << 3;
+
+    @Override
+    public void encodeToWire(Buffer buffer, Differences differences) {
+        BinaryEncoder out = new BinaryEncoder();
+        out.write(VERSION);
+        out.writeVarInt(differences.size());
+        for (Differences.Difference difference : differences) {
+            int fields = (difference.getPath() != null ? HAS_PATH : 0)
+                    | (difference.getFrom() != null ? HAS_FROM : 0)
+                    | (difference.hasValue() ? HAS_VALUE : 0)
+                    | (difference.hasFromValue() ? HAS_FROM_VALUE : 0);
+            out.write(BinaryEncoder.code(Operation.fromRfcName(difference.getOperation().name())));
+            out.write(fields);
+            if (difference.getPath() != null) {
+                out.writeString(difference.getPath());
+            }
+            if (difference.getFrom() != null) {
+                out.writeString(difference.getFrom());
+            }
+            if (difference.hasValue()) {
+                writeValue(out, difference.getValue());
+            }
+            if (difference.hasFromValue()) {
+                writeValue(out, difference.getFromValue());
+            }
+        }
+        buffer.appendBytes(out.array(), 0, out.size());
+    }
+
+    @Override
+    public Differences decodeFromWire(int pos, Buffer buffer) {
+        Reader reader = new Reader(buffer, pos);
+        byte version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported wire format version " + version);
+        }
+        int size = reader.readVarInt();
+        List<Differences.Difference> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Differences.Difference difference = new Differences.Difference();
+            difference.setOperation(reader.readOperation());
+            int fields = reader.readByte();
+            if ((fields & HAS_PATH) != 0) {
+                difference.setPath(reader.readString());
+            }
+            if ((fields & HAS_FROM) != 0) {
+                difference.setFrom(reader.readString());
+            }
+            if ((fields & HAS_VALUE) != 0) {
+                difference.setValue(reader.readValue());
+            }
+            if ((fields & HAS_FROM_VALUE) != 0) {
+                difference.setFromValue(reader.readValue());
+            }
+            list.add(difference);
+        }
+        return new Differences(list);
+    }
+
+    /**
+     * Passes locally delivered differences through without copying them.
+     */
+    @Override
+    public Differences transform(Differences differences) {
+        return differences;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+
+    private static void writeValue(BinaryEncoder out, Object value) {
+        value = VertxJsonDiff.normalize(value);
+        if (value == null) {
+            out.write(BinaryEncoder.NULL);
+        } else if (value instanceof Boolean bool) {
+            out.write(bool ? BinaryEncoder.TRUE : BinaryEncoder.FALSE);
+        } else if (value instanceof Integer number) {
+            out.write(BinaryEncoder.INT);
+            out.writeZigZag(number);
+        } else if (value instanceof Long number) {
+            out.write(BinaryEncoder.LONG);
+            out.writeZigZag(number);
+        } else if (value instanceof BigInteger number) {
+            out.write(BinaryEncoder.BIG_INTEGER);
+            out.writeLengthPrefixed(number.toByteArray());
+        } else if (value instanceof Double number) {
+            out.write(BinaryEncoder.DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof String text) {
+            out.write(BinaryEncoder.STRING);
+            out.writeString(text);
+        } else if (value instanceof List<?> list) {
+            out.write(BinaryEncoder.ARRAY);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.write(BinaryEncoder.OBJECT);
+            out.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the wire format from a position of a buffer.
+     */
+    private static final class Reader {
+        private final Buffer buffer;
+        private int pos;
+
+        Reader(Buffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        byte readByte() {
+            return buffer.getByte(pos++);
+        }
+
+        Differences.Operation readOperation() {
+            byte code = readByte();
+            Operation operation = BinaryEncoder.operation(code);
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation code " + code);
+            }
+            return Differences.Operation.valueOf(operation.rfcName());
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            String text = buffer.getString(pos, pos + length, StandardCharsets.UTF_8.name());
+            pos += length;
+            return text;
+        }
+
+        Object readValue() {
+            byte tag = readByte();
+            switch (tag) {
+                case BinaryEncoder.NULL:
+                    return null;
+                case BinaryEncoder.FALSE:
+                    return Boolean.FALSE;
+                case BinaryEncoder.TRUE:
+                    return Boolean.TRUE;
+                case BinaryEncoder.INT:
+                    return (int) BinaryEncoder.unZigZag(readVarLong());
+                case BinaryEncoder.LONG:
+                    return BinaryEncoder.unZigZag(readVarLong());
+                case BinaryEncoder.BIG_INTEGER:
+                    int length = readVarInt();
+                    BigInteger number = new BigInteger(buffer.getBytes(pos, pos + length));
+                    pos += length;
+                    return number;
+                case BinaryEncoder.DOUBLE:
+                    double value = buffer.getDouble(pos);
+                    pos += Double.BYTES;
+                    return value;
+                case BinaryEncoder.STRING:
+                    return readString();
+                case BinaryEncoder.ARRAY:
+                    int size = readVarInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case BinaryEncoder.OBJECT:
+                    int fields = readVarInt();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < fields; i++) {
+                        String key = readString();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                default:
+                    throw new IllegalArgumentException("Unknown value tag " + tag + " at position " + (pos - 1));
+            }
+        }
+    }
+}
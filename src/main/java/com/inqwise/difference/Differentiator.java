@@ -1,6 +1,17 @@
 package com.inqwise.difference;
 
+import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 
 /**
  * A class that facilitates comparison between two objects while allowing the user to specify 
@@ -9,9 +20,19 @@ import java.util.List;
  * comparison by delegating to the {@link Differences} class.
  */
 public class Differentiator {
-    
-    private List<String> silentFields;
-    private List<String> compositeFields;
+
+    /** The default number of values up to which asynchronous comparisons run inline. */
+    public static final int DEFAULT_INLINE_THRESHOLD = 64;
+
+    private final List<String> silentFields;
+    private final List<String> compositeFields;
+    private final boolean generatedComparators;
+    private final Vertx vertx;
+    private final boolean virtualThreads;
+    private final int inlineThreshold;
+
+    /** The silent and composite fields compiled once, shared by all comparisons. */
+    private final DiffPlan plan;
 
     /**
      * Private constructor that initializes the Differentiator with silent and composite fields.
@@ -20,6 +41,11 @@ public class Differentiator {
     private Differentiator(Builder builder) {
         this.silentFields = builder.silentFields;
         this.compositeFields = builder.compositeFields;
+        this.generatedComparators = builder.generatedComparators;
+        this.vertx = builder.vertx;
+        this.virtualThreads = builder.virtualThreads;
+        this.inlineThreshold = builder.inlineThreshold;
+        this.plan = DiffPlan.compile(silentFields, compositeFields);
     }
 
     /**
@@ -40,15 +66,189 @@ public class Differentiator {
         return builderFrom(this).withCompositeFields(compositeFields).build();
     }
 
+    /**
+     * Returns a new {@link Differentiator} object that compares beans with comparators generated per class.
+     * The comparator of a class is built on first use and hard-wires its property reads, primitive comparisons
+     * and silent fields, so that equal beans are recognized without walking their properties.
+     * @param generatedComparators whether to use comparators generated per class.
+     * @return a new {@code Differentiator} with the updated setting.
+     */
+    public Differentiator generatedComparators(boolean generatedComparators) {
+        return builderFrom(this).withGeneratedComparators(generatedComparators).build();
+    }
+
+    /**
+     * Returns a new {@link Differentiator} object that runs asynchronous comparisons on the worker pool
+     * of the given Vert.x instance.
+     * @param vertx the Vert.x instance, or {@code null} to use the instance of the calling context.
+     * @return a new {@code Differentiator} with the updated Vert.x instance.
+     */
+    public Differentiator vertx(Vertx vertx) {
+        return builderFrom(this).withVertx(vertx).build();
+    }
+
+    /**
+     * Returns a new {@link Differentiator} object that runs asynchronous comparisons on virtual threads
+     * instead of a Vert.x worker pool.
+     * @param virtualThreads whether to use virtual threads.
+     * @return a new {@code Differentiator} with the updated setting.
+     */
+    public Differentiator virtualThreads(boolean virtualThreads) {
+        return builderFrom(this).withVirtualThreads(virtualThreads).build();
+    }
+
+    /**
+     * Returns a new {@link Differentiator} object with the updated inline threshold.
+     * @param inlineThreshold the number of values up to which asynchronous comparisons run inline.
+     * @return a new {@code Differentiator} with the updated inline threshold.
+     */
+    public Differentiator inlineThreshold(int inlineThreshold) {
+        return builderFrom(this).withInlineThreshold(inlineThreshold).build();
+    }
+
     /**
      * Compares two objects and returns the {@link Differences} between them, 
      * taking into account the configured silent and composite fields.
+     * Objects of a {@link Diffable} class are compared by the {@link TypeDiffer} generated for the class,
+     * unless silent or composite fields are configured on this Differentiator.
      * @param obj1 the first object to compare.
      * @param obj2 the second object to compare.
      * @return the {@code Differences} between the two objects.
      */
     public Differences between(Object obj1, Object obj2) {
-        return Differences.between(obj1, obj2, silentFields, compositeFields);
+        if (plan.isEmpty()) {
+            TypeDiffer<Object> differ = TypeDiffers.find(obj1, obj2);
+            if (differ != null) {
+                return TypeDiffers.between(differ, obj1, obj2);
+            }
+        }
+        return Differences.between(obj1, obj2, plan, generatedComparators);
+    }
+
+    /**
+     * Compares two objects without blocking the calling thread. The comparison runs on virtual threads when
+     * enabled, and otherwise on the worker pool of the configured Vert.x instance or of the calling context;
+     * without either it runs on virtual threads. Small objects, up to the inline threshold, are compared on
+     * the calling thread to avoid the cost of the dispatch.
+     * Objects are sized by counting the values of Vert.x JSON values, maps, collections and arrays;
+     * other objects, such as beans, are always dispatched.
+     * @param obj1 the first object to compare.
+     * @param obj2 the second object to compare.
+     * @return a {@link Future} completed with the {@code Differences} between the two objects.
+     * @see #between(Object, Object)
+     */
+    public Future<Differences> betweenAsync(Object obj1, Object obj2) {
+        if (isInline(obj1, obj2)) {
+            try {
+                return Future.succeededFuture(between(obj1, obj2));
+            } catch (RuntimeException e) {
+                return Future.failedFuture(e);
+            }
+        }
+        Vertx owner = vertx();
+        if (virtualThreads || owner == null) {
+            CompletableFuture<Differences> stage = betweenOnVirtualThread(obj1, obj2);
+            Context context = owner == null ? null : owner.getOrCreateContext();
+            return context == null ? Future.fromCompletionStage(stage) : Future.fromCompletionStage(stage, context);
+        }
+        return owner.executeBlocking(() -> between(obj1, obj2), false);
+    }
+
+    /**
+     * Compares two objects without blocking the calling thread, as {@link #betweenAsync(Object, Object)},
+     * for callers that do not use Vert.x futures.
+     * @param obj1 the first object to compare.
+     * @param obj2 the second object to compare.
+     * @return a {@link CompletionStage} completed with the {@code Differences} between the two objects.
+     */
+    public CompletionStage<Differences> betweenAsyncStage(Object obj1, Object obj2) {
+        if (isInline(obj1, obj2)) {
+            try {
+                return CompletableFuture.completedFuture(between(obj1, obj2));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (virtualThreads || vertx() == null) {
+            return betweenOnVirtualThread(obj1, obj2);
+        }
+        return betweenAsync(obj1, obj2).toCompletionStage();
+    }
+
+    /**
+     * Compares two objects on a new virtual thread. The returned future is completed directly, so that a
+     * failure is reported as thrown rather than wrapped in a {@link java.util.concurrent.CompletionException}.
+     */
+    private CompletableFuture<Differences> betweenOnVirtualThread(Object obj1, Object obj2) {
+        CompletableFuture<Differences> result = new CompletableFuture<>();
+        Thread.startVirtualThread(() -> {
+            try {
+                result.complete(between(obj1, obj2));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the Vert.x instance running asynchronous comparisons: the configured one, or the owner of the
+     * calling context.
+     */
+    private Vertx vertx() {
+        if (vertx != null) {
+            return vertx;
+        }
+        Context context = Vertx.currentContext();
+        return context == null ? null : context.owner();
+    }
+
+    /**
+     * Returns whether both objects hold no more values than the inline threshold.
+     */
+    private boolean isInline(Object obj1, Object obj2) {
+        int remaining = count(obj1, inlineThreshold);
+        return remaining >= 0 && count(obj2, remaining) >= 0;
+    }
+
+    /**
+     * Counts the values of an object against a budget, stopping as soon as it is exceeded.
+     * @return the remaining budget, negative once it is exceeded.
+     */
+    private static int count(Object value, int budget) {
+        budget--;
+        if (budget < 0 || value == null || value instanceof CharSequence || value instanceof Number
+                || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            return budget;
+        }
+        if (value instanceof JsonObject object) {
+            value = object.getMap();
+        } else if (value instanceof JsonArray array) {
+            value = array.getList();
+        }
+        if (value instanceof Map<?, ?> map) {
+            value = map.values();
+        }
+        if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                budget = count(element, budget);
+                if (budget < 0) {
+                    break;
+                }
+            }
+            return budget;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return budget - length;
+            }
+            for (int i = 0; i < length && budget >= 0; i++) {
+                budget = count(Array.get(value, i), budget);
+            }
+            return budget;
+        }
+        return -1;
     }
 
     /**
@@ -75,6 +275,10 @@ public class Differentiator {
     public static final class Builder {
         private List<String> silentFields;
         private List<String> compositeFields;
+        private boolean generatedComparators;
+        private Vertx vertx;
+        private boolean virtualThreads;
+        private int inlineThreshold = DEFAULT_INLINE_THRESHOLD;
 
         /**
          * Private constructor for the builder.
@@ -89,30 +293,78 @@ public class Differentiator {
         private Builder(Differentiator differentiator) {
             this.silentFields = differentiator.silentFields;
             this.compositeFields = differentiator.compositeFields;
+            this.generatedComparators = differentiator.generatedComparators;
+            this.vertx = differentiator.vertx;
+            this.virtualThreads = differentiator.virtualThreads;
+            this.inlineThreshold = differentiator.inlineThreshold;
         }
 
         /**
-         * Sets the silent fields to be used during the comparison.
+         * Sets the silent fields to be used during the comparison. The list is copied.
          * @param silentFields a list of fields to be ignored.
          * @return the current {@code Builder} instance for method chaining.
          */
         public Builder withSilentFields(List<String> silentFields) {
-            this.silentFields = silentFields;
+            this.silentFields = silentFields == null ? null : List.copyOf(silentFields);
             return this;
         }
 
         /**
-         * Sets the composite fields that require special handling during the comparison.
+         * Sets the composite fields that require special handling during the comparison. The list is copied.
          * @param compositeFields a list of composite fields.
          * @return the current {@code Builder} instance for method chaining.
          */
         public Builder withCompositeFields(List<String> compositeFields) {
-            this.compositeFields = compositeFields;
+            this.compositeFields = compositeFields == null ? null : List.copyOf(compositeFields);
+            return this;
+        }
+
+        /**
+         * Sets whether beans are compared with comparators generated per class.
+         * @param generatedComparators whether to use comparators generated per class.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withGeneratedComparators(boolean generatedComparators) {
+            this.generatedComparators = generatedComparators;
+            return this;
+        }
+
+        /**
+         * Sets the Vert.x instance whose worker pool runs asynchronous comparisons.
+         * Without one, the instance of the calling context is used.
+         * @param vertx the Vert.x instance.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withVertx(Vertx vertx) {
+            this.vertx = vertx;
+            return this;
+        }
+
+        /**
+         * Sets whether asynchronous comparisons run on virtual threads instead of a Vert.x worker pool.
+         * @param virtualThreads whether to use virtual threads.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of values up to which asynchronous comparisons run on the calling thread.
+         * Defaults to {@link Differentiator#DEFAULT_INLINE_THRESHOLD}; {@code 0} dispatches every comparison.
+         * @param inlineThreshold the inline threshold.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withInlineThreshold(int inlineThreshold) {
+            this.inlineThreshold = inlineThreshold;
             return this;
         }
 
         /**
          * Builds and returns a new {@link Differentiator} instance with the configured fields.
+         * The silent and composite fields are compiled here, once; the resulting instance is immutable
+         * and may be shared between threads.
          * @return a new {@link Differentiator} instance.
          */
         public Differentiator build() {
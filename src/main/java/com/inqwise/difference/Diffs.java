@@ -1,9 +1,18 @@
 package com.inqwise.difference;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -16,6 +25,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  */
 public class Diffs implements Iterable<Diff> {
 
+    private static final ObjectMapper mapper = new ObjectMapper();
+    /** Writes values into generators without flushing after each of them. */
+    private static final ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
     private List<Diff> diffs;
     private EnumSet<DiffFlags> flags;
     private List<String> compositeObjects;
@@ -38,45 +51,138 @@ public class Diffs implements Iterable<Diff> {
     public ArrayNode getJsonNodes() {
         JsonNodeFactory FACTORY = JsonNodeFactory.instance;
         final ArrayNode patch = FACTORY.arrayNode();
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(flags);
         for (Diff diff : diffs) {
-            ObjectNode jsonNode = getJsonNode(FACTORY, diff, flags);
+            ObjectNode jsonNode = getJsonNode(FACTORY, diff, flags, pointers);
             patch.add(jsonNode);
         }
         return patch;
     }
 
+    /**
+     * Writes the differences as a JSON Patch array to the given generator, in the same form as
+     * {@link #getJsonNodes()}, without building the tree first.
+     * @param generator the generator to write to; it is neither flushed nor closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartArray(this, diffs.size());
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(flags);
+        for (Diff diff : diffs) {
+            writeOperation(generator, diff, flags, pointers);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the differences as a UTF-8 encoded JSON Patch to the given stream, without building the tree first.
+     * @param out the stream to write to; it is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeTo(generator);
+        }
+    }
+
+    /**
+     * Writes a single {@link Diff} as a JSON Patch operation, with the same fields as its JSON node.
+     * @param generator the generator to write to.
+     * @param diff the {@code Diff} to write.
+     * @param flags the {@link DiffFlags} controlling how the difference is represented.
+     * @param pointers the encoder of the pointers of the patch.
+     * @throws IOException if writing fails.
+     */
+    static void writeOperation(JsonGenerator generator, Diff diff, EnumSet<DiffFlags> flags,
+            PointerCoding.Encoder pointers) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(Constants.OP, diff.getOperation().rfcName());
+
+        switch (diff.getOperation()) {
+            case MOVE:
+            case COPY:
+                pointers.write(generator, Constants.FROM, diff.getPath());
+                pointers.write(generator, Constants.PATH, diff.getToPath());
+                pointers.advance(diff.getToPath());
+                break;
+
+            case REMOVE:
+                pointers.write(generator, Constants.PATH, diff.getPath());
+                pointers.advance(diff.getPath());
+                if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE) && diff.getValue() != null) {
+                    generator.writeFieldName(Constants.VALUE);
+                    writeValue(generator, diff.getValue());
+                }
+                break;
+
+            case REPLACE:
+            case TEXT:
+                if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE) && diff.getSrcValue() != null) {
+                    generator.writeFieldName(Constants.FROM_VALUE);
+                    writeValue(generator, diff.getSrcValue());
+                }
+            case ADD:
+            case TEST:
+                pointers.write(generator, Constants.PATH, diff.getPath());
+                pointers.advance(diff.getPath());
+                generator.writeFieldName(Constants.VALUE);
+                writeValue(generator, diff.getValue());
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown operation specified: " + diff.getOperation());
+        }
+
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator generator, JsonNode value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            writer.writeValue(generator, value);
+        }
+    }
+
     /**
      * Converts a single {@link Diff} object into a JSON node based on the specified flags.
      * @param FACTORY the {@link JsonNodeFactory} used to create JSON nodes.
      * @param diff the {@code Diff} to convert into a JSON node.
      * @param flags the {@link DiffFlags} controlling how the difference is represented.
+     * @param pointers the encoder of the pointers of the patch.
      * @return an {@link ObjectNode} representing the {@code Diff}.
      */
-    private static ObjectNode getJsonNode(JsonNodeFactory FACTORY, Diff diff, EnumSet<DiffFlags> flags) {
+    static ObjectNode getJsonNode(JsonNodeFactory FACTORY, Diff diff, EnumSet<DiffFlags> flags,
+            PointerCoding.Encoder pointers) {
         ObjectNode jsonNode = FACTORY.objectNode();
         jsonNode.put(Constants.OP, diff.getOperation().rfcName());
 
         switch (diff.getOperation()) {
             case MOVE:
             case COPY:
-                jsonNode.put(Constants.FROM, diff.getPath().toString());    // required {from} only in case of Move Operation
-                jsonNode.put(Constants.PATH, diff.getToPath().toString());  // destination Path
+                jsonNode.set(Constants.FROM, pointers.encode(diff.getPath()));    // required {from} only in case of Move Operation
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getToPath()));  // destination Path
+                pointers.advance(diff.getToPath());
                 break;
 
             case REMOVE:
-                jsonNode.put(Constants.PATH, diff.getPath().toString());
-                if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE)) {
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getPath()));
+                pointers.advance(diff.getPath());
+                if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE) && diff.getValue() != null) {
                     jsonNode.set(Constants.VALUE, diff.getValue());
                 }
                 break;
 
             case REPLACE:
-                if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
+            case TEXT:
+                if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE) && diff.getSrcValue() != null) {
                     jsonNode.set(Constants.FROM_VALUE, diff.getSrcValue());
                 }
             case ADD:
             case TEST:
-                jsonNode.put(Constants.PATH, diff.getPath().toString());
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getPath()));
+                pointers.advance(diff.getPath());
                 jsonNode.set(Constants.VALUE, diff.getValue());
                 break;
 
@@ -87,6 +193,47 @@ public class Diffs implements Iterable<Diff> {
         return jsonNode;
     }
 
+    /**
+     * Returns the inverse of these differences: applying the result to the target document
+     * of the comparison restores the source document.
+     * The inverse is built from the values captured during the diff (removed values and the
+     * original values of replaced nodes), so no re-diff of the documents is required.
+     * Operations are emitted in reverse order, which keeps array indexes and test operations valid.
+     * @return a new {@code Diffs} instance with the same flags and composite objects.
+     * @throws IllegalStateException if a remove or replace operation lacks its original value.
+     */
+    public Diffs invert() {
+        List<Diff> inverted = new ArrayList<>(diffs.size());
+        for (int i = diffs.size() - 1; i >= 0; i--) {
+            inverted.add(diffs.get(i).invert());
+        }
+        return builderFrom(this).withDiffs(inverted).build();
+    }
+
+    /**
+     * Returns an equivalent, compacted version of these differences.
+     * Dead operations (values overwritten or removed later, inserts removed again, redundant tests)
+     * are dropped and nested changes are folded into the parent value they modify.
+     * Without the source document, numeric tokens are only read as array indexes below arrays whose value
+     * the differences set or test themselves.
+     * @return a new {@code Diffs} instance with the same flags and composite objects.
+     * @see JsonPatch#normalize(com.fasterxml.jackson.databind.JsonNode)
+     */
+    public Diffs normalize() {
+        return normalize(null);
+    }
+
+    /**
+     * Returns a version of these differences compacted for the given source document, which tells array
+     * elements from object members with numeric names.
+     * @param source the document the differences apply to, or {@code null} if it is unknown. It is not modified.
+     * @return a new {@code Diffs} instance with the same flags and composite objects, equivalent on {@code source}.
+     * @see JsonPatch#normalize(com.fasterxml.jackson.databind.JsonNode, com.fasterxml.jackson.databind.JsonNode)
+     */
+    public Diffs normalize(JsonNode source) {
+        return builderFrom(this).withDiffs(PatchNormalizer.normalize(diffs, source)).build();
+    }
+
     /**
      * Returns the list of {@link Diff} objects stored in this {@code Diffs} instance.
      * @return the list of differences.
@@ -120,6 +267,42 @@ public class Diffs implements Iterable<Diff> {
         return diffs.iterator();
     }
 
+    /**
+     * Reads a JSON patch into a {@code Diffs} instance.
+     * Values carried by the patch ({@code value} on remove, {@code fromValue} on replace) are retained,
+     * so rendering the result with {@link #getJsonNodes()} preserves them.
+     * @param patch the JSON patch to read.
+     * @return a new {@code Diffs} instance.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static Diffs parse(JsonNode patch) throws InvalidJsonPatchException {
+        JsonPatch.validate(patch);
+        List<Diff> diffs = new ArrayList<>(patch.size());
+        PointerCoding.Decoder pointers = new PointerCoding.Decoder();
+        for (JsonNode jsonNode : patch) {
+            Operation operation = Operation.fromRfcName(jsonNode.get(Constants.OP).textValue());
+            JsonPointer path = pointers.decode(jsonNode.get(Constants.PATH));
+            switch (operation) {
+                case MOVE:
+                case COPY:
+                    diffs.add(new Diff(operation, pointers.decode(jsonNode.get(Constants.FROM)), path));
+                    break;
+                case REPLACE:
+                case TEXT:
+                    diffs.add(new Diff(operation, path, jsonNode.get(Constants.FROM_VALUE), jsonNode.get(Constants.VALUE)));
+                    break;
+                default:
+                    diffs.add(new Diff(operation, path, jsonNode.get(Constants.VALUE)));
+                    break;
+            }
+            pointers.advance(path);
+        }
+        return builder().withDiffs(diffs)
+                .withFlags(EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE))
+                .withCompositeObjects(List.of())
+                .build();
+    }
+
     /**
      * Creates a builder to build a new {@code Diffs} instance.
      * @return a new {@link Builder} instance for constructing a {@code Diffs} object.
@@ -0,0 +1,279 @@
+package com.inqwise.difference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tracks what is known of a document while the operations of a patch are processed without the patch being
+ * applied, so that numeric reference tokens are read as array indexes only below containers known to be arrays.
+ *
+ * <p>The shape starts from the document when one is given, and otherwise knows nothing. Values set or tested by
+ * the operations become known as they are processed. Values moved or copied from unknown places, strings edited
+ * by text deltas, and the indexed children of a container of unknown type that may have shifted are forgotten.
+ * A value is thus only reported when it is the same for every document the operations so far apply to.
+ */
+final class DocumentShape {
+
+    /** Marks an unknown value inside a known container, so that known arrays keep their length. */
+    private static final JsonNode UNKNOWN = MissingNode.getInstance();
+
+    private Shape root;
+
+    /**
+     * Creates a shape starting from a document.
+     *
+     * @param document the document the operations apply to, or {@code null} if it is unknown. It is not modified.
+     */
+    DocumentShape(JsonNode document) {
+        this.root = new Shape(document == null ? null : document.deepCopy(), 0);
+    }
+
+    /**
+     * Checks whether the value at a path is known to be an array.
+     *
+     * @param path the path of the value.
+     * @return {@code true} if the value is known and is an array.
+     */
+    boolean isArray(JsonPointer path) {
+        JsonNode value = lookup(path);
+        return value != null && value.isArray();
+    }
+
+    /**
+     * Checks whether the value at a path is known to be an object.
+     *
+     * @param path the path of the value.
+     * @return {@code true} if the value is known and is an object.
+     */
+    boolean isObject(JsonPointer path) {
+        return isObject(path, path.size());
+    }
+
+    /**
+     * Checks whether the value at the first tokens of a path is known to be an object.
+     *
+     * @param path the path.
+     * @param size the number of leading tokens of the path that lead to the value.
+     * @return {@code true} if the value is known and is an object.
+     */
+    boolean isObject(JsonPointer path, int size) {
+        JsonNode value = lookup(path, size);
+        return value != null && value.isObject();
+    }
+
+    /**
+     * Records an operation of the patch.
+     *
+     * @param operation the operation.
+     * @param from      the source of a move or copy, otherwise ignored.
+     * @param path      the path of the operation.
+     * @param value     the value of an add, replace or test, otherwise ignored.
+     */
+    void apply(Operation operation, JsonPointer from, JsonPointer path, JsonNode value) {
+        switch (operation) {
+            case ADD:
+                write(path, copy(value), true);
+                break;
+            case REPLACE:
+                write(path, copy(value), false);
+                break;
+            case REMOVE:
+                remove(path);
+                break;
+            case MOVE:
+                JsonNode moved = lookup(from);
+                remove(from);
+                write(path, moved, true);
+                break;
+            case COPY:
+                write(path, copy(lookup(from)), true);
+                break;
+            case TEST:
+                // A test that passes tells the value
+                if (lookup(path) == null) {
+                    write(path, copy(value), false);
+                }
+                break;
+            case TEXT:
+                write(path, null, false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private JsonNode lookup(JsonPointer path) {
+        return lookup(path, path.size());
+    }
+
+    /**
+     * Returns the value at the first {@code size} tokens of a path, if it is known.
+     */
+    private JsonNode lookup(JsonPointer path, int size) {
+        Shape shape = root;
+        int depth = 0;
+        while (shape.value == null) {
+            if (depth == size) {
+                return null;
+            }
+            shape = shape.children.get(path.get(depth++).getField());
+            if (shape == null) {
+                return null;
+            }
+        }
+        JsonNode node = shape.value;
+        for (; depth < size && node != null; depth++) {
+            node = child(node, path.get(depth));
+        }
+        return node == null || node.isMissingNode() ? null : node;
+    }
+
+    /**
+     * Sets the value at a path, inserting it into arrays if {@code insert}.
+     *
+     * @param value the value, or {@code null} if it is unknown.
+     */
+    private void write(JsonPointer path, JsonNode value, boolean insert) {
+        if (path.isRoot()) {
+            root = new Shape(value, 0);
+            return;
+        }
+        JsonPointer.RefToken token = path.last();
+        Shape shape = parent(path);
+        if (shape.value == null) {
+            // A container of unknown type: an index token may insert into an array and shift the elements after it
+            if (insert && token.isArrayIndex()) {
+                forgetIndexes(shape);
+            }
+            if (value != null && !(insert && token.getField().equals("-"))) {
+                shape.children.put(token.getField(), new Shape(value, path.size()));
+            } else {
+                shape.children.remove(token.getField());
+            }
+            return;
+        }
+        JsonNode parent = evaluate(shape.value, path, shape.depth);
+        JsonNode stored = value == null ? UNKNOWN : value;
+        if (parent == null) {
+            // Below an unknown value, which stays unknown
+            return;
+        }
+        if (parent.isObject()) {
+            ((ObjectNode) parent).set(token.getField(), stored);
+        } else if (parent.isArray() && token.isArrayIndex()) {
+            ArrayNode array = (ArrayNode) parent;
+            int index = token.getIndex();
+            if (index == JsonPointer.LAST_INDEX && insert) {
+                array.add(stored);
+            } else if (index != JsonPointer.LAST_INDEX && (insert ? index <= array.size() : index < array.size())) {
+                if (insert) {
+                    array.insert(index, stored);
+                } else {
+                    array.set(index, stored);
+                }
+            } else {
+                forget();
+            }
+        } else {
+            // The operation fails on every document the shape stands for
+            forget();
+        }
+    }
+
+    private void remove(JsonPointer path) {
+        if (path.isRoot()) {
+            root = new Shape(null, 0);
+            return;
+        }
+        JsonPointer.RefToken token = path.last();
+        Shape shape = parent(path);
+        if (shape.value == null) {
+            if (token.isArrayIndex()) {
+                forgetIndexes(shape);
+            }
+            shape.children.remove(token.getField());
+            return;
+        }
+        JsonNode parent = evaluate(shape.value, path, shape.depth);
+        if (parent == null) {
+            return;
+        }
+        if (parent.isObject()) {
+            ((ObjectNode) parent).remove(token.getField());
+        } else if (parent.isArray() && token.isArrayIndex() && token.getIndex() != JsonPointer.LAST_INDEX
+                && token.getIndex() < parent.size()) {
+            ((ArrayNode) parent).remove(token.getIndex());
+        } else {
+            forget();
+        }
+    }
+
+    /**
+     * Returns the deepest shape along the parent of a path, creating the shapes of unknown containers as needed.
+     */
+    private Shape parent(JsonPointer path) {
+        Shape shape = root;
+        int depth = 0;
+        while (shape.value == null && depth < path.size() - 1) {
+            int childDepth = ++depth;
+            shape = shape.children.computeIfAbsent(path.get(depth - 1).getField(), field -> new Shape(null, childDepth));
+        }
+        return shape;
+    }
+
+    /**
+     * Evaluates the parent of a path within a known value found at the given depth.
+     *
+     * @return the parent, or {@code null} if it is unknown or missing.
+     */
+    private static JsonNode evaluate(JsonNode value, JsonPointer path, int depth) {
+        JsonNode node = value;
+        for (int i = depth; i < path.size() - 1 && node != null; i++) {
+            node = child(node, path.get(i));
+        }
+        return node == null || node.isMissingNode() ? null : node;
+    }
+
+    private static JsonNode child(JsonNode node, JsonPointer.RefToken token) {
+        if (node.isObject()) {
+            return node.get(token.getField());
+        }
+        if (node.isArray() && token.isArrayIndex() && token.getIndex() != JsonPointer.LAST_INDEX) {
+            return node.get(token.getIndex());
+        }
+        return null;
+    }
+
+    private static void forgetIndexes(Shape shape) {
+        shape.children.keySet().removeIf(field -> new JsonPointer.RefToken(field).isArrayIndex());
+    }
+
+    private void forget() {
+        root = new Shape(null, 0);
+    }
+
+    private static JsonNode copy(JsonNode value) {
+        return value == null ? null : value.deepCopy();
+    }
+
+    /**
+     * A known value, or a container of unknown type with some known children.
+     */
+    private static final class Shape {
+        /** The value, or {@code null} if only the children are known. */
+        final JsonNode value;
+        final Map<String, Shape> children = new HashMap<>();
+        /** The number of path tokens leading to this shape. */
+        final int depth;
+
+        Shape(JsonNode value, int depth) {
+            this.value = value;
+            this.depth = depth;
+        }
+    }
+}
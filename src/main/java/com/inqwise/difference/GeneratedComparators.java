@@ -0,0 +1,179 @@
+package com.inqwise.difference;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.inqwise.difference.BeanDiffer.Kind;
+import com.inqwise.difference.BeanDiffer.Property;
+
+/**
+ * Equality comparators specialized per bean class, used by {@link BeanDiffer} to skip equal beans without
+ * walking them property by property.
+ *
+ * <p>A comparator is assembled on first use from {@link MethodHandle} combinators: the property accessors
+ * are read with their declared types, primitives are compared directly, final value types with
+ * {@link Object#equals(Object)} and final bean types through their own comparator inlined into the parent.
+ * Silent fields are resolved when the comparator is built, so the resulting handle contains only the
+ * comparisons that matter. Properties of other types go back through {@link BeanDiffer#equal}.
+ *
+ * <p>Comparators are cached per class in a {@link ClassValue}, keyed by the state of the silent fields at
+ * the bean.
+ */
+final class GeneratedComparators {
+
+    private static final MethodType COMPARATOR = MethodType.methodType(boolean.class, Object.class, Object.class);
+
+    private static final MethodHandle TRUE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, Object.class, Object.class);
+    private static final MethodHandle FALSE = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Object.class, Object.class);
+    private static final MethodHandle SAME;
+    private static final MethodHandle ANY_NULL;
+    private static final MethodHandle INT_EQUALS;
+    private static final MethodHandle LONG_EQUALS;
+    private static final MethodHandle BOOLEAN_EQUALS;
+    private static final MethodHandle OBJECT_EQUALS;
+    private static final MethodHandle DYNAMIC_EQUALS;
+    private static final MethodHandle PROPERTY_EQUALS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SAME = lookup.findStatic(GeneratedComparators.class, "same", COMPARATOR);
+            ANY_NULL = lookup.findStatic(GeneratedComparators.class, "anyNull", COMPARATOR);
+            INT_EQUALS = lookup.findStatic(GeneratedComparators.class, "equals", MethodType.methodType(boolean.class, int.class, int.class));
+            LONG_EQUALS = lookup.findStatic(GeneratedComparators.class, "equals", MethodType.methodType(boolean.class, long.class, long.class));
+            BOOLEAN_EQUALS = lookup.findStatic(GeneratedComparators.class, "equals", MethodType.methodType(boolean.class, boolean.class, boolean.class));
+            OBJECT_EQUALS = lookup.findStatic(Objects.class, "equals", COMPARATOR);
+            DYNAMIC_EQUALS = lookup.findVirtual(BeanDiffer.class, "equal",
+                    MethodType.methodType(boolean.class, Object.class, Object.class, SilentFields.class, GeneratedComparators.class));
+            PROPERTY_EQUALS = lookup.findVirtual(BeanDiffer.class, "propertyEqual",
+                    MethodType.methodType(boolean.class, Object.class, Object.class, Property.class, SilentFields.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final BeanDiffer beanDiffer;
+    private final ClassValue<Map<SilentFields, MethodHandle>> comparators = new ClassValue<>() {
+        @Override
+        protected Map<SilentFields, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Creates the comparators for the beans walked by the given differ.
+     *
+     * @param beanDiffer the differ providing the bean properties and the generic comparison.
+     */
+    GeneratedComparators(BeanDiffer beanDiffer) {
+        this.beanDiffer = beanDiffer;
+    }
+
+    /**
+     * Returns whether two beans serialize to equal trees, once silent fields are removed.
+     *
+     * @param a      the first bean.
+     * @param b      the second bean, of the same class as {@code a}.
+     * @param silent the silent fields at the beans.
+     * @return {@code true} if the beans are equal.
+     */
+    boolean equal(Object a, Object b, SilentFields silent) {
+        MethodHandle comparator = comparators.get(a.getClass())
+                .computeIfAbsent(silent, key -> compile(a.getClass(), key, new HashSet<>()));
+        try {
+            return (boolean) comparator.invokeExact(a, b);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Failed to compare instances of " + a.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Builds the comparator of a bean class as a chain of property comparisons, stopping at the first difference.
+     */
+    private MethodHandle compile(Class<?> type, SilentFields silent, Set<Class<?>> compiling) {
+        compiling.add(type);
+        Property[] properties = beanDiffer.properties(type);
+        MethodHandle comparator = TRUE;
+        for (int i = properties.length - 1; i >= 0; i--) {
+            Property property = properties[i];
+            if (!silent.isSilent(property.name)) {
+                comparator = MethodHandles.guardWithTest(compile(property, silent.child(property.name), compiling), comparator, FALSE);
+            }
+        }
+        compiling.remove(type);
+        return comparator;
+    }
+
+    /**
+     * Builds the comparison of a single property.
+     */
+    private MethodHandle compile(Property property, SilentFields silent, Set<Class<?>> compiling) {
+        if (property.writer != null) {
+            return MethodHandles.insertArguments(PROPERTY_EQUALS.bindTo(beanDiffer), 2, property, silent);
+        }
+
+        Class<?> type = property.accessor.type().returnType();
+        if (type.isPrimitive()) {
+            MethodHandle getter = property.accessor.asType(MethodType.methodType(type, Object.class));
+            MethodHandle equals;
+            if (type == long.class) {
+                equals = LONG_EQUALS;
+            } else if (type == boolean.class) {
+                equals = BOOLEAN_EQUALS;
+            } else if (type == float.class || type == double.class) {
+                // -0.0 and NaN compare by their serialized values
+                equals = dynamic(silent);
+            } else {
+                equals = INT_EQUALS;
+            }
+            return MethodHandles.filterArguments(equals.asType(MethodType.methodType(boolean.class, type, type)), 0, getter, getter);
+        }
+
+        MethodHandle equals = dynamic(silent);
+        if (Modifier.isFinal(type.getModifiers())) {
+            Kind kind = beanDiffer.kind(type);
+            if (kind == Kind.VALUE && type != Double.class && type != Float.class) {
+                equals = OBJECT_EQUALS;
+            } else if (kind == Kind.BEAN && !compiling.contains(type)) {
+                equals = MethodHandles.guardWithTest(SAME, TRUE, MethodHandles.guardWithTest(ANY_NULL, FALSE, compile(type, silent, compiling)));
+            }
+        }
+        return MethodHandles.filterArguments(equals, 0, property.getter, property.getter);
+    }
+
+    /**
+     * Returns the generic comparison of two values, dispatched on their runtime classes.
+     */
+    private MethodHandle dynamic(SilentFields silent) {
+        return MethodHandles.insertArguments(DYNAMIC_EQUALS.bindTo(beanDiffer), 2, silent, this);
+    }
+
+    private static boolean same(Object a, Object b) {
+        return a == b;
+    }
+
+    private static boolean anyNull(Object a, Object b) {
+        return a == null || b == null;
+    }
+
+    private static boolean equals(int a, int b) {
+        return a == b;
+    }
+
+    private static boolean equals(long a, long b) {
+        return a == b;
+    }
+
+    private static boolean equals(boolean a, boolean b) {
+        return a == b;
+    }
+}
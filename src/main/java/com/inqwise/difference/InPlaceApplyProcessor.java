@@ -2,6 +2,7 @@ package com.inqwise.difference;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.util.EnumSet;
@@ -95,6 +96,21 @@ class InPlaceApplyProcessor implements JsonPatchProcessor {
         }
     }
 
+    @Override
+    public void text(JsonPointer path, JsonNode delta) throws JsonPointerEvaluationException {
+        JsonNode valueNode = path.evaluate(target);
+        if (!valueNode.isTextual()) {
+            throw new JsonPatchApplicationException("Expected a string but found " + show(valueNode), Operation.TEXT, path);
+        }
+        String text;
+        try {
+            text = TextDiff.apply(valueNode.textValue(), delta);
+        } catch (IllegalArgumentException e) {
+            throw new JsonPatchApplicationException(e.getMessage(), Operation.TEXT, path);
+        }
+        replace(path, JsonNodeFactory.instance.textNode(text));
+    }
+
     @Override
     public void add(JsonPointer path, JsonNode value) throws JsonPointerEvaluationException {
         set(path, value, Operation.ADD);
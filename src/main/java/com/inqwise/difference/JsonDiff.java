@@ -1,13 +1,17 @@
 package com.inqwise.difference;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import org.apache.commons.collections4.Equator;
 import org.apache.commons.collections4.ListUtils;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -90,6 +94,24 @@ public final class JsonDiff {
         return compare(source, target, flags, compositeObjects).getJsonNodes();
     }
 
+    /**
+     * Generates a JSON Patch representing the differences between the source and target JSON nodes,
+     * using the specified diff flags, composite objects and silent fields. Silent fields are skipped while
+     * comparing, as if they were removed from both nodes; the nodes are not modified.
+     *
+     * @param source           The source JSON node.
+     * @param target           The target JSON node.
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of strings representing composite object paths.
+     * @param silentFields     The fields to exclude from the comparison, as dot-separated paths where
+     *                         {@code **} matches any number of levels.
+     * @return A {@link JsonNode} representing the JSON Patch.
+     */
+    public static JsonNode asJson(final JsonNode source, final JsonNode target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects, Collection<String> silentFields) {
+        return create(flags, compositeObjects).compare(source, target, SilentFields.compile(silentFields)).getJsonNodes();
+    }
+
     /**
      * Compares the source and target JSON nodes and returns a {@link Diffs} object containing the differences.
      *
@@ -100,8 +122,211 @@ public final class JsonDiff {
      * @return A {@link Diffs} object containing the list of differences.
      */
     public static Diffs compare(final JsonNode source, final JsonNode target, EnumSet<DiffFlags> flags, Collection<String> compositeObjects) {
-        return new JsonDiff(flags, compositeObjects.stream().map(JsonPointer::parse).collect(Collectors.toList()))
-                .compare(source, target);
+        return create(flags, compositeObjects).compare(source, target, SilentFields.NONE);
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two JSON files.
+     *
+     * @param source The path of the source JSON file.
+     * @param target The path of the target JSON file.
+     * @return A {@link JsonNode} representing the JSON Patch.
+     * @throws IOException if a file cannot be read or is not valid JSON.
+     * @see #compare(Path, Path, EnumSet, Collection)
+     */
+    public static JsonNode asJson(final Path source, final Path target) throws IOException {
+        return compare(source, target, DiffFlags.defaults(), List.of()).getJsonNodes();
+    }
+
+    /**
+     * Compares two JSON files without parsing them into trees. Both files are memory-mapped and scanned
+     * once, concurrently, to index the extent of their larger objects and arrays; values whose bytes match,
+     * ignoring insignificant whitespace, are then skipped without being parsed, and only the values that end
+     * up in the patch are read into {@link JsonNode}s.
+     * The patch is the one {@link #compare(JsonNode, JsonNode, EnumSet, Collection)} generates, except that
+     * no COPY operations are introduced, since they require the whole source document, and that array elements
+     * of 4 KB or more are aligned by their bytes: equal large elements written with their members in another
+     * order are then treated as changed, which yields other operations reaching the same target.
+     *
+     * @param source           The path of the source JSON file.
+     * @param target           The path of the target JSON file.
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of strings representing composite object paths.
+     * @return A {@link Diffs} object containing the list of differences.
+     * @throws IOException if a file cannot be read or is not valid JSON.
+     */
+    public static Diffs compare(final Path source, final Path target, EnumSet<DiffFlags> flags, Collection<String> compositeObjects)
+            throws IOException {
+        return new MappedJsonDiff(create(flags, compositeObjects)).compare(source, target);
+    }
+
+    /**
+     * Creates a {@code JsonDiff} instance for the given configuration.
+     *
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of strings representing composite object paths.
+     * @return A new {@code JsonDiff} instance.
+     */
+    static JsonDiff create(EnumSet<DiffFlags> flags, Collection<String> compositeObjects) {
+        return new JsonDiff(flags, compositeObjects.stream().map(JsonPointer::parse).collect(Collectors.toList()));
+    }
+
+    /**
+     * Merges two independent edits of the same base JSON document.
+     *
+     * @param base   The common ancestor JSON node.
+     * @param ours   The first edited version of the base.
+     * @param theirs The second edited version of the base.
+     * @return A {@link MergeResult} holding the patch from the base to the merged document and any conflicts.
+     * @see #merge3(JsonNode, JsonNode, JsonNode, EnumSet, Collection)
+     */
+    public static MergeResult merge3(final JsonNode base, final JsonNode ours, final JsonNode theirs) {
+        return merge3(base, ours, theirs, DiffFlags.defaults(), List.of());
+    }
+
+    /**
+     * Merges two independent edits of the same base JSON document in a single walk over the three trees.
+     * Regions changed on only one side are taken from that side, identical changes are taken once and
+     * regions changed differently on both sides are merged recursively; array elements are aligned
+     * around the elements kept by both sides. Changes that cannot be reconciled leave the base value
+     * in place and are reported as {@link MergeConflict}s.
+     * Subtree hashes are computed once per node, so unchanged regions are recognized without a deep
+     * comparison and skipped.
+     *
+     * @param base             The common ancestor JSON node.
+     * @param ours             The first edited version of the base.
+     * @param theirs           The second edited version of the base.
+     * @param flags            The set of {@link DiffFlags} to control the generated patch.
+     * @param compositeObjects A collection of strings representing composite object paths; these are merged as a whole.
+     * @return A {@link MergeResult} holding the patch from the base to the merged document and any conflicts.
+     */
+    public static MergeResult merge3(final JsonNode base, final JsonNode ours, final JsonNode theirs,
+            EnumSet<DiffFlags> flags, Collection<String> compositeObjects) {
+        return new ThreeWayMerger(create(flags, compositeObjects), base, ours, theirs).merge();
+    }
+
+    /**
+     * Generates a JSON Merge Patch (RFC 7396) that turns the source JSON node into the target JSON node.
+     *
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @return The merge patch, or {@code null} if the change cannot be expressed as a merge patch.
+     * @see #asMergePatch(JsonNode, JsonNode, EnumSet, Collection)
+     */
+    public static JsonNode asMergePatch(final JsonNode source, final JsonNode target) {
+        return asMergePatch(source, target, DiffFlags.defaults(), List.of());
+    }
+
+    /**
+     * Generates a JSON Merge Patch (RFC 7396) that turns the source JSON node into the target JSON node,
+     * in a single walk over both trees. Removed members become {@code null} members, changed objects are
+     * merged recursively and other changed values are replaced.
+     * A merge patch cannot express a {@code null} member of the target, since it would remove the member,
+     * nor an edit within an array, which it can only replace as a whole. Arrays at composite object paths,
+     * or all arrays with {@link DiffFlags#OMIT_COMPOSITE_ARRAY}, are replaced as they are in the JSON Patch;
+     * for any other such change {@code null} is returned, and {@link #asJson(JsonNode, JsonNode, EnumSet, Collection)}
+     * yields the equivalent RFC 6902 patch.
+     *
+     * @param source           The source JSON node.
+     * @param target           The target JSON node.
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of strings representing composite object paths.
+     * @return The merge patch, or {@code null} if the change cannot be expressed as a merge patch.
+     */
+    public static JsonNode asMergePatch(final JsonNode source, final JsonNode target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects) {
+        JsonNode patch = create(flags, compositeObjects).generateMergePatch(JsonPointer.ROOT, source, target);
+        if (patch != null && patch.isMissingNode()) {
+            // Unchanged: an empty patch leaves an object as it is, any other value is replaced by itself
+            return target.isObject() ? JsonNodeFactory.instance.objectNode() : target;
+        }
+        return patch;
+    }
+
+    /**
+     * Recursively generates the merge patch of a value.
+     *
+     * @param path   The current {@link JsonPointer} path.
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @return The merge patch of the value, a {@link MissingNode} if the value is unchanged, or {@code null}
+     *         if the change cannot be expressed as a merge patch.
+     */
+    private JsonNode generateMergePatch(JsonPointer path, JsonNode source, JsonNode target) {
+        if (source.isObject() && target.isObject()) {
+            ObjectNode patch = JsonNodeFactory.instance.objectNode();
+            for (Iterator<String> names = source.fieldNames(); names.hasNext();) {
+                String name = names.next();
+                if (!target.has(name)) {
+                    patch.putNull(name);
+                }
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> fields = target.fields(); fields.hasNext();) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode sourceValue = source.get(field.getKey());
+                JsonNode value = field.getValue();
+                JsonNode member;
+                if (value.isNull()) {
+                    member = sourceValue != null && sourceValue.isNull() ? MissingNode.getInstance() : null;
+                } else if (sourceValue == null) {
+                    member = toMergeValue(value);
+                } else {
+                    member = generateMergePatch(path.append(field.getKey()), sourceValue, value);
+                }
+                if (member == null) {
+                    return null;
+                }
+                if (!member.isMissingNode()) {
+                    patch.set(field.getKey(), member);
+                }
+            }
+            return patch.isEmpty() ? MissingNode.getInstance() : patch;
+        }
+        if (SilentFields.NONE.equivalent(source, target)) {
+            return MissingNode.getInstance();
+        }
+        if (source.isArray() && target.isArray() && !isComposite(path, true)) {
+            return null;
+        }
+        return toMergeValue(target);
+    }
+
+    /**
+     * Returns a value as the merge patch that replaces a value with it.
+     *
+     * @param value The new value.
+     * @return The value, or {@code null} if it has {@code null} members, which the merge would remove.
+     */
+    private static JsonNode toMergeValue(JsonNode value) {
+        if (value.isObject()) {
+            for (JsonNode member : value) {
+                if (member.isNull() || (member.isObject() && toMergeValue(member) == null)) {
+                    return null;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the given path is a composite object, or an array merged as a whole.
+     *
+     * @param path   The {@link JsonPointer} path.
+     * @param isArray Whether the node at the path is an array on all sides.
+     * @return {@code true} if the node at the path must be treated as a single value.
+     */
+    boolean isComposite(JsonPointer path, boolean isArray) {
+        return compositeObjects.contains(path) || (isArray && flags.contains(DiffFlags.OMIT_COMPOSITE_ARRAY));
+    }
+
+    /**
+     * Returns whether the given flag is set for this instance.
+     *
+     * @param flag The {@link DiffFlags} value.
+     * @return {@code true} if the flag is set.
+     */
+    boolean hasFlag(DiffFlags flag) {
+        return flags.contains(flag);
     }
 
     /**
@@ -120,10 +345,11 @@ public final class JsonDiff {
      *
      * @param source The source JSON node.
      * @param target The target JSON node.
+     * @param silent The silent fields at the root.
      * @param diffs  The list of diffs to modify.
      */
-    private void introduceCopyOperation(JsonNode source, JsonNode target, List<Diff> diffs) {
-        Map<JsonNode, JsonPointer> unchangedValues = getUnchangedPart(source, target);
+    private void introduceCopyOperation(JsonNode source, JsonNode target, SilentFields silent, List<Diff> diffs) {
+        Map<JsonNode, JsonPointer> unchangedValues = getUnchangedPart(source, target, silent);
 
         for (int i = 0; i < diffs.size(); i++) {
             Diff diff = diffs.get(i);
@@ -137,7 +363,7 @@ public final class JsonDiff {
                     diffs.add(i, new Diff(Operation.TEST, matchingValuePath, diff.getValue()));
                     i++;
                 }
-                diffs.set(i, new Diff(Operation.COPY, matchingValuePath, diff.getPath()));
+                diffs.set(i, new Diff(Operation.COPY, matchingValuePath, diff.getPath(), diff.getValue()));
             }
         }
     }
@@ -167,7 +393,7 @@ public final class JsonDiff {
      * @param destination The destination {@link JsonPointer}.
      * @return {@code true} if the operation is allowed, {@code false} otherwise.
      */
-    private static boolean isAllowed(JsonPointer source, JsonPointer destination) {
+    static boolean isAllowed(JsonPointer source, JsonPointer destination) {
         boolean isSame = source.equals(destination);
         int i = 0;
         int j = 0;
@@ -193,11 +419,12 @@ public final class JsonDiff {
      *
      * @param source The source JSON node.
      * @param target The target JSON node.
+     * @param silent The silent fields at the root.
      * @return A map of unchanged values and their corresponding {@link JsonPointer} paths.
      */
-    private static Map<JsonNode, JsonPointer> getUnchangedPart(JsonNode source, JsonNode target) {
+    private static Map<JsonNode, JsonPointer> getUnchangedPart(JsonNode source, JsonNode target, SilentFields silent) {
         Map<JsonNode, JsonPointer> unchangedValues = new HashMap<>();
-        computeUnchangedValues(unchangedValues, JsonPointer.ROOT, source, target);
+        computeUnchangedValues(unchangedValues, JsonPointer.ROOT, source, target, silent);
         return unchangedValues;
     }
 
@@ -208,11 +435,14 @@ public final class JsonDiff {
      * @param path            The current {@link JsonPointer} path.
      * @param source          The source JSON node.
      * @param target          The target JSON node.
+     * @param silent          The silent fields at the current path.
      */
-    private static void computeUnchangedValues(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target) {
-        if (source.equals(JsonNodeComparator.getInstance(), target)) {
-            if (!unchangedValues.containsKey(target)) {
-                unchangedValues.put(target, path);
+    private static void computeUnchangedValues(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target,
+            SilentFields silent) {
+        if (silent.equivalent(source, target)) {
+            JsonNode value = silent.filter(target);
+            if (!unchangedValues.containsKey(value)) {
+                unchangedValues.put(value, path);
             }
             return;
         }
@@ -223,10 +453,10 @@ public final class JsonDiff {
         if (firstType == secondType) {
             switch (firstType) {
                 case OBJECT:
-                    computeObject(unchangedValues, path, source, target);
+                    computeObject(unchangedValues, path, source, target, silent);
                     break;
                 case ARRAY:
-                    computeArray(unchangedValues, path, source, target);
+                    computeArray(unchangedValues, path, source, target, silent.element());
                     break;
                 default:
                     // Do nothing for other types
@@ -241,13 +471,15 @@ public final class JsonDiff {
      * @param path            The current {@link JsonPointer} path.
      * @param source          The source JSON array node.
      * @param target          The target JSON array node.
+     * @param silent          The silent fields of the array elements.
      */
-    private static void computeArray(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target) {
+    private static void computeArray(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target,
+            SilentFields silent) {
         final int size = Math.min(source.size(), target.size());
 
         for (int i = 0; i < size; i++) {
             JsonPointer currPath = path.append(i);
-            computeUnchangedValues(unchangedValues, currPath, source.get(i), target.get(i));
+            computeUnchangedValues(unchangedValues, currPath, source.get(i), target.get(i), silent);
         }
     }
 
@@ -258,14 +490,16 @@ public final class JsonDiff {
      * @param path            The current {@link JsonPointer} path.
      * @param source          The source JSON object node.
      * @param target          The target JSON object node.
+     * @param silent          The silent fields of the object.
      */
-    private static void computeObject(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target) {
+    private static void computeObject(Map<JsonNode, JsonPointer> unchangedValues, JsonPointer path, JsonNode source, JsonNode target,
+            SilentFields silent) {
         final Iterator<String> fieldNames = source.fieldNames();
         while (fieldNames.hasNext()) {
             String name = fieldNames.next();
-            if (target.has(name)) {
+            if (target.has(name) && !silent.isSilent(name)) {
                 JsonPointer currPath = path.append(name);
-                computeUnchangedValues(unchangedValues, currPath, source.get(name), target.get(name));
+                computeUnchangedValues(unchangedValues, currPath, source.get(name), target.get(name), silent.child(name));
             }
         }
     }
@@ -301,6 +535,14 @@ public final class JsonDiff {
                 if (moveDiff != null) {
                     diffs.remove(j);
                     diffs.set(i, moveDiff);
+                    Diff test = diffs.get(j - 1);
+                    if (Operation.ADD == diff1.getOperation() && Operation.TEST == test.getOperation()
+                            && test.getPath().equals(diff2.getPath())) {
+                        // The test of the removed value would run after the move: test it where it is moved from
+                        diffs.remove(j - 1);
+                        diffs.add(i, new Diff(Operation.TEST, moveDiff.getPath(), test.getValue()));
+                        i++;
+                    }
                     break;
                 }
             }
@@ -401,8 +643,9 @@ public final class JsonDiff {
     public ArrayNode getJsonNodes(List<Diff> diffs) {
         JsonNodeFactory factory = JsonNodeFactory.instance;
         final ArrayNode patch = factory.arrayNode();
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(flags);
         for (Diff diff : diffs) {
-            ObjectNode jsonNode = getJsonNode(factory, diff, flags);
+            ObjectNode jsonNode = getJsonNode(factory, diff, flags, pointers);
             patch.add(jsonNode);
         }
         return patch;
@@ -414,30 +657,36 @@ public final class JsonDiff {
      * @param factory The {@link JsonNodeFactory} instance.
      * @param diff    The {@link Diff} to convert.
      * @param flags   The set of {@link DiffFlags} controlling the output.
+     * @param pointers The encoder of the pointers of the patch.
      * @return An {@link ObjectNode} representing the diff.
      */
-    private static ObjectNode getJsonNode(JsonNodeFactory factory, Diff diff, EnumSet<DiffFlags> flags) {
+    private static ObjectNode getJsonNode(JsonNodeFactory factory, Diff diff, EnumSet<DiffFlags> flags,
+            PointerCoding.Encoder pointers) {
         ObjectNode jsonNode = factory.objectNode();
         jsonNode.put(Constants.OP, diff.getOperation().rfcName());
 
         switch (diff.getOperation()) {
             case MOVE:
             case COPY:
-                jsonNode.put(Constants.FROM, diff.getPath().toString());
-                jsonNode.put(Constants.PATH, diff.getToPath().toString());
+                jsonNode.set(Constants.FROM, pointers.encode(diff.getPath()));
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getToPath()));
+                pointers.advance(diff.getToPath());
                 break;
             case REMOVE:
-                jsonNode.put(Constants.PATH, diff.getPath().toString());
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getPath()));
+                pointers.advance(diff.getPath());
                 if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE))
                     jsonNode.set(Constants.VALUE, diff.getValue());
                 break;
             case REPLACE:
+            case TEXT:
                 if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
                     jsonNode.set(Constants.FROM_VALUE, diff.getSrcValue());
                 }
             case ADD:
             case TEST:
-                jsonNode.put(Constants.PATH, diff.getPath().toString());
+                jsonNode.set(Constants.PATH, pointers.encode(diff.getPath()));
+                pointers.advance(diff.getPath());
                 jsonNode.set(Constants.VALUE, diff.getValue());
                 break;
             default:
@@ -448,20 +697,74 @@ public final class JsonDiff {
 
     /**
      * Compares the source and target JSON nodes and returns a {@link Diffs} object containing the differences.
+     * Silent fields apply to the nodes that are objects.
+     *
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @param silent The silent fields at the root.
+     * @return A {@link Diffs} object containing the differences.
+     */
+    Diffs compare(JsonNode source, JsonNode target, SilentFields silent) {
+        boolean sourceObject = source.isObject();
+        boolean targetObject = target.isObject();
+        if (sourceObject != targetObject) {
+            // Only the node that is an object has its silent fields removed
+            JsonNode sourceValue = sourceObject ? silent.filter(source) : source;
+            JsonNode targetValue = targetObject ? silent.filter(target) : target;
+            return toDiffs(sourceValue, targetValue, generateDiffs(JsonPointer.ROOT, sourceValue, targetValue));
+        }
+        SilentFields rootSilent = sourceObject ? silent : SilentFields.NONE;
+        return toDiffs(source, target, generateDiffs(JsonPointer.ROOT, source, target, rootSilent), rootSilent);
+    }
+
+    /**
+     * Finalizes a list of raw diffs between the source and target JSON nodes: introduces MOVE and COPY
+     * operations as allowed by the flags and wraps the result in a {@link Diffs} object.
      *
      * @param source The source JSON node.
      * @param target The target JSON node.
+     * @param diffs  The raw list of diffs, modified in place.
      * @return A {@link Diffs} object containing the differences.
      */
-    private Diffs compare(JsonNode source, JsonNode target) {
-        List<Diff> diffs = generateDiffs(JsonPointer.ROOT, source, target);
+    Diffs toDiffs(JsonNode source, JsonNode target, List<Diff> diffs) {
+        return toDiffs(source, target, diffs, SilentFields.NONE);
+    }
 
+    /**
+     * Finalizes a list of raw diffs between the source and target JSON nodes, skipping silent fields
+     * when looking for values to copy.
+     *
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @param diffs  The raw list of diffs, modified in place.
+     * @param silent The silent fields at the root.
+     * @return A {@link Diffs} object containing the differences.
+     */
+    Diffs toDiffs(JsonNode source, JsonNode target, List<Diff> diffs, SilentFields silent) {
         if (!flags.contains(DiffFlags.OMIT_MOVE_OPERATION))
             introduceMoveOperation(diffs);
 
         if (!flags.contains(DiffFlags.OMIT_COPY_OPERATION))
-            introduceCopyOperation(source, target, diffs);
+            introduceCopyOperation(source, target, silent, diffs);
+
+        return toDiffs(diffs);
+    }
+
+    /**
+     * Finalizes a list of raw diffs without the source and target JSON nodes: introduces MOVE operations
+     * as allowed by the flags, but no COPY operations, which look for the copied values in the source.
+     *
+     * @param diffs The raw list of diffs, modified in place.
+     * @return A {@link Diffs} object containing the differences.
+     */
+    Diffs toMovedDiffs(List<Diff> diffs) {
+        if (!flags.contains(DiffFlags.OMIT_MOVE_OPERATION))
+            introduceMoveOperation(diffs);
 
+        return toDiffs(diffs);
+    }
+
+    private Diffs toDiffs(List<Diff> diffs) {
         return Diffs.builder().withDiffs(diffs)
                 .withFlags(flags)
                 .withCompositeObjects(compositeObjects.stream()
@@ -478,7 +781,21 @@ public final class JsonDiff {
      * @param target The target JSON node.
      * @return A list of {@link Diff} objects representing the differences.
      */
-    private List<Diff> generateDiffs(JsonPointer path, JsonNode source, JsonNode target) {
+    List<Diff> generateDiffs(JsonPointer path, JsonNode source, JsonNode target) {
+        return generateDiffs(path, source, target, SilentFields.NONE);
+    }
+
+    /**
+     * Recursively generates diffs between the source and target JSON nodes, skipping silent fields
+     * while descending. Values in the generated diffs are the nodes without their silent fields.
+     *
+     * @param path   The current {@link JsonPointer} path.
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @param silent The silent fields at the current path.
+     * @return A list of {@link Diff} objects representing the differences.
+     */
+    List<Diff> generateDiffs(JsonPointer path, JsonNode source, JsonNode target, SilentFields silent) {
         List<Diff> diffs = new ArrayList<>();
 
         final NodeType sourceType = NodeType.getNodeType(source);
@@ -488,36 +805,55 @@ public final class JsonDiff {
                 || ((sourceType == NodeType.ARRAY && targetType == NodeType.ARRAY)
                 && flags.contains(DiffFlags.OMIT_COMPOSITE_ARRAY));
 
-        if (!source.equals(JsonNodeComparator.getInstance(), target)) {
+        if (!silent.equivalent(source, target)) {
             if (sourceType == NodeType.ARRAY && targetType == NodeType.ARRAY) {
-                compareArray(path, source, target, diffs, isCompositeObject);
+                compareArray(path, source, target, silent.element(), diffs, isCompositeObject);
             } else if (sourceType == NodeType.OBJECT && targetType == NodeType.OBJECT) {
-                compareObjects(path, source, target, diffs, isCompositeObject);
+                compareObjects(path, source, target, silent, diffs, isCompositeObject);
             } else {
                 if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
-                    diffs.add(new Diff(Operation.TEST, path, source));
-                diffs.add(Diff.generateDiff(Operation.REPLACE, path, source, target));
+                    diffs.add(new Diff(Operation.TEST, path, silent.filter(source)));
+                diffs.add(replace(path, silent.filter(source), silent.filter(target)));
             }
         }
 
         if (!diffs.isEmpty() && isCompositeObject) {
-            return List.of(Diff.generateDiff(Operation.REPLACE, path, source, target));
+            return List.of(Diff.generateDiff(Operation.REPLACE, path, silent.filter(source), silent.filter(target)));
         }
 
         return diffs;
     }
 
+    /**
+     * Generates the diff replacing a value, as a TEXT operation if enabled and smaller for strings.
+     *
+     * @param path   The current {@link JsonPointer} path.
+     * @param source The source JSON node.
+     * @param target The target JSON node.
+     * @return The {@link Diff} replacing the source with the target.
+     */
+    private Diff replace(JsonPointer path, JsonNode source, JsonNode target) {
+        if (flags.contains(DiffFlags.EMIT_TEXT_OPERATIONS) && source.isTextual() && target.isTextual()) {
+            TextDiff.Delta delta = TextDiff.diff(source.textValue(), target.textValue());
+            if (delta != null) {
+                return new Diff(Operation.TEXT, path, delta.inverse, delta.forward);
+            }
+        }
+        return Diff.generateDiff(Operation.REPLACE, path, source, target);
+    }
+
     /**
      * Compares two JSON arrays and generates diffs representing the differences.
      *
      * @param path              The current {@link JsonPointer} path.
      * @param source            The source JSON array node.
      * @param target            The target JSON array node.
+     * @param silent            The silent fields of the array elements.
      * @param diffs             The list of diffs to populate.
      * @param isCompositeObject Whether the current path is a composite object.
      */
-    private void compareArray(JsonPointer path, JsonNode source, JsonNode target, List<Diff> diffs, boolean isCompositeObject) {
-        List<JsonNode> lcs = getLCS(source, target);
+    private void compareArray(JsonPointer path, JsonNode source, JsonNode target, SilentFields silent, List<Diff> diffs, boolean isCompositeObject) {
+        List<JsonNode> lcs = getLCS(source, target, silent);
         int srcIdx = 0;
         int targetIdx = 0;
         int lcsIdx = 0;
@@ -532,29 +868,29 @@ public final class JsonDiff {
             JsonNode srcNode = source.get(srcIdx);
             JsonNode targetNode = target.get(targetIdx);
 
-            if (lcsNode.equals(JsonNodeComparator.getInstance(), srcNode) && lcsNode.equals(JsonNodeComparator.getInstance(), targetNode)) {
+            if (silent.equivalent(lcsNode, srcNode) && silent.equivalent(lcsNode, targetNode)) {
                 srcIdx++;
                 targetIdx++;
                 lcsIdx++;
                 pos++;
             } else {
-                if (lcsNode.equals(JsonNodeComparator.getInstance(), srcNode)) {
+                if (silent.equivalent(lcsNode, srcNode)) {
                     // Addition
                     JsonPointer currPath = path.append(pos);
-                    diffs.add(Diff.generateDiff(Operation.ADD, currPath, targetNode));
+                    diffs.add(Diff.generateDiff(Operation.ADD, currPath, silent.filter(targetNode)));
                     pos++;
                     targetIdx++;
-                } else if (lcsNode.equals(JsonNodeComparator.getInstance(), targetNode)) {
+                } else if (silent.equivalent(lcsNode, targetNode)) {
                     // Removal
                     JsonPointer currPath = path.append(pos);
                     if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
-                        diffs.add(new Diff(Operation.TEST, currPath, srcNode));
-                    diffs.add(Diff.generateDiff(Operation.REMOVE, currPath, srcNode));
+                        diffs.add(new Diff(Operation.TEST, currPath, silent.filter(srcNode)));
+                    diffs.add(Diff.generateDiff(Operation.REMOVE, currPath, silent.filter(srcNode)));
                     srcIdx++;
                 } else {
                     // Both are unequal to lcs node
                     JsonPointer currPath = path.append(pos);
-                    diffs.addAll(generateDiffs(currPath, srcNode, targetNode));
+                    diffs.addAll(generateDiffs(currPath, srcNode, targetNode, silent));
                     srcIdx++;
                     targetIdx++;
                     pos++;
@@ -566,18 +902,18 @@ public final class JsonDiff {
             JsonNode srcNode = source.get(srcIdx);
             JsonNode targetNode = target.get(targetIdx);
             JsonPointer currPath = path.append(pos);
-            diffs.addAll(generateDiffs(currPath, srcNode, targetNode));
+            diffs.addAll(generateDiffs(currPath, srcNode, targetNode, silent));
             srcIdx++;
             targetIdx++;
             pos++;
         }
 
         if (diffs.isEmpty() || !isCompositeObject) {
-            pos = addRemaining(path, target, pos, targetIdx, targetSize, diffs);
+            pos = addRemaining(path, target, pos, targetIdx, targetSize, silent, diffs);
         }
 
         if (diffs.isEmpty() || !isCompositeObject) {
-            removeRemaining(path, pos, srcIdx, srcSize, source, diffs);
+            removeRemaining(path, pos, srcIdx, srcSize, source, silent, diffs);
         }
     }
 
@@ -589,14 +925,16 @@ public final class JsonDiff {
      * @param srcIdx    The current index in the source array.
      * @param srcSize   The size of the source array.
      * @param source    The source JSON array node.
+     * @param silent    The silent fields of the array elements.
      * @param innerDiffs The list of diffs to populate.
      */
-    private void removeRemaining(JsonPointer path, int pos, int srcIdx, int srcSize, JsonNode source, List<Diff> innerDiffs) {
+    private void removeRemaining(JsonPointer path, int pos, int srcIdx, int srcSize, JsonNode source, SilentFields silent, List<Diff> innerDiffs) {
         while (srcIdx < srcSize) {
             JsonPointer currPath = path.append(pos);
+            JsonNode value = silent.filter(source.get(srcIdx));
             if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
-                innerDiffs.add(new Diff(Operation.TEST, currPath, source.get(srcIdx)));
-            innerDiffs.add(Diff.generateDiff(Operation.REMOVE, currPath, source.get(srcIdx)));
+                innerDiffs.add(new Diff(Operation.TEST, currPath, value));
+            innerDiffs.add(Diff.generateDiff(Operation.REMOVE, currPath, value));
             srcIdx++;
         }
     }
@@ -609,14 +947,15 @@ public final class JsonDiff {
      * @param pos        The current position in the array.
      * @param targetIdx  The current index in the target array.
      * @param targetSize The size of the target array.
+     * @param silent     The silent fields of the array elements.
      * @param innerDiffs The list of diffs to populate.
      * @return The updated position in the array.
      */
-    private int addRemaining(JsonPointer path, JsonNode target, int pos, int targetIdx, int targetSize, List<Diff> innerDiffs) {
+    private int addRemaining(JsonPointer path, JsonNode target, int pos, int targetIdx, int targetSize, SilentFields silent, List<Diff> innerDiffs) {
         while (targetIdx < targetSize) {
             JsonNode jsonNode = target.get(targetIdx);
             JsonPointer currPath = path.append(pos);
-            innerDiffs.add(Diff.generateDiff(Operation.ADD, currPath, jsonNode.deepCopy()));
+            innerDiffs.add(Diff.generateDiff(Operation.ADD, currPath, silent.filter(jsonNode).deepCopy()));
             pos++;
             targetIdx++;
         }
@@ -629,31 +968,36 @@ public final class JsonDiff {
      * @param path              The current {@link JsonPointer} path.
      * @param source            The source JSON object node.
      * @param target            The target JSON object node.
+     * @param silent            The silent fields of the objects.
      * @param diffs             The list of diffs to populate.
      * @param isCompositeObject Whether the current path is a composite object.
      */
-    private void compareObjects(JsonPointer path, JsonNode source, JsonNode target, List<Diff> diffs, boolean isCompositeObject) {
+    private void compareObjects(JsonPointer path, JsonNode source, JsonNode target, SilentFields silent, List<Diff> diffs, boolean isCompositeObject) {
         Iterator<String> keysFromSrc = source.fieldNames();
         while (keysFromSrc.hasNext() && (diffs.isEmpty() || !isCompositeObject)) {
             String key = keysFromSrc.next();
+            if (silent.isSilent(key)) {
+                continue;
+            }
             if (!target.has(key)) {
                 // Remove case
                 JsonPointer currPath = path.append(key);
+                JsonNode value = silent.child(key).filter(source.get(key));
                 if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
-                    diffs.add(new Diff(Operation.TEST, currPath, source.get(key)));
-                diffs.add(Diff.generateDiff(Operation.REMOVE, currPath, source.get(key)));
+                    diffs.add(new Diff(Operation.TEST, currPath, value));
+                diffs.add(Diff.generateDiff(Operation.REMOVE, currPath, value));
                 continue;
             }
             JsonPointer currPath = path.append(key);
-            diffs.addAll(generateDiffs(currPath, source.get(key), target.get(key)));
+            diffs.addAll(generateDiffs(currPath, source.get(key), target.get(key), silent.child(key)));
         }
         Iterator<String> keysFromTarget = target.fieldNames();
         while (keysFromTarget.hasNext() && (diffs.isEmpty() || !isCompositeObject)) {
             String key = keysFromTarget.next();
-            if (!source.has(key)) {
+            if (!source.has(key) && !silent.isSilent(key)) {
                 // Add case
                 JsonPointer currPath = path.append(key);
-                diffs.add(Diff.generateDiff(Operation.ADD, currPath, target.get(key)));
+                diffs.add(Diff.generateDiff(Operation.ADD, currPath, silent.child(key).filter(target.get(key))));
             }
         }
     }
@@ -663,9 +1007,24 @@ public final class JsonDiff {
      *
      * @param first  The first JSON array node.
      * @param second The second JSON array node.
+     * @param silent The silent fields of the array elements, ignored when aligning them.
      * @return A list of {@link JsonNode} representing the LCS.
      */
-    private static List<JsonNode> getLCS(final JsonNode first, final JsonNode second) {
-        return ListUtils.longestCommonSubsequence(InternalUtils.toList((ArrayNode) first), InternalUtils.toList((ArrayNode) second));
+    private static List<JsonNode> getLCS(final JsonNode first, final JsonNode second, SilentFields silent) {
+        if (silent.isEmpty()) {
+            return ListUtils.longestCommonSubsequence(InternalUtils.toList((ArrayNode) first), InternalUtils.toList((ArrayNode) second));
+        }
+        return ListUtils.longestCommonSubsequence(InternalUtils.toList((ArrayNode) first), InternalUtils.toList((ArrayNode) second),
+                new Equator<>() {
+                    @Override
+                    public boolean equate(JsonNode o1, JsonNode o2) {
+                        return silent.equal(o1, o2);
+                    }
+
+                    @Override
+                    public int hash(JsonNode o) {
+                        return silent.hash(o);
+                    }
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.inqwise.difference;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A utility class that applies JSON Merge Patches according to the RFC 7396 standard.
+ * A merge patch object sets each of its members on the target object, merging objects recursively,
+ * and removes the members whose value is {@code null}; any other patch value replaces the target.
+ * Every JSON value is a valid merge patch, so applying one never fails.
+ *
+ * @see JsonDiff#asMergePatch(JsonNode, JsonNode)
+ */
+public final class JsonMergePatch {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * Private constructor to enforce the static nature of this utility class.
+     */
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Applies a merge patch to the source JSON node and returns the result, leaving the source unmodified.
+     * Only the objects the patch changes are copied: the result shares every untouched subtree with the
+     * source, so the source must not be modified while the result is in use, or the result copied first.
+     * Values are copied from the patch.
+     *
+     * @param patch  the merge patch to apply.
+     * @param source the source JSON node, which is not modified.
+     * @return the patched {@link JsonNode}.
+     */
+    public static JsonNode apply(JsonNode patch, JsonNode source) {
+        if (!patch.isObject()) {
+            return patch.deepCopy();
+        }
+        ObjectNode result = JsonNodeFactory.instance.objectNode();
+        if (source != null && source.isObject()) {
+            result.setAll((ObjectNode) source);
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(field.getValue(), result.get(field.getKey())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a merge patch to the source JSON node in place.
+     * The source is modified if both the patch and the source are objects; otherwise the result replaces
+     * the source, which is left unmodified.
+     *
+     * @param patch  the merge patch to apply.
+     * @param source the source JSON node to patch.
+     * @return the patched {@link JsonNode}: the source itself if both the patch and the source are objects.
+     */
+    public static JsonNode applyInPlace(JsonNode patch, JsonNode source) {
+        if (!patch.isObject() || !source.isObject()) {
+            return apply(patch, MissingNode.getInstance());
+        }
+        ObjectNode target = (ObjectNode) source;
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                target.remove(field.getKey());
+            } else {
+                JsonNode current = target.get(field.getKey());
+                if (current != null && current.isObject() && value.isObject()) {
+                    applyInPlace(value, current);
+                } else {
+                    target.set(field.getKey(), apply(value, MissingNode.getInstance()));
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Applies a merge patch to a JSON document read from a parser, writing the result to a generator
+     * while the document is read. Only the patch is held in memory: members the patch does not touch are
+     * copied token by token, and members it removes or replaces are skipped without being read into a tree.
+     *
+     * @param patch     the merge patch to apply.
+     * @param source    the parser to read the source document from; it is read up to the end of the
+     *                  first value, or to its end if it has no value.
+     * @param generator the generator to write the patched document to; it is neither flushed nor closed.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void apply(JsonNode patch, JsonParser source, JsonGenerator generator) throws IOException {
+        if (source.currentToken() == null && source.nextToken() == null) {
+            writer.writeValue(generator, apply(patch, MissingNode.getInstance()));
+            return;
+        }
+        merge(patch, source, generator);
+    }
+
+    /**
+     * Merges a patch into the value at the current token of the parser, leaving the parser at the last
+     * token of the value.
+     */
+    private static void merge(JsonNode patch, JsonParser source, JsonGenerator generator) throws IOException {
+        if (!patch.isObject() || source.currentToken() != JsonToken.START_OBJECT) {
+            source.skipChildren();
+            writer.writeValue(generator, apply(patch, MissingNode.getInstance()));
+            return;
+        }
+        generator.writeStartObject();
+        Set<String> merged = new HashSet<>();
+        while (source.nextToken() == JsonToken.FIELD_NAME) {
+            String name = source.currentName();
+            source.nextToken();
+            JsonNode value = patch.get(name);
+            if (value == null) {
+                generator.writeFieldName(name);
+                generator.copyCurrentStructure(source);
+                continue;
+            }
+            merged.add(name);
+            if (value.isNull()) {
+                source.skipChildren();
+            } else {
+                generator.writeFieldName(name);
+                merge(value, source, generator);
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().isNull() && !merged.contains(field.getKey())) {
+                generator.writeFieldName(field.getKey());
+                writer.writeValue(generator, apply(field.getValue(), MissingNode.getInstance()));
+            }
+        }
+        generator.writeEndObject();
+    }
+}
@@ -1,7 +1,10 @@
 package com.inqwise.difference;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.util.EnumSet;
 import java.util.Iterator;
@@ -62,11 +65,12 @@ public final class JsonPatch {
         if (!patch.isArray())
             throw new InvalidJsonPatchException("Invalid JSON Patch payload (not an array)");
         Iterator<JsonNode> operations = patch.iterator();
+        PointerCoding.Decoder pointers = new PointerCoding.Decoder();
         while (operations.hasNext()) {
             JsonNode jsonNode = operations.next();
             if (!jsonNode.isObject()) throw new InvalidJsonPatchException("Invalid JSON Patch payload (not an object)");
             Operation operation = Operation.fromRfcName(getPatchAttr(jsonNode, Constants.OP).textValue());
-            JsonPointer path = JsonPointer.parse(getPatchAttr(jsonNode, Constants.PATH).textValue());
+            JsonPointer path = pointers.decode(getPatchAttr(jsonNode, Constants.PATH));
 
             try {
                 switch (operation) {
@@ -83,18 +87,24 @@ public final class JsonPatch {
                         if (operation == Operation.REPLACE) processor.replace(path, value.deepCopy());
                         if (operation == Operation.TEST) processor.test(path, value.deepCopy());
                         break;
+                    case TEXT:
+                        JsonNode delta = getPatchAttr(jsonNode, Constants.VALUE);
+                        TextDiff.validate(delta);
+                        processor.text(path, delta);
+                        break;
                     case MOVE:
-                        JsonPointer fromPath = JsonPointer.parse(getPatchAttr(jsonNode, Constants.FROM).textValue());
+                        JsonPointer fromPath = pointers.decode(getPatchAttr(jsonNode, Constants.FROM));
                         processor.move(fromPath, path);
                         break;
                     case COPY:
-                        JsonPointer fromCopyPath = JsonPointer.parse(getPatchAttr(jsonNode, Constants.FROM).textValue());
+                        JsonPointer fromCopyPath = pointers.decode(getPatchAttr(jsonNode, Constants.FROM));
                         processor.copy(fromCopyPath, path);
                         break;
                 }
             } catch (JsonPointerEvaluationException e) {
                 throw new JsonPatchApplicationException(e.getMessage(), operation, e.getPath());
             }
+            pointers.advance(path);
         }
     }
 
@@ -168,4 +178,138 @@ public final class JsonPatch {
         InPlaceApplyProcessor processor = new InPlaceApplyProcessor(source, flags);
         process(patch, processor, flags);
     }
-}
\ No newline at end of file
+
+    /**
+     * Produces the inverse of a JSON patch, i.e. a patch that reverts the document produced by
+     * {@code patch} back to its original state.
+     * The inversion relies on the prior state carried by the patch itself: "remove" operations must
+     * include their {@code value} and "replace" and "text" operations their {@code fromValue}
+     * (see {@link DiffFlags#ADD_ORIGINAL_VALUE_ON_REPLACE}), and values must not be inserted at the
+     * end of an array ({@code -}), since the inverse needs their index.
+     *
+     * @param patch the JSON patch to invert.
+     * @return the inverse JSON patch.
+     * @throws InvalidJsonPatchException if the patch is invalid or lacks the values required for inversion.
+     */
+    public static JsonNode invert(JsonNode patch) throws InvalidJsonPatchException {
+        validate(patch);
+        patch = PointerCoding.expand(patch);
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        ArrayNode inverse = factory.arrayNode(patch.size());
+        for (int i = patch.size() - 1; i >= 0; i--) {
+            JsonNode jsonNode = patch.get(i);
+            Operation operation = Operation.fromRfcName(jsonNode.get(Constants.OP).textValue());
+            JsonNode path = jsonNode.get(Constants.PATH);
+            ObjectNode inverted = factory.objectNode();
+            if ((operation == Operation.ADD || operation == Operation.MOVE || operation == Operation.COPY)
+                    && path.asText().endsWith("/-"))
+                throw new InvalidJsonPatchException("Cannot invert " + operation.rfcName()
+                        + " at the end of an array without its index at " + path.asText());
+            switch (operation) {
+                case ADD:
+                    inverted.put(Constants.OP, Operation.REMOVE.rfcName());
+                    inverted.set(Constants.PATH, path);
+                    inverted.set(Constants.VALUE, getPatchAttr(jsonNode, Constants.VALUE));
+                    break;
+                case REMOVE:
+                    inverted.put(Constants.OP, Operation.ADD.rfcName());
+                    inverted.set(Constants.PATH, path);
+                    inverted.set(Constants.VALUE, getPatchAttr(jsonNode, Constants.VALUE));
+                    break;
+                case REPLACE:
+                    inverted.put(Constants.OP, Operation.REPLACE.rfcName());
+                    inverted.set(Constants.PATH, path);
+                    inverted.set(Constants.FROM_VALUE, getPatchAttr(jsonNode, Constants.VALUE));
+                    inverted.set(Constants.VALUE, getPatchAttr(jsonNode, Constants.FROM_VALUE));
+                    break;
+                case TEXT:
+                    inverted.put(Constants.OP, Operation.TEXT.rfcName());
+                    inverted.set(Constants.PATH, path);
+                    inverted.set(Constants.FROM_VALUE, getPatchAttr(jsonNode, Constants.VALUE));
+                    inverted.set(Constants.VALUE, getPatchAttr(jsonNode, Constants.FROM_VALUE));
+                    break;
+                case MOVE:
+                    inverted.put(Constants.OP, Operation.MOVE.rfcName());
+                    inverted.set(Constants.FROM, path);
+                    inverted.set(Constants.PATH, jsonNode.get(Constants.FROM));
+                    break;
+                case COPY:
+                    inverted.put(Constants.OP, Operation.REMOVE.rfcName());
+                    inverted.set(Constants.PATH, path);
+                    break;
+                case TEST:
+                    inverted = jsonNode.deepCopy();
+                    break;
+            }
+            inverse.add(inverted);
+        }
+        return inverse;
+    }
+
+    /**
+     * Compacts a JSON patch into an equivalent patch with fewer operations.
+     * Repeated writes to the same path collapse into the last one, inserts removed again are dropped,
+     * writes nested under a parent value written earlier in the patch are folded into that value,
+     * and tests already guaranteed by earlier operations are omitted.
+     * Any document the original patch applies to yields the same result with the normalized patch.
+     * Numeric tokens are only read as array indexes below arrays whose value the patch sets or tests itself.
+     *
+     * @param patch the JSON patch to normalize.
+     * @return the normalized JSON patch.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonNode normalize(JsonNode patch) throws InvalidJsonPatchException {
+        return normalize(patch, null);
+    }
+
+    /**
+     * Compacts a JSON patch into a patch with fewer operations that yields the same result on the given document.
+     * Knowing the document tells array elements from object members with numeric names, so more inserts
+     * removed again can be dropped than by {@link #normalize(JsonNode)}.
+     *
+     * @param patch    the JSON patch to normalize.
+     * @param document the document the patch applies to, or {@code null} if it is unknown. It is not modified.
+     * @return the normalized JSON patch.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonNode normalize(JsonNode patch, JsonNode document) throws InvalidJsonPatchException {
+        return Diffs.parse(patch).normalize(document).getJsonNodes();
+    }
+
+    /**
+     * Rebases a JSON patch over a concurrent patch written against the same document
+     * (operational transformation), so that it can be applied after the concurrent patch.
+     * Pointers are rewritten to follow the array inserts, removals and moves of the concurrent patch.
+     * Operations on nodes the concurrent patch removed or overwrote are dropped, and concurrent
+     * inserts at the same array position come first.
+     * Each pointer is rewritten in O(d log k) for depth d and k touched array elements, without
+     * access to the document.
+     * Numeric tokens are read as array indexes unless the patches set or test an object at their parent,
+     * so {@link #transform(JsonNode, JsonNode, JsonNode)} should be used where objects may have numeric member names.
+     *
+     * @param concurrent the patch applied first.
+     * @param patch the patch to rebase, written against the same document as {@code concurrent}.
+     * @return the rebased patch.
+     * @throws InvalidJsonPatchException if either patch is invalid.
+     */
+    public static JsonNode transform(JsonNode concurrent, JsonNode patch) throws InvalidJsonPatchException {
+        return transform(concurrent, patch, null);
+    }
+
+    /**
+     * Rebases a JSON patch over a concurrent patch written against the given document.
+     * Knowing the document tells array elements from object members with numeric names, so only
+     * the indexes of array elements are shifted.
+     *
+     * @param concurrent the patch applied first.
+     * @param patch the patch to rebase, written against the same document as {@code concurrent}.
+     * @param document the document both patches were written against, or {@code null} if it is unknown. It is not modified.
+     * @return the rebased patch.
+     * @throws InvalidJsonPatchException if either patch is invalid.
+     */
+    public static JsonNode transform(JsonNode concurrent, JsonNode patch, JsonNode document) throws InvalidJsonPatchException {
+        validate(concurrent);
+        validate(patch);
+        return PatchTransformer.transform(PointerCoding.expand(concurrent), PointerCoding.expand(patch), document);
+    }
+}
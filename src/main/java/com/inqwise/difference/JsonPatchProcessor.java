@@ -5,7 +5,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 /**
  * Interface representing a processor that applies JSON Patch operations on a JSON document.
  * Implementations of this interface define how to handle various JSON Patch operations such as
- * add, remove, replace, move, copy, and test.
+ * add, remove, replace, move, copy, and test, and the "text" extension operation.
  */
 interface JsonPatchProcessor {
 
@@ -61,4 +61,13 @@ interface JsonPatchProcessor {
      * @throws JsonPointerEvaluationException if the test fails or if there is an error evaluating the path.
      */
     void test(JsonPointer path, JsonNode value) throws JsonPointerEvaluationException;
+
+    /**
+     * Edits the string at the specified path with a character-level delta.
+     *
+     * @param path the {@link JsonPointer} representing the location of the string to edit.
+     * @param delta the {@link TextDiff} delta to apply to the string.
+     * @throws JsonPointerEvaluationException if there is an error evaluating the path.
+     */
+    void text(JsonPointer path, JsonNode delta) throws JsonPointerEvaluationException;
 }
\ No newline at end of file
@@ -40,6 +40,8 @@ import java.util.regex.Pattern;
  */
 class JsonPointer {
     private final RefToken[] tokens;
+    /** The encoded string form, computed on first use. */
+    private String encoded;
 
     /** A JSON pointer representing the root node of a JSON document */
     public final static JsonPointer ROOT = new JsonPointer(new RefToken[] {});
@@ -143,6 +145,19 @@ class JsonPointer {
         return tokens.length;
     }
 
+    /**
+     * Creates a JSON pointer relative to an ancestor of this instance, by dropping the first
+     * {@code fromIndex} reference tokens.
+     *
+     * @param fromIndex The number of leading reference tokens to drop.
+     * @return The relative {@link JsonPointer}, or {@link #ROOT} if all tokens were dropped.
+     * @throws IndexOutOfBoundsException The specified index is illegal.
+     */
+    JsonPointer suffix(int fromIndex) {
+        if (fromIndex < 0 || fromIndex > tokens.length) throw new IndexOutOfBoundsException("Illegal index: " + fromIndex);
+        return fromIndex == tokens.length ? ROOT : new JsonPointer(Arrays.copyOfRange(tokens, fromIndex, tokens.length));
+    }
+
     /**
      * Returns a string representation of this instance
      *
@@ -151,12 +166,17 @@ class JsonPointer {
      *  representation of this JSON pointer.
      */
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        for (RefToken token : tokens) {
-            sb.append('/');
-            sb.append(token);
+        String encoded = this.encoded;
+        if (encoded == null) {
+            StringBuilder sb = new StringBuilder();
+            for (RefToken token : tokens) {
+                sb.append('/');
+                sb.append(token);
+            }
+            encoded = sb.toString();
+            this.encoded = encoded;
         }
-        return sb.toString();
+        return encoded;
     }
 
     /**
@@ -284,6 +304,9 @@ class JsonPointer {
 
         private static String encodePath(Object object) {
             String path = object.toString(); // see http://tools.ietf.org/html/rfc6901#section-4
+            if (path.indexOf('~') < 0 && path.indexOf('/') < 0) {
+                return path;
+            }
             path = ENCODED_TILDA_PATTERN.matcher(path).replaceAll("~0");
             return ENCODED_SLASH_PATTERN.matcher(path).replaceAll("~1");
         }
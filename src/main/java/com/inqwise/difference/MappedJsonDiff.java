@@ -0,0 +1,611 @@
+package com.inqwise.difference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.commons.collections4.Equator;
+import org.apache.commons.collections4.ListUtils;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two memory-mapped JSON files through a structural index, following the same walk as
+ * {@link JsonDiff#generateDiffs(JsonPointer, JsonNode, JsonNode)}.
+ *
+ * <p>Values are byte ranges of the files. Ranges whose bytes match, ignoring whitespace outside strings, are
+ * equal and skipped; objects and arrays that differ are walked member by member and element by element, and
+ * only the values that end up in operations, or that cannot be compared as bytes (such as numbers written
+ * differently), are parsed into {@link JsonNode}s.
+ *
+ * <p>Array elements are aligned as the tree diff aligns them, by JSON equality: elements whose bytes differ are
+ * parsed and compared as trees when both are smaller than {@link Document#MIN_INDEXED} bytes, so that objects
+ * with their members in another order still match. Larger elements are only matched by their bytes, so arrays
+ * of large objects whose members were reordered may be aligned differently from the tree diff; the patch then
+ * has other operations, but still turns the source into the target.
+ */
+final class MappedJsonDiff {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final Equator<Value> EQUATOR = new Equator<>() {
+        @Override
+        public boolean equate(Value a, Value b) {
+            try {
+                return a.same(b);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int hash(Value value) {
+            // Equal JSON may be written with other bytes, so only the kind of value is hashed
+            byte type = value.type();
+            return type == '{' || type == '[' || type == '"' ? type : 0;
+        }
+    };
+
+    private final JsonDiff jsonDiff;
+    private final int chunkBits;
+
+    MappedJsonDiff(JsonDiff jsonDiff) {
+        this(jsonDiff, Document.CHUNK_BITS);
+    }
+
+    /**
+     * Creates a diff mapping files in regions of the given size.
+     *
+     * @param jsonDiff  The {@link JsonDiff} providing the flags and composite objects.
+     * @param chunkBits The size of the mapped regions, as a power of two.
+     */
+    MappedJsonDiff(JsonDiff jsonDiff, int chunkBits) {
+        this.jsonDiff = jsonDiff;
+        this.chunkBits = chunkBits;
+    }
+
+    /**
+     * Maps and indexes both files, the target concurrently with the source, and compares them.
+     *
+     * @param source The path of the source JSON file.
+     * @param target The path of the target JSON file.
+     * @return A {@link Diffs} object containing the differences.
+     * @throws IOException if a file cannot be read or is not valid JSON.
+     */
+    Diffs compare(Path source, Path target) throws IOException {
+        CompletableFuture<Document> indexed = CompletableFuture.supplyAsync(() -> {
+            try {
+                return Document.open(target, chunkBits);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Document first = Document.open(source, chunkBits);
+        Document second;
+        try {
+            second = indexed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw e;
+        }
+        List<Diff> diffs = new ArrayList<>();
+        generateDiffs(JsonPointer.ROOT, first.root(), second.root(), diffs);
+        return jsonDiff.toMovedDiffs(diffs);
+    }
+
+    private void generateDiffs(JsonPointer path, Value source, Value target, List<Diff> diffs) throws IOException {
+        if (source.equivalent(target)) {
+            return;
+        }
+        byte sourceType = source.type();
+        byte targetType = target.type();
+        boolean arrays = sourceType == '[' && targetType == '[';
+        boolean objects = sourceType == '{' && targetType == '{';
+        if (arrays && !jsonDiff.isComposite(path, true)) {
+            compareArray(path, source, target, diffs);
+        } else if (objects && !jsonDiff.isComposite(path, false)) {
+            compareObjects(path, source, target, diffs);
+        } else {
+            diffs.addAll(jsonDiff.generateDiffs(path, source.read(), target.read()));
+        }
+    }
+
+    private void compareArray(JsonPointer path, Value sourceArray, Value targetArray, List<Diff> diffs) throws IOException {
+        List<Value> source = sourceArray.elements();
+        List<Value> target = targetArray.elements();
+        List<Value> lcs;
+        try {
+            lcs = ListUtils.longestCommonSubsequence(source, target, EQUATOR);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int srcIdx = 0;
+        int targetIdx = 0;
+        int lcsIdx = 0;
+        int pos = 0;
+
+        while (lcsIdx < lcs.size()) {
+            Value lcsValue = lcs.get(lcsIdx);
+            Value srcValue = source.get(srcIdx);
+            Value targetValue = target.get(targetIdx);
+
+            if (lcsValue.same(srcValue) && lcsValue.same(targetValue)) {
+                srcIdx++;
+                targetIdx++;
+                lcsIdx++;
+                pos++;
+            } else if (lcsValue.same(srcValue)) {
+                // Addition
+                diffs.add(Diff.generateDiff(Operation.ADD, path.append(pos), targetValue.read()));
+                pos++;
+                targetIdx++;
+            } else if (lcsValue.same(targetValue)) {
+                // Removal
+                remove(path.append(pos), srcValue, diffs);
+                srcIdx++;
+            } else {
+                // Both are unequal to lcs value
+                generateDiffs(path.append(pos), srcValue, targetValue, diffs);
+                srcIdx++;
+                targetIdx++;
+                pos++;
+            }
+        }
+
+        while (srcIdx < source.size() && targetIdx < target.size()) {
+            generateDiffs(path.append(pos), source.get(srcIdx), target.get(targetIdx), diffs);
+            srcIdx++;
+            targetIdx++;
+            pos++;
+        }
+        while (targetIdx < target.size()) {
+            diffs.add(Diff.generateDiff(Operation.ADD, path.append(pos), target.get(targetIdx).read()));
+            pos++;
+            targetIdx++;
+        }
+        while (srcIdx < source.size()) {
+            remove(path.append(pos), source.get(srcIdx), diffs);
+            srcIdx++;
+        }
+    }
+
+    private void compareObjects(JsonPointer path, Value sourceObject, Value targetObject, List<Diff> diffs) throws IOException {
+        Map<String, Value> source = sourceObject.members();
+        Map<String, Value> target = targetObject.members();
+        for (Map.Entry<String, Value> member : source.entrySet()) {
+            Value targetValue = target.get(member.getKey());
+            if (targetValue == null) {
+                remove(path.append(member.getKey()), member.getValue(), diffs);
+            } else {
+                generateDiffs(path.append(member.getKey()), member.getValue(), targetValue, diffs);
+            }
+        }
+        for (Map.Entry<String, Value> member : target.entrySet()) {
+            if (!source.containsKey(member.getKey())) {
+                diffs.add(Diff.generateDiff(Operation.ADD, path.append(member.getKey()), member.getValue().read()));
+            }
+        }
+    }
+
+    private void remove(JsonPointer path, Value value, List<Diff> diffs) throws IOException {
+        JsonNode node = value.read();
+        if (jsonDiff.hasFlag(DiffFlags.EMIT_TEST_OPERATIONS))
+            diffs.add(new Diff(Operation.TEST, path, node));
+        diffs.add(Diff.generateDiff(Operation.REMOVE, path, node));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * A memory-mapped JSON file and its structural index: the start and end offsets of the objects and
+     * arrays spanning at least {@link #MIN_INDEXED} bytes, in the order they start. The end of a smaller
+     * container is found by scanning it.
+     */
+    static final class Document {
+
+        /** The size of the mapped regions, as a power of two; a region cannot exceed 2 GB. */
+        static final int CHUNK_BITS = 30;
+        /** The size from which an object or array is indexed. */
+        static final int MIN_INDEXED = 4096;
+
+        private final ByteBuffer[] chunks;
+        private final int chunkBits;
+        private final long mask;
+        private final long size;
+        private long[] starts = new long[64];
+        private long[] ends = new long[64];
+        private int count;
+
+        private Document(ByteBuffer[] chunks, int chunkBits, long size) {
+            this.chunks = chunks;
+            this.chunkBits = chunkBits;
+            this.mask = (1L << chunkBits) - 1;
+            this.size = size;
+        }
+
+        /**
+         * Maps and indexes a file.
+         *
+         * @param path      The path of the file.
+         * @param chunkBits The size of the mapped regions, as a power of two.
+         * @return The indexed document.
+         * @throws IOException if the file cannot be read or is not valid JSON.
+         */
+        static Document open(Path path, int chunkBits) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long chunkSize = 1L << chunkBits;
+                ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkSize - 1) >>> chunkBits)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long position = (long) i << chunkBits;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+                }
+                Document document = new Document(chunks, chunkBits, size);
+                document.index();
+                return document;
+            }
+        }
+
+        /**
+         * Scans the whole file once, keeping the containers that turn out to be large enough. A container
+         * that is too small is always the last entry when it closes, since its children are smaller still.
+         */
+        private void index() throws JsonParseException {
+            int[] open = new int[64];
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            long position = 0;
+            for (ByteBuffer chunk : chunks) {
+                for (int i = 0, limit = chunk.limit(); i < limit; i++, position++) {
+                    byte b = chunk.get(i);
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        if (depth == open.length) {
+                            open = Arrays.copyOf(open, depth * 2);
+                        }
+                        if (count == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                            ends = Arrays.copyOf(ends, count * 2);
+                        }
+                        starts[count] = position;
+                        open[depth++] = count++;
+                    } else if (b == '}' || b == ']') {
+                        if (depth == 0) {
+                            throw malformed("Unexpected '" + (char) b + "'", position);
+                        }
+                        int entry = open[--depth];
+                        if (position + 1 - starts[entry] < MIN_INDEXED) {
+                            count = entry;
+                        } else {
+                            ends[entry] = position + 1;
+                        }
+                    }
+                }
+            }
+            if (depth > 0 || inString) {
+                throw malformed("Unexpected end of input", size);
+            }
+        }
+
+        /**
+         * Returns the root value of the document.
+         */
+        Value root() throws JsonParseException {
+            long start = skipWhitespace(0);
+            if (start == size) {
+                throw malformed("No content", start);
+            }
+            long end = valueEnd(start);
+            if (skipWhitespace(end) != size) {
+                throw malformed("Unexpected content after the root value", end);
+            }
+            return new Value(this, start, end);
+        }
+
+        byte get(long position) {
+            return chunks[(int) (position >>> chunkBits)].get((int) (position & mask));
+        }
+
+        long skipWhitespace(long position) {
+            while (position < size && isWhitespace(get(position))) {
+                position++;
+            }
+            return position;
+        }
+
+        /**
+         * Returns the offset after the value starting at the given offset.
+         */
+        long valueEnd(long start) throws JsonParseException {
+            byte b = get(start);
+            if (b == '{' || b == '[') {
+                int entry = Arrays.binarySearch(starts, 0, count, start);
+                return entry >= 0 ? ends[entry] : containerEnd(start);
+            }
+            if (b == '"') {
+                return stringEnd(start);
+            }
+            long position = start;
+            while (position < size) {
+                b = get(position);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    break;
+                }
+                position++;
+            }
+            if (position == start) {
+                throw malformed("Expected a value", start);
+            }
+            return position;
+        }
+
+        private long containerEnd(long start) {
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            for (long position = start;; position++) {
+                byte b = get(position);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return position + 1;
+                }
+            }
+        }
+
+        private long stringEnd(long start) throws JsonParseException {
+            boolean escaped = false;
+            for (long position = start + 1; position < size; position++) {
+                byte b = get(position);
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    return position + 1;
+                }
+            }
+            throw malformed("Unterminated string", start);
+        }
+
+        /**
+         * Expects a separator after a member or an element.
+         *
+         * @return whether another member or element follows.
+         */
+        private boolean next(long position, byte close) throws JsonParseException {
+            if (position < size && get(position) == ',') {
+                return true;
+            }
+            if (position < size && get(position) == close) {
+                return false;
+            }
+            throw malformed("Expected ',' or '" + (char) close + "'", position);
+        }
+
+        byte[] bytes(long start, long end) {
+            byte[] bytes = new byte[Math.toIntExact(end - start)];
+            int offset = 0;
+            while (offset < bytes.length) {
+                long position = start + offset;
+                ByteBuffer chunk = chunks[(int) (position >>> chunkBits)];
+                int index = (int) (position & mask);
+                int length = Math.min(bytes.length - offset, chunk.limit() - index);
+                chunk.get(index, bytes, offset, length);
+                offset += length;
+            }
+            return bytes;
+        }
+
+        /**
+         * Compares two byte ranges of the same length, a mapped region at a time.
+         */
+        static boolean sameBytes(Document a, long aStart, Document b, long bStart, long length) {
+            while (length > 0) {
+                ByteBuffer aChunk = a.chunks[(int) (aStart >>> a.chunkBits)];
+                ByteBuffer bChunk = b.chunks[(int) (bStart >>> b.chunkBits)];
+                int aIndex = (int) (aStart & a.mask);
+                int bIndex = (int) (bStart & b.mask);
+                int span = (int) Math.min(length, Math.min(aChunk.limit() - aIndex, bChunk.limit() - bIndex));
+                if (aChunk.slice(aIndex, span).mismatch(bChunk.slice(bIndex, span)) >= 0) {
+                    return false;
+                }
+                aStart += span;
+                bStart += span;
+                length -= span;
+            }
+            return true;
+        }
+
+        private static JsonParseException malformed(String message, long position) {
+            return new JsonParseException((JsonParser) null, message + " at offset " + position);
+        }
+    }
+
+    /**
+     * A value of a document, as the byte range it spans.
+     */
+    static final class Value {
+        private final Document document;
+        private final long start;
+        private final long end;
+        /** The parsed value, once compared as a tree. */
+        private JsonNode tree;
+
+        Value(Document document, long start, long end) {
+            this.document = document;
+            this.start = start;
+            this.end = end;
+        }
+
+        byte type() {
+            return document.get(start);
+        }
+
+        JsonNode read() throws IOException {
+            return mapper.readTree(document.bytes(start, end));
+        }
+
+        /**
+         * Returns whether two values have the same bytes, ignoring whitespace outside strings. Equivalent
+         * values are equal JSON; values that are not may still be equal, such as objects with their members
+         * in another order.
+         */
+        boolean equivalent(Value other) {
+            if (end - start == other.end - other.start && Document.sameBytes(document, start, other.document, other.start, end - start)) {
+                return true;
+            }
+            long i = start;
+            long j = other.start;
+            boolean inString = false;
+            boolean escaped = false;
+            while (true) {
+                if (!inString) {
+                    while (i < end && isWhitespace(document.get(i))) {
+                        i++;
+                    }
+                    while (j < other.end && isWhitespace(other.document.get(j))) {
+                        j++;
+                    }
+                }
+                if (i == end || j == other.end) {
+                    return i == end && j == other.end;
+                }
+                byte b = document.get(i++);
+                if (b != other.document.get(j++)) {
+                    return false;
+                }
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                }
+            }
+        }
+
+        /**
+         * Returns whether two values are equal JSON, as the tree diff compares them. Values that are not
+         * equivalent are parsed and compared as trees when both are smaller than {@link Document#MIN_INDEXED}
+         * bytes, and are otherwise taken to differ.
+         */
+        boolean same(Value other) throws IOException {
+            if (equivalent(other)) {
+                return true;
+            }
+            if (end - start >= Document.MIN_INDEXED || other.end - other.start >= Document.MIN_INDEXED) {
+                return false;
+            }
+            byte type = type();
+            if ((type == '{' || type == '[' || type == '"' || other.type() == '{' || other.type() == '[' || other.type() == '"')
+                    && type != other.type()) {
+                return false;
+            }
+            return tree().equals(other.tree());
+        }
+
+        private JsonNode tree() throws IOException {
+            if (tree == null) {
+                tree = read();
+            }
+            return tree;
+        }
+
+        List<Value> elements() throws JsonParseException {
+            List<Value> elements = new ArrayList<>();
+            long position = document.skipWhitespace(start + 1);
+            if (document.get(position) == ']') {
+                return elements;
+            }
+            do {
+                position = document.skipWhitespace(position);
+                long valueEnd = document.valueEnd(position);
+                elements.add(new Value(document, position, valueEnd));
+                position = document.skipWhitespace(valueEnd);
+            } while (document.next(position++, (byte) ']'));
+            return elements;
+        }
+
+        /**
+         * Returns the members of an object by name, in order; as in an {@code ObjectNode}, the last of
+         * duplicate members wins, at the place of the first.
+         */
+        Map<String, Value> members() throws IOException {
+            Map<String, Value> members = new LinkedHashMap<>();
+            long position = document.skipWhitespace(start + 1);
+            if (document.get(position) == '}') {
+                return members;
+            }
+            do {
+                position = document.skipWhitespace(position);
+                if (document.get(position) != '"') {
+                    throw Document.malformed("Expected a member name", position);
+                }
+                long nameEnd = document.stringEnd(position);
+                String name = name(position, nameEnd);
+                position = document.skipWhitespace(nameEnd);
+                if (position == document.size || document.get(position) != ':') {
+                    throw Document.malformed("Expected ':'", position);
+                }
+                position = document.skipWhitespace(position + 1);
+                long valueEnd = document.valueEnd(position);
+                members.put(name, new Value(document, position, valueEnd));
+                position = document.skipWhitespace(valueEnd);
+            } while (document.next(position++, (byte) '}'));
+            return members;
+        }
+
+        private String name(long start, long end) throws IOException {
+            byte[] bytes = document.bytes(start, end);
+            for (byte b : bytes) {
+                if (b == '\\') {
+                    return mapper.readTree(bytes).textValue();
+                }
+            }
+            return new String(bytes, 1, bytes.length - 2, StandardCharsets.UTF_8);
+        }
+    }
+}
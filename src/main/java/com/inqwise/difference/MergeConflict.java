@@ -0,0 +1,92 @@
+package com.inqwise.difference;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Describes a region changed differently by both sides of a three-way merge.
+ * The merged document keeps the base value at the conflicting path; the three competing
+ * values are kept here so the caller can resolve the conflict.
+ * A {@code null} value means the node is absent in that version. For conflicting runs of
+ * array elements, each value is an array holding the elements of the run.
+ *
+ * @see JsonDiff#merge3(JsonNode, JsonNode, JsonNode)
+ */
+public final class MergeConflict {
+
+    private final String path;
+    private final JsonNode base;
+    private final JsonNode ours;
+    private final JsonNode theirs;
+
+    /**
+     * Creates a conflict at the given path.
+     *
+     * @param path   the path of the conflicting region in the merged document.
+     * @param base   the base value, or {@code null} if absent.
+     * @param ours   our value, or {@code null} if absent.
+     * @param theirs their value, or {@code null} if absent.
+     */
+    MergeConflict(JsonPointer path, JsonNode base, JsonNode ours, JsonNode theirs) {
+        this.path = path.toString();
+        this.base = base;
+        this.ours = ours;
+        this.theirs = theirs;
+    }
+
+    /**
+     * Returns the JSON Pointer (RFC 6901) of the conflicting region in the merged document.
+     *
+     * @return the path of the conflict.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the value in the base document.
+     *
+     * @return the base value, or {@code null} if absent.
+     */
+    public JsonNode getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the value in our version.
+     *
+     * @return our value, or {@code null} if absent.
+     */
+    public JsonNode getOurs() {
+        return ours;
+    }
+
+    /**
+     * Returns the value in their version.
+     *
+     * @return their value, or {@code null} if absent.
+     */
+    public JsonNode getTheirs() {
+        return theirs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MergeConflict that = (MergeConflict) o;
+        return path.equals(that.path) && Objects.equals(base, that.base)
+                && Objects.equals(ours, that.ours) && Objects.equals(theirs, that.theirs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, base, ours, theirs);
+    }
+
+    @Override
+    public String toString() {
+        return "MergeConflict [path=" + path + ", base=" + base + ", ours=" + ours + ", theirs=" + theirs + "]";
+    }
+}
@@ -0,0 +1,93 @@
+package com.inqwise.difference;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The outcome of a three-way merge: the merged document, the patch that turns the base
+ * document into it, and the conflicts left unresolved.
+ *
+ * @see JsonDiff#merge3(JsonNode, JsonNode, JsonNode)
+ */
+public final class MergeResult {
+
+    private final JsonNode merged;
+    private final Diffs diffs;
+    private final List<MergeConflict> conflicts;
+
+    /**
+     * Creates a merge result.
+     *
+     * @param merged    the merged document.
+     * @param diffs     the differences from the base to the merged document.
+     * @param conflicts the conflicts, in document order.
+     */
+    MergeResult(JsonNode merged, Diffs diffs, List<MergeConflict> conflicts) {
+        this.merged = merged;
+        this.diffs = diffs;
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    /**
+     * Returns the merged document. Conflicting regions hold their base value.
+     *
+     * @return the merged document.
+     */
+    public JsonNode getMerged() {
+        return merged;
+    }
+
+    /**
+     * Returns the differences from the base to the merged document.
+     *
+     * @return the merged changes.
+     */
+    public Diffs getDiffs() {
+        return diffs;
+    }
+
+    /**
+     * Returns the merged changes as a JSON Patch (RFC 6902) to be applied to the base document.
+     *
+     * @return the merged patch.
+     */
+    public JsonNode getJsonNodes() {
+        return diffs.getJsonNodes();
+    }
+
+    /**
+     * Returns the conflicts in document order.
+     *
+     * @return an unmodifiable list of conflicts.
+     */
+    public List<MergeConflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Returns the conflicts keyed by the JSON Pointer of the conflicting region.
+     *
+     * @return an unmodifiable map of conflicts.
+     */
+    public Map<String, MergeConflict> getConflictsByPath() {
+        return conflicts.stream().collect(Collectors.toUnmodifiableMap(MergeConflict::getPath, Function.identity()));
+    }
+
+    /**
+     * Returns whether the merge left any conflicts.
+     *
+     * @return {@code true} if there is at least one conflict.
+     */
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "MergeResult [diffs=" + diffs.getJsonNodes() + ", conflicts=" + conflicts + "]";
+    }
+}
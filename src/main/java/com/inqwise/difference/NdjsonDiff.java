@@ -0,0 +1,540 @@
+package com.inqwise.difference;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two NDJSON snapshots record by record, matching records by a key and diffing matched records
+ * with {@link JsonDiff}. Each record is reported as a {@link RecordChange} if it was added, removed or changed;
+ * unchanged records are not reported.
+ *
+ * <p>The snapshots need not be sorted nor fit in memory. Each one is read once and split into runs of at most
+ * {@link Builder#withRunSize(int) a run size} records, which are sorted by key and spilled to temporary files
+ * along with a sparse index of their keys. The keys of the indexes then split the key space into ranges, which
+ * are diffed in parallel: each range merges the runs of both snapshots from the indexed offset of its first key
+ * and writes its changes to another temporary file. The changes are passed to the sink in the order of the ranges,
+ * on the calling thread, as each range completes.
+ *
+ * <p>Keys are ordered by their JSON text, so the changes come in that order rather than in numeric order.
+ * Records with the same key are matched in the order they appear in the snapshots.
+ */
+public final class NdjsonDiff {
+
+    /** The default maximum number of records held in memory to sort a run. */
+    public static final int DEFAULT_RUN_SIZE = 100_000;
+    /** The number of records between two entries of the sparse index of a run. */
+    private static final int INDEX_INTERVAL = 256;
+    /** The number of key ranges per thread, so that skewed ranges are balanced across threads. */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Receives the record changes, in the order of their keys.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Accepts the next record change.
+         *
+         * @param change the record change.
+         * @throws IOException if the change cannot be handled.
+         */
+        void accept(RecordChange change) throws IOException;
+    }
+
+    private final String key;
+    private final EnumSet<DiffFlags> flags;
+    private final List<String> compositeObjects;
+    private final int runSize;
+    private final int parallelism;
+    private final Path tempDirectory;
+
+    private NdjsonDiff(Builder builder) {
+        this.key = builder.key;
+        this.flags = builder.flags.clone();
+        this.compositeObjects = List.copyOf(builder.compositeObjects);
+        this.runSize = builder.runSize;
+        this.parallelism = builder.parallelism;
+        this.tempDirectory = builder.tempDirectory;
+    }
+
+    /**
+     * Compares two NDJSON snapshots and writes the record changes as NDJSON, one {@link RecordChange#toJson()}
+     * object per line.
+     *
+     * @param source the source snapshot, read as UTF-8; it is not closed.
+     * @param target the target snapshot, read as UTF-8; it is not closed.
+     * @param out    the stream to write the changes to; it is neither flushed nor closed.
+     * @throws IOException if reading, spilling or writing fails.
+     */
+    public void compare(InputStream source, InputStream target, OutputStream out) throws IOException {
+        compare(source, target, change -> {
+            out.write(mapper.writeValueAsBytes(change.toJson()));
+            out.write('\n');
+        });
+    }
+
+    /**
+     * Compares two NDJSON snapshots and passes the record changes to a sink.
+     *
+     * @param source the source snapshot, read as UTF-8; it is not closed.
+     * @param target the target snapshot, read as UTF-8; it is not closed.
+     * @param sink   the sink receiving the changes, on the calling thread.
+     * @throws IOException if reading or spilling fails, or the sink fails.
+     * @throws IllegalArgumentException if a record has no key.
+     */
+    public void compare(InputStream source, InputStream target, Sink sink) throws IOException {
+        Path directory = tempDirectory == null ? Files.createTempDirectory("ndjson-diff")
+                : Files.createTempDirectory(tempDirectory, "ndjson-diff");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Throwable failure = null;
+        try {
+            List<Run> sourceRuns = spill(source, directory, "source");
+            List<Run> targetRuns = spill(target, directory, "target");
+            List<String> bounds = bounds(sourceRuns, targetRuns);
+            List<Future<Path>> ranges = new ArrayList<>();
+            for (int i = 0; i <= bounds.size(); i++) {
+                String from = i == 0 ? null : bounds.get(i - 1);
+                String to = i == bounds.size() ? null : bounds.get(i);
+                Path changes = directory.resolve("changes-" + i);
+                ranges.add(executor.submit(() -> {
+                    diff(sourceRuns, targetRuns, from, to, changes);
+                    return changes;
+                }));
+            }
+            for (Future<Path> range : ranges) {
+                try (BufferedReader reader = Files.newBufferedReader(await(range))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        sink.accept(RecordChange.fromJson(mapper.readTree(line)));
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Interrupt the ranges still running and wait for them, so that none writes its changes while they are deleted
+            executor.shutdownNow();
+            executor.close();
+            try {
+                delete(directory);
+            } catch (IOException e) {
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Splits a snapshot into sorted runs.
+     */
+    private List<Run> spill(InputStream input, Path directory, String name) throws IOException {
+        List<Run> runs = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Entry[] buffer = new Entry[runSize];
+        int size = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            buffer[size++] = new Entry(keyOf(line, lineNumber), line);
+            if (size == runSize) {
+                runs.add(Run.write(buffer, size, directory.resolve(name + "-" + runs.size())));
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            runs.add(Run.write(buffer, size, directory.resolve(name + "-" + runs.size())));
+        }
+        return runs;
+    }
+
+    private String keyOf(String line, long lineNumber) throws IOException {
+        JsonNode value = mapper.readTree(line).at(key);
+        if (value.isMissingNode()) {
+            throw new IllegalArgumentException("Record at line " + lineNumber + " has no key " + key);
+        }
+        return value.toString();
+    }
+
+    /**
+     * Chooses the bounds of the key ranges among the indexed keys of all runs, which sample the keys evenly.
+     */
+    private List<String> bounds(List<Run> sourceRuns, List<Run> targetRuns) {
+        TreeSet<String> samples = new TreeSet<>();
+        for (Run run : sourceRuns) {
+            samples.addAll(Arrays.asList(run.keys));
+        }
+        for (Run run : targetRuns) {
+            samples.addAll(Arrays.asList(run.keys));
+        }
+        List<String> sorted = new ArrayList<>(samples);
+        int ranges = Math.min(parallelism * RANGES_PER_THREAD, sorted.size());
+        List<String> bounds = new ArrayList<>();
+        for (int i = 1; i < ranges; i++) {
+            String bound = sorted.get(i * sorted.size() / ranges);
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Merges the runs of both snapshots over a range of keys and writes the changes.
+     *
+     * @param from the first key of the range, or {@code null} from the first key.
+     * @param to   the first key after the range, or {@code null} up to the last key.
+     */
+    private void diff(List<Run> sourceRuns, List<Run> targetRuns, String from, String to, Path changes) throws IOException {
+        try (Merge sources = new Merge(sourceRuns, from, to); Merge targets = new Merge(targetRuns, from, to);
+                BufferedWriter out = Files.newBufferedWriter(changes)) {
+            while (sources.key() != null || targets.key() != null) {
+                int order = sources.key() == null ? 1 : targets.key() == null ? -1 : sources.key().compareTo(targets.key());
+                RecordChange change;
+                if (order < 0) {
+                    Entry removed = sources.next();
+                    change = new RecordChange(RecordChange.Type.REMOVED, mapper.readTree(removed.key()), mapper.readTree(removed.record()), null);
+                } else if (order > 0) {
+                    Entry added = targets.next();
+                    change = new RecordChange(RecordChange.Type.ADDED, mapper.readTree(added.key()), mapper.readTree(added.record()), null);
+                } else {
+                    Entry first = sources.next();
+                    Entry second = targets.next();
+                    if (first.record().equals(second.record())) {
+                        continue;
+                    }
+                    JsonNode patch = JsonDiff.asJson(mapper.readTree(first.record()), mapper.readTree(second.record()), flags, compositeObjects);
+                    if (patch.isEmpty()) {
+                        continue;
+                    }
+                    change = new RecordChange(RecordChange.Type.CHANGED, mapper.readTree(first.key()), null, patch);
+                }
+                out.write(mapper.writeValueAsString(change.toJson()));
+                out.newLine();
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while comparing records");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A record and the JSON text of its key.
+     */
+    private record Entry(String key, String record) {
+    }
+
+    /**
+     * A sorted run spilled to a file, as pairs of lines holding the key and the record, with the key and
+     * offset of every {@link #INDEX_INTERVAL}th record.
+     */
+    private static final class Run {
+        private final Path file;
+        private final String[] keys;
+        private final long[] offsets;
+
+        private Run(Path file, String[] keys, long[] offsets) {
+            this.file = file;
+            this.keys = keys;
+            this.offsets = offsets;
+        }
+
+        static Run write(Entry[] entries, int size, Path file) throws IOException {
+            Arrays.parallelSort(entries, 0, size, Comparator.comparing(Entry::key));
+            int indexed = (size + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            String[] keys = new String[indexed];
+            long[] offsets = new long[indexed];
+            long offset = 0;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                for (int i = 0; i < size; i++) {
+                    if (i % INDEX_INTERVAL == 0) {
+                        keys[i / INDEX_INTERVAL] = entries[i].key();
+                        offsets[i / INDEX_INTERVAL] = offset;
+                    }
+                    byte[] key = entries[i].key().getBytes(StandardCharsets.UTF_8);
+                    byte[] record = entries[i].record().getBytes(StandardCharsets.UTF_8);
+                    out.write(key);
+                    out.write('\n');
+                    out.write(record);
+                    out.write('\n');
+                    offset += key.length + record.length + 2;
+                    entries[i] = null;
+                }
+            }
+            return new Run(file, keys, offsets);
+        }
+
+        /**
+         * Returns the offset of an indexed record at or before the first record with the given key or a greater one.
+         */
+        long offset(String from) {
+            if (from == null) {
+                return 0;
+            }
+            // The first indexed key at or after the first key of the range; the index holds a key many times
+            // when more records than the interval share it, so any match may not be the first
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(from) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            // Records of the range may precede it, up to the indexed record before
+            return low == 0 ? 0 : offsets[low - 1];
+        }
+    }
+
+    /**
+     * Reads the records of a run over a range of keys.
+     */
+    private static final class Cursor implements Closeable {
+        private final int ordinal;
+        private final String to;
+        private final BufferedReader reader;
+        private String key;
+        private String record;
+
+        Cursor(Run run, int ordinal, String from, String to) throws IOException {
+            this.ordinal = ordinal;
+            this.to = to;
+            FileChannel channel = FileChannel.open(run.file, StandardOpenOption.READ);
+            channel.position(run.offset(from));
+            this.reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            advance();
+            while (from != null && key != null && key.compareTo(from) < 0) {
+                advance();
+            }
+        }
+
+        boolean advance() throws IOException {
+            key = reader.readLine();
+            if (key == null || (to != null && key.compareTo(to) >= 0)) {
+                key = null;
+                record = null;
+                return false;
+            }
+            record = reader.readLine();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Merges the runs of a snapshot in key order; records with the same key come in the order of their runs,
+     * which is the order of the snapshot.
+     */
+    private static final class Merge implements Closeable {
+        private final List<Cursor> cursors = new ArrayList<>();
+        private final PriorityQueue<Cursor> queue = new PriorityQueue<>(
+                Comparator.<Cursor, String>comparing(cursor -> cursor.key).thenComparingInt(cursor -> cursor.ordinal));
+
+        Merge(List<Run> runs, String from, String to) throws IOException {
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    Cursor cursor = new Cursor(runs.get(i), i, from, to);
+                    cursors.add(cursor);
+                    if (cursor.key != null) {
+                        queue.add(cursor);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        String key() {
+            Cursor cursor = queue.peek();
+            return cursor == null ? null : cursor.key;
+        }
+
+        Entry next() throws IOException {
+            Cursor cursor = queue.poll();
+            Entry entry = new Entry(cursor.key, cursor.record);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+            return entry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Creates a builder to configure a new {@code NdjsonDiff}.
+     *
+     * @return a new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder class to construct instances of {@link NdjsonDiff}.
+     */
+    public static final class Builder {
+        private String key = "/id";
+        private EnumSet<DiffFlags> flags = DiffFlags.defaults();
+        private List<String> compositeObjects = List.of();
+        private int runSize = DEFAULT_RUN_SIZE;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Path tempDirectory;
+
+        /**
+         * Private constructor for the builder.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the JSON Pointer of the key within each record; {@code /id} by default.
+         *
+         * @param key the JSON Pointer of the key.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withKey(String key) {
+            this.key = key;
+            return this;
+        }
+
+        /**
+         * Sets the {@link DiffFlags} used to diff matched records.
+         *
+         * @param flags the set of flags controlling the patches of changed records.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withFlags(EnumSet<DiffFlags> flags) {
+            this.flags = flags;
+            return this;
+        }
+
+        /**
+         * Sets the composite object paths, within each record, used to diff matched records.
+         *
+         * @param compositeObjects the list of composite object paths.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withCompositeObjects(List<String> compositeObjects) {
+            this.compositeObjects = compositeObjects;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of records held in memory to sort a run before it is spilled.
+         *
+         * @param runSize the maximum number of records per run.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withRunSize(int runSize) {
+            this.runSize = runSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads diffing key ranges; the number of available processors by default.
+         *
+         * @param parallelism the number of threads.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the directory in which the temporary files are created; the default temporary directory by default.
+         *
+         * @param tempDirectory the directory for temporary files.
+         * @return the current {@code Builder} instance for method chaining.
+         */
+        public Builder withTempDirectory(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link NdjsonDiff} instance with the configured settings.
+         *
+         * @return a new {@code NdjsonDiff} instance.
+         * @throws IllegalArgumentException if the run size or the parallelism is not positive.
+         */
+        public NdjsonDiff build() {
+            if (runSize < 1 || parallelism < 1) {
+                throw new IllegalArgumentException("Run size and parallelism must be positive: " + runSize + ", " + parallelism);
+            }
+            return new NdjsonDiff(this);
+        }
+    }
+}
@@ -65,4 +65,8 @@ public class NoopProcessor implements JsonPatchProcessor {
      * @param value The value that is supposed to be tested at the path.
      */
     @Override public void test(JsonPointer path, JsonNode value) {}
+
+    @Override public void text(JsonPointer path, JsonNode delta) {
+        TextDiff.validate(delta);
+    }
 }
\ No newline at end of file
@@ -16,6 +16,8 @@ import java.util.Map;
  *   <li>MOVE - Moves the value from one location to another.</li>
  *   <li>COPY - Copies the value from one location to another.</li>
  *   <li>TEST - Tests if a value at the specified location matches the provided value.</li>
+ *   <li>TEXT - Edits the string at the specified location with a character-level delta; an extension
+ *   of RFC 6902 emitted with {@link DiffFlags#EMIT_TEXT_OPERATIONS}.</li>
  * </ul>
  * 
  * <p>This enum also provides methods to get the operation from its RFC name
@@ -33,7 +35,9 @@ enum Operation {
     /** Represents the "copy" operation in JSON Patch. */
     COPY("copy"),
     /** Represents the "test" operation in JSON Patch. */
-    TEST("test");
+    TEST("test"),
+    /** Represents the "text" extension operation, editing a string value with a {@link TextDiff} delta. */
+    TEXT("text");
 
     /** A map to associate RFC names with their corresponding {@link Operation} enum. */
     private final static Map<String, Operation> OPS = createImmutableMap();
@@ -65,6 +69,7 @@ enum Operation {
         map.put(MOVE.rfcName, MOVE);
         map.put(COPY.rfcName, COPY);
         map.put(TEST.rfcName, TEST);
+        map.put(TEXT.rfcName, TEXT);
         return Collections.unmodifiableMap(map);
     }
 
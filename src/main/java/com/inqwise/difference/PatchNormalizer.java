@@ -0,0 +1,517 @@
+package com.inqwise.difference;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compacts a list of {@link Diff} operations into an equivalent, shorter list.
+ *
+ * <p>Operations are processed in order while a trie keyed by JSON Pointer reference tokens keeps track
+ * of the writes that may still be superseded. The following reductions are applied:
+ * <ul>
+ *   <li>a write (add, replace, remove, copy) at a path drops every earlier write at that path or below it;</li>
+ *   <li>a write below a value set earlier by an add or replace is folded into that value;</li>
+ *   <li>an array insert that is removed again before anything else touches the array is dropped together with the removal;</li>
+ *   <li>a test guaranteed by an earlier test or by a value set earlier in the patch is dropped.</li>
+ * </ul>
+ *
+ * <p>Reads (test, text, move and copy sources) pin the writes they depend on, and array inserts and removals
+ * collapse the entries below the array, since the indexes of later operations no longer match them.
+ * A numeric reference token is only known to be an array index when its parent is known to be an array, from
+ * the source document or the values set and tested earlier in the patch ({@link DocumentShape}). Inserts are
+ * only cancelled by removals below known arrays; below containers of unknown type, inserts and removals with
+ * numeric tokens are handled like array operations without cancellation, which is safe for object members too.
+ * When a write is dropped, the original value carried by the superseding operation ({@code fromValue} on
+ * replace, {@code value} on remove) is rewound through the inverse of the dropped operations, so the
+ * normalized patch can still be inverted. An add that supersedes a known original value becomes a replace from
+ * it, and a copy keeps a remove of it. If rewinding is not possible the original value is omitted, and
+ * operations that dropped writes without carrying their original value stop later rewinds through them.
+ *
+ * <p>Each operation walks its path once and every trie entry is detached at most once,
+ * so normalization runs in O(n&middot;d + n log n) for n operations of depth d.
+ */
+final class PatchNormalizer {
+
+    private final Diff[] ops;
+    private final Node root = new Node();
+    private final DocumentShape shape;
+
+    /**
+     * Private constructor to initialize the normalizer with the operations to compact.
+     *
+     * @param diffs  the operations to compact.
+     * @param source the document the operations apply to, or {@code null} if it is unknown.
+     */
+    private PatchNormalizer(List<Diff> diffs, JsonNode source) {
+        this.ops = diffs.toArray(new Diff[0]);
+        this.shape = new DocumentShape(source);
+    }
+
+    /**
+     * Compacts the given operations into an equivalent, shorter list.
+     *
+     * @param diffs  the operations to compact. This list is not modified.
+     * @param source the document the operations apply to, or {@code null} if they must stay equivalent on
+     *               any document.
+     * @return a new list of operations.
+     */
+    static List<Diff> normalize(List<Diff> diffs, JsonNode source) {
+        PatchNormalizer normalizer = new PatchNormalizer(diffs, source);
+        for (int i = 0; i < normalizer.ops.length; i++) {
+            normalizer.process(i);
+        }
+        List<Diff> result = new ArrayList<>(normalizer.ops.length);
+        for (Diff diff : normalizer.ops) {
+            if (diff != null) result.add(diff);
+        }
+        return result;
+    }
+
+    /**
+     * Processes a single operation, updating the trie and possibly dropping or rewriting operations.
+     *
+     * @param i the index of the operation.
+     */
+    private void process(int i) {
+        Diff op = ops[i];
+        JsonPointer path = op.getPath();
+        switch (op.getOperation()) {
+            case TEST:
+                test(i, path);
+                break;
+            case TEXT:
+                // The delta edits the current string, so the writes it reads are kept as they are
+                barrier(path);
+                break;
+            case MOVE:
+                barrier(path.getParent());
+                barrier(op.getToPath().getParent());
+                break;
+            case COPY:
+                barrier(path);
+                markUnfoldable(op.getToPath());
+                if (isArrayElement(op.getToPath())) {
+                    insertOrRemove(i, op.getToPath());
+                } else {
+                    overwrite(i, op.getToPath());
+                }
+                break;
+            case ADD:
+            case REMOVE:
+            case REPLACE:
+                if (fold(i, path)) {
+                    break;
+                }
+                if (op.getOperation() == Operation.REMOVE && path.isRoot()) {
+                    barrier(path);
+                } else if (op.getOperation() != Operation.REPLACE && isArrayElement(path)) {
+                    insertOrRemove(i, path);
+                } else {
+                    overwrite(i, path);
+                }
+                break;
+        }
+        if (op.getOperation() == Operation.MOVE || op.getOperation() == Operation.COPY) {
+            shape.apply(op.getOperation(), path, op.getToPath(), null);
+        } else {
+            shape.apply(op.getOperation(), null, path, op.getValue());
+        }
+    }
+
+    /**
+     * Handles a test operation: drops it if it is implied by an earlier value or test,
+     * otherwise pins the writes it reads and remembers it.
+     */
+    private void test(int i, JsonPointer path) {
+        Node[] trail = trail(path);
+        for (int depth = trail.length - 1; depth >= 0; depth--) {
+            Entry entry = foldable(trail[depth]);
+            if (entry != null) {
+                try {
+                    JsonNode actual = path.suffix(depth).evaluate(ops[entry.index].getValue());
+                    if (isEquivalent(actual, ops[i].getValue())) {
+                        ops[i] = null;
+                        return;
+                    }
+                } catch (JsonPointerEvaluationException e) {
+                    // The test fails on the original patch as well; keep it
+                }
+                break;
+            }
+        }
+
+        Node node = trail[trail.length - 1];
+        if (node.test != null && isEquivalent(node.test.getValue(), ops[i].getValue())) {
+            ops[i] = null;
+            return;
+        }
+        barrier(trail);
+        node.test = ops[i];
+    }
+
+    /**
+     * Folds a write into the value of an earlier add or replace of one of its ancestors.
+     *
+     * @return {@code true} if the operation was folded and dropped.
+     */
+    private boolean fold(int i, JsonPointer path) {
+        Node[] trail = trail(path);
+        Entry target = null;
+        for (int depth = trail.length - 2; depth >= 0 && target == null; depth--) {
+            target = foldable(trail[depth]);
+        }
+        if (target == null) {
+            return false;
+        }
+
+        Diff parent = ops[target.index];
+        JsonNode value = target.ownsValue ? parent.getValue() : parent.getValue().deepCopy();
+        InPlaceApplyProcessor processor = new InPlaceApplyProcessor(value);
+        try {
+            apply(processor, ops[i], target.path.size());
+        } catch (JsonPointerEvaluationException | RuntimeException e) {
+            target.foldable = false;
+            return false;
+        }
+
+        target.ownsValue = true;
+        ops[target.index] = parent.getOperation() == Operation.REPLACE
+                ? new Diff(Operation.REPLACE, parent.getPath(), parent.getSrcValue(), processor.result())
+                : new Diff(Operation.ADD, parent.getPath(), processor.result());
+        ops[i] = null;
+        clearAncestors(trail);
+        detach(trail[trail.length - 1]);
+        return true;
+    }
+
+    /**
+     * Handles an operation that sets or removes the whole value at its path, dropping the earlier writes it supersedes.
+     */
+    private void overwrite(int i, JsonPointer path) {
+        Node[] trail = trail(path);
+        clearAncestors(trail);
+        Node node = trail[trail.length - 1];
+        List<Entry> killed = detach(node);
+        if (ops[i].getOperation() == Operation.REMOVE
+                && killed.stream().anyMatch(entry -> entry.path.equals(path) && isInsert(ops[entry.index]))) {
+            // Removing a value added earlier leaves no value whether or not there was one, which no single remove does
+            node.entries.add(new Entry(i, path, false));
+            return;
+        }
+
+        Diff op = rewind(ops[i], path, killed);
+        JsonNode prior = op.getOperation() == Operation.COPY ? original(path, killed) : null;
+        for (Entry entry : killed) {
+            ops[entry.index] = null;
+        }
+        if (prior != null) {
+            // A copy carries no original value: keep it in a remove of the superseded value
+            int index = killed.get(0).index;
+            ops[index] = new Diff(Operation.REMOVE, path, prior);
+            node.entries.add(new Entry(index, path, false));
+        }
+        ops[i] = op;
+        Entry entry = new Entry(i, path, isFoldable(op));
+        entry.lossy = !killed.isEmpty() && priorValue(op) == null;
+        node.entries.add(entry);
+    }
+
+    /**
+     * Handles an array insert or removal: cancels an insert removed again below a known array, otherwise
+     * collapses the array entries, whose indexes are shifted by the operation.
+     */
+    private void insertOrRemove(int i, JsonPointer path) {
+        boolean array = shape.isArray(path.getParent());
+        Node[] trail = trail(path.getParent());
+        clearAncestors(trail);
+        Node parent = trail[trail.length - 1];
+        Diff op = ops[i];
+
+        List<Entry> killed = List.of();
+        Entry pending = parent.pendingInsert;
+        parent.pendingInsert = null;
+        parent.test = null;
+        if (op.getOperation() == Operation.REMOVE) {
+            if (array && pending != null && pending.live && pending.path.equals(path)) {
+                pending.live = false;
+                parent.entries.remove(pending);
+                ops[pending.index] = null;
+                ops[i] = null;
+                return;
+            }
+
+            Node child = parent.children.get(path.last().getField());
+            killed = child != null ? detach(child) : List.of();
+            ops[i] = rewind(op, path, killed);
+            for (Entry entry : killed) {
+                ops[entry.index] = null;
+            }
+        }
+
+        List<Entry> collapsed = detach(parent);
+        for (Entry entry : collapsed) {
+            entry.live = true;
+            entry.foldable = false;
+        }
+        parent.entries.addAll(collapsed);
+        Entry entry = new Entry(i, path, false);
+        entry.lossy = !killed.isEmpty() && priorValue(ops[i]) == null;
+        parent.entries.add(entry);
+        if (array && op.getOperation() == Operation.ADD && path.last().getIndex() != JsonPointer.LAST_INDEX) {
+            parent.pendingInsert = entry;
+        }
+    }
+
+    /**
+     * Rewrites an operation that supersedes the given entries, so that it stays equivalent once they are dropped.
+     * Creating entries at the exact path turn a replace into an add, and the original value carried by the
+     * operation is rewound through the inverse of the dropped entries. An add that supersedes a known original
+     * value becomes a replace from it.
+     */
+    private Diff rewind(Diff op, JsonPointer path, List<Entry> killed) {
+        if (killed.isEmpty()) {
+            return op;
+        }
+        Diff exact = null;
+        for (Entry entry : killed) {
+            if (entry.path.equals(path)) exact = ops[entry.index];
+        }
+
+        switch (op.getOperation()) {
+            case REPLACE:
+                if (exact != null && (exact.getOperation() == Operation.ADD || exact.getOperation() == Operation.COPY)) {
+                    return new Diff(Operation.ADD, path, op.getValue());
+                }
+                return op.getSrcValue() == null ? op
+                        : new Diff(Operation.REPLACE, path, rewind(op.getSrcValue(), path, killed), op.getValue());
+            case REMOVE:
+                return op.getValue() == null ? op
+                        : new Diff(Operation.REMOVE, path, rewind(op.getValue(), path, killed));
+            case ADD:
+                JsonNode prior = original(path, killed);
+                return prior == null ? op : new Diff(Operation.REPLACE, path, prior, op.getValue());
+            default:
+                return op;
+        }
+    }
+
+    /**
+     * Returns the value found at {@code path} before the given entries were applied, when the first of them
+     * carries it: a remove with its value or a replace with its original value, both already rewound.
+     *
+     * @return the original value, or {@code null} if it is not known.
+     */
+    private JsonNode original(JsonPointer path, List<Entry> killed) {
+        if (killed.isEmpty() || !killed.get(0).path.equals(path)) {
+            return null;
+        }
+        return priorValue(ops[killed.get(0).index]);
+    }
+
+    /**
+     * Restores the value found at {@code path} before the given entries were applied.
+     *
+     * @return the original value, or {@code null} if it cannot be restored.
+     */
+    private JsonNode rewind(JsonNode value, JsonPointer path, List<Entry> killed) {
+        if (killed.stream().anyMatch(entry -> entry.lossy)) {
+            return null;
+        }
+        InPlaceApplyProcessor processor = new InPlaceApplyProcessor(value.deepCopy());
+        try {
+            for (int k = killed.size() - 1; k >= 0; k--) {
+                apply(processor, ops[killed.get(k).index].invert(), path.size());
+            }
+        } catch (JsonPointerEvaluationException | RuntimeException e) {
+            return null;
+        }
+        return processor.result();
+    }
+
+    /**
+     * Applies an add, remove or replace operation relative to an ancestor of its path.
+     */
+    private static void apply(JsonPatchProcessor processor, Diff diff, int prefixSize) throws JsonPointerEvaluationException {
+        JsonPointer path = diff.getPath().suffix(prefixSize);
+        switch (diff.getOperation()) {
+            case ADD:
+                processor.add(path, Objects.requireNonNull(diff.getValue(), "value").deepCopy());
+                break;
+            case REMOVE:
+                processor.remove(path);
+                break;
+            case REPLACE:
+                processor.replace(path, Objects.requireNonNull(diff.getValue(), "value").deepCopy());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operation: " + diff.getOperation());
+        }
+    }
+
+    /**
+     * Pins every write overlapping the given path, so that it is no longer dropped or folded into.
+     */
+    private void barrier(JsonPointer path) {
+        barrier(trail(path));
+    }
+
+    private void barrier(Node[] trail) {
+        for (int depth = 0; depth < trail.length - 1; depth++) {
+            Node node = trail[depth];
+            node.entries.forEach(entry -> entry.live = false);
+            node.entries.clear();
+            node.test = null;
+            node.pendingInsert = null;
+        }
+        detach(trail[trail.length - 1]);
+    }
+
+    /**
+     * Prevents further folding into the values written above the given path.
+     */
+    private void markUnfoldable(JsonPointer path) {
+        Node[] trail = trail(path);
+        for (int depth = 0; depth < trail.length - 1; depth++) {
+            trail[depth].entries.forEach(entry -> entry.foldable = false);
+        }
+    }
+
+    /**
+     * Forgets the tests and pending inserts above the last node of the trail, which are affected by a write below them.
+     */
+    private static void clearAncestors(Node[] trail) {
+        for (int depth = 0; depth < trail.length - 1; depth++) {
+            trail[depth].test = null;
+            trail[depth].pendingInsert = null;
+        }
+    }
+
+    /**
+     * Removes the subtree of the given node from the trie.
+     *
+     * @return the entries of the subtree, in the order of their operations.
+     */
+    private static List<Entry> detach(Node node) {
+        List<Entry> entries = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            entries.addAll(current.entries);
+            current.children.values().forEach(stack::push);
+        }
+        node.entries.clear();
+        node.children.clear();
+        node.test = null;
+        node.pendingInsert = null;
+        entries.forEach(entry -> entry.live = false);
+        entries.sort(Comparator.comparingInt(entry -> entry.index));
+        return entries;
+    }
+
+    /**
+     * Returns the nodes along the given path, from the root to the node of the path itself, creating them as needed.
+     */
+    private Node[] trail(JsonPointer path) {
+        Node[] trail = new Node[path.size() + 1];
+        Node node = root;
+        trail[0] = node;
+        for (int depth = 0; depth < path.size(); depth++) {
+            node = node.children.computeIfAbsent(path.get(depth).getField(), key -> new Node());
+            trail[depth + 1] = node;
+        }
+        return trail;
+    }
+
+    /**
+     * Returns the entry of the node whose value can absorb writes below it, if any.
+     */
+    private static Entry foldable(Node node) {
+        for (int k = node.entries.size() - 1; k >= 0; k--) {
+            if (node.entries.get(k).foldable) return node.entries.get(k);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the original value carried by an operation, used to rewind superseded writes.
+     */
+    private static JsonNode priorValue(Diff op) {
+        switch (op.getOperation()) {
+            case REPLACE:
+                return op.getSrcValue();
+            case REMOVE:
+                return op.getValue();
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isFoldable(Diff op) {
+        return (op.getOperation() == Operation.ADD || op.getOperation() == Operation.REPLACE)
+                && op.getValue() != null && op.getValue().isContainerNode();
+    }
+
+    private static boolean isInsert(Diff op) {
+        return op.getOperation() == Operation.ADD || op.getOperation() == Operation.COPY;
+    }
+
+    /**
+     * Checks whether a path may point to an array element: its last token is an index and its parent is not
+     * known to be an object.
+     */
+    private boolean isArrayElement(JsonPointer path) {
+        return !path.isRoot() && path.last().isArrayIndex() && !shape.isObject(path.getParent());
+    }
+
+    private static boolean isEquivalent(JsonNode actual, JsonNode expected) {
+        if (actual == null || expected == null) return false;
+        if (actual.isNumber() && expected.isNumber()) {
+            return JsonNumEquals.getInstance().doEquivalent(actual, expected);
+        }
+        return actual.equals(expected);
+    }
+
+    /** A write operation registered in the trie. */
+    private static final class Entry {
+        final int index;
+        final JsonPointer path;
+        boolean foldable;
+        boolean ownsValue;
+        boolean lossy;
+        boolean live = true;
+
+        Entry(int index, JsonPointer path, boolean foldable) {
+            this.index = index;
+            this.path = path;
+            this.foldable = foldable;
+        }
+
+        @Override
+        public String toString() {
+            return index + "@" + path;
+        }
+    }
+
+    /** A trie node for a single reference token. */
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final List<Entry> entries = new ArrayList<>(1);
+        Entry pendingInsert;
+        Diff test;
+
+        @Override
+        public String toString() {
+            return Arrays.toString(entries.toArray()) + children.keySet();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.inqwise.difference;
+
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An operation of a JSON Patch applied by {@link TypePatcher} implementations. Generated patchers dispatch on
+ * the {@link #property() property} the path reaches in their type and hand the property's value to
+ * {@link #apply(Object, Class)}, which returns the value after the operation.
+ *
+ * <p>An {@code add} or {@code replace} of the property itself reads the new value with the property's type, and a
+ * {@code test} compares the property's JSON tree. An operation inside the property is applied by the generated patcher of the value's class, when there is one, and otherwise
+ * to the JSON tree of the value only, which is read back with the property's type. The value itself is never
+ * modified.
+ */
+public final class PatchOperation {
+
+    private final JsonNode node;
+    private final Operation operation;
+    private final JsonPointer path;
+    private final JsonPointer from;
+    private int depth;
+
+    private PatchOperation(JsonNode node, Operation operation, JsonPointer path, JsonPointer from) {
+        this.node = node;
+        this.operation = operation;
+        this.path = path;
+        this.from = from;
+    }
+
+    /**
+     * Reads an operation of a JSON Patch with plain pointers.
+     *
+     * @param node the operation.
+     * @return the operation, positioned at the root.
+     * @throws IllegalArgumentException if the operation is invalid.
+     */
+    static PatchOperation parse(JsonNode node) {
+        JsonNode op = node.get(Constants.OP);
+        JsonNode path = node.get(Constants.PATH);
+        JsonNode from = node.get(Constants.FROM);
+        if (op == null || !op.isTextual() || path == null || !path.isTextual() || (from != null && !from.isTextual())) {
+            throw new IllegalArgumentException("Invalid JSON Patch operation: " + node);
+        }
+        return new PatchOperation(node, Operation.fromRfcName(op.textValue()), JsonPointer.parse(path.textValue()),
+                from == null ? null : JsonPointer.parse(from.textValue()));
+    }
+
+    /**
+     * Returns whether the operation targets the root of the patched object.
+     *
+     * @return {@code true} if the path is empty.
+     */
+    boolean isRoot() {
+        return path.isRoot();
+    }
+
+    /**
+     * Returns the name of the property the path reaches in the object being patched.
+     *
+     * @return the decoded reference token.
+     */
+    public String property() {
+        return path.get(depth).getField();
+    }
+
+    /**
+     * Returns the exception reporting a property that the patched type does not have.
+     *
+     * @param type the patched type.
+     * @return the exception, to be thrown by the caller.
+     */
+    public IllegalArgumentException unknownProperty(Class<?> type) {
+        return new IllegalArgumentException("No property " + property() + " in " + type.getName() + " at " + path);
+    }
+
+    /**
+     * Applies the operation to the value of the current {@link #property() property}.
+     *
+     * @param <V>     the type of the property.
+     * @param current the value of the property.
+     * @param type    the declared type of the property.
+     * @return the value of the property after the operation.
+     * @throws IllegalArgumentException if the operation cannot be applied to the value directly.
+     */
+    public <V> V apply(V current, Class<V> type) {
+        return apply(current, (Type) type);
+    }
+
+    /**
+     * Applies the operation to the value of the current {@link #property() property} of a parameterized type.
+     *
+     * @param <V>     the type of the property.
+     * @param current the value of the property.
+     * @param type    the declared type of the property.
+     * @return the value of the property after the operation.
+     * @throws IllegalArgumentException if the operation cannot be applied to the value directly.
+     */
+    public <V> V apply(V current, TypeReference<V> type) {
+        return apply(current, type.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V apply(V current, Type type) {
+        boolean leaf = depth + 1 == path.size();
+        if (leaf && (operation == Operation.ADD || operation == Operation.REPLACE) && node.has(Constants.VALUE)) {
+            return (V) Differences.convertJsonNode(node.get(Constants.VALUE), type);
+        }
+        if (leaf && operation != Operation.TEST) {
+            throw new IllegalArgumentException("Cannot " + operation.rfcName() + " a property directly at " + path);
+        }
+        if (current == null && !leaf) {
+            throw new IllegalArgumentException("Cannot patch inside a null property at " + path);
+        }
+        if (from != null && (from.size() <= depth + 1 || !isSameProperty())) {
+            throw new IllegalArgumentException("Cannot " + operation.rfcName() + " across properties at " + path);
+        }
+
+        TypePatcher<V> patcher = leaf || from != null ? null : TypePatchers.find(current);
+        if (patcher != null) {
+            depth++;
+            try {
+                return patcher.apply(current, this);
+            } finally {
+                depth--;
+            }
+        }
+        JsonNode patched = JsonPatch.apply(relative(), Differences.convertObjectToJsonNode(current));
+        return operation == Operation.TEST ? current : (V) Differences.convertJsonNode(patched, type);
+    }
+
+    /**
+     * Returns whether the {@code from} pointer shares the tokens of the path up to the current property.
+     */
+    private boolean isSameProperty() {
+        for (int i = 0; i <= depth; i++) {
+            if (!from.get(i).equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the operation as a single-operation patch relative to the value of the current property.
+     */
+    private JsonNode relative() {
+        ObjectNode relative = node.deepCopy();
+        relative.put(Constants.PATH, path.suffix(depth + 1).toString());
+        if (from != null) {
+            relative.put(Constants.FROM, from.suffix(depth + 1).toString());
+        }
+        return JsonNodeFactory.instance.arrayNode(1).add(relative);
+    }
+}
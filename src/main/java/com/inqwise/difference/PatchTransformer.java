@@ -0,0 +1,723 @@
+package com.inqwise.difference;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Rebases a JSON patch over a concurrent patch written against the same document
+ * (operational transformation).
+ *
+ * <p>The transformer keeps an index of the nodes touched by either patch in two coordinate spaces:
+ * the <em>source</em> space the rebased patch was written against, and the <em>target</em> space produced
+ * by the concurrent patch. Both spaces evolve as the rebased patch is processed, so each of its operations
+ * is resolved in the coordinates it was written in. Object members are keyed by name in each space; array
+ * elements live in a treap ordered by document position whose subtrees count the elements visible in each
+ * space, so converting an index between the spaces takes O(log k) for k touched elements. Untouched
+ * runs of elements are kept as a single treap entry.
+ *
+ * <p>Conflicts are resolved in favor of the concurrent patch: operations of the rebased patch on nodes
+ * the concurrent patch removed or overwrote are dropped, and concurrent inserts at the same array position
+ * come first. Nodes moved by the concurrent patch keep their identity, so operations below them follow
+ * the move. Values set by the rebased patch itself are not tracked further; paths below them are kept as is.
+ *
+ * <p>Numeric reference tokens are read as array indexes unless their container is known to be an object, either
+ * from the document when it is given or from the values the patches set or test themselves. Elements appended
+ * with "{@code -}" are not tracked.
+ */
+final class PatchTransformer {
+
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+    private static final int[] SPACES = { SOURCE, TARGET };
+    private static final int UNTOUCHED = Integer.MAX_VALUE / 4;
+
+    private final Random random = new Random(0x5EED);
+    private Node sourceRoot = new Node();
+    private Node targetRoot = sourceRoot;
+    /** What is known of the document in the target space, then in the source space while the patch is rebased. */
+    private DocumentShape shape;
+
+    /**
+     * Private constructor, instances are created by {@link #transform(JsonNode, JsonNode, JsonNode)}.
+     */
+    private PatchTransformer(JsonNode document) {
+        this.shape = new DocumentShape(document);
+    }
+
+    /**
+     * Rebases {@code patch} over {@code concurrent}. Both patches must have been validated.
+     *
+     * @param concurrent the patch applied first.
+     * @param patch      the patch to rebase.
+     * @param document   the document both patches were written against, or {@code null} if it is unknown.
+     * @return the rebased patch, to be applied after {@code concurrent}.
+     */
+    static JsonNode transform(JsonNode concurrent, JsonNode patch, JsonNode document) {
+        PatchTransformer transformer = new PatchTransformer(document);
+        for (JsonNode jsonNode : concurrent) {
+            Operation operation = operation(jsonNode);
+            JsonPointer from = pointer(jsonNode, Constants.FROM);
+            JsonPointer path = pointer(jsonNode, Constants.PATH);
+            transformer.applyConcurrent(operation, from, path);
+            transformer.shape.apply(operation, from, path, jsonNode.get(Constants.VALUE));
+        }
+
+        transformer.shape = new DocumentShape(document);
+        ArrayNode rebased = JsonNodeFactory.instance.arrayNode(patch.size());
+        for (JsonNode jsonNode : patch) {
+            Operation operation = operation(jsonNode);
+            JsonPointer from = pointer(jsonNode, Constants.FROM);
+            JsonPointer path = pointer(jsonNode, Constants.PATH);
+            JsonPointer[] paths = transformer.rebase(operation, from, path);
+            transformer.shape.apply(operation, from, path, jsonNode.get(Constants.VALUE));
+            if (paths == null) {
+                continue;
+            }
+            ObjectNode rebasedNode = jsonNode.deepCopy();
+            rebasedNode.put(Constants.PATH, paths[1].toString());
+            if (paths[0] != null) {
+                rebasedNode.put(Constants.FROM, paths[0].toString());
+            }
+            rebased.add(rebasedNode);
+        }
+        return rebased;
+    }
+
+    private static Operation operation(JsonNode jsonNode) {
+        return Operation.fromRfcName(jsonNode.get(Constants.OP).textValue());
+    }
+
+    private static JsonPointer pointer(JsonNode jsonNode, String attr) {
+        JsonNode value = jsonNode.get(attr);
+        return value == null ? null : JsonPointer.parse(value.textValue());
+    }
+
+    /**
+     * Records an operation of the concurrent patch in the target space.
+     */
+    private void applyConcurrent(Operation operation, JsonPointer from, JsonPointer path) {
+        switch (operation) {
+            case ADD:
+            case COPY:
+                insert(path, new Node());
+                break;
+            case REMOVE:
+                detach(TARGET, resolve(path));
+                break;
+            case REPLACE:
+            case TEXT:
+                // A delta applies to the original string only, so an edited string counts as replaced
+                Node replaced = resolve(path);
+                if (replaced != null) {
+                    detach(TARGET, replaced);
+                    insert(path, new Node());
+                }
+                break;
+            case MOVE:
+                Node node = resolve(from);
+                if (node != null) {
+                    detach(TARGET, node);
+                    insert(path, node);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Resolves a path of the concurrent patch in the target space.
+     *
+     * @return the node, or {@code null} if it is not present.
+     */
+    private Node resolve(JsonPointer path) {
+        Node node = targetRoot;
+        for (int i = 0; i < path.size() && node != null; i++) {
+            node = child(node, TARGET, path.get(i), isIndex(path, i));
+        }
+        return node;
+    }
+
+    /**
+     * Adds a node of the concurrent patch at the given path of the target space, replacing any existing member.
+     */
+    private void insert(JsonPointer path, Node node) {
+        if (path.isRoot()) {
+            detach(TARGET, targetRoot);
+            targetRoot = node;
+            return;
+        }
+        Node parent = resolve(path.getParent());
+        if (parent == null) {
+            return;
+        }
+        JsonPointer.RefToken token = path.last();
+        if (isIndex(path, path.size() - 1)) {
+            if (token.getIndex() != JsonPointer.LAST_INDEX) {
+                Sequence elements = parent.elements();
+                Item item = elements.newItem(1, false, true, node);
+                elements.insert(elements.boundary(TARGET, token.getIndex()), item);
+                node.attach(TARGET, parent, null, item);
+            }
+        } else {
+            detach(TARGET, child(parent, TARGET, token, false));
+            parent.fields(TARGET).put(token.getField(), node);
+            node.attach(TARGET, parent, token.getField(), null);
+        }
+    }
+
+    /**
+     * Rebases a single operation of the patch.
+     *
+     * @return the rebased {@code from} (or {@code null}) and {@code path}, or {@code null} if the operation is dropped.
+     */
+    private JsonPointer[] rebase(Operation operation, JsonPointer from, JsonPointer path) {
+        switch (operation) {
+            case TEST:
+            case TEXT:
+                return paths(null, translate(locate(path, path.size()), path, path.size()));
+            case REPLACE: {
+                Location location = locate(path, path.size());
+                JsonPointer target = translate(location, path, path.size());
+                if (target != null && location.isExact(path.size())) {
+                    location.node.owned = true;
+                }
+                return paths(null, target);
+            }
+            case REMOVE: {
+                Location location = locate(path, path.size());
+                JsonPointer target = translate(location, path, path.size());
+                if (location != null && location.isExact(path.size())) {
+                    detach(SOURCE, location.node);
+                    if (target != null) {
+                        detach(TARGET, location.node);
+                    }
+                }
+                return paths(null, target);
+            }
+            case ADD:
+                return paths(null, place(path, new Node(true), true));
+            case COPY: {
+                JsonPointer source = translate(locate(from, from.size()), from, from.size());
+                return paths(source, place(path, new Node(true), source != null));
+            }
+            case MOVE: {
+                Location location = locate(from, from.size());
+                JsonPointer source = translate(location, from, from.size());
+                Node node = new Node(true);
+                Slot slot = null;
+                if (location != null && location.isExact(from.size())) {
+                    node = location.node;
+                    detach(SOURCE, node);
+                    if (source != null) {
+                        slot = detach(TARGET, node);
+                    }
+                }
+                JsonPointer target = place(path, node, source != null);
+                if (target == null && slot != null) {
+                    slot.restore(node);
+                }
+                return paths(source, target);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation specified: " + operation);
+        }
+    }
+
+    private static JsonPointer[] paths(JsonPointer from, JsonPointer path) {
+        return path == null ? null : new JsonPointer[] { from, path };
+    }
+
+    /**
+     * Adds a node of the rebased patch at the given path of the source space, and at the matching position
+     * of the target space if {@code allowed} and the parent is still present there.
+     *
+     * @return the path in the target space, or {@code null} if the operation is dropped.
+     */
+    private JsonPointer place(JsonPointer path, Node node, boolean allowed) {
+        if (path.isRoot()) {
+            boolean kept = allowed && sourceRoot == targetRoot;
+            sourceRoot = node;
+            if (kept) {
+                targetRoot = node;
+            }
+            return kept ? JsonPointer.ROOT : null;
+        }
+
+        int size = path.size() - 1;
+        Location location = locate(path, size);
+        JsonPointer parentPath = translate(location, path, size);
+        JsonPointer.RefToken token = path.last();
+        if (location == null || !location.isExact(size) || location.node.owned) {
+            // Below a value set by the patch itself, or not tracked
+            return allowed && parentPath != null ? parentPath.append(token.getField()) : null;
+        }
+
+        Node parent = location.node;
+        boolean kept = allowed && parentPath != null;
+        if (isIndex(path, size)) {
+            if (token.getIndex() == JsonPointer.LAST_INDEX) {
+                return kept ? parentPath.append(token.getField()) : null;
+            }
+            Sequence elements = parent.elements();
+            Item item = elements.newItem(1, true, kept, node);
+            elements.insert(elements.boundary(SOURCE, token.getIndex()), item);
+            node.attach(SOURCE, parent, null, item);
+            if (!kept) {
+                return null;
+            }
+            node.attach(TARGET, parent, null, item);
+            return parentPath.append(elements.rank(item, TARGET));
+        }
+
+        String name = token.getField();
+        Node existing = child(parent, SOURCE, token, false);
+        kept &= parent.fields(TARGET).get(name) == existing;
+        detach(SOURCE, existing);
+        parent.fields(SOURCE).put(name, node);
+        node.attach(SOURCE, parent, name, null);
+        if (!kept) {
+            return null;
+        }
+        detach(TARGET, existing);
+        parent.fields(TARGET).put(name, node);
+        node.attach(TARGET, parent, name, null);
+        return parentPath.append(name);
+    }
+
+    /**
+     * Resolves the first {@code size} tokens of a path of the rebased patch in the source space.
+     * Resolution stops at values set by the rebased patch itself.
+     *
+     * @return the location, or {@code null} if the path is not present.
+     */
+    private Location locate(JsonPointer path, int size) {
+        Node node = sourceRoot;
+        for (int i = 0; i < size; i++) {
+            if (node.owned) {
+                return new Location(node, i);
+            }
+            node = child(node, SOURCE, path.get(i), isIndex(path, i));
+            if (node == null) {
+                return null;
+            }
+        }
+        return new Location(node, size);
+    }
+
+    /**
+     * Converts a location of the source space into a path of the target space.
+     *
+     * @return the path, or {@code null} if the node is no longer present in the target space.
+     */
+    private JsonPointer translate(Location location, JsonPointer path, int size) {
+        if (location == null) {
+            return null;
+        }
+        Deque<JsonPointer.RefToken> tokens = new ArrayDeque<>();
+        for (Node node = location.node; node != targetRoot; node = node.parents[TARGET]) {
+            Node parent = node.parents[TARGET];
+            if (parent == null) {
+                return null;
+            }
+            String token = node.items[TARGET] != null
+                    ? Integer.toString(parent.elements.rank(node.items[TARGET], TARGET))
+                    : node.names[TARGET];
+            tokens.addFirst(new JsonPointer.RefToken(token));
+        }
+        JsonPointer target = new JsonPointer(new ArrayList<>(tokens));
+        for (int i = location.depth; i < size; i++) {
+            target = target.append(path.get(i).getField());
+        }
+        return target;
+    }
+
+    /**
+     * Checks whether a token of a path is an array index: numeric, and not below a value known to be an object
+     * in the space the path is resolved in.
+     */
+    private boolean isIndex(JsonPointer path, int depth) {
+        return path.get(depth).isArrayIndex() && !shape.isObject(path, depth);
+    }
+
+    /**
+     * Returns the child of a node in the given space, materializing untouched members and elements.
+     *
+     * @param index whether the token is an array index.
+     * @return the child, or {@code null} if it was removed in that space.
+     */
+    private Node child(Node parent, int space, JsonPointer.RefToken token, boolean index) {
+        if (index) {
+            if (token.getIndex() == JsonPointer.LAST_INDEX) {
+                return null;
+            }
+            return parent.elements().at(space, token.getIndex()).node;
+        }
+        String name = token.getField();
+        if (parent.fields(space).containsKey(name)) {
+            return parent.fields(space).get(name);
+        }
+        Node node = new Node();
+        for (int s : SPACES) {
+            if (!parent.fields(s).containsKey(name)) {
+                parent.fields(s).put(name, node);
+                node.attach(s, parent, name, null);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Removes a node from its slot in the given space.
+     *
+     * @return the slot the node was removed from, or {@code null} if it was not present.
+     */
+    private Slot detach(int space, Node node) {
+        if (node == null) {
+            return null;
+        }
+        Node parent = node.parents[space];
+        if (parent == null) {
+            if (space == SOURCE && node == sourceRoot) {
+                sourceRoot = new Node();
+            } else if (space == TARGET && node == targetRoot) {
+                targetRoot = new Node();
+            }
+            return null;
+        }
+        Slot slot = new Slot(space, parent, node.names[space], node.items[space]);
+        if (slot.item != null) {
+            parent.elements.hide(slot.item, space);
+        } else {
+            parent.fields(space).put(slot.name, null);
+        }
+        node.attach(space, null, null, null);
+        return slot;
+    }
+
+    /**
+     * A node of the document, tracked in both spaces.
+     */
+    private final class Node {
+        final Node[] parents = new Node[2];
+        final String[] names = new String[2];
+        final Item[] items = new Item[2];
+        private final Map<String, Node> sourceFields = new HashMap<>();
+        private final Map<String, Node> targetFields = new HashMap<>();
+        Sequence elements;
+        /** Whether the value was set by the rebased patch, so paths below it need no rebasing. */
+        boolean owned;
+
+        Node() {
+        }
+
+        Node(boolean owned) {
+            this.owned = owned;
+        }
+
+        void attach(int space, Node parent, String name, Item item) {
+            parents[space] = parent;
+            names[space] = name;
+            items[space] = item;
+        }
+
+        Map<String, Node> fields(int space) {
+            return space == SOURCE ? sourceFields : targetFields;
+        }
+
+        Sequence elements() {
+            if (elements == null) {
+                elements = new Sequence(this);
+            }
+            return elements;
+        }
+    }
+
+    /**
+     * The position a node was removed from, used to undo the removal.
+     */
+    private static final class Slot {
+        final int space;
+        final Node parent;
+        final String name;
+        final Item item;
+
+        Slot(int space, Node parent, String name, Item item) {
+            this.space = space;
+            this.parent = parent;
+            this.name = name;
+            this.item = item;
+        }
+
+        void restore(Node node) {
+            if (item != null) {
+                parent.elements.show(item, space);
+            } else {
+                parent.fields(space).put(name, node);
+            }
+            node.attach(space, parent, name, item);
+        }
+    }
+
+    /**
+     * A node resolved in the source space, and the number of path tokens consumed to reach it.
+     */
+    private static final class Location {
+        final Node node;
+        final int depth;
+
+        Location(Node node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+
+        boolean isExact(int size) {
+            return depth == size;
+        }
+    }
+
+    /**
+     * A treap entry: a single element, or a run of untouched elements visible in both spaces.
+     */
+    private static final class Item {
+        final int priority;
+        Item left;
+        Item right;
+        Item parent;
+        int count;
+        final boolean[] visible;
+        int total;
+        final int[] sizes = new int[2];
+        Node node;
+
+        Item(int priority, int count, boolean source, boolean target, Node node) {
+            this.priority = priority;
+            this.count = count;
+            this.visible = new boolean[] { source, target };
+            this.node = node;
+            update();
+        }
+
+        int size(int space) {
+            return visible[space] ? count : 0;
+        }
+
+        void update() {
+            total = total(left) + count + total(right);
+            for (int space : SPACES) {
+                sizes[space] = size(left, space) + size(space) + size(right, space);
+            }
+            if (left != null) {
+                left.parent = this;
+            }
+            if (right != null) {
+                right.parent = this;
+            }
+        }
+
+        static int total(Item item) {
+            return item == null ? 0 : item.total;
+        }
+
+        static int size(Item item, int space) {
+            return item == null ? 0 : item.sizes[space];
+        }
+    }
+
+    /**
+     * The elements of an array, ordered by document position.
+     */
+    private final class Sequence {
+        private final Node owner;
+        private Item root;
+
+        Sequence(Node owner) {
+            this.owner = owner;
+            this.root = newItem(UNTOUCHED, true, true, null);
+        }
+
+        Item newItem(int count, boolean source, boolean target, Node node) {
+            return new Item(random.nextInt(), count, source, target, node);
+        }
+
+        /**
+         * Returns the element at the given index of a space, materializing it if untouched.
+         */
+        Item at(int space, int index) {
+            int position = boundary(space, index);
+            cut(position + 1);
+            Item item = root;
+            int start = 0;
+            while (true) {
+                int left = Item.total(item.left);
+                if (position < start + left) {
+                    item = item.left;
+                } else if (position == start + left) {
+                    break;
+                } else {
+                    start += left + item.count;
+                    item = item.right;
+                }
+            }
+            if (item.node == null) {
+                item.node = new Node();
+                item.node.attach(SOURCE, owner, null, item);
+                item.node.attach(TARGET, owner, null, item);
+            }
+            return item;
+        }
+
+        /**
+         * Returns the document position of the element at the given index of a space, splitting runs so
+         * the position starts an entry.
+         */
+        int boundary(int space, int index) {
+            Item item = root;
+            int position = 0;
+            while (true) {
+                int left = Item.size(item.left, space);
+                if (index < left) {
+                    item = item.left;
+                    continue;
+                }
+                index -= left;
+                position += Item.total(item.left);
+                if (index < item.size(space)) {
+                    position += index;
+                    break;
+                }
+                index -= item.size(space);
+                position += item.count;
+                item = item.right;
+            }
+            cut(position);
+            return position;
+        }
+
+        /**
+         * Returns the index of an element in the given space.
+         */
+        int rank(Item item, int space) {
+            int rank = Item.size(item.left, space);
+            for (Item node = item; node.parent != null; node = node.parent) {
+                if (node.parent.right == node) {
+                    rank += Item.size(node.parent.left, space) + node.parent.size(space);
+                }
+            }
+            return rank;
+        }
+
+        void insert(int position, Item item) {
+            Item[] parts = split(root, position);
+            root = merge(merge(parts[0], item), parts[1]);
+            root.parent = null;
+        }
+
+        void hide(Item item, int space) {
+            item.visible[space] = false;
+            if (!item.visible[SOURCE] && !item.visible[TARGET]) {
+                Item[] parts = split(root, position(item));
+                Item[] rest = split(parts[1], 1);
+                root = merge(parts[0], rest[1]);
+                if (root != null) {
+                    root.parent = null;
+                }
+            } else {
+                refresh(item);
+            }
+        }
+
+        void show(Item item, int space) {
+            item.visible[space] = true;
+            refresh(item);
+        }
+
+        private int position(Item item) {
+            int position = Item.total(item.left);
+            for (Item node = item; node.parent != null; node = node.parent) {
+                if (node.parent.right == node) {
+                    position += Item.total(node.parent.left) + node.parent.count;
+                }
+            }
+            return position;
+        }
+
+        private void refresh(Item item) {
+            for (Item node = item; node != null; node = node.parent) {
+                node.update();
+            }
+        }
+
+        /**
+         * Splits the run containing the given position so that an entry starts there.
+         */
+        private void cut(int position) {
+            Item item = root;
+            int start = 0;
+            while (item != null) {
+                int left = Item.total(item.left);
+                if (position < start + left) {
+                    item = item.left;
+                } else if (position < start + left + item.count) {
+                    int offset = position - start - left;
+                    if (offset > 0) {
+                        Item rest = newItem(item.count - offset, true, true, null);
+                        item.count = offset;
+                        refresh(item);
+                        insert(position, rest);
+                    }
+                    return;
+                } else {
+                    start += left + item.count;
+                    item = item.right;
+                }
+            }
+        }
+
+        private Item[] split(Item item, int position) {
+            if (item == null) {
+                return new Item[] { null, null };
+            }
+            Item[] parts;
+            if (position <= Item.total(item.left)) {
+                parts = split(item.left, position);
+                item.left = parts[1];
+                item.update();
+                parts[1] = item;
+            } else {
+                parts = split(item.right, position - Item.total(item.left) - item.count);
+                item.right = parts[0];
+                item.update();
+                parts[0] = item;
+            }
+            item.parent = null;
+            return parts;
+        }
+
+        private Item merge(Item left, Item right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                left.update();
+                return left;
+            }
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+}
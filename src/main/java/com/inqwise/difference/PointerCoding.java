@@ -0,0 +1,192 @@
+package com.inqwise.difference;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Front coding of the pointers of a JSON Patch, enabled by {@link DiffFlags#FRONT_CODED_POINTERS}.
+ *
+ * <p>A front-coded pointer is written as the array {@code [shared, suffix]}: the number of leading reference
+ * tokens it shares with the {@code path} of the previous operation, followed by its remaining tokens as a
+ * JSON Pointer string. Both the {@code path} and the {@code from} of an operation are coded against the
+ * previous operation's {@code path}; pointers whose shared tokens are not longer than the array notation are
+ * written as plain strings. Readers resolve the shared tokens from the previous pointer instead of parsing
+ * them again.
+ */
+final class PointerCoding {
+
+    private PointerCoding() {
+    }
+
+    /**
+     * Returns whether a patch has front-coded pointers.
+     *
+     * @param patch the JSON Patch.
+     * @return {@code true} if any {@code path} or {@code from} is front-coded.
+     */
+    static boolean isFrontCoded(JsonNode patch) {
+        for (JsonNode operation : patch) {
+            if (operation.path(Constants.PATH).isArray() || operation.path(Constants.FROM).isArray()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a patch with plain pointers.
+     *
+     * @param patch the JSON Patch, which is not modified.
+     * @return the patch itself if it has no front-coded pointers, otherwise a copy with plain pointers.
+     * @throws InvalidJsonPatchException if a front-coded pointer is invalid.
+     */
+    static JsonNode expand(JsonNode patch) throws InvalidJsonPatchException {
+        if (!patch.isArray() || !isFrontCoded(patch)) {
+            return patch;
+        }
+        Decoder decoder = new Decoder();
+        ArrayNode expanded = JsonNodeFactory.instance.arrayNode(patch.size());
+        for (JsonNode operation : patch) {
+            ObjectNode copy = operation.deepCopy();
+            JsonPointer path = decoder.decode(operation.get(Constants.PATH));
+            if (path != null) {
+                copy.put(Constants.PATH, path.toString());
+            }
+            JsonPointer from = decoder.decode(operation.get(Constants.FROM));
+            if (from != null) {
+                copy.put(Constants.FROM, from.toString());
+            }
+            decoder.advance(path);
+            expanded.add(copy);
+        }
+        return expanded;
+    }
+
+    /**
+     * Writes the pointers of consecutive operations, front-coded if enabled.
+     */
+    static final class Encoder {
+        private final boolean enabled;
+        private JsonPointer previous = JsonPointer.ROOT;
+
+        Encoder(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        Encoder(EnumSet<DiffFlags> flags) {
+            this(flags.contains(DiffFlags.FRONT_CODED_POINTERS));
+        }
+
+        /**
+         * Returns the number of leading tokens a pointer of the current operation shares with the previous path.
+         */
+        int shared(JsonPointer pointer) {
+            if (!enabled) {
+                return 0;
+            }
+            int shared = 0;
+            int max = Math.min(previous.size(), pointer.size());
+            int length = 0;
+            while (shared < max && previous.get(shared).equals(pointer.get(shared))) {
+                length += 1 + previous.get(shared).toString().length();
+                shared++;
+            }
+            // the shared tokens are replaced by "[shared," and "]"
+            return length > Integer.toString(shared).length() + 3 ? shared : 0;
+        }
+
+        /**
+         * Encodes a pointer of the current operation.
+         */
+        JsonNode encode(JsonPointer pointer) {
+            int shared = shared(pointer);
+            JsonNodeFactory factory = JsonNodeFactory.instance;
+            if (shared == 0) {
+                return factory.textNode(pointer.toString());
+            }
+            return factory.arrayNode(2).add(shared).add(pointer.suffix(shared).toString());
+        }
+
+        /**
+         * Writes a pointer of the current operation.
+         */
+        void write(JsonGenerator generator, String field, JsonPointer pointer) throws IOException {
+            int shared = shared(pointer);
+            if (shared == 0) {
+                generator.writeStringField(field, pointer.toString());
+            } else {
+                generator.writeArrayFieldStart(field);
+                generator.writeNumber(shared);
+                generator.writeString(pointer.suffix(shared).toString());
+                generator.writeEndArray();
+            }
+        }
+
+        /**
+         * Moves to the next operation, after the current one with the given path.
+         */
+        void advance(JsonPointer path) {
+            previous = path;
+        }
+    }
+
+    /**
+     * Reads the pointers of consecutive operations, plain or front-coded.
+     */
+    static final class Decoder {
+        private JsonPointer previous = JsonPointer.ROOT;
+
+        /**
+         * Decodes a pointer of the current operation.
+         *
+         * @param value the pointer, or {@code null}.
+         * @return the pointer, or {@code null} if the value is {@code null}.
+         * @throws InvalidJsonPatchException if the pointer is invalid.
+         */
+        JsonPointer decode(JsonNode value) throws InvalidJsonPatchException {
+            if (value == null) {
+                return null;
+            }
+            if (value.isTextual()) {
+                return JsonPointer.parse(value.textValue());
+            }
+            if (!value.isArray() || value.size() != 2 || !value.get(0).canConvertToExactIntegral() || !value.get(1).isTextual()) {
+                throw new InvalidJsonPatchException("Invalid JSON Patch payload (invalid pointer " + value + ")");
+            }
+            int shared = value.get(0).intValue();
+            if (shared < 0 || shared > previous.size()) {
+                throw new InvalidJsonPatchException("Invalid JSON Patch payload (pointer " + value
+                        + " shares more tokens than the previous path " + previous + ")");
+            }
+            JsonPointer suffix = JsonPointer.parse(value.get(1).textValue());
+            if (shared == 0) {
+                return suffix;
+            }
+            List<JsonPointer.RefToken> tokens = new ArrayList<>(shared + suffix.size());
+            for (int i = 0; i < shared; i++) {
+                tokens.add(previous.get(i));
+            }
+            for (int i = 0; i < suffix.size(); i++) {
+                tokens.add(suffix.get(i));
+            }
+            return new JsonPointer(tokens);
+        }
+
+        /**
+         * Moves to the next operation, after the current one with the given path.
+         */
+        void advance(JsonPointer path) {
+            if (path != null) {
+                previous = path;
+            }
+        }
+    }
+}
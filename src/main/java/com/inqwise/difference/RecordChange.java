@@ -0,0 +1,161 @@
+package com.inqwise.difference;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Describes a record added, removed or changed between two NDJSON snapshots.
+ * Added and removed records carry the record itself; changed records carry the JSON Patch
+ * from the source record to the target record.
+ *
+ * @see NdjsonDiff
+ */
+public final class RecordChange {
+
+    /**
+     * The kinds of record changes.
+     */
+    public enum Type {
+        /** The record is only in the target. */
+        ADDED("added"),
+        /** The record is only in the source. */
+        REMOVED("removed"),
+        /** The record is in both, with different values. */
+        CHANGED("changed");
+
+        private final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the change, as written in its JSON form.
+         *
+         * @return the name of the change.
+         */
+        public String getName() {
+            return name;
+        }
+
+        static Type fromName(String name) {
+            for (Type type : values()) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown record change: " + name);
+        }
+    }
+
+    private static final String CHANGE = "change";
+    private static final String KEY = "key";
+    private static final String RECORD = "record";
+    private static final String PATCH = "patch";
+
+    private final Type type;
+    private final JsonNode key;
+    private final JsonNode record;
+    private final JsonNode patch;
+
+    /**
+     * Creates a record change.
+     *
+     * @param type   the kind of change.
+     * @param key    the key of the record.
+     * @param record the added or removed record, or {@code null} for a changed record.
+     * @param patch  the patch of a changed record, or {@code null} for an added or removed record.
+     */
+    RecordChange(Type type, JsonNode key, JsonNode record, JsonNode patch) {
+        this.type = type;
+        this.key = key;
+        this.record = record;
+        this.patch = patch;
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return the kind of change.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the key of the record.
+     *
+     * @return the key of the record.
+     */
+    public JsonNode getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the added or removed record.
+     *
+     * @return the record, or {@code null} for a changed record.
+     */
+    public JsonNode getRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the JSON Patch from the source record to the target record.
+     *
+     * @return the patch, or {@code null} for an added or removed record.
+     */
+    public JsonNode getPatch() {
+        return patch;
+    }
+
+    /**
+     * Returns the change as a JSON object: its {@code change} name, the {@code key} of the record,
+     * and the {@code record} or the {@code patch}.
+     *
+     * @return the JSON form of the change.
+     */
+    public ObjectNode toJson() {
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        json.put(CHANGE, type.getName());
+        json.set(KEY, key);
+        if (record != null) {
+            json.set(RECORD, record);
+        }
+        if (patch != null) {
+            json.set(PATCH, patch);
+        }
+        return json;
+    }
+
+    /**
+     * Reads a change from its JSON form.
+     *
+     * @param json the JSON form of the change.
+     * @return the change.
+     */
+    static RecordChange fromJson(JsonNode json) {
+        return new RecordChange(Type.fromName(json.path(CHANGE).asText()), json.get(KEY), json.get(RECORD), json.get(PATCH));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecordChange that = (RecordChange) o;
+        return type == that.type && key.equals(that.key) && Objects.equals(record, that.record) && Objects.equals(patch, that.patch);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, key, record, patch);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordChange [type=" + type + ", key=" + key + ", record=" + record + ", patch=" + patch + "]";
+    }
+}
@@ -0,0 +1,423 @@
+package com.inqwise.difference;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Silent fields compiled into a path automaton, consulted while descending into the compared values
+ * instead of removing the fields from them beforehand.
+ *
+ * <p>Silent fields are dot-separated paths, where {@code **} matches any number of levels. Each instance
+ * is a state of the automaton, positioned at a value: {@link #isSilent(String)} tells whether a field of
+ * the value is skipped, and {@link #child(String)} and {@link #element()} move to the state of a field or
+ * of an array element. Transitions are computed on first use and cached, and equal states are shared, so
+ * that walking a document costs a map lookup per level regardless of the number of silent fields.
+ * The result is the same as removing every silent field from both values with
+ * {@link Differences#removeField}.
+ */
+final class SilentFields {
+
+    /** The state without silent fields. */
+    static final SilentFields NONE = new SilentFields(Set.of(), new ConcurrentHashMap<>());
+
+    private static final LoadingCache<List<String>, SilentFields> compiled = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build(CacheLoader.from(SilentFields::build));
+
+    /** The patterns positioned at this state. */
+    private final Set<Pattern> patterns;
+
+    /** The states of the automaton, shared by all its states. */
+    private final Map<Set<Pattern>, SilentFields> states;
+
+    /** The fields skipped at this state. */
+    private final Set<String> names;
+
+    /** The fields advancing at least one pattern. */
+    private final Set<String> tokens;
+
+    private final Map<String, SilentFields> transitions = new ConcurrentHashMap<>();
+    private volatile SilentFields element;
+    private volatile TokenFilter tokenFilter;
+
+    private SilentFields(Set<Pattern> patterns, Map<Set<Pattern>, SilentFields> states) {
+        this.patterns = patterns;
+        this.states = states;
+        Set<String> names = new LinkedHashSet<>();
+        Set<String> tokens = new LinkedHashSet<>();
+        for (Pattern pattern : patterns) {
+            tokens.add(pattern.token());
+            if (pattern.isLast()) {
+                names.add(pattern.token());
+            }
+        }
+        this.names = Set.copyOf(names);
+        this.tokens = Set.copyOf(tokens);
+    }
+
+    /**
+     * Compiles silent fields into the state of the automaton positioned at the document root.
+     * Compiled automata are cached by their fields.
+     *
+     * @param fields the silent fields, or {@code null}.
+     * @return the root state.
+     */
+    static SilentFields compile(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return NONE;
+        }
+        return compiled.getUnchecked(List.copyOf(fields));
+    }
+
+    private static SilentFields build(List<String> fields) {
+        Set<Pattern> patterns = new LinkedHashSet<>();
+        for (String field : fields) {
+            Pattern.of(field.split("\\."), 0, false, patterns);
+        }
+        return state(patterns, new ConcurrentHashMap<>());
+    }
+
+    private static SilentFields state(Set<Pattern> patterns, Map<Set<Pattern>, SilentFields> states) {
+        if (patterns.isEmpty()) {
+            return NONE;
+        }
+        return states.computeIfAbsent(Set.copyOf(patterns), key -> new SilentFields(key, states));
+    }
+
+    /**
+     * Returns whether no field is silent at this state or below.
+     *
+     * @return {@code true} for the empty state.
+     */
+    boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * Returns whether a field of the value at this state is silent.
+     *
+     * @param name the field name.
+     * @return {@code true} if the field is skipped.
+     */
+    boolean isSilent(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * Returns the state of a field of the value at this state.
+     *
+     * @param name the field name.
+     * @return the state of the field value.
+     */
+    SilentFields child(String name) {
+        if (patterns.isEmpty()) {
+            return this;
+        }
+        if (!tokens.contains(name)) {
+            return element();
+        }
+        return transitions.computeIfAbsent(name, this::advance);
+    }
+
+    /**
+     * Returns the state of the elements of an array at this state, which only keeps the patterns
+     * following a {@code **}. Fields matching no pattern token move to the same state.
+     *
+     * @return the state of the elements.
+     */
+    SilentFields element() {
+        SilentFields state = element;
+        if (state == null) {
+            Set<Pattern> wildcards = new LinkedHashSet<>();
+            for (Pattern pattern : patterns) {
+                if (pattern.wildcard) {
+                    wildcards.add(pattern);
+                }
+            }
+            element = state = state(wildcards, states);
+        }
+        return state;
+    }
+
+    private SilentFields advance(String name) {
+        Set<Pattern> next = new LinkedHashSet<>();
+        for (Pattern pattern : patterns) {
+            if (pattern.token().equals(name)) {
+                Pattern.of(pattern.tokens, pattern.index + 1, pattern.wildcard, next);
+            } else if (pattern.wildcard) {
+                next.add(pattern);
+            }
+        }
+        return state(next, states);
+    }
+
+    /**
+     * Returns a node without its silent fields. The node itself is returned when none of its fields can
+     * be silent; otherwise the containers holding silent fields are copied.
+     *
+     * @param node the node at this state.
+     * @return the node without silent fields.
+     */
+    JsonNode filter(JsonNode node) {
+        if (patterns.isEmpty() || !node.isContainerNode()) {
+            return node;
+        }
+        if (node.isArray()) {
+            SilentFields elementState = element();
+            if (elementState.isEmpty()) {
+                return node;
+            }
+            ArrayNode copy = ((ArrayNode) node).arrayNode(node.size());
+            for (JsonNode element : node) {
+                copy.add(elementState.filter(element));
+            }
+            return copy;
+        }
+        ObjectNode copy = ((ObjectNode) node).objectNode();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            if (!isSilent(field.getKey())) {
+                copy.set(field.getKey(), child(field.getKey()).filter(field.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a token filter leaving out the silent fields of a document written at this state, so that
+     * they are never materialized. As silent fields only apply to objects at the root, other documents
+     * are written whole.
+     *
+     * @return the filter of the document.
+     */
+    TokenFilter documentFilter() {
+        return patterns.isEmpty() ? TokenFilter.INCLUDE_ALL : new Filter(this, true);
+    }
+
+    private TokenFilter tokenFilter() {
+        if (patterns.isEmpty()) {
+            return TokenFilter.INCLUDE_ALL;
+        }
+        TokenFilter filter = tokenFilter;
+        if (filter == null) {
+            tokenFilter = filter = new Filter(this, false);
+        }
+        return filter;
+    }
+
+    /**
+     * Returns whether two nodes are equal once their silent fields are removed, comparing numbers by value
+     * as {@link JsonNodeComparator} does.
+     *
+     * @param a the first node.
+     * @param b the second node.
+     * @return {@code true} if the nodes are equivalent.
+     */
+    boolean equivalent(JsonNode a, JsonNode b) {
+        return equal(a, b, true);
+    }
+
+    /**
+     * Returns whether two nodes are equal once their silent fields are removed, as {@link JsonNode#equals(Object)}.
+     *
+     * @param a the first node.
+     * @param b the second node.
+     * @return {@code true} if the nodes are equal.
+     */
+    boolean equal(JsonNode a, JsonNode b) {
+        return equal(a, b, false);
+    }
+
+    private boolean equal(JsonNode a, JsonNode b, boolean numeric) {
+        if (patterns.isEmpty()) {
+            return numeric ? a.equals(JsonNodeComparator.getInstance(), b) : a.equals(b);
+        }
+        if (a.isObject()) {
+            if (!b.isObject()) {
+                return false;
+            }
+            int size = 0;
+            for (Map.Entry<String, JsonNode> field : a.properties()) {
+                if (isSilent(field.getKey())) {
+                    continue;
+                }
+                size++;
+                JsonNode other = b.get(field.getKey());
+                if (other == null || !child(field.getKey()).equal(field.getValue(), other, numeric)) {
+                    return false;
+                }
+            }
+            Iterator<String> names = b.fieldNames();
+            while (names.hasNext()) {
+                if (!isSilent(names.next())) {
+                    size--;
+                }
+            }
+            return size == 0;
+        }
+        if (a.isArray()) {
+            if (!b.isArray() || a.size() != b.size()) {
+                return false;
+            }
+            SilentFields elementState = element();
+            for (int i = 0; i < a.size(); i++) {
+                if (!elementState.equal(a.get(i), b.get(i), numeric)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return numeric ? a.equals(JsonNodeComparator.getInstance(), b) : a.equals(b);
+    }
+
+    /**
+     * Returns the hash code of a node once its silent fields are removed, consistent with {@link #equal(JsonNode, JsonNode)}.
+     *
+     * @param node the node.
+     * @return the hash code.
+     */
+    int hash(JsonNode node) {
+        if (patterns.isEmpty() || !node.isContainerNode()) {
+            return node.hashCode();
+        }
+        if (node.isArray()) {
+            SilentFields elementState = element();
+            int hash = 1;
+            for (JsonNode element : node) {
+                hash = 31 * hash + elementState.hash(element);
+            }
+            return hash;
+        }
+        int hash = 0;
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            if (!isSilent(field.getKey())) {
+                hash += field.getKey().hashCode() ^ child(field.getKey()).hash(field.getValue());
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SilentFields other && patterns.equals(other.patterns);
+    }
+
+    @Override
+    public int hashCode() {
+        return patterns.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return patterns.toString();
+    }
+
+    /**
+     * Filters the tokens of a value at a state, dropping silent properties and moving to the state of
+     * each property and element. Objects and arrays left empty are kept.
+     */
+    private static final class Filter extends TokenFilter {
+        private final SilentFields state;
+        private final boolean root;
+
+        Filter(SilentFields state, boolean root) {
+            this.state = state;
+            this.root = root;
+        }
+
+        @Override
+        public TokenFilter filterStartArray() {
+            return root ? TokenFilter.INCLUDE_ALL : this;
+        }
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            return state.isSilent(name) ? null : state.child(name).tokenFilter();
+        }
+
+        @Override
+        public TokenFilter includeElement(int index) {
+            return state.element().tokenFilter();
+        }
+
+        @Override
+        public boolean includeEmptyObject(boolean contentsFiltered) {
+            return true;
+        }
+
+        @Override
+        public boolean includeEmptyArray(boolean contentsFiltered) {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "SilentFields.Filter" + state;
+        }
+    }
+
+    /**
+     * A silent field pattern, positioned at the token matched against the current level.
+     */
+    private static final class Pattern {
+        final String[] tokens;
+        final int index;
+        final boolean wildcard;
+
+        private Pattern(String[] tokens, int index, boolean wildcard) {
+            this.tokens = tokens;
+            this.index = index;
+            this.wildcard = wildcard;
+        }
+
+        /**
+         * Adds the pattern positioned at {@code index}, skipping "**" tokens which enable wildcard matching.
+         */
+        static void of(String[] tokens, int index, boolean wildcard, Set<Pattern> target) {
+            while (index < tokens.length && "**".equals(tokens[index])) {
+                index++;
+                wildcard = true;
+            }
+            if (index < tokens.length) {
+                target.add(new Pattern(tokens, index, wildcard));
+            }
+        }
+
+        String token() {
+            return tokens[index];
+        }
+
+        boolean isLast() {
+            return index == tokens.length - 1;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Pattern other && index == other.index && wildcard == other.wildcard
+                    && Arrays.equals(tokens, other.tokens);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(tokens) * 31 + index) * 31 + Boolean.hashCode(wildcard);
+        }
+
+        @Override
+        public String toString() {
+            return (wildcard ? "**." : "") + String.join(".", Arrays.copyOfRange(tokens, index, tokens.length));
+        }
+    }
+}
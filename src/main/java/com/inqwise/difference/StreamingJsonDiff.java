@@ -0,0 +1,301 @@
+package com.inqwise.difference;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Generates a JSON Patch (RFC 6902) between two JSON documents read from parsers, without loading either
+ * document into memory. Both parsers are read in lockstep and the operations are passed on as they are found.
+ *
+ * <p>Objects are compared member by member: members appearing in the same order in both documents are compared
+ * while they are read, and members whose names differ are held until their counterpart is found or the object
+ * ends. Arrays are aligned through a bounded look-ahead window: elements are read into trees, at most a window
+ * of them ahead on each side, and an element missing from the window of the other side is treated as added or
+ * removed. Memory is thus proportional to the depth of the documents and the size of the window, plus any
+ * members out of order; an insertion or removal of more consecutive elements than the window is reported as
+ * changed elements rather than aligned.
+ *
+ * <p>Values that are not compared while streaming, such as array elements and composite objects, are compared
+ * as {@link JsonDiff} does with the same flags. Move and copy operations are never generated, since they need
+ * both documents as a whole.
+ */
+public final class StreamingJsonDiff {
+
+    /** The default number of array elements read ahead on each side to align them. */
+    public static final int DEFAULT_WINDOW = 64;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Receives the operations of a streaming diff, in the order of the patch.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Accepts the next operation of the patch.
+         *
+         * @param operation the JSON Patch operation.
+         * @throws IOException if the operation cannot be handled.
+         */
+        void accept(JsonNode operation) throws IOException;
+    }
+
+    /**
+     * Receives the differences before they are rendered.
+     */
+    @FunctionalInterface
+    private interface Emitter {
+        void emit(Diff diff) throws IOException;
+    }
+
+    private final JsonDiff jsonDiff;
+    private final JsonParser source;
+    private final JsonParser target;
+    private final int window;
+    private final Emitter emitter;
+    /** Whether removed and replaced values are part of the patch, rather than skipped. */
+    private final boolean sourceValues;
+
+    private StreamingJsonDiff(JsonDiff jsonDiff, JsonParser source, JsonParser target, int window, Emitter emitter) {
+        this.jsonDiff = jsonDiff;
+        this.source = source;
+        this.target = target;
+        this.window = window;
+        this.emitter = emitter;
+        this.sourceValues = jsonDiff.hasFlag(DiffFlags.EMIT_TEST_OPERATIONS) || jsonDiff.hasFlag(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+    }
+
+    /**
+     * Writes the JSON Patch between two documents to a generator, as a JSON array.
+     *
+     * @param source    the parser to read the source document from.
+     * @param target    the parser to read the target document from.
+     * @param generator the generator to write the patch to; it is neither flushed nor closed.
+     * @throws IOException if reading or writing fails.
+     * @see #compare(JsonParser, JsonParser, EnumSet, Collection, JsonGenerator)
+     */
+    public static void compare(JsonParser source, JsonParser target, JsonGenerator generator) throws IOException {
+        compare(source, target, DiffFlags.defaults(), List.of(), generator);
+    }
+
+    /**
+     * Writes the JSON Patch between two documents to a generator, as a JSON array, using the specified diff
+     * flags and composite objects.
+     *
+     * @param source           the parser to read the source document from; it is read up to the end of the first value.
+     * @param target           the parser to read the target document from; it is read up to the end of the first value.
+     * @param flags            the set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects a collection of strings representing composite object paths.
+     * @param generator        the generator to write the patch to; it is neither flushed nor closed.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void compare(JsonParser source, JsonParser target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects, JsonGenerator generator) throws IOException {
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(flags);
+        generator.writeStartArray();
+        run(source, target, flags, compositeObjects, DEFAULT_WINDOW,
+                diff -> Diffs.writeOperation(generator, diff, flags, pointers));
+        generator.writeEndArray();
+    }
+
+    /**
+     * Passes the operations of the JSON Patch between two documents to a sink as they are found, using the
+     * specified diff flags, composite objects and array look-ahead window.
+     *
+     * @param source           the parser to read the source document from; it is read up to the end of the first value.
+     * @param target           the parser to read the target document from; it is read up to the end of the first value.
+     * @param flags            the set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects a collection of strings representing composite object paths.
+     * @param window           the number of array elements read ahead on each side to align them.
+     * @param sink             the sink receiving the operations.
+     * @throws IOException if reading fails, or the sink fails.
+     */
+    public static void compare(JsonParser source, JsonParser target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects, int window, Sink sink) throws IOException {
+        PointerCoding.Encoder pointers = new PointerCoding.Encoder(flags);
+        run(source, target, flags, compositeObjects, window,
+                diff -> sink.accept(Diffs.getJsonNode(JsonNodeFactory.instance, diff, flags, pointers)));
+    }
+
+    private static void run(JsonParser source, JsonParser target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects, int window, Emitter emitter) throws IOException {
+        if (window < 1) {
+            throw new IllegalArgumentException("The look-ahead window must hold at least one element: " + window);
+        }
+        if ((source.currentToken() == null && source.nextToken() == null)
+                || (target.currentToken() == null && target.nextToken() == null)) {
+            throw new IllegalArgumentException("Both documents must have a value");
+        }
+        new StreamingJsonDiff(JsonDiff.create(flags, compositeObjects), source, target, window, emitter).compare(JsonPointer.ROOT);
+    }
+
+    /**
+     * Compares the values at the current tokens of both parsers, leaving the parsers at the last token of the values.
+     */
+    private void compare(JsonPointer path) throws IOException {
+        JsonToken sourceToken = source.currentToken();
+        JsonToken targetToken = target.currentToken();
+        boolean arrays = sourceToken == JsonToken.START_ARRAY && targetToken == JsonToken.START_ARRAY;
+        boolean objects = sourceToken == JsonToken.START_OBJECT && targetToken == JsonToken.START_OBJECT;
+        if (arrays && !jsonDiff.isComposite(path, true)) {
+            compareArrays(path);
+        } else if (objects && !jsonDiff.isComposite(path, false)) {
+            compareObjects(path);
+        } else if (!arrays && !objects && sourceToken.isStructStart() && !sourceValues) {
+            // A container replaced by a value of another type: only the new value is part of the patch
+            source.skipChildren();
+            emitter.emit(Diff.generateDiff(Operation.REPLACE, path, read(target)));
+        } else {
+            emit(jsonDiff.generateDiffs(path, read(source), read(target)));
+        }
+    }
+
+    private void compareObjects(JsonPointer path) throws IOException {
+        // Members whose counterpart in the other document has not been read yet
+        Map<String, JsonNode> sourcePending = new LinkedHashMap<>();
+        Map<String, JsonNode> targetPending = new LinkedHashMap<>();
+        JsonToken sourceToken = source.nextToken();
+        JsonToken targetToken = target.nextToken();
+        while (sourceToken == JsonToken.FIELD_NAME || targetToken == JsonToken.FIELD_NAME) {
+            if (sourceToken == JsonToken.FIELD_NAME && targetToken == JsonToken.FIELD_NAME
+                    && source.currentName().equals(target.currentName())) {
+                String name = source.currentName();
+                source.nextToken();
+                target.nextToken();
+                compare(path.append(name));
+                sourceToken = source.nextToken();
+                targetToken = target.nextToken();
+                continue;
+            }
+            if (sourceToken == JsonToken.FIELD_NAME) {
+                String name = source.currentName();
+                source.nextToken();
+                JsonNode value = read(source);
+                JsonNode other = targetPending.remove(name);
+                if (other == null) {
+                    sourcePending.put(name, value);
+                } else {
+                    emit(jsonDiff.generateDiffs(path.append(name), value, other));
+                }
+                sourceToken = source.nextToken();
+            }
+            if (targetToken == JsonToken.FIELD_NAME) {
+                String name = target.currentName();
+                target.nextToken();
+                JsonNode value = read(target);
+                JsonNode other = sourcePending.remove(name);
+                if (other == null) {
+                    targetPending.put(name, value);
+                } else {
+                    emit(jsonDiff.generateDiffs(path.append(name), other, value));
+                }
+                targetToken = target.nextToken();
+            }
+        }
+        for (Map.Entry<String, JsonNode> member : sourcePending.entrySet()) {
+            remove(path.append(member.getKey()), member.getValue());
+        }
+        for (Map.Entry<String, JsonNode> member : targetPending.entrySet()) {
+            emitter.emit(Diff.generateDiff(Operation.ADD, path.append(member.getKey()), member.getValue()));
+        }
+    }
+
+    private void compareArrays(JsonPointer path) throws IOException {
+        ArrayDeque<JsonNode> sources = new ArrayDeque<>();
+        ArrayDeque<JsonNode> targets = new ArrayDeque<>();
+        boolean sourceOpen = true;
+        boolean targetOpen = true;
+        int pos = 0;
+        while (true) {
+            sourceOpen = sourceOpen && fill(source, sources);
+            targetOpen = targetOpen && fill(target, targets);
+            if (sources.isEmpty() && targets.isEmpty()) {
+                return;
+            }
+            if (sources.isEmpty()) {
+                emitter.emit(Diff.generateDiff(Operation.ADD, path.append(pos++), targets.poll()));
+                continue;
+            }
+            if (targets.isEmpty()) {
+                remove(path.append(pos), sources.poll());
+                continue;
+            }
+            if (SilentFields.NONE.equivalent(sources.peek(), targets.peek())) {
+                sources.poll();
+                targets.poll();
+                pos++;
+                continue;
+            }
+            // Align on whichever of the two next elements comes back sooner on the other side
+            int added = indexOf(targets, sources.peek());
+            int removed = indexOf(sources, targets.peek());
+            if (added > 0 && (removed < 0 || added <= removed)) {
+                for (int i = 0; i < added; i++) {
+                    emitter.emit(Diff.generateDiff(Operation.ADD, path.append(pos++), targets.poll()));
+                }
+            } else if (removed > 0) {
+                for (int i = 0; i < removed; i++) {
+                    remove(path.append(pos), sources.poll());
+                }
+            } else {
+                emit(jsonDiff.generateDiffs(path.append(pos++), sources.poll(), targets.poll()));
+            }
+        }
+    }
+
+    /**
+     * Reads array elements until the window is full.
+     *
+     * @return {@code false} if the end of the array was reached.
+     */
+    private boolean fill(JsonParser parser, ArrayDeque<JsonNode> elements) throws IOException {
+        while (elements.size() < window) {
+            if (parser.nextToken() == JsonToken.END_ARRAY) {
+                return false;
+            }
+            elements.add(read(parser));
+        }
+        return true;
+    }
+
+    private static int indexOf(ArrayDeque<JsonNode> elements, JsonNode value) {
+        int index = 0;
+        for (JsonNode element : elements) {
+            if (SilentFields.NONE.equivalent(element, value)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private void remove(JsonPointer path, JsonNode value) throws IOException {
+        if (jsonDiff.hasFlag(DiffFlags.EMIT_TEST_OPERATIONS)) {
+            emitter.emit(new Diff(Operation.TEST, path, value));
+        }
+        emitter.emit(Diff.generateDiff(Operation.REMOVE, path, value));
+    }
+
+    private void emit(List<Diff> diffs) throws IOException {
+        for (Diff diff : diffs) {
+            emitter.emit(diff);
+        }
+    }
+
+    private static JsonNode read(JsonParser parser) throws IOException {
+        return mapper.readTree(parser);
+    }
+}
@@ -0,0 +1,315 @@
+package com.inqwise.difference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Character-level deltas of string values, carried by "text" operations (see {@link DiffFlags#EMIT_TEXT_OPERATIONS}).
+ *
+ * <p>A delta is a JSON array of edits applied from the start of the string: a positive integer keeps that
+ * many characters, a negative integer deletes that many characters and a string inserts its text. Lengths
+ * are counted in UTF-16 code units, and the edits must span the whole string they are applied to. For example,
+ * {@code [4, -5, "quick", 10]} turns {@code "The brown fox jumps"} into {@code "The quick fox jumps"}.
+ *
+ * <p>Deltas are computed with Myers' algorithm on the part of the strings between their common prefix and
+ * suffix; short runs of kept characters between edits are merged into the edits around them.
+ */
+final class TextDiff {
+
+    /** The length from which a changed string is diffed, rather than replaced. */
+    static final int MIN_LENGTH = 1024;
+    /** The number of edits from which the changed part of the strings is replaced as a whole. */
+    private static final int MAX_EDITS = 1000;
+    /** The length under which kept characters between two edits are merged into them. */
+    private static final int MIN_KEPT = 8;
+    /** The approximate size of an edit in a delta, besides its inserted text. */
+    private static final int EDIT_SIZE = 6;
+
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    private TextDiff() {
+    }
+
+    /**
+     * The deltas between two strings, in both directions.
+     */
+    static final class Delta {
+        /** The delta from the source to the target string. */
+        final ArrayNode forward;
+        /** The delta from the target back to the source string. */
+        final ArrayNode inverse;
+
+        private Delta(ArrayNode forward, ArrayNode inverse) {
+            this.forward = forward;
+            this.inverse = inverse;
+        }
+    }
+
+    /**
+     * Computes the deltas between two strings, if one of them is long enough and the delta is smaller than the target.
+     *
+     * @param source the source string.
+     * @param target the target string.
+     * @return the deltas, or {@code null} if the target should replace the source.
+     */
+    static Delta diff(String source, String target) {
+        if (Math.max(source.length(), target.length()) < MIN_LENGTH) {
+            return null;
+        }
+        int prefix = 0;
+        int max = Math.min(source.length(), target.length());
+        while (prefix < max && source.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        max -= prefix;
+        while (suffix < max && source.charAt(source.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Surrogate pairs are never split, so that inserted text is always valid
+        if (prefix > 0 && Character.isHighSurrogate(source.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(source.charAt(source.length() - suffix))) {
+            suffix--;
+        }
+
+        Builder builder = new Builder(source, target);
+        builder.keep(prefix);
+        int[] a = source.substring(prefix, source.length() - suffix).codePoints().toArray();
+        int[] b = target.substring(prefix, target.length() - suffix).codePoints().toArray();
+        byte[] script = edits(a, b);
+        if (script == null) {
+            builder.delete(source.length() - suffix - prefix);
+            builder.insert(target.length() - suffix - prefix);
+        } else {
+            int i = 0;
+            int j = 0;
+            for (byte edit : script) {
+                switch (edit) {
+                    case KEEP:
+                        builder.keep(Character.charCount(a[i++]));
+                        j++;
+                        break;
+                    case DELETE:
+                        builder.delete(Character.charCount(a[i++]));
+                        break;
+                    default:
+                        builder.insert(Character.charCount(b[j++]));
+                        break;
+                }
+            }
+        }
+        builder.keep(suffix);
+        Delta delta = builder.build();
+        return builder.size < target.length() ? delta : null;
+    }
+
+    /**
+     * Applies a delta to a string.
+     *
+     * @param text  the string.
+     * @param delta the delta.
+     * @return the edited string.
+     * @throws IllegalArgumentException if the delta does not span the string.
+     */
+    static String apply(String text, JsonNode delta) {
+        StringBuilder result = new StringBuilder(text.length());
+        int position = 0;
+        for (JsonNode edit : delta) {
+            if (edit.isTextual()) {
+                result.append(edit.textValue());
+                continue;
+            }
+            int length = edit.intValue();
+            int end = position + Math.abs(length);
+            if (end > text.length()) {
+                throw new IllegalArgumentException("Delta spans " + end + " characters of a " + text.length() + " character string");
+            }
+            if (length > 0) {
+                result.append(text, position, end);
+            }
+            position = end;
+        }
+        if (position != text.length()) {
+            throw new IllegalArgumentException("Delta spans " + position + " characters of a " + text.length() + " character string");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Validates the form of a delta.
+     *
+     * @param delta the delta.
+     * @throws InvalidJsonPatchException if the delta is not an array of integers and strings.
+     */
+    static void validate(JsonNode delta) throws InvalidJsonPatchException {
+        if (!delta.isArray()) {
+            throw new InvalidJsonPatchException("Invalid JSON Patch payload (text delta is not an array)");
+        }
+        for (JsonNode edit : delta) {
+            if (!edit.isTextual() && !(edit.isIntegralNumber() && edit.canConvertToInt() && edit.intValue() != Integer.MIN_VALUE)) {
+                throw new InvalidJsonPatchException("Invalid JSON Patch payload (invalid text delta edit " + edit + ")");
+            }
+        }
+    }
+
+    private static final byte KEEP = 0;
+    private static final byte DELETE = 1;
+    private static final byte INSERT = 2;
+
+    /**
+     * Computes the shortest edit script between two sequences of code points with Myers' algorithm.
+     *
+     * @return the edits in order, or {@code null} if there are more than {@link #MAX_EDITS}.
+     */
+    private static byte[] edits(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int max = Math.min(n + m, MAX_EDITS);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // The furthest reaching x of each diagonal before each round, over the diagonals that round can use
+        List<int[]> trace = new ArrayList<>();
+        int found = -1;
+        for (int d = 0; d <= max && found < 0; d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]) ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+
+        byte[] script = new byte[n + m - (n + m - found) / 2];
+        int i = script.length;
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            int prevK = k == -d || (k != d && previous[k - 1 + d] < previous[k + 1 + d]) ? k + 1 : k - 1;
+            int prevX = previous[prevK + d];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                script[--i] = KEEP;
+                x--;
+                y--;
+            }
+            script[--i] = x == prevX ? INSERT : DELETE;
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0) {
+            script[--i] = KEEP;
+            x--;
+        }
+        return script;
+    }
+
+    /**
+     * Builds both deltas from runs of edits, merging short runs of kept characters into the edits around them.
+     */
+    private static final class Builder {
+        private final String source;
+        private final String target;
+        private final ArrayNode forward = factory.arrayNode();
+        private final ArrayNode inverse = factory.arrayNode();
+        private int sourcePosition;
+        private int targetPosition;
+        /** The pending kept, deleted and inserted characters. */
+        private int kept;
+        private int deleted;
+        private int inserted;
+        /** The approximate size of the forward delta. */
+        private int size;
+
+        Builder(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        void keep(int length) {
+            kept += length;
+        }
+
+        void delete(int length) {
+            absorb();
+            deleted += length;
+        }
+
+        void insert(int length) {
+            absorb();
+            inserted += length;
+        }
+
+        /**
+         * Ends the pending run of kept characters, merging it into the pending edit if it is short.
+         */
+        private void absorb() {
+            if (kept == 0) {
+                return;
+            }
+            if (deleted + inserted > 0 && kept < MIN_KEPT) {
+                deleted += kept;
+                inserted += kept;
+            } else {
+                flushEdit();
+                forward.add(kept);
+                inverse.add(kept);
+                size += EDIT_SIZE;
+                sourcePosition += kept;
+                targetPosition += kept;
+            }
+            kept = 0;
+        }
+
+        /**
+         * Writes the pending edit; the inverse deletes what it inserts and inserts what it deletes.
+         */
+        private void flushEdit() {
+            if (deleted > 0) {
+                forward.add(-deleted);
+                size += EDIT_SIZE;
+            }
+            if (inserted > 0) {
+                forward.add(target.substring(targetPosition, targetPosition + inserted));
+                inverse.add(-inserted);
+                size += EDIT_SIZE + inserted;
+            }
+            if (deleted > 0) {
+                inverse.add(source.substring(sourcePosition, sourcePosition + deleted));
+            }
+            sourcePosition += deleted;
+            targetPosition += inserted;
+            deleted = 0;
+            inserted = 0;
+        }
+
+        Delta build() {
+            flushEdit();
+            if (kept > 0) {
+                forward.add(kept);
+                inverse.add(kept);
+            }
+            return new Delta(forward, inverse);
+        }
+    }
+}
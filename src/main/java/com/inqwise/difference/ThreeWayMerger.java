@@ -0,0 +1,384 @@
+package com.inqwise.difference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Merges two edited versions of a JSON document against their common base in a single walk
+ * over the three trees.
+ *
+ * <p>At every node the versions are compared through subtree hashes, computed once per node and
+ * cached by identity, so untouched regions are recognized without a deep comparison:
+ * <ul>
+ *   <li>if both sides agree, or only one side changed the node, that side is taken and the patch
+ *   for the node is generated from the base and the chosen value;</li>
+ *   <li>if both sides changed an object, its members are merged one by one;</li>
+ *   <li>if both sides changed an array, its elements are aligned on the elements kept by both sides
+ *   (longest common subsequence of each side with the base) and the runs in between are merged;</li>
+ *   <li>anything else is a conflict: the base value is kept and a {@link MergeConflict} is recorded.</li>
+ * </ul>
+ */
+final class ThreeWayMerger {
+
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    private final JsonDiff jsonDiff;
+    private final JsonNode base;
+    private final JsonNode ours;
+    private final JsonNode theirs;
+    private final Map<JsonNode, Integer> hashes = new IdentityHashMap<>();
+    private final List<Diff> diffs = new ArrayList<>();
+    private final List<MergeConflict> conflicts = new ArrayList<>();
+
+    /**
+     * Creates a merger for the given versions.
+     *
+     * @param jsonDiff the diff configuration used to generate the patch.
+     * @param base     the common ancestor.
+     * @param ours     the first edited version.
+     * @param theirs   the second edited version.
+     */
+    ThreeWayMerger(JsonDiff jsonDiff, JsonNode base, JsonNode ours, JsonNode theirs) {
+        this.jsonDiff = jsonDiff;
+        this.base = base;
+        this.ours = ours;
+        this.theirs = theirs;
+    }
+
+    /**
+     * Runs the merge.
+     *
+     * @return the merged document, the patch from the base to it and the conflicts.
+     */
+    MergeResult merge() {
+        JsonNode merged = merge(JsonPointer.ROOT, base, ours, theirs).deepCopy();
+        return new MergeResult(merged, jsonDiff.toDiffs(base, merged, diffs), conflicts);
+    }
+
+    /**
+     * Merges a single node, appending the patch for it.
+     *
+     * @param path   the path of the node.
+     * @param b      the base value, or {@code null} if absent.
+     * @param o      our value, or {@code null} if absent.
+     * @param t      their value, or {@code null} if absent.
+     * @return the merged value, or {@code null} if the node is absent from the merged document.
+     */
+    private JsonNode merge(JsonPointer path, JsonNode b, JsonNode o, JsonNode t) {
+        if (same(o, t)) {
+            change(path, b, o);
+            return o;
+        }
+        if (same(b, o)) {
+            change(path, b, t);
+            return t;
+        }
+        if (same(b, t)) {
+            change(path, b, o);
+            return o;
+        }
+
+        if (b != null && o != null && t != null) {
+            NodeType type = NodeType.getNodeType(b);
+            if (type == NodeType.getNodeType(o) && type == NodeType.getNodeType(t)) {
+                if (type == NodeType.OBJECT && !jsonDiff.isComposite(path, false)) {
+                    return mergeObjects(path, b, o, t);
+                }
+                if (type == NodeType.ARRAY && !jsonDiff.isComposite(path, true)) {
+                    return mergeArrays(path, b, o, t);
+                }
+            }
+        }
+
+        conflicts.add(new MergeConflict(path, b, o, t));
+        return b;
+    }
+
+    /**
+     * Merges the members of three objects.
+     */
+    private JsonNode mergeObjects(JsonPointer path, JsonNode b, JsonNode o, JsonNode t) {
+        ObjectNode merged = FACTORY.objectNode();
+
+        Iterator<String> names = b.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            set(merged, name, merge(path.append(name), b.get(name), o.get(name), t.get(name)));
+        }
+        names = o.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!b.has(name)) {
+                set(merged, name, merge(path.append(name), null, o.get(name), t.get(name)));
+            }
+        }
+        names = t.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!b.has(name) && !o.has(name)) {
+                set(merged, name, merge(path.append(name), null, null, t.get(name)));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the elements of three arrays. Base elements kept by both sides split the arrays into
+     * runs, and each run is resolved on its own.
+     */
+    private JsonNode mergeArrays(JsonPointer path, JsonNode b, JsonNode o, JsonNode t) {
+        int[][] oursMatch = match(b, o);
+        int[][] theirsMatch = match(b, t);
+        int[] toOurs = oursMatch[0];
+        int[] toTheirs = theirsMatch[0];
+
+        ArrayNode merged = FACTORY.arrayNode();
+        int pos = 0;
+        int i = 0;
+        int oi = 0;
+        int ti = 0;
+        while (true) {
+            int next = i;
+            while (next < b.size() && (toOurs[next] < 0 || toTheirs[next] < 0)) {
+                next++;
+            }
+            int oEnd = next < b.size() ? toOurs[next] : o.size();
+            int tEnd = next < b.size() ? toTheirs[next] : t.size();
+
+            Run baseRun = new Run(b, i, next, null);
+            Run ourRun = new Run(o, oi, oEnd, oursMatch);
+            Run theirRun = new Run(t, ti, tEnd, theirsMatch);
+            if (sameRun(baseRun, ourRun)) {
+                pos = write(path, pos, merged, baseRun, theirRun);
+            } else if (sameRun(baseRun, theirRun) || sameRun(ourRun, theirRun)) {
+                pos = write(path, pos, merged, baseRun, ourRun);
+            } else if (ourRun.size() == baseRun.size() && theirRun.size() == baseRun.size()) {
+                for (int k = 0; k < baseRun.size(); k++) {
+                    merged.add(merge(path.append(pos++), b.get(i + k), o.get(oi + k), t.get(ti + k)));
+                }
+            } else {
+                conflicts.add(new MergeConflict(path.append(pos), baseRun.toArray(), ourRun.toArray(), theirRun.toArray()));
+                for (int k = i; k < next; k++) {
+                    merged.add(b.get(k));
+                    pos++;
+                }
+            }
+
+            if (next == b.size()) {
+                return merged;
+            }
+            merged.add(b.get(next));
+            pos++;
+            i = next + 1;
+            oi = oEnd + 1;
+            ti = tEnd + 1;
+        }
+    }
+
+    /**
+     * Replaces a run of base elements with the matching run of one side, appending the patch for it.
+     * Elements matched to the base are kept, unmatched pairs are diffed in place and the rest are
+     * added or removed.
+     *
+     * @return the position after the written run.
+     */
+    private int write(JsonPointer path, int pos, ArrayNode merged, Run baseRun, Run run) {
+        int[] toSide = run.match[0];
+        int[] fromSide = run.match[1];
+        int k = baseRun.start;
+        int j = run.start;
+        while (k < baseRun.end || j < run.end) {
+            if (k < baseRun.end && j < run.end && toSide[k] == j) {
+                merged.add(run.node.get(j++));
+                k++;
+                pos++;
+            } else if (j < run.end && fromSide[j] < 0 && k < baseRun.end && toSide[k] < 0) {
+                JsonNode value = run.node.get(j++);
+                diffs.addAll(jsonDiff.generateDiffs(path.append(pos++), baseRun.node.get(k++), value));
+                merged.add(value);
+            } else if (j < run.end && fromSide[j] < 0) {
+                JsonNode value = run.node.get(j++);
+                diffs.add(Diff.generateDiff(Operation.ADD, path.append(pos++), value.deepCopy()));
+                merged.add(value);
+            } else {
+                remove(path.append(pos), baseRun.node.get(k++));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Appends the patch turning the base value into the chosen value.
+     */
+    private void change(JsonPointer path, JsonNode b, JsonNode value) {
+        if (same(b, value)) {
+            return;
+        }
+        if (b == null) {
+            diffs.add(Diff.generateDiff(Operation.ADD, path, value));
+        } else if (value == null) {
+            remove(path, b);
+        } else {
+            diffs.addAll(jsonDiff.generateDiffs(path, b, value));
+        }
+    }
+
+    /**
+     * Appends the removal of a base value, preceded by a test if requested.
+     */
+    private void remove(JsonPointer path, JsonNode b) {
+        if (jsonDiff.hasFlag(DiffFlags.EMIT_TEST_OPERATIONS)) {
+            diffs.add(new Diff(Operation.TEST, path, b));
+        }
+        diffs.add(Diff.generateDiff(Operation.REMOVE, path, b));
+    }
+
+    private static void set(ObjectNode merged, String name, JsonNode value) {
+        if (value != null) {
+            merged.set(name, value);
+        }
+    }
+
+    /**
+     * Matches the elements of an array with the elements of the base array along their longest common
+     * subsequence. The common prefix and suffix are matched directly.
+     *
+     * @return the side index of each base element and the base index of each side element, {@code -1} if unmatched.
+     */
+    private int[][] match(JsonNode b, JsonNode side) {
+        int[] toSide = new int[b.size()];
+        int[] fromSide = new int[side.size()];
+        Arrays.fill(toSide, -1);
+        Arrays.fill(fromSide, -1);
+
+        int start = 0;
+        while (start < b.size() && start < side.size() && same(b.get(start), side.get(start))) {
+            toSide[start] = start;
+            fromSide[start] = start;
+            start++;
+        }
+        int bEnd = b.size();
+        int sideEnd = side.size();
+        while (bEnd > start && sideEnd > start && same(b.get(bEnd - 1), side.get(sideEnd - 1))) {
+            toSide[--bEnd] = --sideEnd;
+            fromSide[sideEnd] = bEnd;
+        }
+
+        int rows = bEnd - start;
+        int cols = sideEnd - start;
+        int[][] lengths = new int[rows + 1][cols + 1];
+        for (int r = rows - 1; r >= 0; r--) {
+            for (int c = cols - 1; c >= 0; c--) {
+                lengths[r][c] = same(b.get(start + r), side.get(start + c))
+                        ? lengths[r + 1][c + 1] + 1
+                        : Math.max(lengths[r + 1][c], lengths[r][c + 1]);
+            }
+        }
+        int r = 0;
+        int c = 0;
+        while (r < rows && c < cols) {
+            if (same(b.get(start + r), side.get(start + c))) {
+                toSide[start + r] = start + c;
+                fromSide[start + c] = start + r;
+                r++;
+                c++;
+            } else if (lengths[r + 1][c] >= lengths[r][c + 1]) {
+                r++;
+            } else {
+                c++;
+            }
+        }
+        return new int[][] { toSide, fromSide };
+    }
+
+    private boolean sameRun(Run a, Run b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int k = 0; k < a.size(); k++) {
+            if (!same(a.node.get(a.start + k), b.node.get(b.start + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two values, either of which may be absent, using their subtree hashes first.
+     */
+    private boolean same(JsonNode a, JsonNode b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a == b || (hash(a) == hash(b) && a.equals(JsonNodeComparator.getInstance(), b));
+    }
+
+    /**
+     * Returns the subtree hash of a node, consistent with {@link JsonNodeComparator}: numbers hash by
+     * value and object members are hashed independently of their order.
+     */
+    private int hash(JsonNode node) {
+        Integer cached = hashes.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        int hash;
+        if (node.isNumber()) {
+            hash = Double.hashCode(node.doubleValue());
+        } else if (node.isArray()) {
+            hash = 1;
+            for (JsonNode element : node) {
+                hash = 31 * hash + hash(element);
+            }
+        } else if (node.isObject()) {
+            hash = 0;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                hash += field.getKey().hashCode() ^ hash(field.getValue());
+            }
+        } else {
+            hash = node.hashCode();
+        }
+        hashes.put(node, hash);
+        return hash;
+    }
+
+    /**
+     * A run of consecutive elements of an array.
+     */
+    private static final class Run {
+        final JsonNode node;
+        final int start;
+        final int end;
+        final int[][] match;
+
+        Run(JsonNode node, int start, int end, int[][] match) {
+            this.node = node;
+            this.start = start;
+            this.end = end;
+            this.match = match;
+        }
+
+        int size() {
+            return end - start;
+        }
+
+        ArrayNode toArray() {
+            ArrayNode array = FACTORY.arrayNode(size());
+            for (int k = start; k < end; k++) {
+                array.add(node.get(k));
+            }
+            return array;
+        }
+    }
+}
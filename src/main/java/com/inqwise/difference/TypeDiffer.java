@@ -0,0 +1,27 @@
+package com.inqwise.difference;
+
+/**
+ * Computes the differences between two instances of a type without reflection. Implementations are generated
+ * by {@link DiffableProcessor} for {@link Diffable} types and discovered through {@link java.util.ServiceLoader}.
+ *
+ * @param <T> the compared type.
+ */
+public interface TypeDiffer<T> {
+
+    /**
+     * Returns the type compared by this differ.
+     *
+     * @return the compared type.
+     */
+    Class<T> type();
+
+    /**
+     * Collects the differences between two instances.
+     *
+     * @param path      the JSON Pointer of the instances.
+     * @param a         the first instance, not {@code null}.
+     * @param b         the second instance, not {@code null}.
+     * @param collector the collector receiving the differences.
+     */
+    void diff(String path, T a, T b, DiffCollector collector);
+}
@@ -0,0 +1,71 @@
+package com.inqwise.difference;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The registry of {@link TypeDiffer} implementations available through {@link ServiceLoader}, typically
+ * generated by {@link DiffableProcessor}. The providers are loaded once, on first use. Differs of types that
+ * Jackson does not write as plain beans, because of a mix-in, a custom serializer or a property inclusion
+ * configured at runtime, are not used.
+ */
+final class TypeDiffers {
+
+    private static final Map<Class<?>, TypeDiffer<?>> differs = load();
+
+    private TypeDiffers() {
+    }
+
+    private static Map<Class<?>, TypeDiffer<?>> load() {
+        Map<Class<?>, TypeDiffer<?>> differs = new HashMap<>();
+        var providers = ServiceLoader.load(TypeDiffer.class).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                TypeDiffer<?> differ = providers.next();
+                // A mix-in or a custom serializer changes what Jackson writes, so the type is compared through Jackson
+                if (Differences.isPlainBean(differ.type())) {
+                    differs.putIfAbsent(differ.type(), differ);
+                }
+            } catch (ServiceConfigurationError e) {
+                // A registration left by an earlier compilation whose differ no longer exists; the type is compared by reflection
+            }
+        }
+        return Map.copyOf(differs);
+    }
+
+    /**
+     * Returns the differ registered for the class of the given objects.
+     *
+     * @param obj1 the first object.
+     * @param obj2 the second object.
+     * @return the differ, or {@code null} if the objects are not of the same class or none is registered.
+     */
+    @SuppressWarnings("unchecked")
+    static TypeDiffer<Object> find(Object obj1, Object obj2) {
+        if (obj1 == null || obj2 == null || obj1.getClass() != obj2.getClass()) {
+            return null;
+        }
+        return (TypeDiffer<Object>) differs.get(obj1.getClass());
+    }
+
+    /**
+     * Computes the differences between two objects with the given differ.
+     *
+     * @param differ the differ of the objects' class.
+     * @param obj1   the first object.
+     * @param obj2   the second object.
+     * @return the {@code Differences} between the objects.
+     */
+    static Differences between(TypeDiffer<Object> differ, Object obj1, Object obj2) {
+        DiffCollector collector = new DiffCollector();
+        if (obj1 != obj2) {
+            differ.diff("", obj1, obj2, collector);
+        }
+        return collector.toDifferences();
+    }
+}
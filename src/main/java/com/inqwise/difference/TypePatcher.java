@@ -0,0 +1,29 @@
+package com.inqwise.difference;
+
+/**
+ * Applies JSON Patch operations to instances of a type without reflection. Implementations are generated by
+ * {@link DiffableProcessor} for {@link Diffable} types whose properties can all be written back, and discovered
+ * through {@link java.util.ServiceLoader}.
+ *
+ * @param <T> the patched type.
+ */
+public interface TypePatcher<T> {
+
+    /**
+     * Returns the type patched by this patcher.
+     *
+     * @return the patched type.
+     */
+    Class<T> type();
+
+    /**
+     * Applies an operation to a copy of an instance. The copy shares the properties the operation does not change
+     * with the instance.
+     *
+     * @param obj       the instance, not {@code null}, which is not modified.
+     * @param operation the operation, positioned at the token of {@code obj}'s property.
+     * @return the patched copy.
+     * @throws IllegalArgumentException if the operation cannot be applied to the instance directly.
+     */
+    T apply(T obj, PatchOperation operation);
+}
@@ -0,0 +1,82 @@
+package com.inqwise.difference;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The registry of {@link TypePatcher} implementations available through {@link ServiceLoader}, typically
+ * generated by {@link DiffableProcessor}. The providers are loaded once, on first use. Like {@link TypeDiffers},
+ * patchers of types that Jackson does not write as plain beans are not used.
+ */
+final class TypePatchers {
+
+    private static final Map<Class<?>, TypePatcher<?>> patchers = load();
+
+    private TypePatchers() {
+    }
+
+    private static Map<Class<?>, TypePatcher<?>> load() {
+        Map<Class<?>, TypePatcher<?>> patchers = new HashMap<>();
+        var providers = ServiceLoader.load(TypePatcher.class).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                TypePatcher<?> patcher = providers.next();
+                // A mix-in or a custom serializer changes the paths of the patch, so the type is patched through Jackson
+                if (Differences.isPlainBean(patcher.type())) {
+                    patchers.putIfAbsent(patcher.type(), patcher);
+                }
+            } catch (ServiceConfigurationError e) {
+                // A registration left by an earlier compilation whose patcher no longer exists; the type is patched through Jackson
+            }
+        }
+        return Map.copyOf(patchers);
+    }
+
+    /**
+     * Returns the patcher registered for the class of an object.
+     *
+     * @param <T> the type of the object.
+     * @param obj the object, not {@code null}.
+     * @return the patcher, or {@code null} if none is registered.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TypePatcher<T> find(T obj) {
+        return (TypePatcher<T>) patchers.get(obj.getClass());
+    }
+
+    /**
+     * Applies a patch to an object with the patcher of its class.
+     *
+     * @param <T>   the type of the object.
+     * @param patch the JSON Patch.
+     * @param obj   the object, which is not modified.
+     * @return the patched copy, or {@code null} if no patcher is registered or the patch cannot be applied directly.
+     */
+    static <T> T apply(JsonNode patch, T obj) {
+        TypePatcher<T> patcher = find(obj);
+        if (patcher == null || !patch.isArray()) {
+            return null;
+        }
+        T patched = obj;
+        try {
+            for (JsonNode node : PointerCoding.expand(patch)) {
+                PatchOperation operation = PatchOperation.parse(node);
+                if (operation.isRoot()) {
+                    return null;
+                }
+                patched = patcher.apply(patched, operation);
+            }
+        } catch (IllegalArgumentException | JsonPatchApplicationException e) {
+            // Left to the tree route, which reports the failure against the patch
+            return null;
+        }
+        return patched;
+    }
+}
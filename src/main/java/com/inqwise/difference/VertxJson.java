@@ -0,0 +1,151 @@
+package com.inqwise.difference;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Converts Vert.x {@link JsonObject} and {@link JsonArray} values into {@link JsonNode} trees by walking their
+ * maps and lists, without encoding them to a string and parsing it back.
+ *
+ * <p>Values are mapped the way the Vert.x codec encodes them: binary values and buffers as base64 strings,
+ * instants as ISO-8601 strings and enums by name. Values the codec does not know are encoded with
+ * {@link Json#encode(Object)} and parsed.
+ */
+final class VertxJson {
+
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    /** Encodes binary values as the Vert.x codec does, in URL-safe base64 without padding. */
+    static final Base64.Encoder BASE64_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private VertxJson() {
+    }
+
+    /**
+     * Converts a Vert.x JSON value into a {@link JsonNode}.
+     *
+     * @param value  a {@link JsonObject}, {@link JsonArray} or any value they may contain.
+     * @param mapper the mapper used to parse values encoded by Vert.x.
+     * @return the equivalent {@link JsonNode}.
+     * @throws IllegalArgumentException if a value cannot be encoded.
+     */
+    static JsonNode toJsonNode(Object value, ObjectMapper mapper) {
+        return toJsonNode(value, mapper, SilentFields.NONE);
+    }
+
+    /**
+     * Converts a Vert.x JSON value into a {@link JsonNode}, leaving out its silent fields.
+     *
+     * @param value  a {@link JsonObject}, {@link JsonArray} or any value they may contain.
+     * @param mapper the mapper used to parse values encoded by Vert.x.
+     * @param silent the silent fields at the value.
+     * @return the equivalent {@link JsonNode}.
+     * @throws IllegalArgumentException if a value cannot be encoded.
+     */
+    static JsonNode toJsonNode(Object value, ObjectMapper mapper, SilentFields silent) {
+        if (value == null) {
+            return factory.nullNode();
+        }
+        if (value instanceof JsonObject object) {
+            return toObjectNode(object.getMap(), mapper, silent);
+        }
+        if (value instanceof JsonArray array) {
+            return toArrayNode(array.getList(), mapper, silent.element());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return toObjectNode(map, mapper, silent);
+        }
+        if (value instanceof List<?> list) {
+            return toArrayNode(list, mapper, silent.element());
+        }
+        if (value instanceof CharSequence text) {
+            return factory.textNode(text.toString());
+        }
+        if (value instanceof Boolean bool) {
+            return factory.booleanNode(bool);
+        }
+        if (value instanceof Number number) {
+            return toNumberNode(number, mapper);
+        }
+        if (value instanceof Instant instant) {
+            return factory.textNode(DateTimeFormatter.ISO_INSTANT.format(instant));
+        }
+        if (value instanceof byte[] bytes) {
+            return factory.textNode(BASE64_ENCODER.encodeToString(bytes));
+        }
+        if (value instanceof Buffer buffer) {
+            return factory.textNode(BASE64_ENCODER.encodeToString(buffer.getBytes()));
+        }
+        if (value instanceof Enum<?> constant) {
+            return factory.textNode(constant.name());
+        }
+        return silent.filter(parse(Json.encode(value), mapper));
+    }
+
+    private static ObjectNode toObjectNode(Map<?, ?> map, ObjectMapper mapper, SilentFields silent) {
+        ObjectNode node = factory.objectNode();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String name = String.valueOf(entry.getKey());
+            if (!silent.isSilent(name)) {
+                node.set(name, toJsonNode(entry.getValue(), mapper, silent.child(name)));
+            }
+        }
+        return node;
+    }
+
+    private static ArrayNode toArrayNode(List<?> list, ObjectMapper mapper, SilentFields silent) {
+        ArrayNode node = factory.arrayNode(list.size());
+        for (Object element : list) {
+            node.add(toJsonNode(element, mapper, silent));
+        }
+        return node;
+    }
+
+    /**
+     * Converts a number into the node a parser would produce for its encoded form.
+     */
+    private static JsonNode toNumberNode(Number number, ObjectMapper mapper) {
+        if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return factory.numberNode(number.intValue());
+        }
+        if (number instanceof Long) {
+            return factory.numberNode(number.longValue());
+        }
+        if (number instanceof Double) {
+            return factory.numberNode(number.doubleValue());
+        }
+        if (number instanceof Float) {
+            // The encoded float is parsed as a double
+            return factory.numberNode(Double.parseDouble(number.toString()));
+        }
+        if (number instanceof BigInteger || number instanceof BigDecimal) {
+            return parse(number.toString(), mapper);
+        }
+        return parse(Json.encode(number), mapper);
+    }
+
+    private static JsonNode parse(String json, ObjectMapper mapper) {
+        try {
+            return mapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Error converting value to JsonNode", e);
+        }
+    }
+}
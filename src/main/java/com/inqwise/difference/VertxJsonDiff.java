@@ -0,0 +1,710 @@
+package com.inqwise.difference;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections4.Equator;
+import org.apache.commons.collections4.ListUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Generates a JSON Patch (RFC 6902) between two Vert.x JSON documents by walking the maps and lists behind
+ * {@link JsonObject} and {@link JsonArray} directly, without converting them into {@link JsonNode} trees.
+ *
+ * <p>The patch is the one {@link JsonDiff} generates for the converted documents: values compare the way
+ * {@link JsonNodeComparator} compares nodes, arrays are aligned on their longest common subsequence,
+ * composite paths are replaced as a whole and MOVE and COPY operations are introduced as allowed by the
+ * {@link DiffFlags}. Silent fields are skipped in both documents, as in
+ * {@link Differences#between(Object, Object, List, List)}.
+ *
+ * <p>Values the Vert.x codec encodes as strings, such as instants, binary values and enums, compare by their
+ * encoded form. Values in the generated patch are plain maps, lists and JSON scalars, copied from the documents.
+ */
+public final class VertxJsonDiff {
+
+    /** The set of flags controlling the behavior of the diff algorithm. */
+    private final EnumSet<DiffFlags> flags;
+
+    /** The set of JSON Pointers representing composite objects in the JSON structure. */
+    private final Set<JsonPointer> compositeObjects;
+
+    /** The silent fields, positioned at the document root. */
+    private final SilentFields silentFields;
+
+    /**
+     * Creates a differ for the given configuration. Instances are immutable and may be shared between threads.
+     *
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of JSON Pointers of the composite objects.
+     * @param silentFields     The compiled silent fields, positioned at the document root.
+     */
+    VertxJsonDiff(EnumSet<DiffFlags> flags, Collection<String> compositeObjects, SilentFields silentFields) {
+        this.flags = flags.clone();
+        this.compositeObjects = compositeObjects.stream().map(JsonPointer::parse).collect(Collectors.toUnmodifiableSet());
+        this.silentFields = silentFields;
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two Vert.x JSON documents.
+     *
+     * @param source The source document, a {@link JsonObject}, {@link JsonArray} or any value they may contain.
+     * @param target The target document.
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public static JsonArray asJson(final Object source, final Object target) {
+        return asJson(source, target, DiffFlags.defaults());
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two Vert.x JSON documents,
+     * using the specified diff flags.
+     *
+     * @param source The source document.
+     * @param target The target document.
+     * @param flags  The set of {@link DiffFlags} to control the diff behavior.
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public static JsonArray asJson(final Object source, final Object target, EnumSet<DiffFlags> flags) {
+        return asJson(source, target, flags, List.of());
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two Vert.x JSON documents,
+     * using the specified composite objects.
+     *
+     * @param source           The source document.
+     * @param target           The target document.
+     * @param compositeObjects A collection of JSON Pointers of the composite objects.
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public static JsonArray asJson(final Object source, final Object target, Collection<String> compositeObjects) {
+        return asJson(source, target, DiffFlags.defaults(), compositeObjects);
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two Vert.x JSON documents,
+     * using the specified diff flags and composite objects.
+     *
+     * @param source           The source document.
+     * @param target           The target document.
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of JSON Pointers of the composite objects.
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public static JsonArray asJson(final Object source, final Object target, EnumSet<DiffFlags> flags, Collection<String> compositeObjects) {
+        return asJson(source, target, flags, compositeObjects, List.of());
+    }
+
+    /**
+     * Generates a JSON Patch representing the differences between two Vert.x JSON documents,
+     * using the specified diff flags, composite objects and silent fields.
+     *
+     * @param source           The source document.
+     * @param target           The target document.
+     * @param flags            The set of {@link DiffFlags} to control the diff behavior.
+     * @param compositeObjects A collection of JSON Pointers of the composite objects.
+     * @param silentFields     The fields to exclude from the comparison, as dot-separated paths where
+     *                         {@code **} matches any number of levels.
+     * @return A {@link JsonArray} of patch operations.
+     */
+    public static JsonArray asJson(final Object source, final Object target, EnumSet<DiffFlags> flags,
+            Collection<String> compositeObjects, Collection<String> silentFields) {
+        VertxJsonDiff diff = new VertxJsonDiff(flags, compositeObjects, SilentFields.compile(silentFields));
+        return diff.toJsonArray(diff.compare(source, target));
+    }
+
+    /**
+     * Computes the {@link Differences} between two Vert.x JSON documents.
+     *
+     * @param source The source document.
+     * @param target The target document.
+     * @return The {@code Differences}.
+     */
+    Differences differences(Object source, Object target) {
+        return new Differences(toDifferences(compare(source, target)));
+    }
+
+    /**
+     * A single patch operation. Values are plain copies, with the silent fields removed.
+     */
+    private record Op(Operation operation, JsonPointer path, JsonPointer toPath, Object value, Object srcValue) {
+
+        Op(Operation operation, JsonPointer path, Object value) {
+            this(operation, path, null, value, null);
+        }
+    }
+
+    private List<Op> compare(Object source, Object target) {
+        source = normalize(source);
+        target = normalize(target);
+        boolean sourceObject = source instanceof Map;
+        boolean targetObject = target instanceof Map;
+        SilentFields silent = sourceObject && targetObject ? silentFields : SilentFields.NONE;
+
+        List<Op> ops = new ArrayList<>();
+        if (sourceObject == targetObject) {
+            ops.addAll(generate(JsonPointer.ROOT, source, target, silent));
+        } else {
+            // Only the document that is an object has its silent fields removed
+            Object sourceValue = plain(source, sourceObject ? silentFields : SilentFields.NONE);
+            if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
+                ops.add(new Op(Operation.TEST, JsonPointer.ROOT, sourceValue));
+            ops.add(new Op(Operation.REPLACE, JsonPointer.ROOT, null, plain(target, targetObject ? silentFields : SilentFields.NONE), sourceValue));
+        }
+
+        if (!flags.contains(DiffFlags.OMIT_MOVE_OPERATION))
+            introduceMoveOperation(ops);
+
+        if (!flags.contains(DiffFlags.OMIT_COPY_OPERATION))
+            introduceCopyOperation(source, target, silent, ops);
+
+        return ops;
+    }
+
+    private List<Op> generate(JsonPointer path, Object source, Object target, SilentFields silent) {
+        List<Op> ops = new ArrayList<>();
+
+        final boolean isArray = source instanceof List && target instanceof List;
+        final boolean isCompositeObject = compositeObjects.contains(path)
+                || (isArray && flags.contains(DiffFlags.OMIT_COMPOSITE_ARRAY));
+
+        if (!equal(source, target, silent, true)) {
+            if (isArray) {
+                compareArray(path, (List<?>) source, (List<?>) target, silent.element(), ops, isCompositeObject);
+            } else if (source instanceof Map && target instanceof Map) {
+                compareObjects(path, (Map<?, ?>) source, (Map<?, ?>) target, silent, ops, isCompositeObject);
+            } else {
+                Object sourceValue = plain(source, silent);
+                if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
+                    ops.add(new Op(Operation.TEST, path, sourceValue));
+                ops.add(new Op(Operation.REPLACE, path, null, plain(target, silent), sourceValue));
+            }
+        }
+
+        if (!ops.isEmpty() && isCompositeObject) {
+            return List.of(new Op(Operation.REPLACE, path, null, plain(target, silent), plain(source, silent)));
+        }
+
+        return ops;
+    }
+
+    private void compareArray(JsonPointer path, List<?> source, List<?> target, SilentFields silent, List<Op> ops, boolean isCompositeObject) {
+        List<Object> lcs = ListUtils.longestCommonSubsequence(elements(source), elements(target), equator(silent));
+        int srcIdx = 0;
+        int targetIdx = 0;
+        int lcsIdx = 0;
+        int srcSize = source.size();
+        int targetSize = target.size();
+        int lcsSize = lcs.size();
+
+        int pos = 0;
+
+        while (lcsIdx < lcsSize && (ops.isEmpty() || !isCompositeObject)) {
+            Object lcsNode = lcs.get(lcsIdx);
+            Object srcNode = normalize(source.get(srcIdx));
+            Object targetNode = normalize(target.get(targetIdx));
+
+            boolean isSource = equal(lcsNode, srcNode, silent, true);
+            boolean isTarget = equal(lcsNode, targetNode, silent, true);
+            if (isSource && isTarget) {
+                srcIdx++;
+                targetIdx++;
+                lcsIdx++;
+                pos++;
+            } else if (isSource) {
+                // Addition
+                ops.add(new Op(Operation.ADD, path.append(pos), plain(targetNode, silent)));
+                pos++;
+                targetIdx++;
+            } else if (isTarget) {
+                // Removal
+                JsonPointer currPath = path.append(pos);
+                Object value = plain(srcNode, silent);
+                if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
+                    ops.add(new Op(Operation.TEST, currPath, value));
+                ops.add(new Op(Operation.REMOVE, currPath, value));
+                srcIdx++;
+            } else {
+                // Both are unequal to lcs node
+                ops.addAll(generate(path.append(pos), srcNode, targetNode, silent));
+                srcIdx++;
+                targetIdx++;
+                pos++;
+            }
+        }
+
+        while (srcIdx < srcSize && targetIdx < targetSize && (ops.isEmpty() || !isCompositeObject)) {
+            ops.addAll(generate(path.append(pos), normalize(source.get(srcIdx)), normalize(target.get(targetIdx)), silent));
+            srcIdx++;
+            targetIdx++;
+            pos++;
+        }
+
+        if (ops.isEmpty() || !isCompositeObject) {
+            while (targetIdx < targetSize) {
+                ops.add(new Op(Operation.ADD, path.append(pos), plain(target.get(targetIdx), silent)));
+                pos++;
+                targetIdx++;
+            }
+        }
+
+        if (ops.isEmpty() || !isCompositeObject) {
+            while (srcIdx < srcSize) {
+                JsonPointer currPath = path.append(pos);
+                Object value = plain(source.get(srcIdx), silent);
+                if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
+                    ops.add(new Op(Operation.TEST, currPath, value));
+                ops.add(new Op(Operation.REMOVE, currPath, value));
+                srcIdx++;
+            }
+        }
+    }
+
+    private void compareObjects(JsonPointer path, Map<?, ?> source, Map<?, ?> target, SilentFields silent, List<Op> ops, boolean isCompositeObject) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            if (!ops.isEmpty() && isCompositeObject) {
+                break;
+            }
+            String key = String.valueOf(entry.getKey());
+            if (silent.isSilent(key)) {
+                continue;
+            }
+            SilentFields childSilent = silent.child(key);
+            JsonPointer currPath = path.append(key);
+            if (!target.containsKey(key)) {
+                // Remove case
+                Object value = plain(entry.getValue(), childSilent);
+                if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS))
+                    ops.add(new Op(Operation.TEST, currPath, value));
+                ops.add(new Op(Operation.REMOVE, currPath, value));
+                continue;
+            }
+            ops.addAll(generate(currPath, normalize(entry.getValue()), normalize(target.get(key)), childSilent));
+        }
+        for (Map.Entry<?, ?> entry : target.entrySet()) {
+            if (!ops.isEmpty() && isCompositeObject) {
+                break;
+            }
+            String key = String.valueOf(entry.getKey());
+            if (!source.containsKey(key) && !silent.isSilent(key)) {
+                // Add case
+                ops.add(new Op(Operation.ADD, path.append(key), plain(entry.getValue(), silent.child(key))));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> elements(List<?> list) {
+        return (List<Object>) list;
+    }
+
+    /**
+     * Returns the strict equality used to align array elements, as {@link JsonNode#equals(Object)}.
+     */
+    private static Equator<Object> equator(SilentFields silent) {
+        return new Equator<>() {
+            @Override
+            public boolean equate(Object o1, Object o2) {
+                return equal(o1, o2, silent, false);
+            }
+
+            @Override
+            public int hash(Object o) {
+                return VertxJsonDiff.hash(o, silent);
+            }
+        };
+    }
+
+    private void introduceMoveOperation(List<Op> ops) {
+        for (int i = 0; i < ops.size(); i++) {
+            Op op1 = ops.get(i);
+
+            // Only consider REMOVE or ADD operations
+            if (!(Operation.REMOVE == op1.operation() || Operation.ADD == op1.operation())) {
+                continue;
+            }
+
+            for (int j = i + 1; j < ops.size(); j++) {
+                Op op2 = ops.get(j);
+                if (!equal(op1.value(), op2.value(), SilentFields.NONE, true)) {
+                    continue;
+                }
+
+                Op moveOp = null;
+                if (Operation.REMOVE == op1.operation() && Operation.ADD == op2.operation()) {
+                    JsonPointer relativePath = computeRelativePath(op2.path(), i + 1, j - 1, ops);
+                    moveOp = new Op(Operation.MOVE, op1.path(), relativePath, null, null);
+                } else if (Operation.ADD == op1.operation() && Operation.REMOVE == op2.operation()) {
+                    JsonPointer relativePath = computeRelativePath(op2.path(), i, j - 1, ops);
+                    moveOp = new Op(Operation.MOVE, relativePath, op1.path(), null, null);
+                }
+                if (moveOp != null) {
+                    ops.remove(j);
+                    ops.set(i, moveOp);
+                    Op test = ops.get(j - 1);
+                    if (Operation.ADD == op1.operation() && Operation.TEST == test.operation() && test.path().equals(op2.path())) {
+                        // The test of the removed value would run after the move: test it where it is moved from
+                        ops.remove(j - 1);
+                        ops.add(i, new Op(Operation.TEST, moveOp.path(), test.value()));
+                        i++;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private static JsonPointer computeRelativePath(JsonPointer path, int startIdx, int endIdx, List<Op> ops) {
+        int[] counters = new int[path.size()];
+
+        for (int i = startIdx; i <= endIdx; i++) {
+            Op op = ops.get(i);
+            // Adjust relative path according to ADD and REMOVE operations
+            if (Operation.ADD == op.operation() || Operation.REMOVE == op.operation()) {
+                updateCounters(path, op, counters);
+            }
+        }
+
+        List<JsonPointer.RefToken> tokens = path.decompose();
+        for (int i = 0; i < counters.length; i++) {
+            if (counters[i] != 0) {
+                tokens.set(i, new JsonPointer.RefToken(Integer.toString(tokens.get(i).getIndex() + counters[i])));
+            }
+        }
+        return new JsonPointer(tokens);
+    }
+
+    private static void updateCounters(JsonPointer path, Op op, int[] counters) {
+        // Find the longest common prefix ending at an array
+        JsonPointer opPath = op.path();
+        if (opPath.size() <= path.size()) {
+            int idx = -1;
+            for (int i = 0; i < opPath.size() - 1; i++) {
+                if (opPath.get(i).equals(path.get(i))) {
+                    idx = i;
+                } else {
+                    break;
+                }
+            }
+            if (idx == opPath.size() - 2 && opPath.last().isArrayIndex()) {
+                counters[opPath.size() - 1] += Operation.ADD == op.operation() ? -1 : 1;
+            }
+        }
+    }
+
+    private void introduceCopyOperation(Object source, Object target, SilentFields silent, List<Op> ops) {
+        if (ops.stream().noneMatch(op -> Operation.ADD == op.operation())) {
+            return;
+        }
+        Map<Object, JsonPointer> unchangedValues = new HashMap<>();
+        computeUnchangedValues(unchangedValues, JsonPointer.ROOT, source, target, silent);
+
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            if (Operation.ADD != op.operation()) continue;
+
+            JsonPointer matchingValuePath = unchangedValues.get(op.value());
+            if (matchingValuePath != null && JsonDiff.isAllowed(matchingValuePath, op.path())) {
+                // Matching value found; replace add with copy
+                if (flags.contains(DiffFlags.EMIT_TEST_OPERATIONS)) {
+                    ops.add(i, new Op(Operation.TEST, matchingValuePath, op.value()));
+                    i++;
+                }
+                ops.set(i, new Op(Operation.COPY, matchingValuePath, op.path(), op.value(), null));
+            }
+        }
+    }
+
+    /**
+     * Maps the plain copies of the values found at the same path in both documents to their first path.
+     */
+    private static void computeUnchangedValues(Map<Object, JsonPointer> unchangedValues, JsonPointer path,
+            Object source, Object target, SilentFields silent) {
+        if (equal(source, target, silent, true)) {
+            unchangedValues.putIfAbsent(plain(target, silent), path);
+            return;
+        }
+
+        if (source instanceof Map<?, ?> sourceMap && target instanceof Map<?, ?> targetMap) {
+            for (Map.Entry<?, ?> entry : sourceMap.entrySet()) {
+                String name = String.valueOf(entry.getKey());
+                if (targetMap.containsKey(name) && !silent.isSilent(name)) {
+                    computeUnchangedValues(unchangedValues, path.append(name), normalize(entry.getValue()),
+                            normalize(targetMap.get(name)), silent.child(name));
+                }
+            }
+        } else if (source instanceof List<?> sourceList && target instanceof List<?> targetList) {
+            SilentFields elementSilent = silent.element();
+            int size = Math.min(sourceList.size(), targetList.size());
+            for (int i = 0; i < size; i++) {
+                computeUnchangedValues(unchangedValues, path.append(i), normalize(sourceList.get(i)),
+                        normalize(targetList.get(i)), elementSilent);
+            }
+        }
+    }
+
+    private JsonArray toJsonArray(List<Op> ops) {
+        JsonArray patch = new JsonArray(new ArrayList<>(ops.size()));
+        for (Op op : ops) {
+            JsonObject node = new JsonObject();
+            node.put(Constants.OP, op.operation().rfcName());
+
+            switch (op.operation()) {
+                case MOVE:
+                case COPY:
+                    node.put(Constants.FROM, op.path().toString());
+                    node.put(Constants.PATH, op.toPath().toString());
+                    break;
+                case REMOVE:
+                    node.put(Constants.PATH, op.path().toString());
+                    if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE))
+                        node.put(Constants.VALUE, op.value());
+                    break;
+                case REPLACE:
+                    if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
+                        node.put(Constants.FROM_VALUE, op.srcValue());
+                    }
+                case ADD:
+                case TEST:
+                    node.put(Constants.PATH, op.path().toString());
+                    node.put(Constants.VALUE, op.value());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operation specified: " + op.operation());
+            }
+            patch.add(node);
+        }
+        return patch;
+    }
+
+    private List<Differences.Difference> toDifferences(List<Op> ops) {
+        List<Differences.Difference> differences = new ArrayList<>(ops.size());
+        for (Op op : ops) {
+            Differences.Difference difference = new Differences.Difference();
+            difference.setOperation(Differences.Operation.valueOf(op.operation().rfcName()));
+
+            switch (op.operation()) {
+                case MOVE:
+                case COPY:
+                    difference.setFrom(op.path().toString());
+                    difference.setPath(op.toPath().toString());
+                    break;
+                case REMOVE:
+                    difference.setPath(op.path().toString());
+                    if (!flags.contains(DiffFlags.OMIT_VALUE_ON_REMOVE))
+                        difference.setValue(op.value());
+                    break;
+                case REPLACE:
+                    if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
+                        difference.setFromValue(op.srcValue());
+                    }
+                default:
+                    difference.setPath(op.path().toString());
+                    difference.setValue(op.value());
+            }
+            differences.add(difference);
+        }
+        return differences;
+    }
+
+    /**
+     * Unwraps Vert.x containers into their maps and lists and maps scalars to the value a JSON parser would
+     * produce for their encoded form. Values the Vert.x codec does not know are encoded and decoded.
+     *
+     * @param value a Vert.x JSON value.
+     * @return a {@link Map}, a {@link List}, a {@link String}, a {@link Boolean}, an {@link Integer}, a {@link Long},
+     *         a {@link BigInteger}, a {@link Double} or {@code null}.
+     */
+    static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Double || value instanceof Map || value instanceof List) {
+            return value;
+        }
+        if (value instanceof JsonObject object) {
+            return object.getMap();
+        }
+        if (value instanceof JsonArray array) {
+            return array.getList();
+        }
+        if (value instanceof CharSequence text) {
+            return text.toString();
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Float) {
+            // The encoded float is parsed as a double
+            return Double.parseDouble(value.toString());
+        }
+        if (value instanceof BigInteger number) {
+            return number.bitLength() < Integer.SIZE ? (Object) number.intValue()
+                    : number.bitLength() < Long.SIZE ? (Object) number.longValue() : number;
+        }
+        if (value instanceof BigDecimal number) {
+            String text = number.toString();
+            return text.indexOf('.') < 0 && text.indexOf('E') < 0 ? normalize(new BigInteger(text)) : (Object) Double.parseDouble(text);
+        }
+        if (value instanceof Instant instant) {
+            return DateTimeFormatter.ISO_INSTANT.format(instant);
+        }
+        if (value instanceof byte[] bytes) {
+            return VertxJson.BASE64_ENCODER.encodeToString(bytes);
+        }
+        if (value instanceof Buffer buffer) {
+            return VertxJson.BASE64_ENCODER.encodeToString(buffer.getBytes());
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return normalize(Json.decodeValue(Json.encode(value)));
+    }
+
+    /**
+     * Returns whether two values are equal once silent fields are removed. Numbers compare by value when
+     * {@code numeric} is set, as in {@link JsonNumEquals}, and by type and value otherwise.
+     *
+     * @param a       the first value.
+     * @param b       the second value.
+     * @param silent  the silent fields at the values.
+     * @param numeric whether numbers of different types may be equal.
+     * @return {@code true} if the values are equal.
+     */
+    static boolean equal(Object a, Object b, SilentFields silent, boolean numeric) {
+        if (a == b) {
+            return true;
+        }
+        a = normalize(a);
+        b = normalize(b);
+        if (a instanceof Map<?, ?> first) {
+            return b instanceof Map<?, ?> second && mapEqual(first, second, silent, numeric);
+        }
+        if (a instanceof List<?> first) {
+            if (!(b instanceof List<?> second) || first.size() != second.size()) {
+                return false;
+            }
+            SilentFields elementSilent = silent.element();
+            for (int i = 0; i < first.size(); i++) {
+                if (!equal(first.get(i), second.get(i), elementSilent, numeric)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (numeric && a instanceof Number first && b instanceof Number second) {
+            return numberEqual(first, second);
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static boolean mapEqual(Map<?, ?> a, Map<?, ?> b, SilentFields silent, boolean numeric) {
+        int size = 0;
+        for (Map.Entry<?, ?> entry : a.entrySet()) {
+            String name = String.valueOf(entry.getKey());
+            if (silent.isSilent(name)) {
+                continue;
+            }
+            size++;
+            if (!b.containsKey(name) || !equal(entry.getValue(), b.get(name), silent.child(name), numeric)) {
+                return false;
+            }
+        }
+        if (silent.isEmpty()) {
+            return size == b.size();
+        }
+        for (Object key : b.keySet()) {
+            if (!silent.isSilent(String.valueOf(key))) {
+                size--;
+            }
+        }
+        return size == 0;
+    }
+
+    private static boolean numberEqual(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return a.equals(b);
+        }
+        return decimal(a).compareTo(decimal(b)) == 0;
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof BigInteger;
+    }
+
+    private static BigDecimal decimal(Number number) {
+        return number instanceof Double value ? BigDecimal.valueOf(value) : new BigDecimal(number.toString());
+    }
+
+    /**
+     * Returns the hash code of a value once silent fields are removed, consistent with strict {@link #equal}.
+     */
+    private static int hash(Object value, SilentFields silent) {
+        value = normalize(value);
+        if (value instanceof Map<?, ?> map) {
+            int hash = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String name = String.valueOf(entry.getKey());
+                if (!silent.isSilent(name)) {
+                    hash += name.hashCode() ^ hash(entry.getValue(), silent.child(name));
+                }
+            }
+            return hash;
+        }
+        if (value instanceof List<?> list) {
+            SilentFields elementSilent = silent.element();
+            int hash = 1;
+            for (Object element : list) {
+                hash = 31 * hash + hash(element, elementSilent);
+            }
+            return hash;
+        }
+        return Objects.hashCode(value);
+    }
+
+    /**
+     * Copies a value into plain maps, lists and normalized scalars, leaving out its silent fields.
+     *
+     * @param value  a Vert.x JSON value.
+     * @param silent the silent fields at the value.
+     * @return the copy.
+     */
+    static Object plain(Object value, SilentFields silent) {
+        value = normalize(value);
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String name = String.valueOf(entry.getKey());
+                if (!silent.isSilent(name)) {
+                    copy.put(name, plain(entry.getValue(), silent.child(name)));
+                }
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            SilentFields elementSilent = silent.element();
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(plain(element, elementSilent));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
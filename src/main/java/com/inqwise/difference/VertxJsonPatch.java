@@ -0,0 +1,400 @@
+package com.inqwise.difference;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Applies JSON Patch (RFC 6902) operations to Vert.x JSON documents by editing the maps and lists behind
+ * {@link JsonObject} and {@link JsonArray} directly, without converting them into {@link JsonNode} trees.
+ * Operations behave and fail as in {@link JsonPatch}, and honour the same {@link CompatibilityFlags}.
+ *
+ * <p>Values taken from the patch are deep copies. In-place application edits the nested maps and lists of
+ * the document, which must therefore be mutable.
+ */
+public final class VertxJsonPatch {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Private constructor to enforce the static nature of this utility class.
+     */
+    private VertxJsonPatch() {
+    }
+
+    /**
+     * Applies a JSON patch to a copy of the given object.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the object to patch; it is not modified.
+     * @return the patched copy.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonObject apply(JsonArray patch, JsonObject source) throws JsonPatchApplicationException {
+        return apply(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a JSON patch to a copy of the given object.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the object to patch; it is not modified.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @return the patched copy.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonObject apply(JsonArray patch, JsonObject source, EnumSet<CompatibilityFlags> flags) throws JsonPatchApplicationException {
+        return toJsonObject(process(patch, source.copy(), flags));
+    }
+
+    /**
+     * Applies a JSON patch to a copy of the given array.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the array to patch; it is not modified.
+     * @return the patched copy.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonArray apply(JsonArray patch, JsonArray source) throws JsonPatchApplicationException {
+        return apply(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a JSON patch to a copy of the given array.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the array to patch; it is not modified.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @return the patched copy.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static JsonArray apply(JsonArray patch, JsonArray source, EnumSet<CompatibilityFlags> flags) throws JsonPatchApplicationException {
+        return toJsonArray(process(patch, source.copy(), flags));
+    }
+
+    /**
+     * Applies a JSON patch to the given object in place.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the object to patch.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static void applyInPlace(JsonArray patch, JsonObject source) {
+        applyInPlace(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a JSON patch to the given object in place. A replaced document root must be an object, whose
+     * fields replace those of the source.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the object to patch.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static void applyInPlace(JsonArray patch, JsonObject source, EnumSet<CompatibilityFlags> flags) {
+        Object result = process(patch, source, flags);
+        if (result != source) {
+            Map<String, Object> fields = toJsonObject(result).getMap();
+            source.getMap().clear();
+            source.getMap().putAll(fields);
+        }
+    }
+
+    /**
+     * Applies a JSON patch to the given array in place.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the array to patch.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static void applyInPlace(JsonArray patch, JsonArray source) {
+        applyInPlace(patch, source, CompatibilityFlags.defaults());
+    }
+
+    /**
+     * Applies a JSON patch to the given array in place. A replaced document root must be an array, whose
+     * elements replace those of the source.
+     *
+     * @param patch  the JSON patch to apply.
+     * @param source the array to patch.
+     * @param flags  the {@link CompatibilityFlags} to control patch behavior.
+     * @throws JsonPatchApplicationException if the patch application fails.
+     * @throws InvalidJsonPatchException if the patch is invalid.
+     */
+    public static void applyInPlace(JsonArray patch, JsonArray source, EnumSet<CompatibilityFlags> flags) {
+        Object result = process(patch, source, flags);
+        if (result != source) {
+            JsonArray elements = toJsonArray(result);
+            source.clear();
+            source.addAll(elements);
+        }
+    }
+
+    /**
+     * Applies the operations of a patch one by one and returns the resulting document root.
+     */
+    private static Object process(JsonArray patch, Object document, EnumSet<CompatibilityFlags> flags) {
+        Object root = document;
+        for (Object element : patch.getList()) {
+            if (!(VertxJsonDiff.normalize(element) instanceof Map<?, ?> node))
+                throw new InvalidJsonPatchException("Invalid JSON Patch payload (not an object)");
+            Operation operation = Operation.fromRfcName(text(node, Constants.OP));
+            JsonPointer path = JsonPointer.parse(text(node, Constants.PATH));
+
+            switch (operation) {
+                case REMOVE:
+                    remove(root, path, flags);
+                    break;
+                case ADD:
+                case REPLACE:
+                case TEST:
+                    if (!node.containsKey(Constants.VALUE) && !flags.contains(CompatibilityFlags.MISSING_VALUES_AS_NULLS))
+                        throw new InvalidJsonPatchException("Invalid JSON Patch payload (missing '" + Constants.VALUE + "' field)");
+                    Object value = deepCopy(node.get(Constants.VALUE));
+                    if (operation == Operation.ADD) root = set(root, path, value, Operation.ADD);
+                    if (operation == Operation.REPLACE) root = replace(root, path, value, flags);
+                    if (operation == Operation.TEST) test(root, path, value);
+                    break;
+                case TEXT:
+                    if (!node.containsKey(Constants.VALUE))
+                        throw new InvalidJsonPatchException("Invalid JSON Patch payload (missing '" + Constants.VALUE + "' field)");
+                    root = replace(root, path, edit(root, path, node.get(Constants.VALUE)), flags);
+                    break;
+                case MOVE:
+                    JsonPointer fromPath = JsonPointer.parse(text(node, Constants.FROM));
+                    Object moved = evaluate(root, fromPath, Operation.MOVE);
+                    remove(root, fromPath, flags);
+                    root = set(root, path, moved, Operation.MOVE);
+                    break;
+                case COPY:
+                    JsonPointer fromCopyPath = JsonPointer.parse(text(node, Constants.FROM));
+                    Object copied = deepCopy(evaluate(root, fromCopyPath, Operation.COPY));
+                    root = set(root, path, copied, Operation.COPY);
+                    break;
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Returns a deep copy of a value, with maps and lists copied into {@link JsonObject} and {@link JsonArray}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object deepCopy(Object value) {
+        if (value instanceof JsonObject object) {
+            return object.copy();
+        }
+        if (value instanceof JsonArray array) {
+            return array.copy();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return new JsonObject((Map<String, Object>) map).copy();
+        }
+        if (value instanceof List<?> list) {
+            return new JsonArray(list).copy();
+        }
+        if (value instanceof Buffer buffer) {
+            return buffer.copy();
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        return value;
+    }
+
+    private static String text(Map<?, ?> node, String attr) {
+        if (!node.containsKey(attr))
+            throw new InvalidJsonPatchException("Invalid JSON Patch payload (missing '" + attr + "' field)");
+        Object value = node.get(attr);
+        return value instanceof CharSequence text ? text.toString() : null;
+    }
+
+    /**
+     * Returns the string at the given path edited with a {@link TextDiff} delta.
+     */
+    private static String edit(Object root, JsonPointer path, Object delta) {
+        JsonNode edits = VertxJson.toJsonNode(delta, mapper);
+        TextDiff.validate(edits);
+        Object current = evaluate(root, path, Operation.TEXT);
+        if (!(current instanceof CharSequence text))
+            throw new JsonPatchApplicationException("Expected a string but found " + show(current), Operation.TEXT, path);
+        try {
+            return TextDiff.apply(text.toString(), edits);
+        } catch (IllegalArgumentException e) {
+            throw new JsonPatchApplicationException(e.getMessage(), Operation.TEXT, path);
+        }
+    }
+
+    /**
+     * Returns the value at the given path, failing as {@link JsonPointer#evaluate(JsonNode)} does.
+     */
+    private static Object evaluate(Object document, JsonPointer path, Operation operation) {
+        Object current = document;
+        for (int idx = 0; idx < path.size(); ++idx) {
+            final JsonPointer.RefToken token = path.get(idx);
+            Object node = VertxJsonDiff.normalize(current);
+
+            if (node instanceof List<?> list) {
+                if (!token.isArrayIndex())
+                    throw error(path, idx, "Can't reference field \"" + token.getField() + "\" on array", operation);
+                if (token.getIndex() == JsonPointer.LAST_INDEX || token.getIndex() >= list.size())
+                    throw error(path, idx, "Array index " + token + " is out of bounds", operation);
+                current = list.get(token.getIndex());
+            } else if (node instanceof Map<?, ?> map) {
+                if (!map.containsKey(token.getField()))
+                    throw error(path, idx, "Missing field \"" + token.getField() + "\"", operation);
+                current = map.get(token.getField());
+            } else {
+                throw error(path, idx, "Can't reference past scalar value", operation);
+            }
+        }
+        return current;
+    }
+
+    private static JsonPatchApplicationException error(JsonPointer path, int atToken, String message, Operation operation) {
+        return new JsonPatchApplicationException(message, operation, new JsonPointer(path.decompose().subList(0, atToken)));
+    }
+
+    private static Object set(Object root, JsonPointer path, Object value, Operation forOp) {
+        if (path.isRoot()) {
+            return value;
+        }
+        Object parentNode = VertxJsonDiff.normalize(evaluate(root, path.getParent(), forOp));
+        if (parentNode instanceof List<?> list) {
+            int idx = path.last().getIndex();
+            if (idx == JsonPointer.LAST_INDEX) {
+                elements(list).add(value);
+            } else {
+                if (idx > list.size()) {
+                    throw new JsonPatchApplicationException(
+                        "Array index " + idx + " out of bounds", Operation.ADD, path.getParent());
+                }
+                elements(list).add(idx, value);
+            }
+        } else if (parentNode instanceof Map<?, ?> map) {
+            fields(map).put(path.last().getField(), value);
+        } else {
+            throw new JsonPatchApplicationException("Cannot reference past scalar value", forOp, path.getParent());
+        }
+        return root;
+    }
+
+    private static Object replace(Object root, JsonPointer path, Object value, EnumSet<CompatibilityFlags> flags) {
+        if (path.isRoot()) {
+            return value;
+        }
+        Object parentNode = VertxJsonDiff.normalize(evaluate(root, path.getParent(), Operation.REPLACE));
+        JsonPointer.RefToken token = path.last();
+        if (parentNode instanceof Map<?, ?> map) {
+            if (!flags.contains(CompatibilityFlags.ALLOW_MISSING_TARGET_OBJECT_ON_REPLACE) &&
+                    !map.containsKey(token.getField())) {
+                throw new JsonPatchApplicationException(
+                    "Missing field \"" + token.getField() + "\"", Operation.REPLACE, path.getParent());
+            }
+            fields(map).put(token.getField(), value);
+        } else if (parentNode instanceof List<?> list) {
+            if (token.getIndex() >= list.size()) {
+                throw new JsonPatchApplicationException(
+                    "Array index " + token.getIndex() + " out of bounds", Operation.REPLACE, path.getParent());
+            }
+            elements(list).set(token.getIndex(), value);
+        } else {
+            throw new JsonPatchApplicationException(
+                "Can't reference past scalar value", Operation.REPLACE, path.getParent());
+        }
+        return root;
+    }
+
+    private static void remove(Object root, JsonPointer path, EnumSet<CompatibilityFlags> flags) {
+        if (path.isRoot()) {
+            throw new JsonPatchApplicationException("Cannot remove document root", Operation.REMOVE, path);
+        }
+        Object parentNode = VertxJsonDiff.normalize(evaluate(root, path.getParent(), Operation.REMOVE));
+        JsonPointer.RefToken token = path.last();
+        if (parentNode instanceof Map<?, ?> map) {
+            map.remove(token.getField());
+        } else if (parentNode instanceof List<?> list) {
+            int idx = token.getIndex();
+            if (!flags.contains(CompatibilityFlags.REMOVE_NONE_EXISTING_ARRAY_ELEMENT) && idx >= list.size()) {
+                throw new JsonPatchApplicationException(
+                    "Array index " + idx + " out of bounds", Operation.REMOVE, path.getParent());
+            }
+            if (idx >= 0 && idx < list.size()) {
+                list.remove(idx);
+            }
+        } else {
+            throw new JsonPatchApplicationException(
+                "Cannot reference past scalar value", Operation.REMOVE, path.getParent());
+        }
+    }
+
+    private static void test(Object root, JsonPointer path, Object value) {
+        Object actual = evaluate(root, path, Operation.TEST);
+        Object expected = VertxJsonDiff.normalize(value);
+        Object found = VertxJsonDiff.normalize(actual);
+        boolean numbers = expected instanceof Number && found instanceof Number;
+        if (!VertxJsonDiff.equal(found, expected, SilentFields.NONE, numbers)) {
+            throw new JsonPatchApplicationException(
+                "Expected " + show(expected) + " but found " + show(found), Operation.TEST, path);
+        }
+    }
+
+    private static String show(Object value) {
+        if (value == null)
+            return "null";
+        else if (value instanceof List)
+            return "array";
+        else if (value instanceof Map)
+            return "object";
+        else
+            return "value " + Json.encode(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> elements(List<?> list) {
+        return (List<Object>) list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> fields(Map<?, ?> map) {
+        return (Map<String, Object>) map;
+    }
+
+    private static JsonObject toJsonObject(Object root) {
+        Object node = VertxJsonDiff.normalize(root);
+        if (root instanceof JsonObject object) {
+            return object;
+        }
+        if (node instanceof Map<?, ?> map) {
+            return new JsonObject(fields(map));
+        }
+        throw new JsonPatchApplicationException("Expected object at document root but found " + show(node), null, JsonPointer.ROOT);
+    }
+
+    private static JsonArray toJsonArray(Object root) {
+        Object node = VertxJsonDiff.normalize(root);
+        if (root instanceof JsonArray array) {
+            return array;
+        }
+        if (node instanceof List<?> list) {
+            return new JsonArray(elements(list));
+        }
+        throw new JsonPatchApplicationException("Expected array at document root but found " + show(node), null, JsonPointer.ROOT);
+    }
+}
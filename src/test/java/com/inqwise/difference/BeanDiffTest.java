@@ -0,0 +1,323 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.json.JsonObject;
+
+public class BeanDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    public enum Status {
+        NEW, PAID, SHIPPED
+    }
+
+    public record Tag(String key, Object value) {
+    }
+
+    public record Item(String sku, int quantity, List<Tag> tags, Map<String, Object> attributes) {
+    }
+
+    public static class Customer {
+        private String name;
+        private String email;
+        private Tag tag;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public Tag getTag() {
+            return tag;
+        }
+
+        public void setTag(Tag tag) {
+            this.tag = tag;
+        }
+    }
+
+    public static class Order {
+        private long id;
+        private Status status;
+        private Customer customer;
+        private List<Item> items;
+        private Map<String, Object> meta;
+        private LocalDate created;
+        private Double total;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+
+        public Map<String, Object> getMeta() {
+            return meta;
+        }
+
+        public void setMeta(Map<String, Object> meta) {
+            this.meta = meta;
+        }
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd.MM.yyyy")
+        public LocalDate getCreated() {
+            return created;
+        }
+
+        public void setCreated(LocalDate created) {
+            this.created = created;
+        }
+
+        @JsonProperty("amount")
+        public Double getTotal() {
+            return total;
+        }
+
+        public void setTotal(Double total) {
+            this.total = total;
+        }
+    }
+
+    private static final List<List<String>> SILENT_FIELDS = List.of(
+            List.of(),
+            List.of("email", "id"),
+            List.of("customer.email", "meta.a"),
+            List.of("**.key"),
+            List.of("items.**.b", "customer.tag.value"));
+
+    private static final List<List<String>> COMPOSITE_FIELDS = List.of(
+            List.of(),
+            List.of("customer"),
+            List.of("meta.a", "customer.tag"));
+
+    @Test
+    public void testMatchesTreeDiffOnRandomBeans() throws JsonProcessingException {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            Order first = randomOrder(random);
+            Order second = random.nextInt(4) == 0 ? first : randomOrder(random);
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+            List<String> composite = COMPOSITE_FIELDS.get(random.nextInt(COMPOSITE_FIELDS.size()));
+
+            Differences expected = Differences.between(toJsonObject(first), toJsonObject(second), silent, composite);
+            Differences actual = Differences.between(first, second, silent, composite);
+
+            assertEquals(expected.toString(), actual.toString(), "Bean diff differs from tree diff [silent="
+                    + silent + ", composite=" + composite + ", first=" + mapper.writeValueAsString(first)
+                    + ", second=" + mapper.writeValueAsString(second) + "]");
+        }
+    }
+
+    @Test
+    public void testGeneratedComparatorsMatchBeanWalk() {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            Order first = randomOrder(random);
+            Order second = random.nextBoolean() ? copy(first) : randomOrder(random);
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+            List<String> composite = COMPOSITE_FIELDS.get(random.nextInt(COMPOSITE_FIELDS.size()));
+            Differentiator differentiator = Differentiator.builder()
+                    .withSilentFields(silent)
+                    .withCompositeFields(composite)
+                    .build();
+
+            Differences expected = differentiator.between(first, second);
+            Differences actual = differentiator.generatedComparators(true).between(first, second);
+
+            assertEquals(expected.toString(), actual.toString(), "Generated comparators changed the diff [silent=" + silent + "]");
+        }
+    }
+
+    @Test
+    public void testSilentFieldsAreSkipped() {
+        Order first = new Order();
+        first.setId(1);
+        first.setCustomer(new Customer());
+        first.getCustomer().setEmail("a@example.com");
+        Order second = new Order();
+        second.setId(2);
+        second.setCustomer(new Customer());
+        second.getCustomer().setEmail("b@example.com");
+
+        assertTrue(new BeanDiffer(mapper).supports(first, second));
+        assertTrue(Differences.between(first, second, List.of("id", "customer.email")).isEmpty());
+        assertEquals(2, Differences.between(first, second, List.of()).size());
+    }
+
+    @Test
+    public void testAppliedDifferencesReachTarget() {
+        Random random = new Random();
+        for (int i = 0; i < 200; i++) {
+            Order first = randomOrder(random);
+            Order second = randomOrder(random);
+
+            Differences differences = Differences.between(first, second, List.of());
+
+            assertEquals(mapper.valueToTree(second), mapper.valueToTree(differences.applyTo(first)));
+        }
+    }
+
+    @Test
+    public void testDirectApplicationMatchesTreeApplication() throws JsonProcessingException {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            Order first = randomOrder(random);
+            Order second = randomOrder(random);
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+            String original = mapper.writeValueAsString(first);
+
+            Differences differences = Differences.between(first, second, silent);
+            JsonNode patched = JsonPatch.apply(mapper.readTree(differences.toString()), mapper.valueToTree(first));
+            JsonNode expected = mapper.valueToTree(mapper.treeToValue(patched, Order.class));
+
+            assertEquals(expected, mapper.valueToTree(differences.applyTo(first)), "Direct application differs from tree application [silent="
+                    + silent + ", first=" + original + ", differences=" + differences + "]");
+            assertEquals(original, mapper.writeValueAsString(first));
+        }
+    }
+
+    @Test
+    public void testDirectApplicationSharesUnchangedValues() {
+        Order first = new Order();
+        first.setItems(new ArrayList<>());
+        first.setCustomer(new Customer());
+        first.getCustomer().setName("ann");
+        first.setMeta(new LinkedHashMap<>(Map.of("a", new LinkedHashMap<>(Map.of("b", 1)), "c", 2)));
+
+        Order applied = Differences.parse("[{\"op\":\"replace\",\"path\":\"/customer/name\",\"value\":\"bob\"},"
+                + "{\"op\":\"add\",\"path\":\"/meta/a/d\",\"value\":[1]},{\"op\":\"remove\",\"path\":\"/meta/c\"}]").applyTo(first);
+
+        assertEquals("bob", applied.getCustomer().getName());
+        assertEquals(Map.of("a", Map.of("b", 1, "d", List.of(1))), applied.getMeta());
+        assertSame(first.getItems(), applied.getItems());
+        assertEquals("ann", first.getCustomer().getName());
+        assertEquals(Map.of("a", Map.of("b", 1), "c", 2), first.getMeta());
+    }
+
+    private static Order copy(Order order) {
+        return mapper.convertValue(mapper.convertValue(order, Map.class), Order.class);
+    }
+
+    private static JsonObject toJsonObject(Object value) throws JsonProcessingException {
+        return new JsonObject(mapper.writeValueAsString(value));
+    }
+
+    private static Order randomOrder(Random random) {
+        Order order = new Order();
+        order.setId(random.nextInt(3));
+        order.setStatus(random.nextInt(4) == 0 ? null : Status.values()[random.nextInt(Status.values().length)]);
+        if (random.nextInt(4) != 0) {
+            Customer customer = new Customer();
+            customer.setName(pick(random, "ann", "bob", null));
+            customer.setEmail(pick(random, "a@example.com", "b@example.com"));
+            customer.setTag(random.nextBoolean() ? randomTag(random) : null);
+            order.setCustomer(customer);
+        }
+        if (random.nextInt(4) != 0) {
+            List<Item> items = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                List<Tag> tags = new ArrayList<>();
+                for (int t = random.nextInt(3); t > 0; t--) {
+                    tags.add(randomTag(random));
+                }
+                items.add(new Item(pick(random, "x", "y"), random.nextInt(2), tags, randomMap(random, 2)));
+            }
+            order.setItems(items);
+        }
+        order.setMeta(random.nextInt(4) == 0 ? null : randomMap(random, 2));
+        order.setCreated(random.nextBoolean() ? LocalDate.of(2024, 1, 1 + random.nextInt(2)) : null);
+        order.setTotal(random.nextBoolean() ? random.nextInt(2) * 1.5 : null);
+        return order;
+    }
+
+    private static Tag randomTag(Random random) {
+        return new Tag(pick(random, "k1", "k2"), randomValue(random, 1));
+    }
+
+    private static Map<String, Object> randomMap(Random random, int depth) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (String key : List.of("a", "b", "c")) {
+            if (random.nextBoolean()) {
+                map.put(key, randomValue(random, depth - 1));
+            }
+        }
+        return map;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 6 : 4)) {
+            case 0:
+                return null;
+            case 1:
+                return random.nextInt(2);
+            case 2:
+                return random.nextBoolean() ? 2L : 1.5;
+            case 3:
+                return pick(random, "s", "t");
+            case 4:
+                return randomMap(random, depth);
+            default:
+                return List.of(random.nextInt(2), pick(random, "s", "t"));
+        }
+    }
+
+    @SafeVarargs
+    private static <T> T pick(Random random, T... values) {
+        return values[random.nextInt(values.length)];
+    }
+}
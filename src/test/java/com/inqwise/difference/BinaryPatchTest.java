@@ -0,0 +1,115 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BinaryPatchTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testRoundTripOnGeneratedDiffs() {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = random.nextBoolean() ? DiffFlags.defaults() : EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+            Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+            JsonNode patch = diffs.getJsonNodes();
+
+            byte[] binary = BinaryPatch.encode(diffs);
+
+            assertEquals(patch, BinaryPatch.decode(ByteBuffer.wrap(binary)));
+            assertEquals(second, BinaryPatch.apply(ByteBuffer.wrap(binary), first));
+            assertTrue(Arrays.equals(binary, BinaryPatch.encode(patch)), "Expected the same bytes from diffs and their JSON Patch");
+        }
+    }
+
+    @Test
+    public void testFrontCodedRoundTripOnGeneratedDiffs() {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.FRONT_CODED_POINTERS);
+            Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+            JsonNode patch = diffs.getJsonNodes();
+
+            byte[] binary = BinaryPatch.encode(diffs);
+
+            assertEquals(BinaryPatch.FRONT_CODED_VERSION, binary[0]);
+            assertEquals(patch, BinaryPatch.decode(ByteBuffer.wrap(binary)));
+            assertEquals(second, BinaryPatch.apply(ByteBuffer.wrap(binary), first));
+            assertEquals(PointerCoding.expand(patch), BinaryPatch.decode(ByteBuffer.wrap(BinaryPatch.encode(PointerCoding.expand(patch)))));
+        }
+    }
+
+    @Test
+    public void testFormatIsStable() throws Exception {
+        JsonNode patch = mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a\",\"value\":true},"
+                + "{\"op\":\"test\",\"path\":\"/b\",\"value\":-1}]");
+        byte[] expected = {
+                BinaryPatch.VERSION, 2, 1, 'a', 1, 'b', 2,
+                1, 1, 1, 0, 2,
+                5, 1, 1, 1, 3, 1 };
+
+        assertTrue(Arrays.equals(expected, BinaryPatch.encode(patch)), Arrays.toString(BinaryPatch.encode(patch)));
+        assertEquals(patch, BinaryPatch.decode(ByteBuffer.wrap(expected)));
+        for (Operation operation : Operation.values()) {
+            assertEquals(operation, BinaryEncoder.operation(BinaryEncoder.code(operation)));
+        }
+    }
+
+    @Test
+    public void testValuesRoundTrip() throws Exception {
+        JsonNode patch = mapper.readTree("[{\"op\":\"add\",\"path\":\"/a~1b/~0c\",\"value\":{\"n\":null,\"t\":true,\"f\":false,"
+                + "\"i\":-7,\"l\":-9223372036854775808,\"big\":123456789012345678901234567890,\"d\":0.25,\"s\":\"café\","
+                + "\"arr\":[1,[],{}]}},{\"op\":\"replace\",\"path\":\"/x\",\"value\":1,\"fromValue\":\"old\"},"
+                + "{\"op\":\"move\",\"from\":\"/x\",\"path\":\"/y\"},{\"op\":\"remove\",\"path\":\"/y\",\"value\":1}]");
+
+        byte[] binary = BinaryPatch.encode(patch);
+
+        assertEquals(patch, BinaryPatch.decode(ByteBuffer.wrap(binary)));
+        assertTrue(binary.length < patch.toString().length(), "Expected the binary form to be smaller than JSON text");
+    }
+
+    @Test
+    public void testAppliesFromDirectBufferWithoutMovingIt() throws Exception {
+        JsonNode source = mapper.readTree("{\"a\":{\"b\":1},\"c\":[1,2]}");
+        JsonNode patch = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":2,\"fromValue\":1},"
+                + "{\"op\":\"remove\",\"path\":\"/c/0\",\"value\":1},{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/d\"},"
+                + "{\"op\":\"test\",\"path\":\"/d/b\",\"value\":2}]");
+        byte[] binary = BinaryPatch.encode(patch);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(binary.length + 3);
+        buffer.put(new byte[3]).put(binary).position(3);
+
+        JsonNode expected = JsonPatch.apply(patch, source);
+
+        assertEquals(expected, BinaryPatch.apply(buffer, source));
+        assertEquals(3, buffer.position());
+        BinaryPatch.applyInPlace(buffer, source);
+        assertEquals(expected, source);
+    }
+
+    @Test
+    public void testMalformedPatchIsRejected() throws Exception {
+        byte[] binary = BinaryPatch.encode(mapper.readTree("[{\"op\":\"add\",\"path\":\"/a\",\"value\":\"text\"}]"));
+        JsonNode source = mapper.createObjectNode();
+
+        assertThrows(InvalidJsonPatchException.class, () -> BinaryPatch.apply(ByteBuffer.wrap(binary, 0, binary.length - 2), source));
+        binary[0] = 9;
+        assertThrows(InvalidJsonPatchException.class, () -> BinaryPatch.decode(ByteBuffer.wrap(binary)));
+    }
+}
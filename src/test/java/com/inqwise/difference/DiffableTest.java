@@ -0,0 +1,382 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class DiffableTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path sources;
+
+    @TempDir
+    Path classes;
+
+    @Diffable
+    public record Line(String sku, int quantity, double price, Map<String, Object> attributes) {
+    }
+
+    @Diffable
+    public record Address(String city, @JsonProperty("zip_code") String zipCode) {
+    }
+
+    @Diffable
+    public static class Invoice {
+        private long id;
+        private boolean paid;
+        private String customer;
+        private Address address;
+        private Address shipping;
+        private List<Line> lines;
+        private List<String> notes;
+        private String revision;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        @CompositeField
+        public Address getShipping() {
+            return shipping;
+        }
+
+        public void setShipping(Address shipping) {
+            this.shipping = shipping;
+        }
+
+        @ArrayKey("sku")
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+
+        public List<String> getNotes() {
+            return notes;
+        }
+
+        public void setNotes(List<String> notes) {
+            this.notes = notes;
+        }
+
+        @SilentField
+        public String getRevision() {
+            return revision;
+        }
+
+        public void setRevision(String revision) {
+            this.revision = revision;
+        }
+
+        @JsonIgnore
+        public int getLineCount() {
+            return lines == null ? 0 : lines.size();
+        }
+    }
+
+    @Diffable
+    public static class Account {
+        public String owner;
+        public transient String session;
+        @JsonProperty
+        int balance;
+        private String code;
+
+        @JsonProperty("code")
+        String code() {
+            return code;
+        }
+    }
+
+    @Diffable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Contact {
+        public String name;
+        public String email;
+    }
+
+    @Test
+    public void testGeneratedDifferIsRegistered() {
+        Invoice invoice = new Invoice();
+
+        TypeDiffer<Object> differ = TypeDiffers.find(invoice, new Invoice());
+
+        assertNotNull(differ, "Expected the generated differ to be registered");
+        assertEquals(Invoice.class, differ.type());
+    }
+
+    @Test
+    public void testKeyedLinesProduceElementOperations() {
+        Invoice first = invoice(List.of(line("a", 1), line("b", 1), line("c", 1)));
+        Invoice second = invoice(List.of(line("a", 1), line("c", 2), line("d", 1)));
+
+        Differences differences = Differentiator.builder().build().between(first, second);
+
+        List<String> operations = differences.stream().map(d -> d.getOperation() + " " + d.getPath()).toList();
+        assertEquals(List.of("remove /lines/1", "replace /lines/1/quantity", "add /lines/2"), operations);
+    }
+
+    @Test
+    public void testSilentAndCompositeFields() {
+        Invoice first = invoice(List.of());
+        first.setRevision("1");
+        first.setShipping(new Address("Paris", "75001"));
+        Invoice second = invoice(List.of());
+        second.setRevision("2");
+        second.setShipping(new Address("Paris", "75002"));
+
+        Differences differences = Differentiator.builder().build().between(first, second);
+
+        assertEquals(1, differences.size());
+        Differences.Difference difference = differences.iterator().next();
+        assertEquals("/shipping", difference.getPath());
+        assertEquals(Differences.Operation.replace, difference.getOperation());
+    }
+
+    @Test
+    public void testEqualObjectsHaveNoDifferences() {
+        Invoice first = invoice(List.of(line("a", 1)));
+        Invoice second = invoice(List.of(line("a", 1)));
+
+        assertTrue(Differentiator.builder().build().between(first, second).isEmpty());
+    }
+
+    @Test
+    public void testGeneratedDifferencesReachTarget() {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            Invoice first = randomInvoice(random);
+            Invoice second = randomInvoice(random);
+
+            Differences differences = Differentiator.builder().build().between(first, second);
+
+            JsonNode expected = mapper.valueToTree(second);
+            ((ObjectNode) expected).put("revision", first.getRevision());
+            assertEquals(expected, mapper.valueToTree(differences.applyTo(first)),
+                    "Differences do not reach the target [differences=" + differences + "]");
+            Invoice patched = TypePatchers.apply(differences.toJsonNode(), first);
+            assertNotNull(patched, "Expected the generated patcher to apply " + differences);
+            assertEquals(expected, mapper.valueToTree(patched));
+        }
+    }
+
+    @Test
+    public void testGeneratedPatcherIsRegistered() {
+        assertNotNull(TypePatchers.find(new Invoice()));
+        assertNotNull(TypePatchers.find(new Address("Paris", "1")));
+        // The private field behind @JsonProperty("code") cannot be written without reflection
+        assertNull(TypePatchers.find(new Account()));
+        // Jackson writes the type differently from its properties
+        assertNull(TypePatchers.find(new Contact()));
+    }
+
+    @Test
+    public void testGeneratedPatcherCopiesOnWrite() {
+        Invoice invoice = invoice(List.of(line("a", 1), line("b", 1)));
+        invoice.setAddress(new Address("Paris", "1"));
+        invoice.setNotes(List.of("n"));
+        Differences differences = Differences.parse("[{\"op\":\"replace\",\"path\":\"/address/zip_code\",\"value\":\"2\"},"
+                + "{\"op\":\"test\",\"path\":\"/customer\",\"value\":\"acme\"},"
+                + "{\"op\":\"remove\",\"path\":\"/lines/0\"},{\"op\":\"replace\",\"path\":\"/paid\",\"value\":true}]");
+
+        Invoice patched = TypePatchers.apply(differences.toJsonNode(), invoice);
+
+        assertNotNull(patched);
+        assertEquals(new Address("Paris", "2"), patched.getAddress());
+        assertEquals(List.of(line("b", 1)), patched.getLines());
+        assertTrue(patched.isPaid());
+        assertSame(invoice.getNotes(), patched.getNotes());
+        assertEquals(new Address("Paris", "1"), invoice.getAddress());
+        assertEquals(2, invoice.getLines().size());
+        assertFalse(invoice.isPaid());
+    }
+
+    @Test
+    public void testOperationsAcrossPropertiesArePatchedThroughJackson() {
+        Invoice invoice = invoice(List.of());
+        Differences differences = Differences.parse("[{\"op\":\"move\",\"from\":\"/customer\",\"path\":\"/revision\"}]");
+
+        assertNull(TypePatchers.apply(differences.toJsonNode(), invoice));
+        Invoice patched = differences.applyTo(invoice);
+        assertEquals("acme", patched.getRevision());
+        assertNull(patched.getCustomer());
+    }
+
+    @Test
+    public void testFieldsAndAnnotatedMembersFollowJackson() {
+        Account first = new Account();
+        first.owner = "a";
+        first.session = "1";
+        first.balance = 1;
+        first.code = "x";
+        Account second = new Account();
+        second.owner = "b";
+        second.session = "2";
+        second.balance = 2;
+        second.code = "y";
+
+        Differences differences = Differentiator.builder().build().between(first, second);
+
+        assertNotNull(TypeDiffers.find(first, second));
+        assertEquals(operations(Differences.between(first, second, List.of())), operations(differences));
+        assertEquals(List.of("replace /balance", "replace /code", "replace /owner"), operations(differences));
+    }
+
+    @Test
+    public void testRemappedTypesAreComparedAsWritten() {
+        Contact first = new Contact();
+        first.name = "a";
+        Contact second = new Contact();
+        second.name = "a";
+        second.email = "a@example.com";
+
+        Differences differences = Differentiator.builder().build().between(first, second);
+
+        assertNotNull(TypeDiffers.find(first, second));
+        assertEquals(List.of("add /email"), operations(differences));
+        assertEquals(operations(Differences.between(second, first, List.of())), operations(Differentiator.builder().build().between(second, first)));
+    }
+
+    @Test
+    public void testPrivateAnnotatedFieldIsAnError() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("example.Hidden",
+                "package example; @com.inqwise.difference.Diffable public class Hidden {"
+                        + " @com.fasterxml.jackson.annotation.JsonProperty private int secret; }");
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(null).contains("cannot be read without reflection"), errors.get(0).getMessage(null));
+        assertTrue(Files.notExists(sources.resolve("example/HiddenDiffer.java")));
+    }
+
+    @Test
+    public void testIncrementalCompilationKeepsRegisteredDiffers() throws IOException {
+        assertTrue(compile("example.First", "package example; @com.inqwise.difference.Diffable public record First(int a) {}").isEmpty());
+        assertTrue(compile("example.Second", "package example; @com.inqwise.difference.Diffable public record Second(int b) {}").isEmpty());
+
+        assertEquals(List.of("example.FirstDiffer", "example.SecondDiffer"),
+                Files.readAllLines(classes.resolve("META-INF/services/" + TypeDiffer.class.getName())));
+    }
+
+    /**
+     * Compiles a single source file with the processor into the shared output directory.
+     *
+     * @return the error diagnostics.
+     */
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, String source) throws IOException {
+        Path file = sources.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of("-d", classes.toString(), "-s", sources.toString(),
+                    "-classpath", classes + File.pathSeparator + System.getProperty("java.class.path"),
+                    "-processor", DiffableProcessor.class.getName());
+            compiler.getTask(null, files, diagnostics, options, null, files.getJavaFileObjects(file)).call();
+        }
+        return diagnostics.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).toList();
+    }
+
+    private static List<String> operations(Differences differences) {
+        return differences.stream().map(d -> d.getOperation() + " " + d.getPath()).sorted().toList();
+    }
+
+    private static Invoice invoice(List<Line> lines) {
+        Invoice invoice = new Invoice();
+        invoice.setId(1);
+        invoice.setCustomer("acme");
+        invoice.setLines(new ArrayList<>(lines));
+        return invoice;
+    }
+
+    private static Line line(String sku, int quantity) {
+        return new Line(sku, quantity, 1.5, Map.of());
+    }
+
+    private static Invoice randomInvoice(Random random) {
+        Invoice invoice = new Invoice();
+        invoice.setId(random.nextInt(2));
+        invoice.setPaid(random.nextBoolean());
+        invoice.setCustomer(random.nextBoolean() ? "acme" : null);
+        invoice.setAddress(random.nextBoolean() ? new Address(random.nextBoolean() ? "Paris" : "Rome", "1") : null);
+        invoice.setShipping(random.nextBoolean() ? new Address("Oslo", random.nextBoolean() ? "1" : "2") : null);
+        if (random.nextInt(4) != 0) {
+            List<Line> lines = new ArrayList<>();
+            for (String sku : List.of("a", "b", "c", "d")) {
+                if (random.nextBoolean()) {
+                    lines.add(new Line(sku, random.nextInt(2), random.nextInt(2) * 0.5,
+                            random.nextBoolean() ? Map.of("color", random.nextBoolean() ? "red" : "blue") : Map.of()));
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                Collections.shuffle(lines, random);
+            }
+            invoice.setLines(lines);
+        }
+        invoice.setNotes(random.nextBoolean() ? List.of("n" + random.nextInt(2)) : null);
+        invoice.setRevision(Integer.toString(random.nextInt(3)));
+        return invoice;
+    }
+}
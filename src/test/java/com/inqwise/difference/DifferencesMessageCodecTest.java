@@ -0,0 +1,106 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+public class DifferencesMessageCodecTest {
+
+    private static final DifferencesMessageCodec codec = new DifferencesMessageCodec();
+
+    @Test
+    public void testWireRoundTrip() {
+        JsonObject first = new JsonObject()
+                .put("name", "café")
+                .put("count", -3)
+                .put("big", Long.MIN_VALUE)
+                .put("huge", new BigInteger("123456789012345678901234567890"))
+                .put("ratio", 0.25)
+                .put("items", new JsonArray().add(1).add("x").addNull().add(true))
+                .put("nested", new JsonObject().put("a", new JsonObject().put("b", false)));
+        JsonObject second = new JsonObject()
+                .put("name", "tea")
+                .put("count", 3)
+                .put("items", new JsonArray().add(2))
+                .put("nested", new JsonObject().put("a", 1))
+                .put("added", new JsonObject().put("k", new JsonArray().add(1.5)));
+        Differences differences = Differences.between(first, second, List.of());
+
+        Buffer buffer = Buffer.buffer().appendString("header");
+        codec.encodeToWire(buffer, differences);
+        Differences decoded = codec.decodeFromWire(6, buffer);
+
+        assertEquals(differences.toString(), decoded.toString());
+        assertTrue(buffer.length() - 6 < differences.toString().length(), "Expected the binary form to be smaller than JSON text");
+    }
+
+    @Test
+    public void testNullAndAbsentValuesRoundTrip() {
+        Differences differences = Differences.parse("[{\"op\":\"add\",\"path\":\"/a\",\"value\":null},"
+                + "{\"op\":\"remove\",\"path\":\"/b\"}]");
+
+        Buffer buffer = Buffer.buffer();
+        codec.encodeToWire(buffer, differences);
+        Differences decoded = codec.decodeFromWire(0, buffer);
+
+        assertEquals(differences.toString(), decoded.toString());
+        assertEquals(new JsonObject().put("a", null), decoded.applyTo(new JsonObject().put("b", 1)));
+        assertThrows(IllegalStateException.class, decoded::invert);
+    }
+
+    @Test
+    public void testMoveOperationsRoundTrip() {
+        Differences differences = Differences.parse("[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b\"},{\"op\":\"remove\",\"path\":\"/c\"}]");
+
+        Buffer buffer = Buffer.buffer();
+        codec.encodeToWire(buffer, differences);
+
+        assertEquals(differences.toString(), codec.decodeFromWire(0, buffer).toString());
+    }
+
+    @Test
+    public void testWireFormatIsVersioned() {
+        Differences differences = Differences.parse("[{\"op\":\"text\",\"path\":\"/a\",\"value\":[1]},{\"op\":\"add\",\"path\":\"/b\",\"value\":1}]");
+
+        Buffer buffer = Buffer.buffer();
+        codec.encodeToWire(buffer, differences);
+
+        assertEquals(DifferencesMessageCodec.VERSION, buffer.getByte(0));
+        assertEquals(2, buffer.getByte(1));
+        assertEquals(6, buffer.getByte(2), "Expected the fixed code of text");
+
+        Buffer future = buffer.copy();
+        future.setByte(0, (byte) (DifferencesMessageCodec.VERSION + 1));
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeFromWire(0, future));
+
+        Buffer unknown = buffer.copy();
+        unknown.setByte(2, (byte) 42);
+        assertThrows(IllegalArgumentException.class, () -> codec.decodeFromWire(0, unknown));
+    }
+
+    @Test
+    public void testLocalDeliveryIsZeroCopy(Vertx vertx, VertxTestContext testContext) {
+        Differences differences = Differences.between(new JsonObject().put("a", 1), new JsonObject().put("a", 2), List.of());
+        vertx.eventBus().registerDefaultCodec(Differences.class, codec);
+
+        vertx.eventBus().<Differences>consumer("differences", message -> testContext.verify(() -> {
+            assertSame(differences, message.body());
+            testContext.completeNow();
+        })).completion().onComplete(testContext.succeeding(v -> vertx.eventBus().send("differences", differences)));
+    }
+}
@@ -1,11 +1,17 @@
 package com.inqwise.difference;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.stream.IntStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -149,6 +155,93 @@ public class DifferencesTest {
         Assertions.assertFalse(diffs2.isEmpty(), diffs2.toString());
     }
 
+    @Test
+    public void testDifferentiatorCompiledOnce() {
+        JsonObject json1 = readJson("test_silent_fields1.json");
+        JsonObject json2 = readJson("test_silent_fields2.json");
+        List<String> silentFields = Lists.newArrayList("modify_date");
+        Differentiator differentiator = Differentiator.builder().withSilentFields(silentFields).withCompositeFields(List.of("a.b")).build();
+        String expected = Differences.between(json1, json2, silentFields, List.of("a.b")).toString();
+
+        silentFields.add("**.modify_date");
+
+        List<String> results = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> differentiator.between(json1.copy(), json2.copy()).toString())
+                .toList();
+        results.forEach(result -> Assertions.assertEquals(expected, result));
+        Assertions.assertEquals(expected, differentiator.generatedComparators(true).between(json1, json2).toString());
+    }
+
+    @Test
+    public void testPatchBackedDifferences() {
+        String patch = "[{\"op\":\"replace\",\"path\":\"/s1\",\"value\":\"b\",\"fromValue\":\"a\"},{\"op\":\"remove\",\"path\":\"/i1\"}]";
+        Differences lazy = Differences.parse(patch);
+        Differences eager = new Differences(Lists.newArrayList(Differences.parse(patch)));
+
+        Assertions.assertEquals(2, lazy.size());
+        Assertions.assertEquals(eager.toString(), lazy.toString());
+        Map<String, Object> applied = lazy.applyTo(new HashMap<>(Map.of("i1", 1, "s1", "a")));
+        Assertions.assertEquals(Map.of("s1", "b"), applied);
+
+        lazy.iterator().next().setValue("c");
+        Assertions.assertEquals(Map.of("s1", "c"), lazy.applyTo(new HashMap<>(Map.of("i1", 1, "s1", "a"))));
+        Assertions.assertTrue(lazy.toString().contains("\"value\":\"c\""), lazy.toString());
+    }
+
+    @Test
+    public void testPatchBackedDifferencesCanBeRemoved() {
+        Differences differences = Differences.parse(
+                "[{\"op\":\"replace\",\"path\":\"/s1\",\"value\":\"b\",\"fromValue\":\"a\"},{\"op\":\"remove\",\"path\":\"/i1\"}]");
+
+        Iterator<Differences.Difference> iterator = differences.iterator();
+        iterator.next();
+        iterator.remove();
+
+        Assertions.assertEquals(1, differences.size());
+        Assertions.assertEquals(Map.of("s1", "a"), differences.applyTo(new HashMap<>(Map.of("i1", 1, "s1", "a"))));
+        Assertions.assertFalse(differences.toString().contains("/s1"), differences.toString());
+        Assertions.assertEquals("/i1", differences.stream().findFirst().orElseThrow().getPath());
+    }
+
+    @Test
+    public void testAbsentValuesSurviveRoundTrip() {
+        String patch = "[{\"path\":\"/a\",\"op\":\"remove\"},{\"path\":\"/b\",\"value\":1,\"op\":\"replace\"},"
+                + "{\"path\":\"/c\",\"from\":\"/d\",\"op\":\"move\"}]";
+        Differences lazy = Differences.parse(patch);
+        Differences accessed = Differences.parse(patch);
+        accessed.iterator().next();
+
+        for (Differences differences : List.of(lazy, accessed)) {
+            Assertions.assertEquals(patch, differences.toString());
+            Differences roundTripped = Differences.parse(differences.toString());
+            Assertions.assertThrows(IllegalStateException.class, roundTripped::invert);
+        }
+
+        JsonObject first = new JsonObject().put("a", 1).put("b", "x");
+        JsonObject second = new JsonObject().put("b", "y");
+        Differences computed = Differences.between(first, second, List.of());
+        Assertions.assertEquals(first, Differences.parse(computed.toString()).invert().applyTo(second));
+    }
+
+    @Test
+    public void testStreamedDifferencesMatchToString() throws IOException {
+        JsonObject json1 = readJson("test_silent_fields1.json");
+        JsonObject json2 = readJson("test_silent_fields2.json");
+        ModelBase model1 = new ModelBase(1, "a", List.of(new SubModel(1, "x", List.of())));
+        ModelBase model2 = new ModelBase(2, "b", List.of());
+
+        for (Differences differences : List.of(Differences.between(json1, json2, List.of()),
+                Differences.between(model1, model2, List.of()),
+                Differences.between(json1.getMap(), json2.getMap(), List.of("modify_date")))) {
+            String eager = new Differences(Lists.newArrayList(differences)).toString();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            differences.writeTo(out);
+
+            Assertions.assertEquals(eager, out.toString(StandardCharsets.UTF_8));
+            Assertions.assertEquals(eager, differences.toString());
+        }
+    }
+
     static String readFile(String relativePath) {
         try (InputStream resourceAsStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(relativePath);
              Scanner scanner = new Scanner(resourceAsStream, "UTF-8")) {
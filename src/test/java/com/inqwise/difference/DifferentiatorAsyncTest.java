@@ -0,0 +1,113 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+@ExtendWith(VertxExtension.class)
+public class DifferentiatorAsyncTest {
+
+    @Test
+    public void testSmallDiffRunsInline() {
+        JsonObject first = new JsonObject().put("a", 1);
+        JsonObject second = new JsonObject().put("a", 2);
+
+        Future<Differences> future = Differentiator.builder().build().betweenAsync(first, second);
+
+        assertTrue(future.succeeded(), "Expected a completed future");
+        assertEquals(1, future.result().size());
+    }
+
+    @Test
+    public void testLargeDiffRunsOnWorkerPool(Vertx vertx, VertxTestContext testContext) {
+        JsonObject first = document(200, 0);
+        JsonObject second = document(200, 1);
+        Differentiator differentiator = Differentiator.builder().withSilentFields(List.of("b")).build();
+        Differences expected = differentiator.between(first, second);
+
+        vertx.runOnContext(v -> {
+            Context context = Vertx.currentContext();
+            Future<Differences> future = differentiator.betweenAsync(first, second);
+            future.onComplete(testContext.succeeding(differences -> testContext.verify(() -> {
+                assertSame(context, Vertx.currentContext(), "Expected the result on the calling context");
+                assertEquals(expected.toString(), differences.toString());
+                testContext.completeNow();
+            })));
+        });
+    }
+
+    @Test
+    public void testVirtualThreads(Vertx vertx, VertxTestContext testContext) {
+        JsonObject first = document(200, 0);
+        JsonObject second = document(200, 1);
+        Differentiator differentiator = Differentiator.builder().withVertx(vertx).withVirtualThreads(true).build();
+        Differences expected = differentiator.between(first, second);
+
+        differentiator.betweenAsync(first, second).onComplete(testContext.succeeding(differences -> testContext.verify(() -> {
+            assertEquals(expected.toString(), differences.toString());
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void testCompletionStageWithoutVertx() throws Exception {
+        JsonObject first = document(10, 0);
+        JsonObject second = document(10, 1);
+        Differentiator differentiator = Differentiator.builder().withInlineThreshold(0).build();
+
+        Differences differences = differentiator.betweenAsyncStage(first, second).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertEquals(differentiator.between(first, second).toString(), differences.toString());
+    }
+
+    @Test
+    public void testFailuresAreNotWrapped(Vertx vertx, VertxTestContext testContext) throws Exception {
+        Unreadable first = new Unreadable();
+        Unreadable second = new Unreadable();
+        Class<?> expected = assertThrows(RuntimeException.class, () -> Differentiator.builder().build().between(first, second)).getClass();
+
+        Throwable staged = Differentiator.builder().build().betweenAsyncStage(first, second)
+                .handle((differences, e) -> e).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(expected, staged.getClass());
+
+        Differentiator.builder().withVertx(vertx).withVirtualThreads(true).build().betweenAsync(first, second)
+                .onComplete(testContext.failing(virtual -> testContext.verify(() -> {
+                    assertEquals(expected, virtual.getClass());
+                    Differentiator.builder().withVertx(vertx).build().betweenAsync(first, second)
+                            .onComplete(testContext.failing(pooled -> testContext.verify(() -> {
+                                assertEquals(expected, pooled.getClass());
+                                testContext.completeNow();
+                            })));
+                })));
+    }
+
+    /** A bean whose property cannot be read. */
+    public static class Unreadable {
+        public String getValue() {
+            throw new IllegalStateException("Unreadable");
+        }
+    }
+
+    private static JsonObject document(int size, int seed) {
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < size; i++) {
+            items.add(new JsonObject().put("id", i).put("value", i % 7 == 0 ? seed : 0));
+        }
+        return new JsonObject().put("items", items).put("b", seed);
+    }
+}
@@ -1,8 +1,10 @@
 package com.inqwise.difference;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
@@ -57,6 +59,62 @@ public class JsonDiffTest {
         }
     }
 
+    @Test
+    public void testStreamedDiffsMatchJsonNodes() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = random.nextBoolean() ? DiffFlags.defaults() : EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+            Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            diffs.writeTo(out);
+
+            Assertions.assertEquals(diffs.getJsonNodes(), objectMapper.readTree(out.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testFrontCodedPointersMatchPlainPatch() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+            JsonNode plain = JsonDiff.asJson(first, second, flags);
+            flags.add(DiffFlags.FRONT_CODED_POINTERS);
+            Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+            JsonNode patch = diffs.getJsonNodes();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            diffs.writeTo(out);
+
+            Assertions.assertEquals(patch, objectMapper.readTree(out.toByteArray()));
+            Assertions.assertEquals(plain, PointerCoding.expand(patch));
+            Assertions.assertEquals(second, JsonPatch.apply(patch, first));
+            Assertions.assertEquals(first, JsonPatch.apply(JsonPatch.invert(patch), second));
+            Assertions.assertEquals(plain, Diffs.parse(patch).getJsonNodes());
+            Assertions.assertEquals(new Differences(plain).toString(), new Differences(patch).toString());
+            Assertions.assertTrue(patch.toString().length() <= plain.toString().length(),
+                    "Expected front-coded pointers to be no longer than plain pointers");
+        }
+    }
+
+    @Test
+    public void testFrontCodedPointerSharesPreviousPath() throws IOException {
+        JsonNode source = objectMapper.readTree("{\"items\":{\"first\":{\"c\":1,\"d\":2}}}");
+        JsonNode target = objectMapper.readTree("{\"items\":{\"first\":{\"c\":3,\"d\":4}}}");
+
+        JsonNode patch = JsonDiff.asJson(source, target, EnumSet.of(DiffFlags.FRONT_CODED_POINTERS));
+
+        Assertions.assertEquals("/items/first/c", patch.get(0).get("path").textValue());
+        Assertions.assertEquals(objectMapper.readTree("[2,\"/d\"]"), patch.get(1).get("path"));
+        Assertions.assertEquals(target, JsonPatch.apply(patch, source));
+        Assertions.assertThrows(InvalidJsonPatchException.class,
+                () -> JsonPatch.validate(objectMapper.readTree("[{\"op\":\"remove\",\"path\":[1,\"/a\"]}]")));
+    }
+
     @Test
     public void testRenderedRemoveOperationOmitsValueByDefault() {
         ObjectNode source = objectMapper.createObjectNode();
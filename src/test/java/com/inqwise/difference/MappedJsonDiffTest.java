@@ -0,0 +1,144 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class MappedJsonDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private Path write(String name, JsonNode value, boolean pretty) throws IOException {
+        Path path = directory.resolve(name);
+        Files.write(path, pretty ? mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(value) : mapper.writeValueAsBytes(value));
+        return path;
+    }
+
+    private static JsonNode mutate(Random random, JsonNode records) {
+        ArrayNode result = (ArrayNode) records.deepCopy();
+        for (int edits = random.nextInt(5); edits > 0 && !result.isEmpty(); edits--) {
+            int index = random.nextInt(result.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    result.remove(index);
+                    break;
+                case 1:
+                    result.insert(index, TestDataGenerator.generate(1).get(0));
+                    break;
+                default:
+                    ((ObjectNode) result.get(index)).put("age", random.nextInt(100)).remove("gender");
+                    break;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testMatchesJsonDiffWithoutCopies() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 300; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = random.nextBoolean() ? mutate(random, first) : TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = random.nextBoolean() ? EnumSet.of(DiffFlags.OMIT_VALUE_ON_REMOVE, DiffFlags.OMIT_COPY_OPERATION)
+                    : EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.EMIT_TEST_OPERATIONS, DiffFlags.OMIT_COPY_OPERATION);
+
+            Diffs diffs = new MappedJsonDiff(JsonDiff.create(flags, List.of()), 4 + random.nextInt(8))
+                    .compare(write("first.json", first, false), write("second.json", second, false));
+
+            assertEquals(JsonDiff.asJson(first, second, flags), diffs.getJsonNodes());
+        }
+    }
+
+    @Test
+    public void testReorderedMembersMatchJsonDiff() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 100; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = reorder(random, mutate(random, first));
+            EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.OMIT_VALUE_ON_REMOVE, DiffFlags.OMIT_COPY_OPERATION);
+
+            Diffs diffs = new MappedJsonDiff(JsonDiff.create(flags, List.of()))
+                    .compare(write("first.json", first, false), write("second.json", second, false));
+
+            assertEquals(JsonDiff.asJson(first, second, flags), diffs.getJsonNodes());
+        }
+    }
+
+    /**
+     * Writes the members of each record in a random order.
+     */
+    private static JsonNode reorder(Random random, JsonNode records) {
+        ArrayNode result = mapper.createArrayNode();
+        for (JsonNode record : records) {
+            List<String> names = new ArrayList<>();
+            record.fieldNames().forEachRemaining(names::add);
+            Collections.shuffle(names, random);
+            ObjectNode reordered = result.addObject();
+            for (String name : names) {
+                reordered.set(name, record.get(name));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testFormattedFiles() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 100; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = random.nextBoolean() ? mutate(random, first) : TestDataGenerator.generate(random.nextInt(10));
+
+            JsonNode patch = JsonDiff.asJson(write("first.json", first, random.nextBoolean()), write("second.json", second, random.nextBoolean()));
+
+            assertEquals(second, JsonPatch.apply(patch, first));
+        }
+    }
+
+    @Test
+    public void testLargeFileWithFewChanges() throws IOException {
+        ObjectNode first = mapper.createObjectNode();
+        first.put("version", 1);
+        first.set("records", TestDataGenerator.generate(5000));
+        first.put("note", "café \"quoted\" [brackets] {braces}");
+        ObjectNode second = first.deepCopy();
+        second.put("version", 2);
+        ((ArrayNode) second.get("records")).remove(2500);
+        ((ObjectNode) second.get("records").get(4000)).put("name", "changed");
+
+        JsonNode patch = JsonDiff.asJson(write("first.json", first, true), write("second.json", second, false));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/version\",\"value\":2},{\"op\":\"remove\",\"path\":\"/records/2500\"},"
+                + "{\"op\":\"replace\",\"path\":\"/records/4000/name\",\"value\":\"changed\"}]"), patch);
+    }
+
+    @Test
+    public void testMalformedFilesAreRejected() throws IOException {
+        Path valid = write("valid.json", mapper.readTree("{\"a\":[1,2]}"), false);
+
+        for (String malformed : new String[] { "", "{\"a\":[1,2}", "{\"a\":[1,2]]", "{\"a\" [1,2]}", "{\"a\":\"b}", "{\"a\":1} 2" }) {
+            Path path = directory.resolve("malformed.json");
+            Files.writeString(path, malformed);
+            assertThrows(JsonParseException.class, () -> JsonDiff.asJson(valid, path), malformed);
+        }
+    }
+}
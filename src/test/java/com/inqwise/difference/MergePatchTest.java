@@ -0,0 +1,159 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class MergePatchTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Applies a merge patch as specified by the pseudo code of RFC 7396.
+     */
+    private static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target.isObject() ? ((ObjectNode) target).deepCopy() : mapper.createObjectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext();) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), merge(result.path(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode applyStreaming(JsonNode patch, JsonNode source) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonParser parser = mapper.createParser(source.toString()); JsonGenerator generator = mapper.createGenerator(out)) {
+            JsonMergePatch.apply(patch, parser, generator);
+        }
+        return mapper.readTree(out.toString());
+    }
+
+    private static JsonNode keyed(JsonNode records) {
+        ObjectNode keyed = mapper.createObjectNode();
+        for (int i = 0; i < records.size(); i++) {
+            keyed.set("k" + i, records.get(i));
+        }
+        return keyed;
+    }
+
+    @Test
+    public void testRfcExample() throws IOException {
+        JsonNode source = mapper.readTree("{\"title\":\"Goodbye!\",\"author\":{\"givenName\":\"John\",\"familyName\":\"Doe\"},"
+                + "\"tags\":[\"example\",\"sample\"],\"content\":\"This will be unchanged\"}");
+        JsonNode target = mapper.readTree("{\"title\":\"Hello!\",\"author\":{\"givenName\":\"John\"},"
+                + "\"tags\":[\"example\"],\"content\":\"This will be unchanged\",\"phoneNumber\":\"+01-123-456-7890\"}");
+
+        JsonNode patch = JsonDiff.asMergePatch(source, target, EnumSet.of(DiffFlags.OMIT_COMPOSITE_ARRAY), List.of());
+
+        assertEquals(mapper.readTree("{\"title\":\"Hello!\",\"author\":{\"familyName\":null},\"tags\":[\"example\"],"
+                + "\"phoneNumber\":\"+01-123-456-7890\"}"), patch);
+        assertEquals(target, merge(source, patch));
+    }
+
+    @Test
+    public void testInexpressibleChangesAreReported() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":1,\"b\":[1,2],\"c\":{\"d\":1}}");
+
+        assertNull(JsonDiff.asMergePatch(source, mapper.readTree("{\"a\":null,\"b\":[1,2],\"c\":{\"d\":1}}")));
+        assertNull(JsonDiff.asMergePatch(source, mapper.readTree("{\"a\":1,\"b\":[1,3],\"c\":{\"d\":1}}")));
+        assertNull(JsonDiff.asMergePatch(source, mapper.readTree("{\"a\":{\"e\":null},\"b\":[1,2],\"c\":{\"d\":1}}")));
+        assertEquals(mapper.readTree("{\"b\":[1,3]}"),
+                JsonDiff.asMergePatch(source, mapper.readTree("{\"a\":1,\"b\":[1,3],\"c\":{\"d\":1}}"), DiffFlags.defaults(), List.of("/b")));
+        assertEquals(mapper.readTree("{\"c\":{\"d\":[null]}}"),
+                JsonDiff.asMergePatch(source, mapper.readTree("{\"a\":1,\"b\":[1,2],\"c\":{\"d\":[null]}}")));
+    }
+
+    @Test
+    public void testUnchangedDocuments() throws IOException {
+        JsonNode object = mapper.readTree("{\"a\":1,\"b\":null}");
+        JsonNode array = mapper.readTree("[1,2]");
+
+        assertEquals(mapper.createObjectNode(), JsonDiff.asMergePatch(object, object.deepCopy()));
+        assertEquals(array, JsonDiff.asMergePatch(array, array.deepCopy()));
+        assertNull(JsonDiff.asMergePatch(array, object));
+        assertEquals(array, JsonDiff.asMergePatch(object, array));
+    }
+
+    @Test
+    public void testApplicationMatchesRfc() throws IOException {
+        String[][] cases = {
+                { "{\"a\":\"b\"}", "{\"a\":\"c\"}" },
+                { "{\"a\":\"b\"}", "{\"b\":\"c\"}" },
+                { "{\"a\":\"b\"}", "{\"a\":null}" },
+                { "{\"a\":\"b\",\"b\":\"c\"}", "{\"a\":null}" },
+                { "{\"a\":[\"b\"]}", "{\"a\":\"c\"}" },
+                { "{\"a\":\"c\"}", "{\"a\":[\"b\"]}" },
+                { "{\"a\":{\"b\":\"c\"}}", "{\"a\":{\"b\":\"d\",\"c\":null}}" },
+                { "{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}" },
+                { "[\"a\",\"b\"]", "[\"c\",\"d\"]" },
+                { "{\"a\":\"b\"}", "[\"c\"]" },
+                { "{\"a\":\"foo\"}", "null" },
+                { "{\"a\":\"foo\"}", "\"bar\"" },
+                { "{\"e\":null}", "{\"a\":1}" },
+                { "[1,2]", "{\"a\":\"b\",\"c\":null}" },
+                { "{}", "{\"a\":{\"bb\":{\"ccc\":null}}}" } };
+        for (String[] test : cases) {
+            JsonNode source = mapper.readTree(test[0]);
+            JsonNode patch = mapper.readTree(test[1]);
+            JsonNode expected = merge(source, patch);
+
+            assertEquals(expected, JsonMergePatch.apply(patch, source));
+            assertEquals(mapper.readTree(test[0]), source);
+            assertEquals(expected, applyStreaming(patch, source));
+            assertEquals(expected, JsonMergePatch.applyInPlace(patch, source));
+        }
+    }
+
+    @Test
+    public void testUntouchedValuesAreShared() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":{\"b\":{\"c\":1},\"d\":[1]},\"e\":{\"f\":2}}");
+
+        JsonNode result = JsonMergePatch.apply(mapper.readTree("{\"a\":{\"b\":{\"c\":3}}}"), source);
+
+        assertSame(source.get("e"), result.get("e"));
+        assertSame(source.get("a").get("d"), result.get("a").get("d"));
+        assertEquals(1, source.get("a").get("b").get("c").intValue());
+        assertEquals(3, result.get("a").get("b").get("c").intValue());
+    }
+
+    @Test
+    public void testGeneratedMergePatches() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonNode first = keyed(TestDataGenerator.generate(random.nextInt(10)));
+            JsonNode second = keyed(TestDataGenerator.generate(random.nextInt(10)));
+
+            JsonNode patch = JsonDiff.asMergePatch(first, second, EnumSet.of(DiffFlags.OMIT_COMPOSITE_ARRAY), List.of());
+
+            assertNotNull(patch);
+            assertEquals(second, merge(first, patch));
+            assertEquals(second, JsonMergePatch.apply(patch, first));
+            assertEquals(second, applyStreaming(patch, first));
+            assertEquals(second, JsonMergePatch.applyInPlace(patch, first));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class NdjsonDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private static InputStream ndjson(List<JsonNode> records) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode record : records) {
+            text.append(record).append('\n');
+        }
+        return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<RecordChange> diff(NdjsonDiff diff, List<JsonNode> source, List<JsonNode> target) throws IOException {
+        List<RecordChange> changes = new ArrayList<>();
+        diff.compare(ndjson(source), ndjson(target), changes::add);
+        return changes;
+    }
+
+    private static ObjectNode record(int id, JsonNode value) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("id", id);
+        record.setAll((ObjectNode) value);
+        return record;
+    }
+
+    @Test
+    public void testGeneratedSnapshots() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 30; i++) {
+            Map<String, JsonNode> sourceRecords = new TreeMap<>();
+            Map<String, JsonNode> targetRecords = new TreeMap<>();
+            JsonNode generated = TestDataGenerator.generate(300);
+            for (int id = 0; id < generated.size(); id++) {
+                ObjectNode record = record(id, generated.get(id));
+                switch (random.nextInt(6)) {
+                    case 0:
+                        sourceRecords.put(String.valueOf(id), record);
+                        break;
+                    case 1:
+                        targetRecords.put(String.valueOf(id), record);
+                        break;
+                    case 2:
+                        sourceRecords.put(String.valueOf(id), record);
+                        targetRecords.put(String.valueOf(id), record(id, TestDataGenerator.generate(1).get(0)));
+                        break;
+                    default:
+                        sourceRecords.put(String.valueOf(id), record);
+                        targetRecords.put(String.valueOf(id), record.deepCopy());
+                        break;
+                }
+            }
+            List<JsonNode> source = new ArrayList<>(sourceRecords.values());
+            List<JsonNode> target = new ArrayList<>(targetRecords.values());
+            Collections.shuffle(source, random);
+            Collections.shuffle(target, random);
+            NdjsonDiff diff = NdjsonDiff.builder().withRunSize(1 + random.nextInt(50)).withParallelism(1 + random.nextInt(4))
+                    .withTempDirectory(directory).build();
+
+            List<RecordChange> changes = diff(diff, source, target);
+
+            Map<String, JsonNode> patched = new TreeMap<>(sourceRecords);
+            String previous = null;
+            for (RecordChange change : changes) {
+                String key = change.getKey().toString();
+                if (previous != null) {
+                    assertEquals(-1, Integer.signum(previous.compareTo(key)), "Expected changes in key order");
+                }
+                previous = key;
+                switch (change.getType()) {
+                    case ADDED:
+                        assertNull(patched.put(key, change.getRecord()));
+                        break;
+                    case REMOVED:
+                        assertEquals(patched.remove(key), change.getRecord());
+                        break;
+                    default:
+                        patched.put(key, JsonPatch.apply(change.getPatch(), patched.get(key)));
+                        break;
+                }
+            }
+            assertEquals(targetRecords, patched);
+            try (var files = Files.list(directory)) {
+                assertEquals(0, files.count(), "Expected the temporary files to be deleted");
+            }
+        }
+    }
+
+    @Test
+    public void testChangesAsNdjson() throws IOException {
+        List<JsonNode> source = List.of(mapper.readTree("{\"id\":\"b\",\"v\":1}"), mapper.readTree("{\"id\":\"a\",\"v\":1}"),
+                mapper.readTree("{\"v\":2,\"id\":\"c\"}"));
+        List<JsonNode> target = List.of(mapper.readTree("{\"id\":\"c\",\"v\":2}"), mapper.readTree("{\"id\":\"d\",\"v\":1}"),
+                mapper.readTree("{\"id\":\"b\",\"v\":3}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        NdjsonDiff.builder().withRunSize(2).withTempDirectory(directory).build().compare(ndjson(source), ndjson(target), out);
+
+        assertEquals("{\"change\":\"removed\",\"key\":\"a\",\"record\":{\"id\":\"a\",\"v\":1}}\n"
+                + "{\"change\":\"changed\",\"key\":\"b\",\"patch\":[{\"op\":\"replace\",\"path\":\"/v\",\"value\":3}]}\n"
+                + "{\"change\":\"added\",\"key\":\"d\",\"record\":{\"id\":\"d\",\"v\":1}}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDuplicateKeysAcrossIndexBlocks() throws IOException {
+        List<JsonNode> source = new ArrayList<>();
+        List<JsonNode> target = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int id = i < 2000 ? 5 : i;
+            source.add(mapper.createObjectNode().put("id", id).put("v", i));
+            target.add(mapper.createObjectNode().put("id", id).put("v", i + 1));
+        }
+        for (int parallelism : new int[] { 2, 4, 8 }) {
+            NdjsonDiff diff = NdjsonDiff.builder().withRunSize(5000).withParallelism(parallelism).withTempDirectory(directory).build();
+
+            List<RecordChange> changes = diff(diff, source, target);
+
+            assertEquals(3000, changes.size());
+            List<RecordChange> duplicates = changes.stream().filter(change -> change.getKey().asInt() == 5).toList();
+            assertEquals(2000, duplicates.size());
+            for (int i = 0; i < duplicates.size(); i++) {
+                assertEquals(RecordChange.Type.CHANGED, duplicates.get(i).getType());
+                assertEquals(target.get(i), JsonPatch.apply(duplicates.get(i).getPatch(), source.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testFailingSinkDeletesTemporaryFiles() throws IOException {
+        JsonNode generated = TestDataGenerator.generate(2000);
+        List<JsonNode> source = new ArrayList<>();
+        List<JsonNode> target = new ArrayList<>();
+        for (int id = 0; id < generated.size(); id++) {
+            source.add(record(id, generated.get(id)));
+            target.add(record(id, TestDataGenerator.generate(1).get(0)));
+        }
+        NdjsonDiff diff = NdjsonDiff.builder().withRunSize(100).withParallelism(4).withTempDirectory(directory).build();
+
+        IOException failure = assertThrows(IOException.class, () -> diff.compare(ndjson(source), ndjson(target), change -> {
+            throw new IOException("Sink failed");
+        }));
+
+        assertEquals("Sink failed", failure.getMessage());
+        assertEquals(0, failure.getSuppressed().length);
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "Expected the temporary files to be deleted");
+        }
+    }
+
+    @Test
+    public void testDuplicateAndNestedKeys() throws IOException {
+        NdjsonDiff diff = NdjsonDiff.builder().withKey("/meta/id").withRunSize(1).withTempDirectory(directory).build();
+        List<JsonNode> source = List.of(mapper.readTree("{\"meta\":{\"id\":1},\"v\":1}"), mapper.readTree("{\"meta\":{\"id\":1},\"v\":2}"));
+        List<JsonNode> target = List.of(mapper.readTree("{\"meta\":{\"id\":1},\"v\":1}"), mapper.readTree("{\"meta\":{\"id\":1},\"v\":3}"));
+
+        List<RecordChange> changes = diff(diff, source, target);
+
+        assertEquals(List.of(new RecordChange(RecordChange.Type.CHANGED, mapper.readTree("1"), null,
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/v\",\"value\":3}]"))), changes);
+        assertThrows(IllegalArgumentException.class, () -> diff(diff, List.of(mapper.readTree("{\"id\":1}")), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> NdjsonDiff.builder().withRunSize(0).build());
+    }
+}
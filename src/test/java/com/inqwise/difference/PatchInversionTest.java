@@ -0,0 +1,155 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PatchInversionTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+
+    @Test
+    public void testInvertedDiffsRestoreSource() {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = TestDataGenerator.generate(random.nextInt(10));
+
+            Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+            JsonNode secondPrime = JsonPatch.apply(diffs.getJsonNodes(), first);
+            JsonNode firstPrime = JsonPatch.apply(diffs.invert().getJsonNodes(), secondPrime);
+
+            assertEquals(second, secondPrime, "Forward patch did not produce expected result");
+            assertEquals(first, firstPrime, "Inverse patch did not restore the source");
+        }
+    }
+
+    @Test
+    public void testInvertedDiffsWithTestOperations() throws IOException {
+        EnumSet<DiffFlags> testFlags = flags.clone();
+        testFlags.add(DiffFlags.EMIT_TEST_OPERATIONS);
+        JsonNode first = mapper.readTree("{\"a\":[1,2,3],\"b\":\"x\",\"c\":{\"d\":1}}");
+        JsonNode second = mapper.readTree("{\"a\":[1,3,4],\"b\":\"y\",\"e\":{\"d\":1}}");
+
+        Diffs diffs = JsonDiff.compare(first, second, testFlags, List.of());
+        JsonNode secondPrime = JsonPatch.apply(diffs.getJsonNodes(), first);
+
+        assertEquals(first, JsonPatch.apply(diffs.invert().getJsonNodes(), secondPrime));
+    }
+
+    @Test
+    public void testInvertJsonPatch() throws IOException {
+        JsonNode first = mapper.readTree("{\"a\":[1,2,3],\"b\":\"x\",\"c\":{\"d\":1}}");
+        JsonNode second = mapper.readTree("{\"a\":[3,1],\"b\":\"y\",\"e\":{\"d\":1},\"f\":\"x\"}");
+
+        JsonNode patch = JsonDiff.asJson(first, second, flags);
+        JsonNode inverse = JsonPatch.invert(patch);
+
+        assertEquals(first, JsonPatch.apply(inverse, second));
+        assertEquals(patch.size(), inverse.size());
+    }
+
+    @Test
+    public void testInvertJsonPatchWithoutOriginalValueShouldThrowAnException() throws IOException {
+        JsonNode removeWithoutValue = mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a\"}]");
+        JsonNode replaceWithoutFromValue = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":1}]");
+
+        assertThrows(InvalidJsonPatchException.class, () -> JsonPatch.invert(removeWithoutValue));
+        assertThrows(InvalidJsonPatchException.class, () -> JsonPatch.invert(replaceWithoutFromValue));
+    }
+
+    @Test
+    public void testInvertDifferencesWithoutOriginalValueShouldThrowAnException() throws IOException {
+        Differences removeWithoutValue = new Differences(mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a\"}]"));
+        Differences replaceWithoutFromValue = new Differences(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":1}]"));
+        Differences.Difference remove = new Differences.Difference();
+        remove.setOperation(Differences.Operation.remove);
+        remove.setPath("/a");
+
+        assertThrows(IllegalStateException.class, () -> removeWithoutValue.invert());
+        assertThrows(IllegalStateException.class, () -> replaceWithoutFromValue.invert());
+        assertThrows(IllegalStateException.class, () -> new Differences(List.of(remove)).invert());
+    }
+
+    @Test
+    public void testInvertNullValues() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a\",\"value\":null},"
+                + "{\"op\":\"replace\",\"path\":\"/b\",\"value\":1,\"fromValue\":null}]");
+        JsonNode first = mapper.readTree("{\"a\":null,\"b\":null}");
+
+        JsonNode second = JsonPatch.apply(patch, first);
+
+        assertEquals(first, JsonPatch.apply(new Differences(patch).invert().toJsonNode(), second));
+    }
+
+    @Test
+    public void testInvertAppendShouldThrowAnException() throws IOException {
+        JsonNode append = mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/-\",\"value\":1}]");
+
+        assertThrows(InvalidJsonPatchException.class, () -> JsonPatch.invert(append));
+        assertThrows(IllegalStateException.class, () -> new Differences(append).invert());
+    }
+
+    @Test
+    public void testInvertedDifferencesRestoreObject() {
+        Model m1 = new Model(1, "x", List.of(1, 2));
+        Model m2 = new Model(2, null, List.of(2, 3));
+
+        Differences differences = Differences.between(m1, m2, null);
+        Model patched = differences.applyTo(m1);
+        Model restored = differences.invert().applyTo(patched);
+
+        assertEquals(0, Differences.between(m2, patched, null).size());
+        assertEquals(0, Differences.between(m1, restored, null).size());
+    }
+
+    public static class Model {
+        private Integer i1;
+        private String s1;
+        private List<Integer> list;
+
+        public Model() {
+        }
+
+        public Model(Integer i1, String s1, List<Integer> list) {
+            this.i1 = i1;
+            this.s1 = s1;
+            this.list = list;
+        }
+
+        public Integer getI1() {
+            return i1;
+        }
+
+        public void setI1(Integer i1) {
+            this.i1 = i1;
+        }
+
+        public String getS1() {
+            return s1;
+        }
+
+        public void setS1(String s1) {
+            this.s1 = s1;
+        }
+
+        public List<Integer> getList() {
+            return list;
+        }
+
+        public void setList(List<Integer> list) {
+            this.list = list;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class PatchNormalizationTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testRepeatedReplacesCollapse() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2,\"fromValue\":1},"
+                + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":3,\"fromValue\":2}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch);
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":3,\"fromValue\":1}]"), normalized);
+    }
+
+    @Test
+    public void testArrayInsertRemovedAgainIsDropped() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/1\",\"value\":\"x\"},"
+                + "{\"op\":\"replace\",\"path\":\"/b\",\"value\":1},"
+                + "{\"op\":\"remove\",\"path\":\"/a/1\"}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch, mapper.readTree("{\"a\":[1,2],\"b\":0}"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/b\",\"value\":1}]"), normalized);
+    }
+
+    @Test
+    public void testInsertRemovedAgainBelowTestedArrayIsDropped() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"test\",\"path\":\"/a\",\"value\":[1,2]},"
+                + "{\"op\":\"add\",\"path\":\"/a/1\",\"value\":\"x\"},"
+                + "{\"op\":\"remove\",\"path\":\"/a/1\"}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch);
+
+        assertEquals(mapper.readTree("[{\"op\":\"test\",\"path\":\"/a\",\"value\":[1,2]}]"), normalized);
+    }
+
+    @Test
+    public void testNumericMemberNamesAreNotArrayIndexes() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":{\"0\":\"old\"}}");
+        JsonNode patch = mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/0\",\"value\":\"x\"},"
+                + "{\"op\":\"remove\",\"path\":\"/a/0\"}]");
+        JsonNode shifting = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/1\",\"value\":1},"
+                + "{\"op\":\"add\",\"path\":\"/a/0\",\"value\":\"x\"},"
+                + "{\"op\":\"replace\",\"path\":\"/a/1\",\"value\":2}]");
+        JsonNode members = mapper.readTree("{\"a\":{\"0\":\"old\",\"1\":0}}");
+
+        assertEquals(JsonPatch.apply(patch, source), JsonPatch.apply(JsonPatch.normalize(patch), source));
+        assertEquals(JsonPatch.apply(patch, source), JsonPatch.apply(JsonPatch.normalize(patch, source), source));
+        assertEquals(JsonPatch.apply(shifting, members), JsonPatch.apply(JsonPatch.normalize(shifting), members));
+        assertEquals(mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/0\",\"value\":\"x\"},"
+                + "{\"op\":\"replace\",\"path\":\"/a/1\",\"value\":2}]"), JsonPatch.normalize(shifting, members));
+    }
+
+    @Test
+    public void testAddRemovedAgainIsKept() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"add\",\"path\":\"/b\",\"value\":1},"
+                + "{\"op\":\"remove\",\"path\":\"/b\"}]");
+
+        assertEquals(mapper.readTree("{}"), JsonPatch.apply(JsonPatch.normalize(patch), mapper.readTree("{}")));
+        assertEquals(mapper.readTree("{}"), JsonPatch.apply(JsonPatch.normalize(patch), mapper.readTree("{\"b\":0}")));
+    }
+
+    @Test
+    public void testNestedWritesAreFoldedIntoParentValue() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":{\"b\":1,\"c\":[1]}},"
+                + "{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":2},"
+                + "{\"op\":\"add\",\"path\":\"/a/c/-\",\"value\":2}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch);
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":{\"b\":2,\"c\":[1,2]}}]"), normalized);
+    }
+
+    @Test
+    public void testWritesUnderParentReplaceAreDropped() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":{\"b\":1,\"c\":2}}");
+        JsonNode patch = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":5,\"fromValue\":1},"
+                + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":{\"d\":3},\"fromValue\":{\"b\":5,\"c\":2}}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch);
+
+        assertEquals(1, normalized.size());
+        assertEquals(source.get("a"), normalized.get(0).get("fromValue"), "Expected the original value to be rewound");
+        assertEquals(JsonPatch.apply(patch, source), JsonPatch.apply(normalized, source));
+    }
+
+    @Test
+    public void testSupersededValuesAreKeptForInversion() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":\"s1\",\"c\":5}");
+        List<JsonNode> patches = List.of(
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":true,\"fromValue\":\"s1\"},"
+                        + "{\"op\":\"remove\",\"path\":\"/a\",\"value\":true},"
+                        + "{\"op\":\"copy\",\"from\":\"/c\",\"path\":\"/a\"}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":true,\"fromValue\":\"s1\"},"
+                        + "{\"op\":\"remove\",\"path\":\"/a\",\"value\":true},"
+                        + "{\"op\":\"copy\",\"from\":\"/c\",\"path\":\"/a\"},"
+                        + "{\"op\":\"add\",\"path\":\"/a\",\"value\":7}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":true,\"fromValue\":\"s1\"},"
+                        + "{\"op\":\"add\",\"path\":\"/a\",\"value\":7}]"));
+
+        for (JsonNode patch : patches) {
+            JsonNode normalized = JsonPatch.normalize(patch);
+            JsonNode target = JsonPatch.apply(patch, source);
+
+            assertEquals(target, JsonPatch.apply(normalized, source), "Normalized patch is not equivalent [normalized=" + normalized + "]");
+            assertEquals(source, JsonPatch.apply(JsonPatch.invert(normalized), target),
+                    "Normalized patch does not invert [normalized=" + normalized + "]");
+        }
+    }
+
+    @Test
+    public void testRedundantTestsAreDropped() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"test\",\"path\":\"/a\",\"value\":1},"
+                + "{\"op\":\"test\",\"path\":\"/a\",\"value\":1},"
+                + "{\"op\":\"replace\",\"path\":\"/b\",\"value\":{\"c\":1}},"
+                + "{\"op\":\"test\",\"path\":\"/b/c\",\"value\":1}]");
+
+        JsonNode normalized = JsonPatch.normalize(patch);
+
+        assertEquals(2, normalized.size());
+    }
+
+    @Test
+    public void testTestsGuardEarlierWrites() throws IOException {
+        JsonNode patch = mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2},"
+                + "{\"op\":\"test\",\"path\":\"/a\",\"value\":3},"
+                + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":4}]");
+
+        assertEquals(patch, JsonPatch.normalize(patch));
+    }
+
+    @Test
+    public void testNormalizedConcatenatedPatchesAreEquivalent() {
+        Random random = new Random();
+        List<EnumSet<DiffFlags>> flagSets = List.of(
+                EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE),
+                EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.EMIT_TEST_OPERATIONS,
+                        DiffFlags.OMIT_MOVE_OPERATION, DiffFlags.OMIT_COPY_OPERATION),
+                DiffFlags.defaults());
+
+        for (int i = 0; i < 500; i++) {
+            EnumSet<DiffFlags> flags = flagSets.get(i % flagSets.size());
+            List<JsonNode> versions = new ArrayList<>();
+            for (int v = 0; v < 4; v++) {
+                versions.add(TestDataGenerator.generate(random.nextInt(6)));
+            }
+
+            ArrayNode patch = mapper.createArrayNode();
+            for (int v = 1; v < versions.size(); v++) {
+                patch.addAll(JsonDiff.compare(versions.get(v - 1), versions.get(v), flags, List.of()).getJsonNodes());
+            }
+
+            JsonNode normalized = JsonPatch.normalize(patch);
+
+            assertTrue(normalized.size() <= patch.size(), "Normalized patch is larger than the original");
+            assertEquals(versions.get(versions.size() - 1), JsonPatch.apply(normalized, versions.get(0)),
+                    "Normalized patch is not equivalent [patch=" + patch + ", normalized=" + normalized + "]");
+            if (restores(patch, versions)) {
+                assertTrue(restores(normalized, versions), "Normalized patch does not invert [patch=" + patch
+                        + ", normalized=" + normalized + "]");
+            }
+        }
+    }
+
+    /**
+     * Checks whether the inverse of a patch leads from the last version back to the first.
+     */
+    private static boolean restores(JsonNode patch, List<JsonNode> versions) {
+        try {
+            return versions.get(0).equals(JsonPatch.apply(JsonPatch.invert(patch), versions.get(versions.size() - 1)));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testNormalizedPatchesOverNumericMembersAreEquivalent() {
+        Random random = new Random();
+        List<EnumSet<DiffFlags>> flagSets = List.of(
+                EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.OMIT_MOVE_OPERATION, DiffFlags.OMIT_COPY_OPERATION),
+                EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.EMIT_TEST_OPERATIONS),
+                DiffFlags.defaults());
+        for (int i = 0; i < 500; i++) {
+            EnumSet<DiffFlags> flags = flagSets.get(i % flagSets.size());
+            List<JsonNode> versions = new ArrayList<>();
+            for (int v = 0; v < 4; v++) {
+                versions.add(randomValue(random, 3));
+            }
+
+            ArrayNode patch = mapper.createArrayNode();
+            for (int v = 1; v < versions.size(); v++) {
+                patch.addAll(JsonDiff.compare(versions.get(v - 1), versions.get(v), flags, List.of()).getJsonNodes());
+            }
+            JsonNode source = versions.get(0);
+            JsonNode target;
+            try {
+                // Moves between numeric members do not always reach the compared version, the result is what counts
+                target = JsonPatch.apply(patch, source);
+            } catch (JsonPatchApplicationException e) {
+                continue;
+            }
+
+            JsonNode normalized = JsonPatch.normalize(patch);
+            JsonNode normalizedForSource = JsonPatch.normalize(patch, source);
+
+            assertEquals(target, JsonPatch.apply(normalized, source), "Normalized patch is not equivalent [patch=" + patch
+                    + ", normalized=" + normalized + "]");
+            assertEquals(target, JsonPatch.apply(normalizedForSource, source), "Normalized patch is not equivalent on its source"
+                    + " [patch=" + patch + ", normalized=" + normalizedForSource + "]");
+        }
+    }
+
+    /**
+     * Generates objects with numeric member names, arrays and scalars.
+     */
+    private static JsonNode randomValue(Random random, int depth) {
+        int kind = depth == 0 ? 2 : random.nextInt(3);
+        if (kind == 0) {
+            ObjectNode object = mapper.createObjectNode();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                object.set(Integer.toString(random.nextInt(4)), randomValue(random, depth - 1));
+            }
+            return object;
+        }
+        if (kind == 1) {
+            ArrayNode array = mapper.createArrayNode();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                array.add(randomValue(random, depth - 1));
+            }
+            return array;
+        }
+        return mapper.getNodeFactory().numberNode(random.nextInt(3));
+    }
+
+    @Test
+    public void testNormalizedDiffsKeepFlags() throws IOException {
+        JsonNode first = mapper.readTree("{\"a\":{\"b\":1}}");
+        JsonNode second = mapper.readTree("{\"a\":{\"b\":2}}");
+
+        Diffs diffs = JsonDiff.compare(first, second, DiffFlags.defaults(), List.of());
+
+        assertEquals(diffs.getFlags(), diffs.normalize().getFlags());
+        assertEquals(diffs.getJsonNodes(), diffs.normalize().getJsonNodes());
+    }
+}
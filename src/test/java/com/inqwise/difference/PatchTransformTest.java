@@ -0,0 +1,138 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PatchTransformTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static void assertRebased(String source, String concurrent, String patch, String expected) throws IOException {
+        JsonNode document = mapper.readTree(source);
+        JsonNode first = mapper.readTree(concurrent);
+        JsonNode rebased = JsonPatch.transform(first, mapper.readTree(patch), document);
+
+        assertEquals(mapper.readTree(expected), JsonPatch.apply(rebased, JsonPatch.apply(first, document)),
+                "Unexpected result [rebased=" + rebased + "]");
+    }
+
+    @Test
+    public void testIndexesShiftOverInserts() throws IOException {
+        JsonNode rebased = JsonPatch.transform(
+                mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/0\",\"value\":\"x\"}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/2\",\"value\":\"y\"}]"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/3\",\"value\":\"y\"}]"), rebased);
+    }
+
+    @Test
+    public void testOperationsOnRemovedElementsAreDropped() throws IOException {
+        JsonNode rebased = JsonPatch.transform(
+                mapper.readTree("[{\"op\":\"remove\",\"path\":\"/a/1\"}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/1/b\",\"value\":1},"
+                        + "{\"op\":\"replace\",\"path\":\"/a/2\",\"value\":2}]"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/1\",\"value\":2}]"), rebased);
+    }
+
+    @Test
+    public void testOperationsOnReplacedMembersAreDropped() throws IOException {
+        assertRebased("{\"a\":{\"b\":1},\"c\":1}",
+                "[{\"op\":\"replace\",\"path\":\"/a\",\"value\":{\"x\":1}}]",
+                "[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":2},{\"op\":\"add\",\"path\":\"/a/d\",\"value\":2},"
+                        + "{\"op\":\"replace\",\"path\":\"/c\",\"value\":2}]",
+                "{\"a\":{\"x\":1},\"c\":2}");
+    }
+
+    @Test
+    public void testOperationsFollowMovedNodes() throws IOException {
+        JsonNode rebased = JsonPatch.transform(
+                mapper.readTree("[{\"op\":\"move\",\"from\":\"/a/1\",\"path\":\"/b/x\"}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/a/1/c\",\"value\":1},"
+                        + "{\"op\":\"move\",\"from\":\"/a/2\",\"path\":\"/a/0\"}]"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/b/x/c\",\"value\":1},"
+                + "{\"op\":\"move\",\"from\":\"/a/1\",\"path\":\"/a/0\"}]"), rebased);
+    }
+
+    @Test
+    public void testConcurrentInsertsAtTheSamePosition() throws IOException {
+        assertRebased("[1,2]",
+                "[{\"op\":\"add\",\"path\":\"/1\",\"value\":\"a\"}]",
+                "[{\"op\":\"add\",\"path\":\"/1\",\"value\":\"b\"}]",
+                "[1,\"a\",\"b\",2]");
+    }
+
+    @Test
+    public void testRebasedOperationsUseTheirOwnCoordinates() throws IOException {
+        assertRebased("[0,1,2,3]",
+                "[{\"op\":\"remove\",\"path\":\"/0\"},{\"op\":\"add\",\"path\":\"/2\",\"value\":\"x\"}]",
+                "[{\"op\":\"add\",\"path\":\"/0\",\"value\":\"y\"},{\"op\":\"remove\",\"path\":\"/2\"},"
+                        + "{\"op\":\"replace\",\"path\":\"/3\",\"value\":\"z\"}]",
+                "[\"y\",2,\"x\",\"z\"]");
+    }
+
+    @Test
+    public void testEmptyConcurrentPatchKeepsPatch() {
+        Random random = new Random();
+        for (int i = 0; i < 100; i++) {
+            JsonNode patch = JsonDiff.asJson(TestDataGenerator.generate(random.nextInt(6)), TestDataGenerator.generate(random.nextInt(6)));
+
+            assertEquals(patch, JsonPatch.transform(mapper.createArrayNode(), patch));
+        }
+    }
+
+    @Test
+    public void testRebasedPatchAppliesAfterConcurrentPatch() {
+        Random random = new Random();
+        EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.OMIT_VALUE_ON_REMOVE);
+        for (int i = 0; i < 500; i++) {
+            JsonNode source = TestDataGenerator.generate(random.nextInt(6));
+            JsonNode concurrent = JsonDiff.asJson(source, TestDataGenerator.generate(random.nextInt(6)), flags, List.of());
+            JsonNode patch = JsonDiff.asJson(source, TestDataGenerator.generate(random.nextInt(6)), flags, List.of());
+
+            JsonNode rebased = JsonPatch.transform(concurrent, patch, source);
+
+            JsonPatch.apply(rebased, JsonPatch.apply(concurrent, source));
+        }
+    }
+
+    @Test
+    public void testNumericMemberNamesAreNotShifted() throws IOException {
+        assertRebased("{\"m\":{\"5\":1,\"7\":2}}",
+                "[{\"op\":\"remove\",\"path\":\"/m/5\"}]",
+                "[{\"op\":\"replace\",\"path\":\"/m/7\",\"value\":3},{\"op\":\"add\",\"path\":\"/m/6\",\"value\":4}]",
+                "{\"m\":{\"6\":4,\"7\":3}}");
+        assertRebased("[{\"5\":1,\"7\":2}]",
+                "[{\"op\":\"add\",\"path\":\"/0\",\"value\":0},{\"op\":\"remove\",\"path\":\"/1/5\"}]",
+                "[{\"op\":\"replace\",\"path\":\"/0/7\",\"value\":3}]",
+                "[0,{\"7\":3}]");
+    }
+
+    @Test
+    public void testObjectsTestedByThePatchesAreKnownWithoutDocument() throws IOException {
+        JsonNode rebased = JsonPatch.transform(
+                mapper.readTree("[{\"op\":\"test\",\"path\":\"/m\",\"value\":{\"5\":1,\"7\":2}},{\"op\":\"remove\",\"path\":\"/m/5\"}]"),
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/m/7\",\"value\":3}]"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"/m/7\",\"value\":3}]"), rebased);
+    }
+
+    @Test
+    public void testTransformInvalidPatchShouldThrowAnException() throws IOException {
+        JsonNode invalid = mapper.readTree("[{\"op\":\"add\"}]");
+
+        assertThrows(InvalidJsonPatchException.class, () -> JsonPatch.transform(invalid, mapper.createArrayNode()));
+        assertThrows(InvalidJsonPatchException.class, () -> JsonPatch.transform(mapper.createArrayNode(), invalid));
+    }
+}
@@ -0,0 +1,170 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class SilentFieldsTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final List<EnumSet<DiffFlags>> FLAGS = List.of(
+            DiffFlags.defaults(),
+            Differences.diffFlags(),
+            EnumSet.noneOf(DiffFlags.class),
+            EnumSet.of(DiffFlags.EMIT_TEST_OPERATIONS, DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE));
+
+    private static final List<List<String>> SILENT_FIELDS = List.of(
+            List.of("a"),
+            List.of("a", "b.c"),
+            List.of("**.c"),
+            List.of("b.**.d", "c.a"),
+            List.of("**.a.b", "d"));
+
+    @Test
+    public void testMatchesTreeRemoval() {
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            JsonNode source = random.nextInt(10) == 0 ? randomValue(random, 3) : randomObject(random, 3);
+            JsonNode target = random.nextInt(4) == 0 ? source.deepCopy() : randomObject(random, 3);
+            EnumSet<DiffFlags> flags = FLAGS.get(random.nextInt(FLAGS.size()));
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+
+            JsonNode sourceCopy = source.deepCopy();
+            JsonNode targetCopy = target.deepCopy();
+            JsonNode expected = JsonDiff.asJson(removeFields(source, silent), removeFields(target, silent), flags, List.of());
+            JsonNode actual = JsonDiff.asJson(sourceCopy, targetCopy, flags, List.of(), silent);
+
+            assertEquals(expected, actual, "Silent fields differ from tree removal [flags=" + flags + ", silent=" + silent
+                    + ", source=" + sourceCopy + ", target=" + targetCopy + "]");
+        }
+    }
+
+    @Test
+    public void testInputsAreNotModified() throws Exception {
+        JsonNode source = mapper.readTree("{\"a\":1,\"b\":{\"c\":2,\"d\":[{\"c\":3}]}}");
+        JsonNode target = mapper.readTree("{\"a\":2,\"b\":{\"c\":4,\"d\":[{\"c\":5},{\"c\":6,\"e\":7}]}}");
+        JsonNode sourceCopy = source.deepCopy();
+        JsonNode targetCopy = target.deepCopy();
+
+        JsonNode patch = JsonDiff.asJson(source, target, DiffFlags.defaults(), List.of(), List.of("a", "**.c"));
+
+        assertEquals(mapper.readTree("[{\"op\":\"add\",\"path\":\"/b/d/1\",\"value\":{\"e\":7}}]"), patch);
+        assertEquals(sourceCopy, source);
+        assertEquals(targetCopy, target);
+    }
+
+    @Test
+    public void testConversionMatchesTreeRemoval() {
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            JsonNode node = random.nextInt(5) == 0 ? randomValue(random, 3) : randomObject(random, 3);
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+            SilentFields fields = SilentFields.compile(silent);
+            JsonNode expected = removeFields(node.deepCopy(), silent);
+
+            assertEquals(expected, Differences.convertObjectToJsonNode(node, fields), "Filtered conversion differs [silent=" + silent + ", node=" + node + "]");
+            if (node.isObject()) {
+                assertEquals(expected, Differences.convertObjectToJsonNode(new JsonObject(node.toString()), fields));
+            } else if (node.isArray()) {
+                assertEquals(expected, Differences.convertObjectToJsonNode(new JsonArray(node.toString()), fields));
+            }
+        }
+    }
+
+    @Test
+    public void testConversionSkipsSilentBeanProperties() {
+        Entity entity = new Entity();
+        entity.id = 1;
+        entity.rawPayload = List.of(new Entity(), new Entity());
+        entity.children = List.of(new Entity());
+
+        JsonNode node = Differences.convertObjectToJsonNode(entity, SilentFields.compile(List.of("rawPayload", "children.**.id")));
+
+        assertEquals(removeFields(mapper.valueToTree(entity), List.of("rawPayload", "children.**.id")), node);
+        assertFalse(node.has("rawPayload"));
+        assertFalse(node.get("children").get(0).has("id"));
+        assertEquals(1, node.get("id").asInt());
+    }
+
+    @Test
+    public void testStatesAreShared() {
+        SilentFields root = SilentFields.compile(List.of("a.b", "**.c"));
+
+        assertSame(root, SilentFields.compile(List.of("a.b", "**.c")));
+        assertSame(root.child("a"), root.child("a"));
+        assertSame(root.element(), root.child("x"));
+        assertSame(root.element(), root.child("x").child("y"));
+        assertTrue(root.child("a").isSilent("b"));
+        assertTrue(root.child("x").isSilent("c"));
+        assertFalse(root.isSilent("a"));
+        assertSame(SilentFields.NONE, SilentFields.compile(List.of("a.b")).child("x"));
+        assertTrue(SilentFields.compile(List.of("**")).isEmpty());
+    }
+
+    public static class Entity {
+        public int id;
+        public List<Entity> rawPayload;
+        public List<Entity> children;
+    }
+
+    private static JsonNode removeFields(JsonNode node, List<String> silent) {
+        if (node.isObject()) {
+            for (String field : silent) {
+                Differences.removeField(field.split("\\."), (ContainerNode<?>) node, false);
+            }
+        }
+        return node;
+    }
+
+    private static ObjectNode randomObject(Random random, int depth) {
+        ObjectNode object = mapper.createObjectNode();
+        for (String key : List.of("a", "b", "c", "d")) {
+            if (random.nextBoolean()) {
+                object.set(key, randomValue(random, depth - 1));
+            }
+        }
+        return object;
+    }
+
+    private static ArrayNode randomArray(Random random, int depth) {
+        ArrayNode array = mapper.createArrayNode();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            array.add(randomValue(random, depth - 1));
+        }
+        return array;
+    }
+
+    private static JsonNode randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 6 : 4)) {
+            case 0:
+                return mapper.getNodeFactory().nullNode();
+            case 1:
+                return mapper.getNodeFactory().numberNode(random.nextInt(3));
+            case 2:
+                return mapper.getNodeFactory().textNode(random.nextBoolean() ? "s" : "t");
+            case 3:
+                return mapper.getNodeFactory().booleanNode(random.nextBoolean());
+            case 4:
+                return randomObject(random, depth);
+            default:
+                return randomArray(random, depth);
+        }
+    }
+}
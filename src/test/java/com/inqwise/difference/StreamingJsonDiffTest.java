@@ -0,0 +1,116 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class StreamingJsonDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static JsonNode diff(JsonNode source, JsonNode target, EnumSet<DiffFlags> flags) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonParser first = mapper.createParser(source.toString()); JsonParser second = mapper.createParser(target.toString());
+                JsonGenerator generator = mapper.createGenerator(out)) {
+            StreamingJsonDiff.compare(first, second, flags, List.of(), generator);
+        }
+        return mapper.readTree(out.toString());
+    }
+
+    private static JsonNode diff(JsonNode source, JsonNode target, int window) throws IOException {
+        ArrayNode patch = mapper.createArrayNode();
+        try (JsonParser first = mapper.createParser(source.toString()); JsonParser second = mapper.createParser(target.toString())) {
+            StreamingJsonDiff.compare(first, second, DiffFlags.defaults(), List.of(), window, patch::add);
+        }
+        return patch;
+    }
+
+    private static JsonNode mutate(Random random, JsonNode records) {
+        ArrayNode result = (ArrayNode) records.deepCopy();
+        for (int edits = random.nextInt(5); edits > 0 && !result.isEmpty(); edits--) {
+            int index = random.nextInt(result.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    result.remove(index);
+                    break;
+                case 1:
+                    result.insert(index, TestDataGenerator.generate(1).get(0));
+                    break;
+                default:
+                    ((ObjectNode) result.get(index)).put("age", random.nextInt(100));
+                    break;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testGeneratedDocuments() throws IOException {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            JsonNode first = TestDataGenerator.generate(random.nextInt(10));
+            JsonNode second = random.nextBoolean() ? mutate(random, first) : TestDataGenerator.generate(random.nextInt(10));
+            EnumSet<DiffFlags> flags = random.nextBoolean() ? DiffFlags.defaults()
+                    : EnumSet.of(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE, DiffFlags.EMIT_TEST_OPERATIONS);
+
+            JsonNode patch = diff(first, second, flags);
+
+            assertEquals(second, JsonPatch.apply(patch, first));
+            assertEquals(second, JsonPatch.apply(diff(first, second, 1 + random.nextInt(4)), first));
+            if (flags.contains(DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE)) {
+                assertEquals(first, JsonPatch.apply(JsonPatch.invert(patch), second));
+            }
+        }
+    }
+
+    @Test
+    public void testMembersOutOfOrder() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":1,\"b\":{\"c\":[1,2]},\"d\":3,\"e\":null}");
+        JsonNode target = mapper.readTree("{\"d\":4,\"b\":{\"c\":[1,3]},\"f\":{},\"e\":null}");
+
+        JsonNode patch = diff(source, target, DiffFlags.defaults());
+
+        assertEquals(target, JsonPatch.apply(patch, source));
+        assertEquals(4, patch.size());
+    }
+
+    @Test
+    public void testArrayInsertionIsAligned() throws IOException {
+        JsonNode source = TestDataGenerator.generate(2000);
+        ArrayNode target = (ArrayNode) source.deepCopy();
+        target.insert(1000, mapper.readTree("{\"name\":\"inserted\"}"));
+        target.remove(1500);
+
+        JsonNode patch = diff(source, target, DiffFlags.defaults());
+
+        assertEquals(mapper.readTree("[{\"op\":\"add\",\"path\":\"/1000\",\"value\":{\"name\":\"inserted\"}},"
+                + "{\"op\":\"remove\",\"path\":\"/1500\"}]"), patch);
+    }
+
+    @Test
+    public void testFrontCodedPointersAndScalarDocuments() throws IOException {
+        JsonNode source = mapper.readTree("{\"items\":{\"first\":{\"c\":1,\"d\":2}}}");
+        JsonNode target = mapper.readTree("{\"items\":{\"first\":{\"c\":3,\"d\":4}}}");
+
+        JsonNode patch = diff(source, target, EnumSet.of(DiffFlags.FRONT_CODED_POINTERS));
+
+        assertEquals(JsonDiff.asJson(source, target, EnumSet.of(DiffFlags.FRONT_CODED_POINTERS)), patch);
+        assertEquals(mapper.readTree("[{\"op\":\"replace\",\"path\":\"\",\"value\":[1]}]"), diff(source, mapper.readTree("[1]"), DiffFlags.defaults()));
+        assertEquals(mapper.createArrayNode(), diff(mapper.readTree("\"a\""), mapper.readTree("\"a\""), DiffFlags.defaults()));
+        assertThrows(IllegalArgumentException.class, () -> diff(source, target, 0));
+    }
+}
@@ -94,4 +94,17 @@ public class TestNodesEmissionTest {
         assertEquals(2, diff.size(), "Expected diff size to be 2 for remove from tail of array");
         assertEquals(testNode, diff.iterator().next(), "Expected the first operation to be a test operation");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNodeEmittedBeforeMoveIntoEarlierAddition() throws IOException {
+        JsonNode source = mapper.readTree("{\"a\":[],\"b\":1.0,\"c\":true}");
+        JsonNode target = mapper.readTree("{\"a\":[null,1.0]}");
+
+        JsonNode diff = JsonDiff.asJson(source, target, flags);
+
+        assertEquals(mapper.readTree("[{\"op\":\"add\",\"path\":\"/a/0\",\"value\":null},"
+                + "{\"op\":\"test\",\"path\":\"/b\",\"value\":1.0},{\"op\":\"move\",\"from\":\"/b\",\"path\":\"/a/1\"},"
+                + "{\"op\":\"test\",\"path\":\"/c\",\"value\":true},{\"op\":\"remove\",\"path\":\"/c\"}]"), diff);
+        assertEquals(target, JsonPatch.apply(diff, source));
+    }
+}
@@ -0,0 +1,155 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class TextDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String ALPHABET = "abcdefgh é😀";
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int index = random.nextInt(ALPHABET.length() - 1);
+            text.append(ALPHABET.charAt(index));
+            if (Character.isHighSurrogate(ALPHABET.charAt(index))) {
+                text.append(ALPHABET.charAt(index + 1));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String edit(Random random, String text) {
+        StringBuilder result = new StringBuilder(text);
+        for (int edits = random.nextInt(20); edits >= 0; edits--) {
+            int position = random.nextInt(result.length() + 1);
+            switch (random.nextInt(3)) {
+                case 0:
+                    result.insert(position, randomText(random, random.nextInt(30)));
+                    break;
+                case 1:
+                    result.delete(position, Math.min(result.length(), position + random.nextInt(30)));
+                    break;
+                default:
+                    result.replace(position, Math.min(result.length(), position + random.nextInt(30)), randomText(random, random.nextInt(30)));
+                    break;
+            }
+            // Edits at arbitrary positions must not leave broken surrogate pairs behind
+            for (int i = 0; i < result.length(); i++) {
+                if (Character.isSurrogate(result.charAt(i)) && !Character.isSurrogatePair(result.charAt(i), i + 1 < result.length() ? result.charAt(i + 1) : 'x')) {
+                    result.deleteCharAt(i--);
+                } else if (Character.isHighSurrogate(result.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    private static ObjectNode document(String text) {
+        ObjectNode document = mapper.createObjectNode();
+        document.put("id", 1);
+        document.put("body", text);
+        return document;
+    }
+
+    @Test
+    public void testGeneratedDeltas() {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            String source = randomText(random, TextDiff.MIN_LENGTH + random.nextInt(4000));
+            String target = edit(random, source);
+
+            TextDiff.Delta delta = TextDiff.diff(source, target);
+
+            if (delta != null) {
+                assertEquals(target, TextDiff.apply(source, delta.forward));
+                assertEquals(source, TextDiff.apply(target, delta.inverse));
+                assertTrue(delta.forward.toString().length() < target.length() + 16, "Expected the delta to be smaller than the target");
+            }
+        }
+    }
+
+    @Test
+    public void testShortStringsAreReplaced() {
+        assertNull(TextDiff.diff("The brown fox jumps", "The quick fox jumps"));
+        assertNull(TextDiff.diff("a".repeat(2000), "b".repeat(2000)));
+    }
+
+    @Test
+    public void testLargeStringEdit() throws Exception {
+        String source = randomText(new Random(), 200_000);
+        int start = source.offsetByCodePoints(0, 50_000);
+        String target = source.substring(0, start) + "edited" + source.substring(source.offsetByCodePoints(start, 10));
+        JsonNode first = document(source);
+        JsonNode second = document(target);
+        EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.EMIT_TEXT_OPERATIONS, DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+
+        Diffs diffs = JsonDiff.compare(first, second, flags, List.of());
+        JsonNode patch = diffs.getJsonNodes();
+
+        assertEquals(1, patch.size());
+        assertEquals(Operation.TEXT.rfcName(), patch.get(0).get("op").textValue());
+        assertEquals("/body", patch.get(0).get("path").textValue());
+        assertTrue(patch.toString().length() < 200, "Expected a small patch, got " + patch.toString().length() + " characters");
+        assertEquals(second, JsonPatch.apply(patch, first));
+        assertEquals(first, JsonPatch.apply(JsonPatch.invert(patch), second));
+        assertEquals(patch, Diffs.parse(patch).getJsonNodes());
+        assertEquals(second, BinaryPatch.apply(ByteBuffer.wrap(BinaryPatch.encode(diffs)), first));
+        assertEquals(new JsonObject(second.toString()), VertxJsonPatch.apply(new JsonArray(patch.toString()), new JsonObject(first.toString())));
+        assertEquals(Operation.REPLACE.rfcName(), JsonDiff.asJson(first, second).get(0).get("op").textValue());
+
+        JsonNode inPlace = first.deepCopy();
+        JsonPatch.applyInPlace(patch, inPlace);
+        assertEquals(second, inPlace);
+    }
+
+    @Test
+    public void testMismatchedDeltaIsRejected() throws Exception {
+        JsonNode source = document("The brown fox jumps");
+
+        JsonNode patch = mapper.readTree("[{\"op\":\"text\",\"path\":\"/body\",\"value\":[4,-5,\"quick\",10]}]");
+        assertEquals(document("The quick fox jumps"), JsonPatch.apply(patch, source));
+
+        assertThrows(JsonPatchApplicationException.class,
+                () -> JsonPatch.apply(mapper.readTree("[{\"op\":\"text\",\"path\":\"/body\",\"value\":[4,-5,\"quick\",9]}]"), source));
+        assertThrows(JsonPatchApplicationException.class,
+                () -> JsonPatch.apply(mapper.readTree("[{\"op\":\"text\",\"path\":\"/id\",\"value\":[1]}]"), source));
+        assertThrows(InvalidJsonPatchException.class,
+                () -> JsonPatch.validate(mapper.readTree("[{\"op\":\"text\",\"path\":\"/body\",\"value\":[4,true]}]")));
+        assertThrows(InvalidJsonPatchException.class,
+                () -> JsonPatch.validate(mapper.readTree("[{\"op\":\"text\",\"path\":\"/body\",\"value\":\"quick\"}]")));
+    }
+
+    @Test
+    public void testDeltaNeverSplitsSurrogatePairs() {
+        String prefix = "x".repeat(TextDiff.MIN_LENGTH);
+        String source = prefix + "😀" + prefix;
+        String target = prefix + "😁" + prefix;
+
+        TextDiff.Delta delta = TextDiff.diff(source, target);
+
+        assertNotNull(delta);
+        assertEquals("😁", delta.forward.get(2).textValue());
+        assertEquals(target, TextDiff.apply(source, delta.forward));
+        assertEquals(source, TextDiff.apply(target, delta.inverse));
+    }
+}
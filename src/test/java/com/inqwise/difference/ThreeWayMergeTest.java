@@ -0,0 +1,143 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ThreeWayMergeTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testIndependentObjectChangesAreMerged() throws IOException {
+        JsonNode base = mapper.readTree("{\"a\":1,\"b\":{\"c\":1,\"d\":2},\"e\":\"x\"}");
+        JsonNode ours = mapper.readTree("{\"a\":2,\"b\":{\"c\":1,\"d\":2},\"e\":\"x\",\"f\":true}");
+        JsonNode theirs = mapper.readTree("{\"a\":1,\"b\":{\"c\":5},\"e\":\"x\"}");
+
+        MergeResult result = JsonDiff.merge3(base, ours, theirs);
+
+        assertFalse(result.hasConflicts());
+        assertEquals(mapper.readTree("{\"a\":2,\"b\":{\"c\":5},\"e\":\"x\",\"f\":true}"), result.getMerged());
+        assertEquals(result.getMerged(), JsonPatch.apply(result.getJsonNodes(), base));
+    }
+
+    @Test
+    public void testIndependentArrayChangesAreMerged() throws IOException {
+        JsonNode base = mapper.readTree("{\"a\":[1,2,3,4]}");
+        JsonNode ours = mapper.readTree("{\"a\":[0,1,2,3,4]}");
+        JsonNode theirs = mapper.readTree("{\"a\":[1,2,4,5]}");
+
+        MergeResult result = JsonDiff.merge3(base, ours, theirs);
+
+        assertFalse(result.hasConflicts());
+        assertEquals(mapper.readTree("{\"a\":[0,1,2,4,5]}"), result.getMerged());
+        assertEquals(result.getMerged(), JsonPatch.apply(result.getJsonNodes(), base));
+    }
+
+    @Test
+    public void testChangesInsideTheSameArrayElementAreMerged() throws IOException {
+        JsonNode base = mapper.readTree("[{\"id\":1,\"a\":1,\"b\":1},{\"id\":2}]");
+        JsonNode ours = mapper.readTree("[{\"id\":1,\"a\":2,\"b\":1},{\"id\":2}]");
+        JsonNode theirs = mapper.readTree("[{\"id\":1,\"a\":1,\"b\":2},{\"id\":2}]");
+
+        MergeResult result = JsonDiff.merge3(base, ours, theirs);
+
+        assertFalse(result.hasConflicts());
+        assertEquals(mapper.readTree("[{\"id\":1,\"a\":2,\"b\":2},{\"id\":2}]"), result.getMerged());
+    }
+
+    @Test
+    public void testIdenticalChangesDoNotConflict() throws IOException {
+        JsonNode base = mapper.readTree("{\"a\":1,\"b\":[1]}");
+        JsonNode changed = mapper.readTree("{\"a\":2,\"b\":[1,2]}");
+
+        MergeResult result = JsonDiff.merge3(base, changed, changed.deepCopy());
+
+        assertFalse(result.hasConflicts());
+        assertEquals(changed, result.getMerged());
+    }
+
+    @Test
+    public void testConflictingChangesAreReported() throws IOException {
+        JsonNode base = mapper.readTree("{\"a\":1,\"b\":{\"c\":1},\"d\":[1,2]}");
+        JsonNode ours = mapper.readTree("{\"a\":2,\"b\":{\"c\":2},\"d\":[1,3]}");
+        JsonNode theirs = mapper.readTree("{\"a\":3,\"d\":[1,4,5]}");
+
+        MergeResult result = JsonDiff.merge3(base, ours, theirs);
+
+        assertEquals(3, result.getConflicts().size());
+        assertEquals(base, result.getMerged(), "Conflicting regions should keep the base value");
+        assertEquals(0, result.getJsonNodes().size());
+
+        MergeConflict scalar = result.getConflictsByPath().get("/a");
+        assertEquals(mapper.readTree("1"), scalar.getBase());
+        assertEquals(mapper.readTree("2"), scalar.getOurs());
+        assertEquals(mapper.readTree("3"), scalar.getTheirs());
+
+        MergeConflict removed = result.getConflictsByPath().get("/b");
+        assertEquals(mapper.readTree("{\"c\":2}"), removed.getOurs());
+        assertNull(removed.getTheirs());
+
+        MergeConflict elements = result.getConflictsByPath().get("/d/1");
+        assertEquals(mapper.readTree("[2]"), elements.getBase());
+        assertEquals(mapper.readTree("[3]"), elements.getOurs());
+        assertEquals(mapper.readTree("[4,5]"), elements.getTheirs());
+    }
+
+    @Test
+    public void testCompositeObjectsAreMergedAsAWhole() throws IOException {
+        JsonNode base = mapper.readTree("{\"a\":{\"b\":1,\"c\":1}}");
+        JsonNode ours = mapper.readTree("{\"a\":{\"b\":2,\"c\":1}}");
+        JsonNode theirs = mapper.readTree("{\"a\":{\"b\":1,\"c\":2}}");
+
+        MergeResult result = JsonDiff.merge3(base, ours, theirs, DiffFlags.defaults(), List.of("/a"));
+
+        assertTrue(result.getConflictsByPath().containsKey("/a"));
+    }
+
+    @Test
+    public void testOneSidedChangesMergeToTheChangedSide() {
+        Random random = new Random();
+        List<EnumSet<DiffFlags>> flagSets = List.of(DiffFlags.defaults(),
+                EnumSet.of(DiffFlags.OMIT_MOVE_OPERATION, DiffFlags.OMIT_COPY_OPERATION, DiffFlags.EMIT_TEST_OPERATIONS));
+        for (int i = 0; i < 500; i++) {
+            EnumSet<DiffFlags> flags = flagSets.get(i % flagSets.size());
+            JsonNode base = TestDataGenerator.generate(random.nextInt(6));
+            JsonNode changed = TestDataGenerator.generate(random.nextInt(6));
+
+            for (MergeResult result : List.of(JsonDiff.merge3(base, changed, base, flags, List.of()),
+                    JsonDiff.merge3(base, base, changed, flags, List.of()),
+                    JsonDiff.merge3(base, changed, changed, flags, List.of()))) {
+                assertFalse(result.hasConflicts());
+                assertEquals(changed, result.getMerged());
+                assertEquals(changed, JsonPatch.apply(result.getJsonNodes(), base));
+            }
+        }
+    }
+
+    @Test
+    public void testMergedPatchProducesMergedDocument() {
+        Random random = new Random();
+        for (int i = 0; i < 500; i++) {
+            JsonNode base = TestDataGenerator.generate(random.nextInt(6));
+            JsonNode ours = TestDataGenerator.generate(random.nextInt(6));
+            JsonNode theirs = TestDataGenerator.generate(random.nextInt(6));
+
+            MergeResult result = JsonDiff.merge3(base, ours, theirs);
+
+            assertEquals(result.getMerged(), JsonPatch.apply(result.getJsonNodes(), base),
+                    "Merged patch is not consistent [base=" + base + ", ours=" + ours + ", theirs=" + theirs + "]");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class VertxJsonDiffTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final List<EnumSet<DiffFlags>> FLAGS = List.of(
+            DiffFlags.defaults(),
+            Differences.diffFlags(),
+            EnumSet.noneOf(DiffFlags.class),
+            EnumSet.of(DiffFlags.EMIT_TEST_OPERATIONS, DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE),
+            EnumSet.of(DiffFlags.OMIT_COMPOSITE_ARRAY, DiffFlags.OMIT_MOVE_OPERATION));
+
+    private static final List<List<String>> COMPOSITE_OBJECTS = List.of(
+            List.of(),
+            List.of("/a"),
+            List.of("/b/c", "/c"));
+
+    private static final List<List<String>> SILENT_FIELDS = List.of(
+            List.of(),
+            List.of("a", "b.c"),
+            List.of("**.c"));
+
+    @Test
+    public void testMatchesJsonDiffOnRandomDocuments() throws Exception {
+        Random random = new Random();
+        for (int i = 0; i < 2000; i++) {
+            JsonObject source = randomObject(random, 3);
+            JsonObject target = random.nextInt(4) == 0 ? source.copy() : randomObject(random, 3);
+            EnumSet<DiffFlags> flags = FLAGS.get(random.nextInt(FLAGS.size()));
+            List<String> composite = COMPOSITE_OBJECTS.get(random.nextInt(COMPOSITE_OBJECTS.size()));
+
+            JsonNode expected = JsonDiff.asJson(toJsonNode(source), toJsonNode(target), flags, composite);
+            JsonArray actual = VertxJsonDiff.asJson(source, target, flags, composite);
+
+            assertEquals(expected, mapper.readTree(actual.encode()), "Native diff differs from JsonDiff [flags=" + flags
+                    + ", composite=" + composite + ", source=" + source.encode() + ", target=" + target.encode() + "]");
+        }
+    }
+
+    @Test
+    public void testSilentFieldsMatchTreeRemoval() throws Exception {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonObject source = randomObject(random, 3);
+            JsonObject target = randomObject(random, 3);
+            List<String> silent = SILENT_FIELDS.get(random.nextInt(SILENT_FIELDS.size()));
+
+            JsonNode sourceNode = toJsonNode(source);
+            JsonNode targetNode = toJsonNode(target);
+            for (String field : silent) {
+                Differences.removeField(field.split("\\."), (ObjectNode) sourceNode, false);
+                Differences.removeField(field.split("\\."), (ObjectNode) targetNode, false);
+            }
+            JsonNode expected = JsonDiff.asJson(sourceNode, targetNode, Differences.diffFlags(), List.of());
+            JsonArray actual = VertxJsonDiff.asJson(source, target, Differences.diffFlags(), List.of(), silent);
+
+            assertEquals(expected, mapper.readTree(actual.encode()), "Silent fields differ from tree removal [silent="
+                    + silent + ", source=" + source.encode() + ", target=" + target.encode() + "]");
+        }
+    }
+
+    @Test
+    public void testPatchReachesTarget() {
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            JsonObject source = randomObject(random, 3);
+            JsonObject target = randomObject(random, 3);
+            EnumSet<DiffFlags> flags = FLAGS.get(random.nextInt(FLAGS.size()));
+
+            JsonArray patch = VertxJsonDiff.asJson(source, target, flags);
+            JsonObject copy = source.copy();
+
+            assertEquivalent(target, VertxJsonPatch.apply(patch, source), "Patch does not reach the target [patch=" + patch.encode() + "]");
+            assertEquals(toJsonNode(copy), toJsonNode(source), "Source was modified");
+
+            VertxJsonPatch.applyInPlace(patch, source);
+            assertEquivalent(target, source, "Patch applied in place does not reach the target [patch=" + patch.encode() + "]");
+        }
+    }
+
+    @Test
+    public void testTestOperationPrecedesMoveIntoEarlierAddition() {
+        JsonObject source = new JsonObject().put("a", new JsonArray()).put("b", 1.0).put("c", true);
+        JsonObject target = new JsonObject().put("a", new JsonArray().addNull().add(1.0));
+        EnumSet<DiffFlags> flags = EnumSet.of(DiffFlags.EMIT_TEST_OPERATIONS, DiffFlags.ADD_ORIGINAL_VALUE_ON_REPLACE);
+
+        JsonArray patch = VertxJsonDiff.asJson(source, target, flags);
+
+        assertEquals(new JsonObject().put("op", "test").put("path", "/b").put("value", 1.0), patch.getJsonObject(1));
+        assertEquivalent(target, VertxJsonPatch.apply(patch, source), "Patch does not reach the target [patch=" + patch.encode() + "]");
+    }
+
+    @Test
+    public void testDifferencesRoundTripAsJsonArray() {
+        JsonObject first = new JsonObject().put("a", 1).put("b", new JsonArray().add("x").add("y")).put("c", "secret");
+        JsonObject second = new JsonObject().put("a", 2).put("b", new JsonArray().add("y")).put("c", "other");
+
+        Differences differences = Differences.between(first, second, List.of("c"));
+
+        assertEquals(new JsonArray()
+                .add(new JsonObject().put("op", "replace").put("fromValue", 1).put("path", "/a").put("value", 2))
+                .add(new JsonObject().put("op", "replace").put("fromValue", new JsonArray().add("x").add("y")).put("path", "/b")
+                        .put("value", new JsonArray().add("y"))), differences.toJsonArray());
+        assertEquals(second.copy().put("c", "secret"), differences.applyTo(first));
+    }
+
+    @Test
+    public void testApplicationErrorsMatchJsonPatch() throws Exception {
+        JsonObject document = new JsonObject().put("a", new JsonArray().add(1)).put("b", "text");
+        List<String> patches = List.of(
+                "[{\"op\":\"remove\",\"path\":\"/a/3\"}]",
+                "[{\"op\":\"add\",\"path\":\"/a/5\",\"value\":1}]",
+                "[{\"op\":\"replace\",\"path\":\"/c\",\"value\":1}]",
+                "[{\"op\":\"add\",\"path\":\"/b/c\",\"value\":1}]",
+                "[{\"op\":\"test\",\"path\":\"/a/0\",\"value\":2}]",
+                "[{\"op\":\"move\",\"from\":\"/x/y\",\"path\":\"/b\"}]",
+                "[{\"op\":\"remove\",\"path\":\"\"}]");
+
+        for (String patch : patches) {
+            JsonPatchApplicationException expected = assertThrows(JsonPatchApplicationException.class,
+                    () -> JsonPatch.apply(mapper.readTree(patch), toJsonNode(document)));
+            JsonPatchApplicationException actual = assertThrows(JsonPatchApplicationException.class,
+                    () -> VertxJsonPatch.apply(new JsonArray(patch), document));
+
+            assertEquals(expected.toString(), actual.toString(), "Unexpected error for " + patch);
+        }
+        assertThrows(InvalidJsonPatchException.class, () -> VertxJsonPatch.apply(new JsonArray("[{\"op\":\"add\",\"path\":\"/a\"}]"), document));
+    }
+
+    private static void assertEquivalent(JsonObject expected, JsonObject actual, String message) {
+        // Numbers of different types that compare equal are not patched
+        assertTrue(toJsonNode(expected).equals(JsonNodeComparator.getInstance(), toJsonNode(actual)),
+                message + " ==> expected: <" + expected.encode() + "> but was: <" + actual.encode() + ">");
+    }
+
+    private static JsonNode toJsonNode(Object value) {
+        return VertxJson.toJsonNode(value, mapper);
+    }
+
+    private static JsonObject randomObject(Random random, int depth) {
+        JsonObject object = new JsonObject();
+        for (String key : List.of("a", "b", "c", "d")) {
+            if (random.nextBoolean()) {
+                object.put(key, randomValue(random, depth - 1));
+            }
+        }
+        return object;
+    }
+
+    private static JsonArray randomArray(Random random, int depth) {
+        JsonArray array = new JsonArray();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            array.add(randomValue(random, depth - 1));
+        }
+        return array;
+    }
+
+    private static Object randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 8 : 6)) {
+            case 0:
+                return null;
+            case 1:
+                return random.nextInt(3);
+            case 2:
+                return random.nextBoolean() ? 2L : 1.5;
+            case 3:
+                return random.nextBoolean() ? "s" : "t";
+            case 4:
+                return random.nextBoolean();
+            case 5:
+                return random.nextBoolean() ? 1.0 : 3000000000L;
+            case 6:
+                return randomObject(random, depth);
+            default:
+                return randomArray(random, depth);
+        }
+    }
+}
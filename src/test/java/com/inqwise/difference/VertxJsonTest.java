@@ -0,0 +1,59 @@
+package com.inqwise.difference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class VertxJsonTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public enum Color {
+        RED
+    }
+
+    @Test
+    public void testConversionMatchesEncodedJson() throws Exception {
+        JsonObject object = new JsonObject()
+                .put("text", "a\"b")
+                .put("int", 1)
+                .put("long", Long.MAX_VALUE)
+                .put("double", 0.1)
+                .put("float", 0.1f)
+                .put("bigDecimal", new BigDecimal("1.25"))
+                .put("bigInteger", new BigInteger("123456789012345678901234567890"))
+                .put("bool", true)
+                .putNull("null")
+                .put("instant", Instant.parse("2024-01-01T10:00:00Z"))
+                .put("bytes", new byte[] { 1, 2, 3, (byte) 250 })
+                .put("buffer", Buffer.buffer("buffer"))
+                .put("enum", Color.RED)
+                .put("nested", new JsonObject().put("array", new JsonArray().add(1).add(new JsonObject().put("a", "b"))))
+                .put("map", Map.of("k", List.of(1, "two")));
+
+        assertEquals(mapper.readTree(object.encode()), VertxJson.toJsonNode(object, mapper));
+    }
+
+    @Test
+    public void testDifferencesBetweenJsonObjects() {
+        JsonObject first = new JsonObject().put("a", 1).put("b", new JsonArray().add("x"));
+        JsonObject second = new JsonObject().put("a", 2).put("b", new JsonArray().add("x"));
+
+        Differences differences = Differences.between(first, second, List.of());
+
+        assertEquals(1, differences.size());
+        assertEquals("/a", differences.iterator().next().getPath());
+    }
+}